@@ -27,8 +27,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.util.List;
 import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.GroupCommand;
+import org.bremersee.groupman.model.GroupCommandResult;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -38,6 +44,8 @@ import reactor.core.publisher.Mono;
 /**
  * The group admin controller interface.
  *
+ * <p>Wherever json is supported, Smile (application/x-jackson-smile) is supported as well.
+ *
  * @author Christian Bremer
  */
 @Tag(name = "group-admin-controller", description = "The group admin API.")
@@ -45,8 +53,11 @@ import reactor.core.publisher.Mono;
 public interface GroupAdminWebfluxControllerApi {
 
   /**
-   * Finds groups.
+   * Finds groups ordered by their IDs. The result can be fetched page by page: the next page
+   * starts after the ID of the last group of the previous page.
    *
+   * @param after the ID after which the page starts
+   * @param limit the maximum size of the page
    * @return the groups
    */
   @Operation(
@@ -60,15 +71,26 @@ public interface GroupAdminWebfluxControllerApi {
           content = @Content(
               array = @ArraySchema(
                   schema = @Schema(implementation = Group.class)))),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Illegal limit",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class))),
       @ApiResponse(
           responseCode = "403",
           description = "Forbidden")
   })
   @RequestMapping(
       value = "/api/admin/groups",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile", "application/x-ndjson",
+          "text/event-stream"},
       method = RequestMethod.GET)
-  Flux<Group> findGroups();
+  Flux<Group> findGroups(
+      @Parameter(description = "The ID of the last group of the previous page.")
+      @RequestParam(value = "after", required = false) String after,
+      @Parameter(description = "The maximum number of groups.")
+      @RequestParam(value = "limit", required = false) Integer limit);
 
   /**
    * Adds group.
@@ -105,8 +127,8 @@ public interface GroupAdminWebfluxControllerApi {
   })
   @RequestMapping(
       value = "/api/admin/groups",
-      produces = {"application/json"},
-      consumes = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.POST)
   Mono<Group> addGroup(
       @Parameter(description = "The new group.", required = true) @Valid @RequestBody Group group);
@@ -115,6 +137,7 @@ public interface GroupAdminWebfluxControllerApi {
    * Finds group by id.
    *
    * @param id the group id
+   * @param ifNoneMatch the entity tags of cached representations
    * @return the group by id
    */
   @Operation(
@@ -128,6 +151,9 @@ public interface GroupAdminWebfluxControllerApi {
           content = @Content(
               schema = @Schema(
                   implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "304",
+          description = "Not Modified"),
       @ApiResponse(
           responseCode = "404",
           description = "Not Found",
@@ -140,16 +166,19 @@ public interface GroupAdminWebfluxControllerApi {
   })
   @RequestMapping(
       value = "/api/admin/groups/{id}",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.GET)
-  Mono<Group> findGroupById(
-      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id);
+  Mono<ResponseEntity<Group>> findGroupById(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The entity tags of cached representations.")
+      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch);
 
   /**
    * Modifies group.
    *
    * @param groupId the group id
    * @param group the group
+   * @param ifMatch the entity tag of the group that is expected to be updated
    * @return the group
    */
   @Operation(
@@ -177,16 +206,21 @@ public interface GroupAdminWebfluxControllerApi {
           description = "Not Found",
           content = @Content(
               schema = @Schema(
-                  implementation = org.bremersee.exception.model.RestApiException.class)))
+                  implementation = org.bremersee.exception.model.RestApiException.class))),
+      @ApiResponse(
+          responseCode = "412",
+          description = "The group does not match the 'If-Match' header")
   })
   @RequestMapping(
       value = "/api/admin/groups/{id}",
-      produces = {"application/json"},
-      consumes = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.PUT)
-  Mono<Group> modifyGroup(
+  Mono<ResponseEntity<Group>> modifyGroup(
       @Parameter(description = "The group ID.", required = true) @PathVariable("id") String groupId,
-      @Parameter(description = "The group.", required = true) @Valid @RequestBody Group group);
+      @Parameter(description = "The group.", required = true) @Valid @RequestBody Group group,
+      @Parameter(description = "The entity tag of the group that is expected to be updated.")
+      @RequestHeader(value = "If-Match", required = false) String ifMatch);
 
   /**
    * Removes group.
@@ -235,10 +269,272 @@ public interface GroupAdminWebfluxControllerApi {
   })
   @RequestMapping(
       value = "/api/admin/groups/f",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile", "application/x-ndjson",
+          "text/event-stream"},
       method = RequestMethod.GET)
   Flux<Group> findGroupsByIds(
       @Parameter(description = "Group IDs")
       @RequestParam(value = "id", required = false) List<String> id);
 
-}
\ No newline at end of file
+  /**
+   * Adds a member to the group. Only the member is sent and the members are changed
+   * atomically, so concurrent changes of the members are not lost.
+   *
+   * @param id the group id
+   * @param userName the user name of the member
+   * @return the updated group
+   */
+  @Operation(
+      summary = "Add a member to the group.",
+      operationId = "addMember",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The updated group.",
+          content = @Content(
+              schema = @Schema(
+                  implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "404",
+          description = "Not Found",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class)))
+  })
+  @RequestMapping(
+      value = "/api/admin/groups/{id}/members/{userName}",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.PUT)
+  Mono<ResponseEntity<Group>> addMember(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The user name of the member.", required = true)
+      @PathVariable("userName") String userName);
+
+  /**
+   * Removes a member from the group. Only the member is sent and the members are changed
+   * atomically, so concurrent changes of the members are not lost.
+   *
+   * @param id the group id
+   * @param userName the user name of the member
+   * @return the updated group
+   */
+  @Operation(
+      summary = "Remove a member from the group.",
+      operationId = "removeMember",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The updated group.",
+          content = @Content(
+              schema = @Schema(
+                  implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "404",
+          description = "Not Found",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class)))
+  })
+  @RequestMapping(
+      value = "/api/admin/groups/{id}/members/{userName}",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.DELETE)
+  Mono<ResponseEntity<Group>> removeMember(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The user name of the member.", required = true)
+      @PathVariable("userName") String userName);
+
+  /**
+   * Adds an owner to the group. Only the owner is sent and the owners are changed
+   * atomically, so concurrent changes of the owners are not lost.
+   *
+   * @param id the group id
+   * @param userName the user name of the owner
+   * @return the updated group
+   */
+  @Operation(
+      summary = "Add an owner to the group.",
+      operationId = "addOwner",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The updated group.",
+          content = @Content(
+              schema = @Schema(
+                  implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "404",
+          description = "Not Found",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class)))
+  })
+  @RequestMapping(
+      value = "/api/admin/groups/{id}/owners/{userName}",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.PUT)
+  Mono<ResponseEntity<Group>> addOwner(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The user name of the owner.", required = true)
+      @PathVariable("userName") String userName);
+
+  /**
+   * Removes an owner from the group. Only the owner is sent and the owners are changed
+   * atomically, so concurrent changes of the owners are not lost.
+   *
+   * @param id the group id
+   * @param userName the user name of the owner
+   * @return the updated group
+   */
+  @Operation(
+      summary = "Remove an owner from the group.",
+      operationId = "removeOwner",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The updated group.",
+          content = @Content(
+              schema = @Schema(
+                  implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "404",
+          description = "Not Found",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class)))
+  })
+  @RequestMapping(
+      value = "/api/admin/groups/{id}/owners/{userName}",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.DELETE)
+  Mono<ResponseEntity<Group>> removeOwner(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The user name of the owner.", required = true)
+      @PathVariable("userName") String userName);
+
+  /**
+   * Executes a batch of commands, that create, update or delete groups. The commands are applied
+   * in one pass in their order, and a failed command does not stop the batch, so every command
+   * gets its own result.
+   * The reactive variant consumes and produces also newline delimited json, so that the commands
+   * can be streamed and each result is emitted as soon as its command is applied.
+   *
+   * @param commands the commands
+   * @return the results of the commands
+   */
+  @Operation(
+      summary = "Execute a batch of commands, that create, update or delete groups.",
+      operationId = "executeBatch",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The results of the commands.",
+          content = @Content(
+              array = @ArraySchema(
+                  schema = @Schema(implementation = GroupCommandResult.class)))),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Bad Request",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class))),
+      @ApiResponse(
+          responseCode = "403",
+          description = "Forbidden")
+  })
+  @RequestMapping(
+      value = "/api/admin/groups/f/batch",
+      produces = {"application/json", "application/x-jackson-smile", "application/x-ndjson"},
+      consumes = {"application/json", "application/x-jackson-smile", "application/x-ndjson"},
+      method = RequestMethod.POST)
+  Flux<GroupCommandResult> executeBatch(
+      @Parameter(description = "The commands.", required = true)
+      @RequestBody Flux<GroupCommand> commands);
+
+  /**
+   * Gets the changes of all groups as an endless stream. The stream starts with the retained
+   * changes after the given sequence number and continues with new changes, so a consumer can
+   * resume it with the sequence number of the last change it has seen.
+   *
+   * @param after the sequence number of the last seen change
+   * @return the changes
+   */
+  @Operation(
+      summary = "Get changes of all groups.",
+      operationId = "getChanges",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The changes.",
+          content = @Content(
+              array = @ArraySchema(
+                  schema = @Schema(implementation = GroupChangeEvent.class)))),
+      @ApiResponse(
+          responseCode = "400",
+          description = "The sequence number is negative",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class))),
+      @ApiResponse(
+          responseCode = "410",
+          description = "Changes after the given sequence number are no longer available or the"
+              + " sequence number is unknown")
+  })
+  @RequestMapping(
+      value = "/api/admin/groups/f/changes",
+      produces = {"application/x-ndjson"},
+      method = RequestMethod.GET)
+  Flux<GroupChangeEvent> getChanges(
+      @Parameter(description = "The sequence number of the last seen change.")
+      @RequestParam(value = "after", required = false) Long after);
+
+  /**
+   * Gets the changes of all groups as an endless stream of server-sent events. The id of each
+   * event is the sequence number of its change, so an event source that reconnects resumes the
+   * stream with the {@code Last-Event-ID} header.
+   *
+   * @param after the sequence number of the last seen change, takes precedence over the
+   *     {@code Last-Event-ID} header
+   * @param lastEventId the id of the last event the event source has seen
+   * @return the change events
+   */
+  @Operation(
+      summary = "Get change events of all groups.",
+      operationId = "getChangeEvents",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The change events.",
+          content = @Content(
+              array = @ArraySchema(
+                  schema = @Schema(implementation = GroupChangeEvent.class)))),
+      @ApiResponse(
+          responseCode = "400",
+          description = "The sequence number is negative or the last event ID is not a sequence"
+              + " number",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class))),
+      @ApiResponse(
+          responseCode = "410",
+          description = "Changes after the given sequence number are no longer available or the"
+              + " sequence number is unknown")
+  })
+  @RequestMapping(
+      value = "/api/admin/groups/f/changes",
+      produces = {"text/event-stream"},
+      method = RequestMethod.GET)
+  Flux<ServerSentEvent<GroupChangeEvent>> getChangeEvents(
+      @Parameter(description = "The sequence number of the last seen change.")
+      @RequestParam(value = "after", required = false) Long after,
+      @Parameter(description = "The id of the last seen event.")
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId);
+
+}
@@ -18,6 +18,7 @@ package org.bremersee.groupman.api;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -27,10 +28,16 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.util.List;
 import java.util.Set;
+import org.bremersee.groupman.model.ContinuationToken;
 import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.Membership;
 import org.bremersee.groupman.model.Status;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -40,6 +47,8 @@ import reactor.core.publisher.Mono;
 /**
  * The group controller interface.
  *
+ * <p>Wherever json is supported, Smile (application/x-jackson-smile) is supported as well.
+ *
  * @author Christian Bremer
  */
 @Tag(name = "group-controller", description = "The group API.")
@@ -78,8 +87,8 @@ public interface GroupWebfluxControllerApi {
   })
   @RequestMapping(
       value = "/api/groups",
-      produces = {"application/json"},
-      consumes = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.POST)
   Mono<Group> createGroup(
       @Parameter(description = "The new group.", required = true) @Valid @RequestBody Group group);
@@ -88,6 +97,7 @@ public interface GroupWebfluxControllerApi {
    * Gets group by id.
    *
    * @param id the group id
+   * @param ifNoneMatch the entity tags of cached representations
    * @return the group by id
    */
   @Operation(
@@ -101,6 +111,9 @@ public interface GroupWebfluxControllerApi {
           content = @Content(
               schema = @Schema(
                   implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "304",
+          description = "Not Modified"),
       @ApiResponse(
           responseCode = "404",
           description = "Not Found",
@@ -110,16 +123,19 @@ public interface GroupWebfluxControllerApi {
   })
   @RequestMapping(
       value = "/api/groups/{id}",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.GET)
-  Mono<Group> getGroupById(
-      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id);
+  Mono<ResponseEntity<Group>> getGroupById(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The entity tags of cached representations.")
+      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch);
 
   /**
    * Update group.
    *
    * @param id the group id
    * @param group the group
+   * @param ifMatch the entity tag of the group that is expected to be updated
    * @return the group
    */
   @Operation(
@@ -153,16 +169,21 @@ public interface GroupWebfluxControllerApi {
           description = "Version is not up to date",
           content = @Content(
               schema = @Schema(
-                  implementation = org.bremersee.exception.model.RestApiException.class)))
+                  implementation = org.bremersee.exception.model.RestApiException.class))),
+      @ApiResponse(
+          responseCode = "412",
+          description = "The group does not match the 'If-Match' header")
   })
   @RequestMapping(
       value = "/api/groups/{id}",
-      produces = {"application/json"},
-      consumes = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.PUT)
-  Mono<Group> updateGroup(
+  Mono<ResponseEntity<Group>> updateGroup(
       @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
-      @Parameter(description = "The group.", required = true) @Valid @RequestBody Group group);
+      @Parameter(description = "The group.", required = true) @Valid @RequestBody Group group,
+      @Parameter(description = "The entity tag of the group that is expected to be updated.")
+      @RequestHeader(value = "If-Match", required = false) String ifMatch);
 
   /**
    * Delete group.
@@ -214,15 +235,20 @@ public interface GroupWebfluxControllerApi {
   })
   @RequestMapping(
       value = "/api/groups/f",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile", "application/x-ndjson",
+          "text/event-stream"},
       method = RequestMethod.GET)
   Flux<Group> getGroupsByIds(
       @Parameter(description = "Group IDs")
       @RequestParam(value = "id", required = false) List<String> id);
 
   /**
-   * Gets editable groups.
+   * Gets editable groups ordered by their IDs. The result can be fetched page by page with the
+   * continuation token of the next page, that is returned in the header
+   * {@value org.bremersee.groupman.model.ContinuationToken#HEADER_NAME}, if the page is full.
    *
+   * @param continuation the continuation token
+   * @param limit the maximum size of the page, must not be negative
    * @return the editable groups
    */
   @Operation(
@@ -233,19 +259,37 @@ public interface GroupWebfluxControllerApi {
       @ApiResponse(
           responseCode = "200",
           description = "The groups.",
+          headers = @Header(
+              name = ContinuationToken.HEADER_NAME,
+              description = "The continuation token of the next page."),
           content = @Content(
               array = @ArraySchema(
-                  schema = @Schema(implementation = Group.class))))
+                  schema = @Schema(implementation = Group.class)))),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Illegal continuation token or limit",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class)))
   })
   @RequestMapping(
       value = "/api/groups/f/editable",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile", "application/x-ndjson",
+          "text/event-stream"},
       method = RequestMethod.GET)
-  Flux<Group> getEditableGroups();
+  Mono<ResponseEntity<Flux<Group>>> getEditableGroups(
+      @Parameter(description = "The continuation token of the next page.")
+      @RequestParam(value = "continuation", required = false) String continuation,
+      @Parameter(description = "The maximum number of groups.")
+      @RequestParam(value = "limit", required = false) Integer limit);
 
   /**
-   * Gets usable groups.
+   * Gets usable groups ordered by their IDs. The result can be fetched page by page with the
+   * continuation token of the next page, that is returned in the header
+   * {@value org.bremersee.groupman.model.ContinuationToken#HEADER_NAME}, if the page is full.
    *
+   * @param continuation the continuation token
+   * @param limit the maximum size of the page, must not be negative
    * @return the usable groups
    */
   @Operation(
@@ -256,19 +300,37 @@ public interface GroupWebfluxControllerApi {
       @ApiResponse(
           responseCode = "200",
           description = "The groups.",
+          headers = @Header(
+              name = ContinuationToken.HEADER_NAME,
+              description = "The continuation token of the next page."),
           content = @Content(
               array = @ArraySchema(
-                  schema = @Schema(implementation = Group.class))))
+                  schema = @Schema(implementation = Group.class)))),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Illegal continuation token or limit",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class)))
   })
   @RequestMapping(
       value = "/api/groups/f/usable",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile", "application/x-ndjson",
+          "text/event-stream"},
       method = RequestMethod.GET)
-  Flux<Group> getUsableGroups();
+  Mono<ResponseEntity<Flux<Group>>> getUsableGroups(
+      @Parameter(description = "The continuation token of the next page.")
+      @RequestParam(value = "continuation", required = false) String continuation,
+      @Parameter(description = "The maximum number of groups.")
+      @RequestParam(value = "limit", required = false) Integer limit);
 
   /**
-   * Gets membership.
+   * Gets membership ordered by their IDs. The result can be fetched page by page with the
+   * continuation token of the next page, that is returned in the header
+   * {@value org.bremersee.groupman.model.ContinuationToken#HEADER_NAME}, if the page is full.
    *
+   * @param continuation the continuation token
+   * @param limit the maximum size of the page, must not be negative
    * @return the membership
    */
   @Operation(
@@ -279,19 +341,34 @@ public interface GroupWebfluxControllerApi {
       @ApiResponse(
           responseCode = "200",
           description = "The groups.",
+          headers = @Header(
+              name = ContinuationToken.HEADER_NAME,
+              description = "The continuation token of the next page."),
           content = @Content(
               array = @ArraySchema(
-                  schema = @Schema(implementation = Group.class))))
+                  schema = @Schema(implementation = Group.class)))),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Illegal continuation token or limit",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class)))
   })
   @RequestMapping(
       value = "/api/groups/f/membership",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile", "application/x-ndjson",
+          "text/event-stream"},
       method = RequestMethod.GET)
-  Flux<Group> getMembership();
+  Mono<ResponseEntity<Flux<Group>>> getMembership(
+      @Parameter(description = "The continuation token of the next page.")
+      @RequestParam(value = "continuation", required = false) String continuation,
+      @Parameter(description = "The maximum number of groups.")
+      @RequestParam(value = "limit", required = false) Integer limit);
 
   /**
    * Gets membership ids.
    *
+   * @param ifNoneMatch the entity tags of cached representations
    * @return the membership ids
    */
   @Operation(
@@ -304,17 +381,57 @@ public interface GroupWebfluxControllerApi {
           description = "The group IDs.",
           content = @Content(
               array = @ArraySchema(
-                  schema = @Schema(implementation = String.class))))
+                  schema = @Schema(implementation = String.class)))),
+      @ApiResponse(
+          responseCode = "304",
+          description = "Not Modified")
   })
   @RequestMapping(
       value = "/api/groups/f/membership-ids",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.GET)
-  Mono<Set<String>> getMembershipIds();
+  Mono<ResponseEntity<Set<String>>> getMembershipIds(
+      @Parameter(description = "The entity tags of cached representations.")
+      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch);
+
+  /**
+   * Checks whether the users are members of the groups. Instead of getting the membership IDs of
+   * every user, many memberships can be checked with one request.
+   *
+   * @param memberships the memberships to check
+   * @return the results in the order of the memberships
+   */
+  @Operation(
+      summary = "Check memberships.",
+      operationId = "checkMemberships",
+      tags = {"group-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "For each membership whether the user is a member of the group.",
+          content = @Content(
+              array = @ArraySchema(
+                  schema = @Schema(implementation = Boolean.class)))),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Bad Request",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class)))
+  })
+  @RequestMapping(
+      value = "/api/groups/f/membership-check",
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.POST)
+  Flux<Boolean> checkMemberships(
+      @Parameter(description = "The memberships to check.", required = true)
+      @RequestBody Flux<Membership> memberships);
 
   /**
    * Get status of the current user.
    *
+   * @param ifNoneMatch the entity tags of cached representations
    * @return the status
    */
   @Operation(
@@ -327,12 +444,228 @@ public interface GroupWebfluxControllerApi {
           description = "The user status.",
           content = @Content(
               schema = @Schema(
-                  implementation = Status.class)))
+                  implementation = Status.class))),
+      @ApiResponse(
+          responseCode = "304",
+          description = "Not Modified")
   })
   @RequestMapping(
       value = "/api/groups/f/status",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.GET)
+  Mono<ResponseEntity<Status>> getStatus(
+      @Parameter(description = "The entity tags of cached representations.")
+      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch);
+
+  /**
+   * Adds a member to the group. Only the member is sent and the members are changed
+   * atomically, so concurrent changes of the members are not lost.
+   *
+   * @param id the group id
+   * @param userName the user name of the member
+   * @return the updated group
+   */
+  @Operation(
+      summary = "Add a member to the group.",
+      operationId = "addMember",
+      tags = {"group-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The updated group.",
+          content = @Content(
+              schema = @Schema(
+                  implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "403",
+          description = "Forbidden")
+  })
+  @RequestMapping(
+      value = "/api/groups/{id}/members/{userName}",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.PUT)
+  Mono<ResponseEntity<Group>> addMember(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The user name of the member.", required = true)
+      @PathVariable("userName") String userName);
+
+  /**
+   * Removes a member from the group. Only the member is sent and the members are changed
+   * atomically, so concurrent changes of the members are not lost.
+   *
+   * @param id the group id
+   * @param userName the user name of the member
+   * @return the updated group
+   */
+  @Operation(
+      summary = "Remove a member from the group.",
+      operationId = "removeMember",
+      tags = {"group-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The updated group.",
+          content = @Content(
+              schema = @Schema(
+                  implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "403",
+          description = "Forbidden")
+  })
+  @RequestMapping(
+      value = "/api/groups/{id}/members/{userName}",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.DELETE)
+  Mono<ResponseEntity<Group>> removeMember(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The user name of the member.", required = true)
+      @PathVariable("userName") String userName);
+
+  /**
+   * Adds an owner to the group. Only the owner is sent and the owners are changed
+   * atomically, so concurrent changes of the owners are not lost.
+   *
+   * @param id the group id
+   * @param userName the user name of the owner
+   * @return the updated group
+   */
+  @Operation(
+      summary = "Add an owner to the group.",
+      operationId = "addOwner",
+      tags = {"group-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The updated group.",
+          content = @Content(
+              schema = @Schema(
+                  implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "403",
+          description = "Forbidden")
+  })
+  @RequestMapping(
+      value = "/api/groups/{id}/owners/{userName}",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.PUT)
+  Mono<ResponseEntity<Group>> addOwner(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The user name of the owner.", required = true)
+      @PathVariable("userName") String userName);
+
+  /**
+   * Removes an owner from the group. Only the owner is sent and the owners are changed
+   * atomically, so concurrent changes of the owners are not lost.
+   *
+   * @param id the group id
+   * @param userName the user name of the owner
+   * @return the updated group
+   */
+  @Operation(
+      summary = "Remove an owner from the group.",
+      operationId = "removeOwner",
+      tags = {"group-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The updated group.",
+          content = @Content(
+              schema = @Schema(
+                  implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "403",
+          description = "Forbidden")
+  })
+  @RequestMapping(
+      value = "/api/groups/{id}/owners/{userName}",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.DELETE)
+  Mono<ResponseEntity<Group>> removeOwner(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The user name of the owner.", required = true)
+      @PathVariable("userName") String userName);
+
+  /**
+   * Gets the changes of the groups the current user has created, owns or is a member of as an
+   * endless stream. The stream starts with the retained changes after the given sequence number
+   * and continues with new changes, so a consumer can resume it with the sequence number of the
+   * last change it has seen.
+   *
+   * @param after the sequence number of the last seen change
+   * @return the changes
+   */
+  @Operation(
+      summary = "Get changes of the groups of the current user.",
+      operationId = "getChanges",
+      tags = {"group-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The changes.",
+          content = @Content(
+              array = @ArraySchema(
+                  schema = @Schema(implementation = GroupChangeEvent.class)))),
+      @ApiResponse(
+          responseCode = "400",
+          description = "The sequence number is negative",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class))),
+      @ApiResponse(
+          responseCode = "410",
+          description = "Changes after the given sequence number are no longer available or the"
+              + " sequence number is unknown")
+  })
+  @RequestMapping(
+      value = "/api/groups/f/changes",
+      produces = {"application/x-ndjson"},
+      method = RequestMethod.GET)
+  Flux<GroupChangeEvent> getChanges(
+      @Parameter(description = "The sequence number of the last seen change.")
+      @RequestParam(value = "after", required = false) Long after);
+
+  /**
+   * Gets the changes of the groups the current user has created, owns or is a member of as an
+   * endless stream of server-sent events. The id of each event is the sequence number of its
+   * change, so an event source that reconnects resumes the stream with the {@code Last-Event-ID}
+   * header.
+   *
+   * @param after the sequence number of the last seen change, takes precedence over the
+   *     {@code Last-Event-ID} header
+   * @param lastEventId the id of the last event the event source has seen
+   * @return the change events
+   */
+  @Operation(
+      summary = "Get change events of the groups of the current user.",
+      operationId = "getChangeEvents",
+      tags = {"group-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The change events.",
+          content = @Content(
+              array = @ArraySchema(
+                  schema = @Schema(implementation = GroupChangeEvent.class)))),
+      @ApiResponse(
+          responseCode = "400",
+          description = "The sequence number is negative or the last event ID is not a sequence"
+              + " number",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class))),
+      @ApiResponse(
+          responseCode = "410",
+          description = "Changes after the given sequence number are no longer available or the"
+              + " sequence number is unknown")
+  })
+  @RequestMapping(
+      value = "/api/groups/f/changes",
+      produces = {"text/event-stream"},
       method = RequestMethod.GET)
-  Mono<Status> getStatus();
+  Flux<ServerSentEvent<GroupChangeEvent>> getChangeEvents(
+      @Parameter(description = "The sequence number of the last seen change.")
+      @RequestParam(value = "after", required = false) Long after,
+      @Parameter(description = "The id of the last seen event.")
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId);
 
 }
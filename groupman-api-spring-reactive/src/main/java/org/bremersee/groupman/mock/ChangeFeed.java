@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * The change feed of a group repository as flux. The flux reads the change log of the
+ * repository only as far as it is requested, so slow consumers do not buffer changes; they just
+ * fall behind and receive the changes later.
+ *
+ * @author Christian Bremer
+ */
+abstract class ChangeFeed {
+
+  private static final int BATCH_SIZE = 256;
+
+  /**
+   * Creates an endless flux of changes. It starts with the retained changes after the given
+   * sequence number and continues with new changes.
+   *
+   * @param repository the group repository
+   * @param userName the user name, if present only the changes that concern the user are emitted
+   * @param after the sequence number of the last seen change, if {@code null} all retained
+   *     changes are emitted first
+   * @return the changes
+   */
+  static Flux<GroupChangeEvent> changes(GroupRepository repository, String userName, Long after) {
+    return Flux.create(sink -> new Drain(repository, sink, userName, after).start());
+  }
+
+  /**
+   * Creates the server-sent events of the given changes. The id of each event is the sequence
+   * number of its change, so a reconnecting event source resumes the feed with the
+   * {@code Last-Event-ID} header.
+   *
+   * @param changes the changes
+   * @return the server-sent events
+   */
+  static Flux<ServerSentEvent<GroupChangeEvent>> events(Flux<GroupChangeEvent> changes) {
+    return changes.map(change -> ServerSentEvent.builder(change)
+        .id(String.valueOf(change.getSequence()))
+        .build());
+  }
+
+  /**
+   * Determines the sequence number of the last seen change. The request parameter has
+   * precedence over the {@code Last-Event-ID} header of a reconnecting event source.
+   *
+   * @param after the sequence number of the last seen change from the request parameter
+   * @param lastEventId the {@code Last-Event-ID} header
+   * @return the sequence number of the last seen change, may be {@code null}
+   * @throws ResponseStatusException if the header is not a sequence number
+   */
+  static Long resumeAfter(Long after, String lastEventId) {
+    if (after != null || lastEventId == null || lastEventId.trim().isEmpty()) {
+      return after;
+    }
+    try {
+      return Long.valueOf(lastEventId.trim());
+    } catch (NumberFormatException e) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "Last-Event-ID is not a sequence number: " + lastEventId, e);
+    }
+  }
+
+  /**
+   * Emits the changes of the change log as far as they are requested. It is triggered by new
+   * requests and by new changes; only one thread drains at a time.
+   */
+  private static final class Drain implements Consumer<GroupChangeEvent> {
+
+    private final GroupRepository repository;
+
+    private final FluxSink<GroupChangeEvent> sink;
+
+    private final String userName;
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private Long after;
+
+    private Drain(
+        GroupRepository repository,
+        FluxSink<GroupChangeEvent> sink,
+        String userName,
+        Long after) {
+      this.repository = repository;
+      this.sink = sink;
+      this.userName = userName;
+      this.after = after;
+    }
+
+    private void start() {
+      repository.addChangeListener(this);
+      sink.onDispose(() -> repository.removeChangeListener(this));
+      sink.onRequest(n -> drain());
+      drain();
+    }
+
+    @Override
+    public void accept(GroupChangeEvent event) {
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        long requested = sink.requestedFromDownstream();
+        while (requested > 0L && !sink.isCancelled()) {
+          long last = repository.getChangeSequence();
+          int limit = (int) Math.min(requested, BATCH_SIZE);
+          List<GroupChangeEvent> changes;
+          try {
+            changes = repository.getChanges(userName, after, limit);
+          } catch (IllegalArgumentException e) {
+            sink.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e));
+            return;
+          } catch (IllegalStateException e) {
+            sink.error(new ResponseStatusException(HttpStatus.GONE, e.getMessage(), e));
+            return;
+          } catch (RuntimeException e) {
+            sink.error(e);
+            return;
+          }
+          for (GroupChangeEvent change : changes) {
+            sink.next(change);
+          }
+          if (changes.size() < limit) {
+            // all changes up to the last sequence number have been read
+            after = changes.isEmpty()
+                ? last
+                : Math.max(last, changes.get(changes.size() - 1).getSequence());
+            break;
+          }
+          after = changes.get(changes.size() - 1).getSequence();
+          requested -= changes.size();
+        }
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+  }
+}
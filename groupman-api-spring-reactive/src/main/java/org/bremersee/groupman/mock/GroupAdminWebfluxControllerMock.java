@@ -17,9 +17,17 @@
 package org.bremersee.groupman.mock;
 
 import java.util.List;
+import java.util.Objects;
 import org.bremersee.exception.ServiceException;
 import org.bremersee.groupman.api.GroupAdminWebfluxControllerApi;
 import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.GroupCommand;
+import org.bremersee.groupman.model.GroupCommandResult;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -30,43 +38,110 @@ import reactor.core.publisher.Mono;
  */
 public class GroupAdminWebfluxControllerMock implements GroupAdminWebfluxControllerApi {
 
+  private final ReactiveGroupRepository repository;
+
+  /**
+   * Instantiates a new group admin controller mock.
+   */
+  public GroupAdminWebfluxControllerMock() {
+    this(null);
+  }
+
+  /**
+   * Instantiates a new group admin controller mock.
+   *
+   * @param repository the group repository, if {@code null} the shared repository of {@link
+   *     GroupRepositoryMock} is used
+   */
+  public GroupAdminWebfluxControllerMock(ReactiveGroupRepository repository) {
+    this.repository = Objects.requireNonNullElseGet(
+        repository,
+        () -> new ReactiveGroupRepositoryAdapter(GroupRepositoryMock.getRepository()));
+  }
+
   @Override
-  public Flux<Group> findGroups() {
-    return Flux.just(GroupRepositoryMock.getGroups().toArray(new Group[0]));
+  public Flux<Group> findGroups(String after, Integer limit) {
+    return Flux.defer(() -> repository.getGroups(after, limit)).onErrorMap(
+        IllegalArgumentException.class,
+        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e));
   }
 
   @Override
   public Mono<Group> addGroup(Group group) {
-    return Mono.justOrEmpty(GroupRepositoryMock.createGroup(group));
+    return repository.createGroup(group);
+  }
+
+  @Override
+  public Mono<ResponseEntity<Group>> findGroupById(String groupId, String ifNoneMatch) {
+    return repository.getGroupById(groupId)
+        .switchIfEmpty(Mono.defer(() -> Mono.error(ServiceException.notFound("Group", groupId))))
+        .map(group -> ConditionalResponses.ok(EntityTags.of(group), ifNoneMatch, () -> group));
+  }
+
+  @Override
+  public Mono<ResponseEntity<Group>> modifyGroup(String groupId, Group group, String ifMatch) {
+    return ConditionalResponses.update(
+        ifMatch,
+        expectedVersion -> repository.updateGroup(groupId, group, expectedVersion),
+        () -> ServiceException.notFound("Group", groupId));
+  }
+
+  @Override
+  public Mono<ResponseEntity<Group>> addMember(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.addMember(id, userName),
+        () -> ServiceException.notFound("Group", id));
+  }
+
+  @Override
+  public Mono<ResponseEntity<Group>> removeMember(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.removeMember(id, userName),
+        () -> ServiceException.notFound("Group", id));
+  }
+
+  @Override
+  public Mono<ResponseEntity<Group>> addOwner(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.addOwner(id, userName),
+        () -> ServiceException.notFound("Group", id));
   }
 
   @Override
-  public Mono<Group> findGroupById(String groupId) {
-    Group group = GroupRepositoryMock.getGroupById(groupId);
-    if (group == null) {
-      return Mono.error(ServiceException.notFound("Group", groupId));
-    }
-    return Mono.just(group);
+  public Mono<ResponseEntity<Group>> removeOwner(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.removeOwner(id, userName),
+        () -> ServiceException.notFound("Group", id));
   }
 
   @Override
-  public Mono<Group> modifyGroup(String groupId, Group group) {
-    Group newGroup = GroupRepositoryMock.updateGroup(groupId, group);
-    if (newGroup == null) {
-      return Mono.error(ServiceException.notFound("Group", groupId));
-    }
-    return Mono.just(newGroup);
+  public Flux<GroupCommandResult> executeBatch(Flux<GroupCommand> commands) {
+    return repository.execute(commands);
   }
 
   @Override
   public Mono<Void> removeGroup(String groupId) {
-    GroupRepositoryMock.deleteGroup(groupId);
-    return Mono.empty();
+    return repository.deleteGroup(groupId, null).then();
   }
 
   @Override
   public Flux<Group> findGroupsByIds(List<String> ids) {
-    return Flux.just(GroupRepositoryMock.getGroupsByIds(ids).toArray(new Group[0]));
+    return repository.getGroupsByIds(ids);
+  }
+
+  @Override
+  public Flux<GroupChangeEvent> getChanges(Long after) {
+    return repository.getChanges(null, after);
+  }
+
+  @Override
+  public Flux<ServerSentEvent<GroupChangeEvent>> getChangeEvents(Long after, String lastEventId) {
+    return ChangeFeed.events(Flux.defer(() -> repository
+        .getChanges(null, ChangeFeed.resumeAfter(after, lastEventId))));
   }
 
 }
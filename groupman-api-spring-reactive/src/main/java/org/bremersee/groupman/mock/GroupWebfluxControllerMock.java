@@ -22,8 +22,16 @@ import java.util.Set;
 import java.util.function.Supplier;
 import org.bremersee.exception.ServiceException;
 import org.bremersee.groupman.api.GroupWebfluxControllerApi;
+import org.bremersee.groupman.model.ContinuationToken;
 import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.Membership;
 import org.bremersee.groupman.model.Status;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.ResponseEntity.BodyBuilder;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -34,6 +42,8 @@ import reactor.core.publisher.Mono;
  */
 public class GroupWebfluxControllerMock implements GroupWebfluxControllerApi {
 
+  private final ReactiveGroupRepository repository;
+
   private final Supplier<String> userNameSupplier;
 
   /**
@@ -49,6 +59,22 @@ public class GroupWebfluxControllerMock implements GroupWebfluxControllerApi {
    * @param userNameSupplier the user name supplier
    */
   public GroupWebfluxControllerMock(Supplier<String> userNameSupplier) {
+    this(null, userNameSupplier);
+  }
+
+  /**
+   * Instantiates a new group controller mock.
+   *
+   * @param repository the group repository, if {@code null} the shared repository of {@link
+   *     GroupRepositoryMock} is used
+   * @param userNameSupplier the user name supplier
+   */
+  public GroupWebfluxControllerMock(
+      ReactiveGroupRepository repository,
+      Supplier<String> userNameSupplier) {
+    this.repository = Objects.requireNonNullElseGet(
+        repository,
+        () -> new ReactiveGroupRepositoryAdapter(GroupRepositoryMock.getRepository()));
     this.userNameSupplier = Objects.requireNonNullElse(
         userNameSupplier,
         () -> GroupRepositoryMock.GROUP_0_OWNER);
@@ -56,64 +82,149 @@ public class GroupWebfluxControllerMock implements GroupWebfluxControllerApi {
 
   @Override
   public Mono<Group> createGroup(Group group) {
-    return Mono.justOrEmpty(GroupRepositoryMock.createGroup(group));
+    return repository.createGroup(group);
   }
 
   @Override
-  public Mono<Group> getGroupById(String groupId) {
-    Group group = GroupRepositoryMock.getGroupById(groupId);
-    if (group == null) {
-      return Mono.error(ServiceException.forbidden("Group", groupId));
-    }
-    return Mono.just(group);
+  public Mono<ResponseEntity<Group>> getGroupById(String groupId, String ifNoneMatch) {
+    return repository.getGroupById(groupId)
+        .switchIfEmpty(Mono.defer(() -> Mono.error(ServiceException.forbidden("Group", groupId))))
+        .map(group -> ConditionalResponses.ok(EntityTags.of(group), ifNoneMatch, () -> group));
   }
 
   @Override
-  public Mono<Group> updateGroup(String groupId, Group group) {
-    Group newGroup = GroupRepositoryMock.updateGroup(groupId, group);
-    if (newGroup == null) {
-      return Mono.error(ServiceException.forbidden("Group", groupId));
-    }
-    return Mono.just(newGroup);
+  public Mono<ResponseEntity<Group>> updateGroup(String groupId, Group group, String ifMatch) {
+    return ConditionalResponses.update(
+        ifMatch,
+        expectedVersion -> repository.updateGroup(groupId, group, expectedVersion),
+        () -> ServiceException.forbidden("Group", groupId));
+  }
+
+  @Override
+  public Mono<ResponseEntity<Group>> addMember(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.addMember(id, userName),
+        () -> ServiceException.forbidden("Group", id));
+  }
+
+  @Override
+  public Mono<ResponseEntity<Group>> removeMember(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.removeMember(id, userName),
+        () -> ServiceException.forbidden("Group", id));
+  }
+
+  @Override
+  public Mono<ResponseEntity<Group>> addOwner(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.addOwner(id, userName),
+        () -> ServiceException.forbidden("Group", id));
+  }
+
+  @Override
+  public Mono<ResponseEntity<Group>> removeOwner(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.removeOwner(id, userName),
+        () -> ServiceException.forbidden("Group", id));
   }
 
   @Override
   public Mono<Void> deleteGroup(String groupId) {
-    GroupRepositoryMock.deleteGroup(groupId);
-    return Mono.empty();
+    return repository.deleteGroup(groupId, null).then();
   }
 
   @Override
   public Flux<Group> getGroupsByIds(List<String> ids) {
-    return Flux.just(GroupRepositoryMock.getGroupsByIds(ids).toArray(new Group[0]));
+    return repository.getGroupsByIds(ids);
+  }
+
+  @Override
+  public Mono<ResponseEntity<Flux<Group>>> getEditableGroups(String continuation, Integer limit) {
+    return page(
+        () -> repository.getEditableGroups(userNameSupplier.get(), continuation, limit),
+        limit);
+  }
+
+  @Override
+  public Mono<ResponseEntity<Flux<Group>>> getUsableGroups(String continuation, Integer limit) {
+    return page(
+        () -> repository.getUsableGroups(userNameSupplier.get(), continuation, limit),
+        limit);
+  }
+
+  @Override
+  public Mono<ResponseEntity<Flux<Group>>> getMembership(String continuation, Integer limit) {
+    return page(
+        () -> repository.getMembership(userNameSupplier.get(), continuation, limit),
+        limit);
+  }
+
+  /**
+   * Creates the response of a page. A page with a limit is collected, so that the continuation
+   * token of the next page is returned in the header {@value ContinuationToken#HEADER_NAME};
+   * without a limit there is no next page and the groups are streamed. An illegal continuation
+   * token or limit is a bad request.
+   *
+   * @param page the page supplier
+   * @param limit the maximum size of the page
+   * @return the response entity
+   */
+  private static Mono<ResponseEntity<Flux<Group>>> page(
+      Supplier<Flux<Group>> page,
+      Integer limit) {
+    Flux<Group> groups = Flux.defer(page).onErrorMap(
+        IllegalArgumentException.class,
+        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e));
+    if (limit == null) {
+      return Mono.just(ResponseEntity.ok(groups));
+    }
+    return groups.collectList().map(list -> {
+      BodyBuilder builder = ResponseEntity.ok();
+      String next = ContinuationToken.next(list, limit);
+      if (next != null) {
+        builder.header(ContinuationToken.HEADER_NAME, next);
+      }
+      return builder.body(Flux.fromIterable(list));
+    });
   }
 
   @Override
-  public Flux<Group> getEditableGroups() {
-    return Flux.just(GroupRepositoryMock
-        .getEditableGroups(userNameSupplier.get()).toArray(new Group[0]));
+  public Mono<ResponseEntity<Set<String>>> getMembershipIds(String ifNoneMatch) {
+    String userName = userNameSupplier.get();
+    return ConditionalResponses.ok(
+        repository.getRevision(userName).map(revision -> EntityTags.of(revision)),
+        ifNoneMatch,
+        repository.getMembershipIds(userName));
   }
 
   @Override
-  public Flux<Group> getUsableGroups() {
-    return Flux.just(GroupRepositoryMock
-        .getUsableGroups(userNameSupplier.get()).toArray(new Group[0]));
+  public Flux<Boolean> checkMemberships(Flux<Membership> memberships) {
+    return memberships.concatMap(membership -> repository
+        .isMember(membership.getUserName(), membership.getGroupId()));
   }
 
   @Override
-  public Flux<Group> getMembership() {
-    return Flux.just(GroupRepositoryMock
-        .getMembership(userNameSupplier.get()).toArray(new Group[0]));
+  public Mono<ResponseEntity<Status>> getStatus(String ifNoneMatch) {
+    String userName = userNameSupplier.get();
+    return ConditionalResponses.ok(
+        Mono.zip(repository.getRevision(userName), repository.getMaxOwnedGroups())
+            .map(revisions -> EntityTags.of(revisions.getT1(), revisions.getT2())),
+        ifNoneMatch,
+        repository.getStatus(userName));
   }
 
   @Override
-  public Mono<Set<String>> getMembershipIds() {
-    Set<String> ids = GroupRepositoryMock.getMembershipIds(userNameSupplier.get());
-    return Mono.just(ids);
+  public Flux<GroupChangeEvent> getChanges(Long after) {
+    return Flux.defer(() -> repository.getChanges(userNameSupplier.get(), after));
   }
 
   @Override
-  public Mono<Status> getStatus() {
-    return Mono.just(GroupRepositoryMock.getStatus(userNameSupplier.get()));
+  public Flux<ServerSentEvent<GroupChangeEvent>> getChangeEvents(Long after, String lastEventId) {
+    return ChangeFeed.events(Flux.defer(() -> repository
+        .getChanges(userNameSupplier.get(), ChangeFeed.resumeAfter(after, lastEventId))));
   }
 }
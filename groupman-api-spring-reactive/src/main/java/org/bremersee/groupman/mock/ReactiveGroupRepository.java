@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.util.Collection;
+import java.util.Set;
+import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.GroupCommand;
+import org.bremersee.groupman.model.GroupCommandResult;
+import org.bremersee.groupman.model.Status;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The reactive variant of the {@link GroupRepository}. Nothing happens until the returned
+ * publishers are subscribed. A mono of a single group is empty, if there is no such group.
+ *
+ * @author Christian Bremer
+ */
+public interface ReactiveGroupRepository {
+
+  /**
+   * Creates a group.
+   *
+   * @param group the group
+   * @return the created group
+   */
+  Mono<Group> createGroup(Group group);
+
+  /**
+   * Gets group by id.
+   *
+   * @param groupId the group id
+   * @return the group
+   */
+  Mono<Group> getGroupById(String groupId);
+
+  /**
+   * Updates a group, if it has the expected version. If it has not, the mono fails with a
+   * {@link java.util.ConcurrentModificationException}.
+   *
+   * @param groupId the group id
+   * @param group the group
+   * @param expectedVersion the expected version, if {@code null} the version is not checked
+   * @return the updated group
+   */
+  Mono<Group> updateGroup(String groupId, Group group, Long expectedVersion);
+
+  /**
+   * Adds a member.
+   *
+   * @param groupId the group id
+   * @param userName the user name
+   * @return the updated group
+   */
+  Mono<Group> addMember(String groupId, String userName);
+
+  /**
+   * Removes a member.
+   *
+   * @param groupId the group id
+   * @param userName the user name
+   * @return the updated group
+   */
+  Mono<Group> removeMember(String groupId, String userName);
+
+  /**
+   * Adds an owner.
+   *
+   * @param groupId the group id
+   * @param userName the user name
+   * @return the updated group
+   */
+  Mono<Group> addOwner(String groupId, String userName);
+
+  /**
+   * Removes an owner.
+   *
+   * @param groupId the group id
+   * @param userName the user name
+   * @return the updated group
+   */
+  Mono<Group> removeOwner(String groupId, String userName);
+
+  /**
+   * Deletes a group, if it has the expected version. If it has not, the mono fails with a
+   * {@link java.util.ConcurrentModificationException}.
+   *
+   * @param groupId the group id
+   * @param expectedVersion the expected version, if {@code null} the version is not checked
+   * @return the deleted group
+   */
+  Mono<Group> deleteGroup(String groupId, Long expectedVersion);
+
+  /**
+   * Executes the commands in the order they are emitted.
+   *
+   * @param commands the commands
+   * @return the results in the order of the commands
+   */
+  Flux<GroupCommandResult> execute(Flux<GroupCommand> commands);
+
+  /**
+   * Gets the groups sorted by id.
+   *
+   * @param afterId the id of the last group of the previous page, can be {@code null}
+   * @param limit the maximum number of groups, can be {@code null}
+   * @return the groups
+   */
+  Flux<Group> getGroups(String afterId, Integer limit);
+
+  /**
+   * Gets the groups with the given ids.
+   *
+   * @param ids the ids
+   * @return the groups
+   */
+  Flux<Group> getGroupsByIds(Collection<String> ids);
+
+  /**
+   * Gets the groups the user can edit.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token of the previous page, can be {@code null}
+   * @param limit the maximum number of groups, can be {@code null}
+   * @return the editable groups
+   */
+  Flux<Group> getEditableGroups(String userName, String continuation, Integer limit);
+
+  /**
+   * Gets the groups the user can use.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token of the previous page, can be {@code null}
+   * @param limit the maximum number of groups, can be {@code null}
+   * @return the usable groups
+   */
+  Flux<Group> getUsableGroups(String userName, String continuation, Integer limit);
+
+  /**
+   * Gets the groups the user is member of.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token of the previous page, can be {@code null}
+   * @param limit the maximum number of groups, can be {@code null}
+   * @return the groups
+   */
+  Flux<Group> getMembership(String userName, String continuation, Integer limit);
+
+  /**
+   * Gets the ids of the groups the user is member of.
+   *
+   * @param userName the user name
+   * @return the group ids
+   */
+  Mono<Set<String>> getMembershipIds(String userName);
+
+  /**
+   * Determines whether the user is member of the group.
+   *
+   * @param userName the user name
+   * @param groupId the group id
+   * @return {@code true} if the user is member of the group, otherwise {@code false}
+   */
+  Mono<Boolean> isMember(String userName, String groupId);
+
+  /**
+   * Gets the status of the user.
+   *
+   * @param userName the user name
+   * @return the status
+   */
+  Mono<Status> getStatus(String userName);
+
+  /**
+   * Gets the maximum number of owned groups that is reported in the status.
+   *
+   * @return the max owned groups, a negative value means unlimited
+   */
+  Mono<Long> getMaxOwnedGroups();
+
+  /**
+   * Gets the revision of a user, see {@link GroupRepository#getRevision(String)}.
+   *
+   * @param userName the user name
+   * @return the sequence number of the last change that concerns the user or {@code 0}
+   */
+  Mono<Long> getRevision(String userName);
+
+  /**
+   * Gets an endless flux of changes. It starts with the retained changes after the given sequence
+   * number and continues with new changes.
+   *
+   * @param userName the user name, if present only the changes that concern the user are emitted
+   * @param afterSequence the sequence number of the last seen change, if {@code null} all
+   *     retained changes are emitted first
+   * @return the changes
+   */
+  Flux<GroupChangeEvent> getChanges(String userName, Long afterSequence);
+
+}
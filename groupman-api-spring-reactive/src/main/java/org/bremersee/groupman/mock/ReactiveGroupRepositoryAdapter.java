@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.GroupCommand;
+import org.bremersee.groupman.model.GroupCommandResult;
+import org.bremersee.groupman.model.Status;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A reactive group repository that delegates to a {@link GroupRepository}. The reads are made on
+ * the subscribing thread, so they must not block, like the reads of the in memory repository.
+ * The writes are made with the write scheduler: a write of a repository with journal blocks,
+ * until it is forced to the disk, so it must not run on an event loop.
+ *
+ * @author Christian Bremer
+ */
+public class ReactiveGroupRepositoryAdapter implements ReactiveGroupRepository {
+
+  /**
+   * The maximum number of streamed commands, that are executed together.
+   */
+  static final int BATCH_SIZE = 1000;
+
+  private final GroupRepository repository;
+
+  private final Scheduler writeScheduler;
+
+  /**
+   * Instantiates a new reactive group repository adapter. Only the writes of an in memory
+   * repository without journal don't block and are made on the subscribing thread; the writes of
+   * any other repository are made with the bounded elastic scheduler.
+   *
+   * @param repository the group repository
+   */
+  public ReactiveGroupRepositoryAdapter(GroupRepository repository) {
+    this(
+        repository,
+        isNonBlocking(repository) ? Schedulers.immediate() : Schedulers.boundedElastic());
+  }
+
+  /**
+   * Instantiates a new reactive group repository adapter.
+   *
+   * @param repository the group repository
+   * @param writeScheduler the scheduler, on which the writes are made
+   */
+  public ReactiveGroupRepositoryAdapter(GroupRepository repository, Scheduler writeScheduler) {
+    this.repository = Objects.requireNonNull(repository, "Repository must be present.");
+    this.writeScheduler = Objects.requireNonNull(
+        writeScheduler, "Write scheduler must be present.");
+  }
+
+  private static boolean isNonBlocking(GroupRepository repository) {
+    return repository instanceof InMemoryGroupRepository
+        && !((InMemoryGroupRepository) repository).isJournaled();
+  }
+
+  private <T> Mono<T> write(Supplier<T> operation) {
+    return Mono.fromSupplier(operation).subscribeOn(writeScheduler);
+  }
+
+  @Override
+  public Mono<Group> createGroup(Group group) {
+    return write(() -> repository.createGroup(group));
+  }
+
+  @Override
+  public Mono<Group> getGroupById(String groupId) {
+    return Mono.fromSupplier(() -> repository.getGroupById(groupId));
+  }
+
+  @Override
+  public Mono<Group> updateGroup(String groupId, Group group, Long expectedVersion) {
+    return write(() -> repository.updateGroup(groupId, group, expectedVersion));
+  }
+
+  @Override
+  public Mono<Group> addMember(String groupId, String userName) {
+    return write(() -> repository.addMember(groupId, userName));
+  }
+
+  @Override
+  public Mono<Group> removeMember(String groupId, String userName) {
+    return write(() -> repository.removeMember(groupId, userName));
+  }
+
+  @Override
+  public Mono<Group> addOwner(String groupId, String userName) {
+    return write(() -> repository.addOwner(groupId, userName));
+  }
+
+  @Override
+  public Mono<Group> removeOwner(String groupId, String userName) {
+    return write(() -> repository.removeOwner(groupId, userName));
+  }
+
+  @Override
+  public Mono<Group> deleteGroup(String groupId, Long expectedVersion) {
+    return write(() -> repository.deleteGroup(groupId, expectedVersion));
+  }
+
+  /**
+   * Executes the commands in batches of up to {@link #BATCH_SIZE} commands. Each batch is
+   * executed with {@link GroupRepository#execute(Collection)}, so it is one pass and one new
+   * version of the store; the results of a batch are emitted, when the batch is full or the
+   * commands are complete. The batches are executed with the write scheduler.
+   *
+   * @param commands the commands
+   * @return the results in the order of the commands
+   */
+  @Override
+  public Flux<GroupCommandResult> execute(Flux<GroupCommand> commands) {
+    return commands
+        .buffer(BATCH_SIZE)
+        .publishOn(writeScheduler)
+        .index()
+        .concatMapIterable(batch -> {
+          int offset = batch.getT1().intValue() * BATCH_SIZE;
+          List<GroupCommandResult> results = repository.execute(batch.getT2());
+          if (offset == 0) {
+            return results;
+          }
+          List<GroupCommandResult> shifted = new ArrayList<>(results.size());
+          for (GroupCommandResult result : results) {
+            shifted.add(result.toBuilder().index(offset + result.getIndex()).build());
+          }
+          return shifted;
+        });
+  }
+
+  @Override
+  public Flux<Group> getGroups(String afterId, Integer limit) {
+    return Flux.fromStream(() -> repository.streamGroups(afterId, limit));
+  }
+
+  @Override
+  public Flux<Group> getGroupsByIds(Collection<String> ids) {
+    return Flux.fromStream(() -> repository.streamGroupsByIds(ids));
+  }
+
+  @Override
+  public Flux<Group> getEditableGroups(String userName, String continuation, Integer limit) {
+    return Flux.fromStream(() -> repository.streamEditableGroups(userName, continuation, limit));
+  }
+
+  @Override
+  public Flux<Group> getUsableGroups(String userName, String continuation, Integer limit) {
+    return Flux.fromStream(() -> repository.streamUsableGroups(userName, continuation, limit));
+  }
+
+  @Override
+  public Flux<Group> getMembership(String userName, String continuation, Integer limit) {
+    return Flux.fromStream(() -> repository.streamMembership(userName, continuation, limit));
+  }
+
+  @Override
+  public Mono<Set<String>> getMembershipIds(String userName) {
+    return Mono.fromSupplier(() -> repository.getMembershipIds(userName));
+  }
+
+  @Override
+  public Mono<Boolean> isMember(String userName, String groupId) {
+    return Mono.fromSupplier(() -> repository.isMember(userName, groupId));
+  }
+
+  @Override
+  public Mono<Status> getStatus(String userName) {
+    return Mono.fromSupplier(() -> repository.getStatus(userName));
+  }
+
+  @Override
+  public Mono<Long> getMaxOwnedGroups() {
+    return Mono.fromSupplier(repository::getMaxOwnedGroups);
+  }
+
+  @Override
+  public Mono<Long> getRevision(String userName) {
+    return Mono.fromSupplier(() -> repository.getRevision(userName));
+  }
+
+  @Override
+  public Flux<GroupChangeEvent> getChanges(String userName, Long afterSequence) {
+    return ChangeFeed.changes(repository, userName, afterSequence);
+  }
+
+}
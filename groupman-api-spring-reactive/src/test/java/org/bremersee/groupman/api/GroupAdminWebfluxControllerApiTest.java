@@ -25,6 +25,7 @@ import static org.bremersee.spring.test.api.comparator.RestApiComparatorPath.pat
 
 import org.bremersee.spring.test.api.comparator.RestApiComparator;
 import org.bremersee.spring.test.api.comparator.RestApiComparatorAssertionType;
+import org.bremersee.spring.test.api.comparator.RestApiComparatorExclusion;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -41,7 +42,12 @@ class GroupAdminWebfluxControllerApiTest {
   void assertSameAnnotationsOnGroupAdminController() {
     RestApiComparator.assertSameApi(
         GroupAdminControllerApi.class,
-        GroupAdminWebfluxControllerApi.class);
+        GroupAdminWebfluxControllerApi.class,
+        streamingProducesExclusion("GroupAdminWebfluxControllerApi", "findGroups"),
+        streamingProducesExclusion("GroupAdminWebfluxControllerApi", "findGroupsByIds"),
+        streamingProducesExclusion("GroupAdminWebfluxControllerApi", "getChanges"),
+        streamingProducesExclusion("GroupAdminWebfluxControllerApi", "executeBatch"),
+        streamingConsumesExclusion("GroupAdminWebfluxControllerApi", "executeBatch"));
   }
 
   /**
@@ -82,7 +88,57 @@ class GroupAdminWebfluxControllerApiTest {
                 .add(ATTRIBUTE, "responseContainer")
                 .build())
             .type(RestApiComparatorAssertionType.SAME_ANNOTATION_ATTRIBUTE_VALUE)
-            .build()
+            .build(),
+        streamingProducesExclusion("GroupWebfluxControllerApi", "getGroupsByIds"),
+        streamingProducesExclusion("GroupWebfluxControllerApi", "getEditableGroups"),
+        streamingProducesExclusion("GroupWebfluxControllerApi", "getUsableGroups"),
+        streamingProducesExclusion("GroupWebfluxControllerApi", "getMembership"),
+        streamingProducesExclusion("GroupWebfluxControllerApi", "getChanges")
     );
   }
-}
\ No newline at end of file
+
+  /**
+   * The flux endpoints of the webflux api produce additionally streaming media types
+   * (application/x-ndjson and text/event-stream); the change feeds produce
+   * them on separate endpoints.
+   *
+   * @param className the class name
+   * @param methodName the method name
+   * @return the exclusion
+   */
+  private static RestApiComparatorExclusion streamingProducesExclusion(
+      String className,
+      String methodName) {
+    return exclusionBuilder()
+        .path(pathBuilder()
+            .add(CLASS, className)
+            .add(METHOD, methodName)
+            .add(ANNOTATION, "RequestMapping")
+            .add(ATTRIBUTE, "produces")
+            .build())
+        .type(RestApiComparatorAssertionType.SAME_ANNOTATION_ATTRIBUTE_VALUE)
+        .build();
+  }
+
+  /**
+   * The batch endpoint of the webflux api consumes additionally a stream of commands
+   * (application/x-ndjson).
+   *
+   * @param className the class name
+   * @param methodName the method name
+   * @return the exclusion
+   */
+  private static RestApiComparatorExclusion streamingConsumesExclusion(
+      String className,
+      String methodName) {
+    return exclusionBuilder()
+        .path(pathBuilder()
+            .add(CLASS, className)
+            .add(METHOD, methodName)
+            .add(ANNOTATION, "RequestMapping")
+            .add(ATTRIBUTE, "consumes")
+            .build())
+        .type(RestApiComparatorAssertionType.SAME_ANNOTATION_ATTRIBUTE_VALUE)
+        .build();
+  }
+}
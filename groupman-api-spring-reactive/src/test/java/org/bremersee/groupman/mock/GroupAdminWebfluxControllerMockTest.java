@@ -19,14 +19,23 @@ package org.bremersee.groupman.mock;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_0_ID;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_1_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import org.bremersee.exception.ServiceException;
 import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeType;
+import org.bremersee.groupman.model.GroupCommand;
+import org.bremersee.groupman.model.GroupCommandType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 /**
@@ -53,11 +62,50 @@ class GroupAdminWebfluxControllerMockTest {
   void findGroups() {
     final List<Group> groups = GroupRepositoryMock.getGroups();
     StepVerifier
-        .create(mock.findGroups())
+        .create(mock.findGroups(null, null))
         .expectNext(groups.toArray(new Group[0]))
         .verifyComplete();
   }
 
+  /**
+   * Find groups page by page.
+   */
+  @Test
+  void findGroupsPaged() {
+    final List<Group> groups = GroupRepositoryMock.getGroups();
+    StepVerifier
+        .create(mock.findGroups(groups.get(0).getId(), 1))
+        .expectNext(groups.get(1))
+        .verifyComplete();
+  }
+
+  /**
+   * Find groups with a negative limit and expect bad request.
+   */
+  @Test
+  void findGroupsAndExpectBadRequest() {
+    StepVerifier
+        .create(mock.findGroups(null, -1))
+        .expectErrorMatches(e -> e instanceof ResponseStatusException
+            && ((ResponseStatusException) e).getStatusCode() == HttpStatus.BAD_REQUEST)
+        .verify();
+  }
+
+  /**
+   * Find groups with demand of one group at a time.
+   */
+  @Test
+  void findGroupsWithBackpressure() {
+    final List<Group> groups = GroupRepositoryMock.getGroups();
+    StepVerifier
+        .create(mock.findGroups(null, null), 1)
+        .expectNext(groups.get(0))
+        .thenRequest(1)
+        .expectNext(groups.get(1))
+        .thenCancel()
+        .verify();
+  }
+
   /**
    * Add group.
    */
@@ -77,8 +125,20 @@ class GroupAdminWebfluxControllerMockTest {
   void findGroupById() {
     final Group expected = GroupRepositoryMock.getGroupById(GROUP_0_ID);
     StepVerifier
-        .create(mock.findGroupById(GROUP_0_ID))
-        .assertNext(group -> assertEquals(expected, group))
+        .create(mock.findGroupById(GROUP_0_ID, null))
+        .assertNext(response -> assertEquals(expected, response.getBody()))
+        .verifyComplete();
+  }
+
+  /**
+   * Find group by id and expect not modified.
+   */
+  @Test
+  void findGroupByIdAndExpectNotModified() {
+    final String entityTag = EntityTags.of(GroupRepositoryMock.getGroupById(GROUP_0_ID));
+    StepVerifier
+        .create(mock.findGroupById(GROUP_0_ID, entityTag))
+        .assertNext(response -> assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode()))
         .verifyComplete();
   }
 
@@ -88,7 +148,7 @@ class GroupAdminWebfluxControllerMockTest {
   @Test
   void findGroupByIdAndExpectError() {
     StepVerifier
-        .create(mock.findGroupById(UUID.randomUUID().toString()))
+        .create(mock.findGroupById(UUID.randomUUID().toString(), null))
         .expectError(ServiceException.class)
         .verify();
   }
@@ -103,22 +163,125 @@ class GroupAdminWebfluxControllerMockTest {
         .name(value)
         .build();
     StepVerifier
-        .create(mock.modifyGroup(GROUP_0_ID, newGroup))
-        .assertNext(group -> assertEquals(value, newGroup.getName()))
+        .create(mock.modifyGroup(GROUP_0_ID, newGroup, null))
+        .assertNext(response -> assertEquals(value, response.getBody().getName()))
         .verifyComplete();
   }
 
+  /**
+   * Modify group and expect precondition failed.
+   */
+  @Test
+  void modifyGroupAndExpectPreconditionFailed() {
+    final Group oldGroup = GroupRepositoryMock.getGroupById(GROUP_0_ID);
+    StepVerifier
+        .create(mock.modifyGroup(GROUP_0_ID, oldGroup.toBuilder().build(), "W/\"99\""))
+        .expectError(ResponseStatusException.class)
+        .verify();
+    assertEquals(oldGroup, GroupRepositoryMock.getGroupById(GROUP_0_ID));
+  }
+
   /**
    * Modify group and expect error.
    */
   @Test
   void modifyGroupAndExpectError() {
     StepVerifier
-        .create(mock.modifyGroup(UUID.randomUUID().toString(), Group.builder().build()))
+        .create(mock.modifyGroup(UUID.randomUUID().toString(), Group.builder().build(), null))
+        .expectError(ServiceException.class)
+        .verify();
+  }
+
+  /**
+   * Add and remove member and owner.
+   */
+  @Test
+  void addAndRemoveMemberAndOwner() {
+    final String userName = UUID.randomUUID().toString();
+    StepVerifier
+        .create(mock.addMember(GROUP_0_ID, userName)
+            .then(mock.addOwner(GROUP_0_ID, userName)))
+        .assertNext(response -> {
+          assertTrue(response.getBody().getMembers().contains(userName));
+          assertTrue(response.getBody().getOwners().contains(userName));
+        })
+        .verifyComplete();
+    StepVerifier
+        .create(mock.removeMember(GROUP_0_ID, userName)
+            .then(mock.removeOwner(GROUP_0_ID, userName)))
+        .assertNext(response -> {
+          assertFalse(response.getBody().getMembers().contains(userName));
+          assertFalse(response.getBody().getOwners().contains(userName));
+        })
+        .verifyComplete();
+  }
+
+  /**
+   * Remove owner and expect error.
+   */
+  @Test
+  void removeOwnerAndExpectError() {
+    StepVerifier
+        .create(mock.removeOwner(UUID.randomUUID().toString(), "anna"))
         .expectError(ServiceException.class)
         .verify();
   }
 
+  /**
+   * Execute batch.
+   */
+  @Test
+  void executeBatch() {
+    final Group group = GroupRepositoryMock.getGroupById(GROUP_0_ID);
+    StepVerifier
+        .create(mock.executeBatch(Flux.just(
+            GroupCommand.builder()
+                .type(GroupCommandType.UPDATE)
+                .version(group.getVersion())
+                .group(group.toBuilder().description("Batch").build())
+                .build(),
+            GroupCommand.builder()
+                .type(GroupCommandType.UPDATE)
+                .version(group.getVersion())
+                .group(group.toBuilder().description("Stale").build())
+                .build())))
+        .assertNext(result -> {
+          assertEquals(0, result.getIndex());
+          assertEquals(200, result.getStatus());
+        })
+        .assertNext(result -> {
+          assertEquals(1, result.getIndex());
+          assertEquals(412, result.getStatus());
+        })
+        .verifyComplete();
+    assertEquals("Batch", GroupRepositoryMock.getGroupById(GROUP_0_ID).getDescription());
+  }
+
+  /**
+   * Execute a batch, that is executed in more than one pass.
+   */
+  @Test
+  void executeLargeBatch() {
+    int size = ReactiveGroupRepositoryAdapter.BATCH_SIZE + 2;
+    int groups = GroupRepositoryMock.getGroups().size();
+    StepVerifier
+        .create(mock.executeBatch(Flux.range(0, size)
+            .map(i -> GroupCommand.builder()
+                .type(GroupCommandType.CREATE)
+                .group(Group.builder().name("Group " + i).build())
+                .build()))
+            .collectList())
+        .assertNext(results -> {
+          assertEquals(size, results.size());
+          for (int i = 0; i < size; i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals(201, results.get(i).getStatus());
+          }
+        })
+        .verifyComplete();
+    assertEquals(groups + size, GroupRepositoryMock.getGroups().size());
+  }
+
   /**
    * Remove group.
    */
@@ -141,4 +304,89 @@ class GroupAdminWebfluxControllerMockTest {
         .expectNext(groups.toArray(new Group[0]))
         .verifyComplete();
   }
-}
\ No newline at end of file
+
+  /**
+   * Gets retained and new changes with demand of one change at a time.
+   */
+  @Test
+  void getChanges() {
+    final String value = UUID.randomUUID().toString();
+    StepVerifier
+        .create(mock.getChanges(null), 1)
+        .assertNext(change -> assertEquals(GROUP_0_ID, change.getGroupId()))
+        .thenRequest(1)
+        .assertNext(change -> assertEquals(GROUP_1_ID, change.getGroupId()))
+        .thenRequest(1)
+        .then(() -> GroupRepositoryMock.createGroup(Group.builder().name(value).build()))
+        .assertNext(change -> assertEquals(GroupChangeType.CREATED, change.getType()))
+        .then(() -> GroupRepositoryMock.deleteGroup(GROUP_0_ID))
+        .expectNoEvent(Duration.ofMillis(50L))
+        .thenRequest(1)
+        .assertNext(change -> {
+          assertEquals(GroupChangeType.DELETED, change.getType());
+          assertEquals(GROUP_0_ID, change.getGroupId());
+        })
+        .thenCancel()
+        .verify();
+  }
+
+  /**
+   * Gets changes after a sequence number that is no longer retained and expect error.
+   */
+  @Test
+  void getChangesAndExpectError() {
+    final long lastSeen = GroupRepositoryMock.getChangeSequence();
+    GroupRepositoryMock.deleteGroup(GROUP_0_ID);
+    GroupRepositoryMock.reset();
+    StepVerifier
+        .create(mock.getChanges(lastSeen))
+        .expectError(ResponseStatusException.class)
+        .verify();
+  }
+
+  /**
+   * Gets changes after a negative sequence number and expect bad request.
+   */
+  @Test
+  void getChangesAndExpectBadRequest() {
+    StepVerifier
+        .create(mock.getChanges(-1L))
+        .expectErrorMatches(e -> e instanceof ResponseStatusException
+            && ((ResponseStatusException) e).getStatusCode() == HttpStatus.BAD_REQUEST)
+        .verify();
+  }
+
+  /**
+   * Gets change events; the request parameter takes precedence over the last event ID.
+   */
+  @Test
+  void getChangeEvents() {
+    final long lastSeen = GroupRepositoryMock.getChangeSequence();
+    StepVerifier
+        .create(mock.getChangeEvents(lastSeen, "0"))
+        .then(() -> GroupRepositoryMock.deleteGroup(GROUP_1_ID))
+        .assertNext(event -> {
+          assertEquals(GroupChangeType.DELETED, event.data().getType());
+          assertEquals(GROUP_1_ID, event.data().getGroupId());
+          assertEquals(String.valueOf(event.data().getSequence()), event.id());
+        })
+        .thenCancel()
+        .verify();
+  }
+
+  /**
+   * Uses an injected repository.
+   */
+  @Test
+  void useInjectedRepository() {
+    GroupAdminWebfluxControllerMock isolated = new GroupAdminWebfluxControllerMock(
+        new ReactiveGroupRepositoryAdapter(new InMemoryGroupRepository()));
+    StepVerifier
+        .create(isolated.findGroups(null, null))
+        .verifyComplete();
+    StepVerifier
+        .create(isolated.findGroupById(GROUP_0_ID, null))
+        .expectError(ServiceException.class)
+        .verify();
+  }
+}
@@ -4,17 +4,28 @@ import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_0_ID;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_0_OWNER;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_1_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import org.bremersee.exception.ServiceException;
+import org.bremersee.groupman.model.ContinuationToken;
 import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeType;
+import org.bremersee.groupman.model.Membership;
 import org.bremersee.groupman.model.Status;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 /**
@@ -61,8 +72,26 @@ class GroupWebfluxControllerMockTest {
   void getGroupById() {
     final Group expected = GroupRepositoryMock.getGroupById(GROUP_0_ID);
     StepVerifier
-        .create(mock.getGroupById(GROUP_0_ID))
-        .assertNext(group -> assertEquals(expected, group))
+        .create(mock.getGroupById(GROUP_0_ID, null))
+        .assertNext(response -> {
+          assertEquals(expected, response.getBody());
+          assertEquals(EntityTags.of(expected), response.getHeaders().getETag());
+        })
+        .verifyComplete();
+  }
+
+  /**
+   * Gets group by id and expect not modified.
+   */
+  @Test
+  void getGroupByIdAndExpectNotModified() {
+    final String entityTag = EntityTags.of(GroupRepositoryMock.getGroupById(GROUP_0_ID));
+    StepVerifier
+        .create(mock.getGroupById(GROUP_0_ID, entityTag))
+        .assertNext(response -> {
+          assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+          assertNull(response.getBody());
+        })
         .verifyComplete();
   }
 
@@ -72,7 +101,7 @@ class GroupWebfluxControllerMockTest {
   @Test
   void getGroupByIdAndExpectError() {
     StepVerifier
-        .create(mock.getGroupById(UUID.randomUUID().toString()))
+        .create(mock.getGroupById(UUID.randomUUID().toString(), null))
         .expectError(ServiceException.class)
         .verify();
   }
@@ -88,9 +117,30 @@ class GroupWebfluxControllerMockTest {
         .orElseThrow(() -> new AssertionError("No editable group found."));
     assertNotNull(newGroup);
     StepVerifier
-        .create(mock.updateGroup(newGroup.getId(), newGroup))
-        .assertNext(group -> assertEquals(value, newGroup.getName()))
+        .create(mock.updateGroup(newGroup.getId(), newGroup, null))
+        .assertNext(response -> assertEquals(value, response.getBody().getName()))
+        .verifyComplete();
+  }
+
+  /**
+   * Update group with if match.
+   */
+  @Test
+  void updateGroupWithIfMatch() {
+    final Group oldGroup = GroupRepositoryMock.getGroupById(GROUP_0_ID);
+    final String entityTag = EntityTags.of(oldGroup);
+    StepVerifier
+        .create(mock.updateGroup(GROUP_0_ID, oldGroup.toBuilder().build(), entityTag))
+        .assertNext(response -> {
+          assertEquals(Long.valueOf(oldGroup.getVersion() + 1L), response.getBody().getVersion());
+          assertEquals(EntityTags.of(response.getBody()), response.getHeaders().getETag());
+        })
         .verifyComplete();
+    StepVerifier
+        .create(mock.updateGroup(GROUP_0_ID, oldGroup.toBuilder().build(), entityTag))
+        .expectErrorMatches(e -> e instanceof ResponseStatusException
+            && ((ResponseStatusException) e).getStatusCode() == HttpStatus.PRECONDITION_FAILED)
+        .verify();
   }
 
   /**
@@ -99,7 +149,53 @@ class GroupWebfluxControllerMockTest {
   @Test
   void updateGroupAndExpectError() {
     StepVerifier
-        .create(mock.updateGroup(UUID.randomUUID().toString(), Group.builder().build()))
+        .create(mock.updateGroup(UUID.randomUUID().toString(), Group.builder().build(), null))
+        .expectError(ServiceException.class)
+        .verify();
+  }
+
+  /**
+   * Add and remove member.
+   */
+  @Test
+  void addAndRemoveMember() {
+    final String userName = UUID.randomUUID().toString();
+    StepVerifier
+        .create(mock.addMember(GROUP_0_ID, userName))
+        .assertNext(response -> {
+          assertTrue(response.getBody().getMembers().contains(userName));
+          assertEquals(EntityTags.of(response.getBody()), response.getHeaders().getETag());
+        })
+        .verifyComplete();
+    StepVerifier
+        .create(mock.removeMember(GROUP_0_ID, userName))
+        .assertNext(response -> assertFalse(response.getBody().getMembers().contains(userName)))
+        .verifyComplete();
+  }
+
+  /**
+   * Add and remove owner.
+   */
+  @Test
+  void addAndRemoveOwner() {
+    final String userName = UUID.randomUUID().toString();
+    StepVerifier
+        .create(mock.addOwner(GROUP_0_ID, userName))
+        .assertNext(response -> assertTrue(response.getBody().getOwners().contains(userName)))
+        .verifyComplete();
+    StepVerifier
+        .create(mock.removeOwner(GROUP_0_ID, userName))
+        .assertNext(response -> assertFalse(response.getBody().getOwners().contains(userName)))
+        .verifyComplete();
+  }
+
+  /**
+   * Add member and expect error.
+   */
+  @Test
+  void addMemberAndExpectError() {
+    StepVerifier
+        .create(mock.addMember(UUID.randomUUID().toString(), "anna"))
         .expectError(ServiceException.class)
         .verify();
   }
@@ -138,7 +234,7 @@ class GroupWebfluxControllerMockTest {
     final List<Group> groups = GroupRepositoryMock
         .getEditableGroups(GROUP_0_OWNER);
     StepVerifier
-        .create(mock.getEditableGroups())
+        .create(mock.getEditableGroups(null, null).flatMapMany(ResponseEntity::getBody))
         .expectNext(groups.toArray(new Group[0]))
         .verifyComplete();
   }
@@ -151,7 +247,7 @@ class GroupWebfluxControllerMockTest {
     final List<Group> groups = GroupRepositoryMock
         .getUsableGroups(GROUP_0_OWNER);
     StepVerifier
-        .create(mock.getUsableGroups())
+        .create(mock.getUsableGroups(null, null).flatMapMany(ResponseEntity::getBody))
         .expectNext(groups.toArray(new Group[0]))
         .verifyComplete();
   }
@@ -164,11 +260,59 @@ class GroupWebfluxControllerMockTest {
     final List<Group> groups = GroupRepositoryMock
         .getMembership(GROUP_0_OWNER);
     StepVerifier
-        .create(mock.getMembership())
+        .create(mock.getMembership(null, null).flatMapMany(ResponseEntity::getBody))
         .expectNext(groups.toArray(new Group[0]))
         .verifyComplete();
   }
 
+  /**
+   * Gets usable groups page by page.
+   */
+  @Test
+  void getUsableGroupsPaged() {
+    final List<Group> groups = GroupRepositoryMock
+        .getUsableGroups(GROUP_0_OWNER);
+    StepVerifier
+        .create(mock.getUsableGroups(null, 1))
+        .assertNext(response -> {
+          assertEquals(
+              ContinuationToken.of(groups.get(0)),
+              response.getHeaders().getFirst(ContinuationToken.HEADER_NAME));
+          StepVerifier
+              .create(response.getBody())
+              .expectNext(groups.get(0))
+              .verifyComplete();
+        })
+        .verifyComplete();
+    StepVerifier
+        .create(mock.getUsableGroups(ContinuationToken.of(groups.get(0)), null))
+        .assertNext(response -> {
+          assertNull(response.getHeaders().getFirst(ContinuationToken.HEADER_NAME));
+          StepVerifier
+              .create(response.getBody())
+              .expectNext(groups.subList(1, groups.size()).toArray(new Group[0]))
+              .verifyComplete();
+        })
+        .verifyComplete();
+  }
+
+  /**
+   * Gets membership and expect bad request on illegal limit or continuation token.
+   */
+  @Test
+  void getMembershipAndExpectError() {
+    StepVerifier
+        .create(mock.getMembership(null, -1))
+        .expectErrorMatches(e -> e instanceof ResponseStatusException
+            && ((ResponseStatusException) e).getStatusCode() == HttpStatus.BAD_REQUEST)
+        .verify();
+    StepVerifier
+        .create(mock.getMembership("%%%", null).flatMapMany(ResponseEntity::getBody))
+        .expectErrorMatches(e -> e instanceof ResponseStatusException
+            && ((ResponseStatusException) e).getStatusCode() == HttpStatus.BAD_REQUEST)
+        .verify();
+  }
+
   /**
    * Gets membership ids.
    */
@@ -177,8 +321,41 @@ class GroupWebfluxControllerMockTest {
     final Set<String> expected = GroupRepositoryMock
         .getMembershipIds(GROUP_0_OWNER);
     StepVerifier
-        .create(mock.getMembershipIds())
-        .assertNext(actual -> assertEquals(expected, actual))
+        .create(mock.getMembershipIds(null))
+        .assertNext(actual -> assertEquals(expected, actual.getBody()))
+        .verifyComplete();
+  }
+
+  /**
+   * Gets membership ids and expect not modified.
+   */
+  @Test
+  void getMembershipIdsAndExpectNotModified() {
+    final String entityTag = mock.getMembershipIds(null).blockOptional()
+        .map(response -> response.getHeaders().getETag())
+        .orElse(null);
+    assertNotNull(entityTag);
+    StepVerifier
+        .create(mock.getMembershipIds(entityTag))
+        .assertNext(response -> assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode()))
+        .verifyComplete();
+    GroupRepositoryMock.deleteGroup(GROUP_0_ID);
+    StepVerifier
+        .create(mock.getMembershipIds(entityTag))
+        .assertNext(response -> assertEquals(HttpStatus.OK, response.getStatusCode()))
+        .verifyComplete();
+  }
+
+  /**
+   * Check memberships.
+   */
+  @Test
+  void checkMemberships() {
+    StepVerifier
+        .create(mock.checkMemberships(Flux.just(
+            new Membership(GROUP_0_OWNER, GROUP_0_ID),
+            new Membership(GROUP_0_OWNER, GROUP_1_ID))))
+        .expectNext(true, false)
         .verifyComplete();
   }
 
@@ -189,8 +366,93 @@ class GroupWebfluxControllerMockTest {
   void getStatus() {
     Status expected = GroupRepositoryMock.getStatus(GROUP_0_OWNER);
     StepVerifier
-        .create(mock.getStatus())
-        .assertNext(actual -> assertEquals(expected, actual))
+        .create(mock.getStatus(null))
+        .assertNext(actual -> assertEquals(expected, actual.getBody()))
+        .verifyComplete();
+  }
+
+  /**
+   * Gets the changes of the current user.
+   */
+  @Test
+  void getChanges() {
+    final Group update = GroupRepositoryMock.getGroupById(GROUP_0_ID).toBuilder().build();
+    final long version = update.getVersion();
+    StepVerifier
+        .create(mock.getChanges(null))
+        .assertNext(change -> {
+          assertEquals(GroupChangeType.CREATED, change.getType());
+          assertEquals(GROUP_0_ID, change.getGroupId());
+        })
+        .then(() -> GroupRepositoryMock.deleteGroup(GROUP_1_ID))
+        .then(() -> GroupRepositoryMock.updateGroup(GROUP_0_ID, update))
+        .assertNext(change -> {
+          assertEquals(GroupChangeType.UPDATED, change.getType());
+          assertEquals(GROUP_0_ID, change.getGroupId());
+          assertEquals(Long.valueOf(version + 1L), change.getVersion());
+        })
+        .thenCancel()
+        .verify();
+  }
+
+  /**
+   * Gets the change events of the current user and resumes them with the last event ID.
+   */
+  @Test
+  void getChangeEvents() {
+    final long lastSeen = GroupRepositoryMock.getChangeSequence();
+    StepVerifier
+        .create(mock.getChangeEvents(null, String.valueOf(lastSeen)))
+        .then(() -> GroupRepositoryMock.deleteGroup(GROUP_0_ID))
+        .assertNext(event -> {
+          assertNotNull(event.data());
+          assertEquals(GroupChangeType.DELETED, event.data().getType());
+          assertEquals(GROUP_0_ID, event.data().getGroupId());
+          assertEquals(String.valueOf(event.data().getSequence()), event.id());
+          assertTrue(event.data().getSequence() > lastSeen);
+        })
+        .thenCancel()
+        .verify();
+  }
+
+  /**
+   * Gets the change events with a last event ID that is not a sequence number and expect bad
+   * request.
+   */
+  @Test
+  void getChangeEventsAndExpectBadRequest() {
+    StepVerifier
+        .create(mock.getChangeEvents(null, "foo"))
+        .expectErrorMatches(e -> e instanceof ResponseStatusException
+            && ((ResponseStatusException) e).getStatusCode() == HttpStatus.BAD_REQUEST)
+        .verify();
+  }
+
+  /**
+   * Uses an injected repository.
+   */
+  @Test
+  void useInjectedRepository() {
+    InMemoryGroupRepository store = new InMemoryGroupRepository();
+    GroupWebfluxControllerMock isolated = new GroupWebfluxControllerMock(
+        new ReactiveGroupRepositoryAdapter(store),
+        () -> "kant");
+    StepVerifier
+        .create(isolated.getEditableGroups(null, null).flatMapMany(ResponseEntity::getBody))
+        .verifyComplete();
+    StepVerifier
+        .create(isolated.createGroup(Group.builder()
+            .name("isolated")
+            .createdBy("kant")
+            .owners(Collections.singletonList("kant"))
+            .build()))
+        .assertNext(group -> assertEquals("isolated", group.getName()))
+        .verifyComplete();
+    assertEquals(1, store.getEditableGroups("kant", null, null).size());
+    assertEquals(2, GroupRepositoryMock.getGroups().size());
+    StepVerifier
+        .create(isolated.getEditableGroups(null, null).flatMapMany(ResponseEntity::getBody))
+        .assertNext(group -> assertEquals("isolated", group.getName()))
         .verifyComplete();
   }
-}
\ No newline at end of file
+}
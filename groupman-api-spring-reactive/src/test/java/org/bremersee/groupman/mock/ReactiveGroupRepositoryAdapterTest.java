@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.bremersee.groupman.model.Group;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The reactive group repository adapter test.
+ *
+ * @author Christian Bremer
+ */
+class ReactiveGroupRepositoryAdapterTest {
+
+  @TempDir
+  Path directory;
+
+  /**
+   * The writes of an in memory repository without journal are made on the subscribing thread.
+   */
+  @Test
+  void writeOnSubscribingThread() {
+    InMemoryGroupRepository repository = new InMemoryGroupRepository();
+    List<String> threads = new CopyOnWriteArrayList<>();
+    repository.addChangeListener(event -> threads.add(Thread.currentThread().getName()));
+
+    new ReactiveGroupRepositoryAdapter(repository)
+        .createGroup(Group.builder().name("Immediate").build())
+        .block();
+    assertEquals(List.of(Thread.currentThread().getName()), threads);
+  }
+
+  /**
+   * The writes of a repository with journal, that block, are not made on the subscribing thread.
+   *
+   * @throws IOException if the journal fails
+   */
+  @Test
+  void writeJournaledOnWriteScheduler() throws IOException {
+    try (GroupJournal journal = GroupJournal.open(directory)) {
+      InMemoryGroupRepository repository = new InMemoryGroupRepository(journal);
+      List<String> threads = new CopyOnWriteArrayList<>();
+      repository.addChangeListener(event -> threads.add(Thread.currentThread().getName()));
+
+      new ReactiveGroupRepositoryAdapter(repository)
+          .createGroup(Group.builder().name("Journaled").build())
+          .block();
+      assertEquals(1, threads.size());
+      assertNotEquals(Thread.currentThread().getName(), threads.get(0));
+    }
+  }
+}
@@ -27,9 +27,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
 import jakarta.validation.Valid;
 import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.GroupCommand;
+import org.bremersee.groupman.model.GroupCommandResult;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -37,6 +41,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 /**
  * The group admin controller api.
  *
+ * <p>Like the group controller api it also supports Smile (application/x-jackson-smile).
+ *
  * @author Christian Bremer
  */
 @Tag(name = "group-admin-controller", description = "The group admin API.")
@@ -44,8 +50,11 @@ import org.springframework.web.bind.annotation.RequestParam;
 public interface GroupAdminControllerApi {
 
   /**
-   * Gets groups.
+   * Gets groups ordered by their IDs. The result can be fetched page by page: the next page
+   * starts after the ID of the last group of the previous page.
    *
+   * @param after the ID after which the page starts
+   * @param limit the maximum size of the page
    * @return the groups
    */
   @Operation(
@@ -59,15 +68,25 @@ public interface GroupAdminControllerApi {
           content = @Content(
               array = @ArraySchema(
                   schema = @Schema(implementation = Group.class)))),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Illegal limit",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class))),
       @ApiResponse(
           responseCode = "403",
           description = "Forbidden")
   })
   @RequestMapping(
       value = "/api/admin/groups",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.GET)
-  ResponseEntity<List<Group>> findGroups();
+  ResponseEntity<List<Group>> findGroups(
+      @Parameter(description = "The ID of the last group of the previous page.")
+      @RequestParam(value = "after", required = false) String after,
+      @Parameter(description = "The maximum number of groups.")
+      @RequestParam(value = "limit", required = false) Integer limit);
 
 
   /**
@@ -105,8 +124,8 @@ public interface GroupAdminControllerApi {
   })
   @RequestMapping(
       value = "/api/admin/groups",
-      produces = {"application/json"},
-      consumes = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.POST)
   ResponseEntity<Group> addGroup(
       @Parameter(description = "The new group.", required = true) @Valid @RequestBody Group group);
@@ -116,6 +135,7 @@ public interface GroupAdminControllerApi {
    * Find group by id.
    *
    * @param id the id
+   * @param ifNoneMatch the entity tags of cached representations
    * @return the response entity
    */
   @Operation(
@@ -129,6 +149,9 @@ public interface GroupAdminControllerApi {
           content = @Content(
               schema = @Schema(
                   implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "304",
+          description = "Not Modified"),
       @ApiResponse(
           responseCode = "404",
           description = "Not Found",
@@ -141,10 +164,12 @@ public interface GroupAdminControllerApi {
   })
   @RequestMapping(
       value = "/api/admin/groups/{id}",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.GET)
   ResponseEntity<Group> findGroupById(
-      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id);
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The entity tags of cached representations.")
+      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch);
 
 
   /**
@@ -152,6 +177,7 @@ public interface GroupAdminControllerApi {
    *
    * @param id the id
    * @param group the group
+   * @param ifMatch the entity tag of the group that is expected to be updated
    * @return the response entity
    */
   @Operation(
@@ -179,16 +205,21 @@ public interface GroupAdminControllerApi {
           description = "Not Found",
           content = @Content(
               schema = @Schema(
-                  implementation = org.bremersee.exception.model.RestApiException.class)))
+                  implementation = org.bremersee.exception.model.RestApiException.class))),
+      @ApiResponse(
+          responseCode = "412",
+          description = "The group does not match the 'If-Match' header")
   })
   @RequestMapping(
       value = "/api/admin/groups/{id}",
-      produces = {"application/json"},
-      consumes = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.PUT)
   ResponseEntity<Group> modifyGroup(
       @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
-      @Parameter(description = "The group.", required = true) @Valid @RequestBody Group group);
+      @Parameter(description = "The group.", required = true) @Valid @RequestBody Group group,
+      @Parameter(description = "The entity tag of the group that is expected to be updated.")
+      @RequestHeader(value = "If-Match", required = false) String ifMatch);
 
 
   /**
@@ -239,11 +270,226 @@ public interface GroupAdminControllerApi {
   })
   @RequestMapping(
       value = "/api/admin/groups/f",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.GET)
   ResponseEntity<List<Group>> findGroupsByIds(
       @Parameter(description = "Group IDs")
       @RequestParam(value = "id", required = false) List<String> id);
 
+  /**
+   * Adds a member to the group. Only the member is sent and the members are changed
+   * atomically, so concurrent changes of the members are not lost.
+   *
+   * @param id the group id
+   * @param userName the user name of the member
+   * @return the updated group
+   */
+  @Operation(
+      summary = "Add a member to the group.",
+      operationId = "addMember",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The updated group.",
+          content = @Content(
+              schema = @Schema(
+                  implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "404",
+          description = "Not Found",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class)))
+  })
+  @RequestMapping(
+      value = "/api/admin/groups/{id}/members/{userName}",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.PUT)
+  ResponseEntity<Group> addMember(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The user name of the member.", required = true)
+      @PathVariable("userName") String userName);
+
+  /**
+   * Removes a member from the group. Only the member is sent and the members are changed
+   * atomically, so concurrent changes of the members are not lost.
+   *
+   * @param id the group id
+   * @param userName the user name of the member
+   * @return the updated group
+   */
+  @Operation(
+      summary = "Remove a member from the group.",
+      operationId = "removeMember",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The updated group.",
+          content = @Content(
+              schema = @Schema(
+                  implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "404",
+          description = "Not Found",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class)))
+  })
+  @RequestMapping(
+      value = "/api/admin/groups/{id}/members/{userName}",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.DELETE)
+  ResponseEntity<Group> removeMember(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The user name of the member.", required = true)
+      @PathVariable("userName") String userName);
+
+  /**
+   * Adds an owner to the group. Only the owner is sent and the owners are changed
+   * atomically, so concurrent changes of the owners are not lost.
+   *
+   * @param id the group id
+   * @param userName the user name of the owner
+   * @return the updated group
+   */
+  @Operation(
+      summary = "Add an owner to the group.",
+      operationId = "addOwner",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The updated group.",
+          content = @Content(
+              schema = @Schema(
+                  implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "404",
+          description = "Not Found",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class)))
+  })
+  @RequestMapping(
+      value = "/api/admin/groups/{id}/owners/{userName}",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.PUT)
+  ResponseEntity<Group> addOwner(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The user name of the owner.", required = true)
+      @PathVariable("userName") String userName);
+
+  /**
+   * Removes an owner from the group. Only the owner is sent and the owners are changed
+   * atomically, so concurrent changes of the owners are not lost.
+   *
+   * @param id the group id
+   * @param userName the user name of the owner
+   * @return the updated group
+   */
+  @Operation(
+      summary = "Remove an owner from the group.",
+      operationId = "removeOwner",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The updated group.",
+          content = @Content(
+              schema = @Schema(
+                  implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "404",
+          description = "Not Found",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class)))
+  })
+  @RequestMapping(
+      value = "/api/admin/groups/{id}/owners/{userName}",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.DELETE)
+  ResponseEntity<Group> removeOwner(
+      @Parameter(description = "The group ID.", required = true) @PathVariable("id") String id,
+      @Parameter(description = "The user name of the owner.", required = true)
+      @PathVariable("userName") String userName);
+
+  /**
+   * Executes a batch of commands, that create, update or delete groups. The commands are applied
+   * in one pass in their order, and a failed command does not stop the batch, so every command
+   * gets its own result.
+   *
+   * @param commands the commands
+   * @return the results of the commands
+   */
+  @Operation(
+      summary = "Execute a batch of commands, that create, update or delete groups.",
+      operationId = "executeBatch",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The results of the commands.",
+          content = @Content(
+              array = @ArraySchema(
+                  schema = @Schema(implementation = GroupCommandResult.class)))),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Bad Request",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class))),
+      @ApiResponse(
+          responseCode = "403",
+          description = "Forbidden")
+  })
+  @RequestMapping(
+      value = "/api/admin/groups/f/batch",
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.POST)
+  ResponseEntity<List<GroupCommandResult>> executeBatch(
+      @Parameter(description = "The commands.", required = true)
+      @RequestBody List<GroupCommand> commands);
+
+  /**
+   * Gets the retained changes of all groups after the given sequence number. Instead of
+   * polling groups, a consumer can poll the changes with the sequence number of the last change
+   * it has seen.
+   *
+   * @param after the sequence number of the last seen change
+   * @return the changes
+   */
+  @Operation(
+      summary = "Get changes of all groups.",
+      operationId = "getChanges",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The changes.",
+          content = @Content(
+              array = @ArraySchema(
+                  schema = @Schema(implementation = GroupChangeEvent.class)))),
+      @ApiResponse(
+          responseCode = "400",
+          description = "The sequence number is negative",
+          content = @Content(
+              schema = @Schema(
+                  implementation = org.bremersee.exception.model.RestApiException.class))),
+      @ApiResponse(
+          responseCode = "410",
+          description = "Changes after the given sequence number are no longer available or the"
+              + " sequence number is unknown")
+  })
+  @RequestMapping(
+      value = "/api/admin/groups/f/changes",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.GET)
+  ResponseEntity<List<GroupChangeEvent>> getChanges(
+      @Parameter(description = "The sequence number of the last seen change.")
+      @RequestParam(value = "after", required = false) Long after);
 
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.groupman.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.bremersee.groupman.model.Group;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * The group admin controller api that streams groups as newline delimited JSON
+ * (application/x-ndjson).
+ *
+ * @author Christian Bremer
+ */
+@Tag(name = "group-admin-controller", description = "The group admin API.")
+@Valid
+public interface GroupAdminStreamControllerApi {
+
+  /**
+   * Streams all groups ordered by their IDs.
+   *
+   * @return the groups
+   */
+  @Operation(
+      summary = "Stream all groups.",
+      operationId = "streamGroups",
+      tags = {"group-admin-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The groups, one JSON object per line.",
+          content = @Content(
+              mediaType = "application/x-ndjson",
+              schema = @Schema(
+                  implementation = Group.class))),
+      @ApiResponse(
+          responseCode = "403",
+          description = "Forbidden")
+  })
+  @RequestMapping(
+      value = "/api/admin/groups",
+      produces = {"application/x-ndjson"},
+      method = RequestMethod.GET)
+  ResponseEntity<StreamingResponseBody> streamGroups();
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.groupman.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.bremersee.groupman.model.Group;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * The group controller api that streams groups as newline delimited JSON (application/x-ndjson).
+ * The groups are written one by one while they are read, so the list is never materialized.
+ *
+ * @author Christian Bremer
+ */
+@Tag(name = "group-controller", description = "The group API.")
+@Valid
+public interface GroupStreamControllerApi {
+
+  /**
+   * Streams editable groups.
+   *
+   * @return the groups
+   */
+  @Operation(
+      summary = "Stream editable groups.",
+      operationId = "streamEditableGroups",
+      tags = {"group-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The groups, one JSON object per line.",
+          content = @Content(
+              mediaType = "application/x-ndjson",
+              schema = @Schema(
+                  implementation = Group.class)))
+  })
+  @RequestMapping(
+      value = "/api/groups/f/editable",
+      produces = {"application/x-ndjson"},
+      method = RequestMethod.GET)
+  ResponseEntity<StreamingResponseBody> streamEditableGroups();
+
+
+  /**
+   * Streams usable groups.
+   *
+   * @return the groups
+   */
+  @Operation(
+      summary = "Stream usable groups.",
+      operationId = "streamUsableGroups",
+      tags = {"group-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The groups, one JSON object per line.",
+          content = @Content(
+              mediaType = "application/x-ndjson",
+              schema = @Schema(
+                  implementation = Group.class)))
+  })
+  @RequestMapping(
+      value = "/api/groups/f/usable",
+      produces = {"application/x-ndjson"},
+      method = RequestMethod.GET)
+  ResponseEntity<StreamingResponseBody> streamUsableGroups();
+
+
+  /**
+   * Streams membership.
+   *
+   * @return the groups
+   */
+  @Operation(
+      summary = "Stream membership.",
+      operationId = "streamMembership",
+      tags = {"group-controller"})
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "The groups, one JSON object per line.",
+          content = @Content(
+              mediaType = "application/x-ndjson",
+              schema = @Schema(
+                  implementation = Group.class)))
+  })
+  @RequestMapping(
+      value = "/api/groups/f/membership",
+      produces = {"application/x-ndjson"},
+      method = RequestMethod.GET)
+  ResponseEntity<StreamingResponseBody> streamMembership();
+
+}
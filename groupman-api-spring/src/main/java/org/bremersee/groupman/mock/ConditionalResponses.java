@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.util.ConcurrentModificationException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.bremersee.groupman.model.Group;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.ResponseEntity.BodyBuilder;
+
+/**
+ * Creates responses of conditional requests.
+ *
+ * @author Christian Bremer
+ */
+abstract class ConditionalResponses {
+
+  /**
+   * Creates a response with the given entity tag. If the 'If-None-Match' header matches the entity
+   * tag, the response is 'Not Modified' and the body is not created.
+   *
+   * @param <T> the type of the body
+   * @param entityTag the entity tag of the current representation, can be {@code null}
+   * @param ifNoneMatch the value of the 'If-None-Match' header, can be {@code null}
+   * @param body the body supplier
+   * @return the response entity
+   */
+  static <T> ResponseEntity<T> ok(String entityTag, String ifNoneMatch, Supplier<T> body) {
+    return toResponseEntity(ConditionalResponse.of(entityTag, ifNoneMatch, body));
+  }
+
+  /**
+   * Creates the response entity of a conditional response.
+   *
+   * @param <T> the type of the body
+   * @param response the conditional response
+   * @return the response entity
+   */
+  static <T> ResponseEntity<T> toResponseEntity(ConditionalResponse<T> response) {
+    BodyBuilder builder = ResponseEntity
+        .status(response.isNotModified() ? HttpStatus.NOT_MODIFIED : HttpStatus.OK);
+    if (response.getEntityTag() != null) {
+      builder.eTag(response.getEntityTag());
+    }
+    return response.isNotModified() ? builder.build() : builder.body(response.getBody());
+  }
+
+  /**
+   * Updates a group with the expected version of the 'If-Match' header and creates a response
+   * with the new entity tag. If the header does not match, the response is 'Precondition
+   * Failed'.
+   *
+   * @param ifMatch the value of the 'If-Match' header, can be {@code null}
+   * @param update the update function, that gets the expected version and returns the updated
+   *     group or {@code null}, if there is no such group
+   * @param notFoundStatus the status of the response, if there is no such group
+   * @return the response entity
+   */
+  static ResponseEntity<Group> update(
+      String ifMatch,
+      Function<Long, Group> update,
+      HttpStatus notFoundStatus) {
+    Long expectedVersion;
+    try {
+      expectedVersion = EntityTags.version(ifMatch);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+    Group newGroup;
+    try {
+      newGroup = update.apply(expectedVersion);
+    } catch (ConcurrentModificationException e) {
+      return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+    if (newGroup == null) {
+      return ResponseEntity.status(notFoundStatus).build();
+    }
+    return ok(EntityTags.of(newGroup), null, () -> newGroup);
+  }
+}
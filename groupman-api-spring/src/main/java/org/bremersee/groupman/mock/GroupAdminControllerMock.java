@@ -16,54 +16,157 @@
 
 package org.bremersee.groupman.mock;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.List;
+import java.util.Objects;
 import org.bremersee.groupman.api.GroupAdminControllerApi;
+import org.bremersee.groupman.api.GroupAdminStreamControllerApi;
 import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.GroupCommand;
+import org.bremersee.groupman.model.GroupCommandResult;
+import org.bremersee.groupman.model.GroupModule;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * The group admin controller mock.
  *
  * @author Christian Bremer
  */
-public class GroupAdminControllerMock implements GroupAdminControllerApi {
+public class GroupAdminControllerMock
+    implements GroupAdminControllerApi, GroupAdminStreamControllerApi {
+
+  private final GroupRepository repository;
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Instantiates a new group admin controller mock.
+   */
+  public GroupAdminControllerMock() {
+    this(null);
+  }
+
+  /**
+   * Instantiates a new group admin controller mock.
+   *
+   * @param objectMapper the object mapper that is used to stream groups
+   */
+  public GroupAdminControllerMock(ObjectMapper objectMapper) {
+    this(null, objectMapper);
+  }
+
+  /**
+   * Instantiates a new group admin controller mock.
+   *
+   * @param repository the group repository, if {@code null} the shared repository of {@link
+   *     GroupRepositoryMock} is used
+   * @param objectMapper the object mapper that is used to stream groups
+   */
+  public GroupAdminControllerMock(GroupRepository repository, ObjectMapper objectMapper) {
+    this.repository = Objects.requireNonNullElseGet(
+        repository,
+        GroupRepositoryMock::getRepository);
+    this.objectMapper = Objects.requireNonNullElseGet(
+        objectMapper,
+        () -> Jackson2ObjectMapperBuilder.json().modulesToInstall(new GroupModule()).build());
+  }
 
   @Override
   public ResponseEntity<Group> addGroup(Group group) {
-    return ResponseEntity.ok(GroupRepositoryMock.createGroup(group));
+    return ResponseEntity.ok(repository.createGroup(group));
   }
 
   @Override
   public ResponseEntity<Group> removeGroup(String id) {
-    GroupRepositoryMock.deleteGroup(id);
+    repository.deleteGroup(id, null);
     return ResponseEntity.ok().build();
   }
 
   @Override
-  public ResponseEntity<Group> findGroupById(String id) {
-    Group group = GroupRepositoryMock.getGroupById(id);
+  public ResponseEntity<Group> findGroupById(String id, String ifNoneMatch) {
+    Group group = repository.getGroupById(id);
     if (group == null) {
       return ResponseEntity.notFound().build();
     }
-    return ResponseEntity.ok(group);
+    return ConditionalResponses.ok(EntityTags.of(group), ifNoneMatch, () -> group);
   }
 
   @Override
-  public ResponseEntity<List<Group>> findGroups() {
-    return ResponseEntity.ok(GroupRepositoryMock.getGroups());
+  public ResponseEntity<List<Group>> findGroups(String after, Integer limit) {
+    try {
+      return ResponseEntity.ok(repository.getGroups(after, limit));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    }
+  }
+
+  @Override
+  public ResponseEntity<StreamingResponseBody> streamGroups() {
+    return NdjsonResponses.ok(repository.streamGroups(null, null), objectMapper);
   }
 
   @Override
   public ResponseEntity<List<Group>> findGroupsByIds(List<String> ids) {
-    return ResponseEntity.ok(GroupRepositoryMock.getGroupsByIds(ids));
+    return ResponseEntity.ok(repository.getGroupsByIds(ids));
   }
 
   @Override
-  public ResponseEntity<Group> modifyGroup(String id, Group group) {
-    Group newGroup = GroupRepositoryMock.updateGroup(id, group);
-    if (newGroup == null) {
-      return ResponseEntity.notFound().build();
+  public ResponseEntity<List<GroupChangeEvent>> getChanges(Long after) {
+    try {
+      return ResponseEntity.ok(repository.getChanges(null, after, null));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    } catch (IllegalStateException e) {
+      return ResponseEntity.status(HttpStatus.GONE).build();
     }
-    return ResponseEntity.ok(newGroup);
+  }
+
+  @Override
+  public ResponseEntity<Group> modifyGroup(String id, Group group, String ifMatch) {
+    return ConditionalResponses.update(
+        ifMatch,
+        expectedVersion -> repository.updateGroup(id, group, expectedVersion),
+        HttpStatus.NOT_FOUND);
+  }
+
+  @Override
+  public ResponseEntity<Group> addMember(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.addMember(id, userName),
+        HttpStatus.NOT_FOUND);
+  }
+
+  @Override
+  public ResponseEntity<Group> removeMember(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.removeMember(id, userName),
+        HttpStatus.NOT_FOUND);
+  }
+
+  @Override
+  public ResponseEntity<Group> addOwner(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.addOwner(id, userName),
+        HttpStatus.NOT_FOUND);
+  }
+
+  @Override
+  public ResponseEntity<Group> removeOwner(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.removeOwner(id, userName),
+        HttpStatus.NOT_FOUND);
+  }
+
+  @Override
+  public ResponseEntity<List<GroupCommandResult>> executeBatch(List<GroupCommand> commands) {
+    return ResponseEntity.ok(repository.execute(commands));
   }
 }
@@ -16,26 +16,39 @@
 
 package org.bremersee.groupman.mock;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
 import org.bremersee.groupman.api.GroupControllerApi;
+import org.bremersee.groupman.api.GroupStreamControllerApi;
+import org.bremersee.groupman.model.ContinuationToken;
 import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
 import org.bremersee.groupman.model.GroupIdList;
+import org.bremersee.groupman.model.GroupModule;
+import org.bremersee.groupman.model.Membership;
 import org.bremersee.groupman.model.Status;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.ResponseEntity.BodyBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * The group controller mock.
  *
  * @author Christian Bremer
  */
-public class GroupControllerMock implements GroupControllerApi {
+public class GroupControllerMock implements GroupControllerApi, GroupStreamControllerApi {
+
+  private final GroupRepository repository;
 
   private final Supplier<String> userNameSupplier;
 
+  private final ObjectMapper objectMapper;
+
   /**
    * Instantiates a new group controller mock.
    */
@@ -49,74 +62,211 @@ public class GroupControllerMock implements GroupControllerApi {
    * @param userNameSupplier the user name supplier
    */
   public GroupControllerMock(Supplier<String> userNameSupplier) {
+    this(userNameSupplier, null);
+  }
+
+  /**
+   * Instantiates a new group controller mock.
+   *
+   * @param userNameSupplier the user name supplier
+   * @param objectMapper the object mapper that is used to stream groups
+   */
+  public GroupControllerMock(Supplier<String> userNameSupplier, ObjectMapper objectMapper) {
+    this(null, userNameSupplier, objectMapper);
+  }
+
+  /**
+   * Instantiates a new group controller mock.
+   *
+   * @param repository the group repository, if {@code null} the shared repository of {@link
+   *     GroupRepositoryMock} is used
+   * @param userNameSupplier the user name supplier
+   * @param objectMapper the object mapper that is used to stream groups
+   */
+  public GroupControllerMock(
+      GroupRepository repository,
+      Supplier<String> userNameSupplier,
+      ObjectMapper objectMapper) {
+    this.repository = Objects.requireNonNullElseGet(
+        repository,
+        GroupRepositoryMock::getRepository);
     this.userNameSupplier = Objects.requireNonNullElse(
         userNameSupplier,
         () -> GroupRepositoryMock.GROUP_0_OWNER);
+    this.objectMapper = Objects.requireNonNullElseGet(
+        objectMapper,
+        () -> Jackson2ObjectMapperBuilder.json().modulesToInstall(new GroupModule()).build());
   }
 
   @Override
   public ResponseEntity<Group> createGroup(Group group) {
-    return ResponseEntity.ok(GroupRepositoryMock.createGroup(group));
+    return ResponseEntity.ok(repository.createGroup(group));
   }
 
   @Override
   public ResponseEntity<Group> deleteGroup(String id) {
-    GroupRepositoryMock.deleteGroup(id);
+    repository.deleteGroup(id, null);
     return ResponseEntity.ok().build();
   }
 
   @Override
-  public ResponseEntity<List<Group>> getEditableGroups() {
-    return ResponseEntity.ok(GroupRepositoryMock
-        .getEditableGroups(userNameSupplier.get()));
+  public ResponseEntity<List<Group>> getEditableGroups(String continuation, Integer limit) {
+    return page(
+        () -> repository.getEditableGroups(userNameSupplier.get(), continuation, limit),
+        limit);
   }
 
   @Override
-  public ResponseEntity<Group> getGroupById(String id) {
-    Group group = GroupRepositoryMock.getGroupById(id);
+  public ResponseEntity<Group> getGroupById(String id, String ifNoneMatch) {
+    Group group = repository.getGroupById(id);
     if (group == null) {
       return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
     }
-    return ResponseEntity.ok(group);
+    return ConditionalResponses.ok(EntityTags.of(group), ifNoneMatch, () -> group);
   }
 
   @Override
   public ResponseEntity<List<Group>> getGroupsByIds(List<String> ids) {
-    return ResponseEntity.ok(GroupRepositoryMock.getGroupsByIds(ids));
+    return ResponseEntity.ok(repository.getGroupsByIds(ids));
   }
 
   @Override
-  public ResponseEntity<List<Group>> getMembership() {
-    return ResponseEntity.ok(GroupRepositoryMock
-        .getMembership(userNameSupplier.get()));
+  public ResponseEntity<List<Group>> getMembership(String continuation, Integer limit) {
+    return page(
+        () -> repository.getMembership(userNameSupplier.get(), continuation, limit),
+        limit);
   }
 
   @Override
-  public ResponseEntity<GroupIdList> getMembershipIds() {
-    Set<String> ids = GroupRepositoryMock.getMembershipIds(userNameSupplier.get());
-    GroupIdList list = new GroupIdList();
-    list.addAll(ids);
-    return ResponseEntity.ok(list);
+  public ResponseEntity<GroupIdList> getMembershipIds(String ifNoneMatch) {
+    String userName = userNameSupplier.get();
+    String entityTag = EntityTags.of(repository.getRevision(userName));
+    return ConditionalResponses.ok(entityTag, ifNoneMatch, () -> {
+      Set<String> ids = repository.getMembershipIds(userName);
+      GroupIdList list = new GroupIdList();
+      list.addAll(ids);
+      return list;
+    });
   }
 
   @Override
-  public ResponseEntity<Status> getStatus() {
-    return ResponseEntity.ok(GroupRepositoryMock.getStatus(userNameSupplier.get()));
+  public ResponseEntity<List<Boolean>> checkMemberships(List<Membership> memberships) {
+    return ResponseEntity.ok(repository.isMember(memberships));
   }
 
   @Override
-  public ResponseEntity<List<Group>> getUsableGroups() {
-    return ResponseEntity.ok(GroupRepositoryMock
-        .getUsableGroups(userNameSupplier.get()));
+  public ResponseEntity<Status> getStatus(String ifNoneMatch) {
+    String userName = userNameSupplier.get();
+    String entityTag = EntityTags.of(
+        repository.getRevision(userName),
+        repository.getMaxOwnedGroups());
+    return ConditionalResponses.ok(
+        entityTag,
+        ifNoneMatch,
+        () -> repository.getStatus(userName));
   }
 
   @Override
-  public ResponseEntity<Group> updateGroup(String id, Group group) {
-    Group newGroup = GroupRepositoryMock.updateGroup(id, group);
-    if (newGroup == null) {
-      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+  public ResponseEntity<List<GroupChangeEvent>> getChanges(Long after) {
+    try {
+      return ResponseEntity.ok(repository.getChanges(userNameSupplier.get(), after, null));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    } catch (IllegalStateException e) {
+      return ResponseEntity.status(HttpStatus.GONE).build();
     }
-    return ResponseEntity.ok(newGroup);
+  }
+
+  @Override
+  public ResponseEntity<List<Group>> getUsableGroups(String continuation, Integer limit) {
+    return page(
+        () -> repository.getUsableGroups(userNameSupplier.get(), continuation, limit),
+        limit);
+  }
+
+  @Override
+  public ResponseEntity<Group> updateGroup(String id, Group group, String ifMatch) {
+    return ConditionalResponses.update(
+        ifMatch,
+        expectedVersion -> repository.updateGroup(id, group, expectedVersion),
+        HttpStatus.FORBIDDEN);
+  }
+
+  @Override
+  public ResponseEntity<Group> addMember(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.addMember(id, userName),
+        HttpStatus.FORBIDDEN);
+  }
+
+  @Override
+  public ResponseEntity<Group> removeMember(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.removeMember(id, userName),
+        HttpStatus.FORBIDDEN);
+  }
+
+  @Override
+  public ResponseEntity<Group> addOwner(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.addOwner(id, userName),
+        HttpStatus.FORBIDDEN);
+  }
+
+  @Override
+  public ResponseEntity<Group> removeOwner(String id, String userName) {
+    return ConditionalResponses.update(
+        null,
+        expectedVersion -> repository.removeOwner(id, userName),
+        HttpStatus.FORBIDDEN);
+  }
+
+  /**
+   * Creates the response of a page with the continuation token of the next page in the header
+   * {@value ContinuationToken#HEADER_NAME}. An illegal continuation token or limit is a bad
+   * request.
+   *
+   * @param page the page supplier
+   * @param limit the maximum size of the page
+   * @return the response entity
+   */
+  private static ResponseEntity<List<Group>> page(Supplier<List<Group>> page, Integer limit) {
+    List<Group> groups;
+    try {
+      groups = page.get();
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    }
+    BodyBuilder builder = ResponseEntity.ok();
+    String next = ContinuationToken.next(groups, limit);
+    if (next != null) {
+      builder.header(ContinuationToken.HEADER_NAME, next);
+    }
+    return builder.body(groups);
+  }
+
+  @Override
+  public ResponseEntity<StreamingResponseBody> streamEditableGroups() {
+    return NdjsonResponses.ok(
+        repository.streamEditableGroups(userNameSupplier.get(), null, null),
+        objectMapper);
+  }
+
+  @Override
+  public ResponseEntity<StreamingResponseBody> streamUsableGroups() {
+    return NdjsonResponses.ok(
+        repository.streamUsableGroups(userNameSupplier.get(), null, null),
+        objectMapper);
+  }
+
+  @Override
+  public ResponseEntity<StreamingResponseBody> streamMembership() {
+    return NdjsonResponses.ok(
+        repository.streamMembership(userNameSupplier.get(), null, null),
+        objectMapper);
   }
 
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.groupman.mock;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Creates responses that write the elements of a stream as newline delimited JSON.
+ *
+ * @author Christian Bremer
+ */
+abstract class NdjsonResponses {
+
+  /**
+   * Creates a response that writes every element of the given stream as one line of JSON. The
+   * stream is consumed and closed while the response body is written.
+   *
+   * @param values the values
+   * @param objectMapper the object mapper
+   * @return the response entity
+   */
+  static ResponseEntity<StreamingResponseBody> ok(Stream<?> values, ObjectMapper objectMapper) {
+    StreamingResponseBody body = outputStream -> {
+      try (Stream<?> stream = values;
+          JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        Iterator<?> iterator = stream.iterator();
+        while (iterator.hasNext()) {
+          objectMapper.writeValue(generator, iterator.next());
+          generator.writeRaw('\n');
+        }
+      }
+    };
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(body);
+  }
+
+}
@@ -19,16 +19,28 @@ package org.bremersee.groupman.mock;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_0_ID;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_1_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.GroupCommand;
+import org.bremersee.groupman.model.GroupCommandResult;
+import org.bremersee.groupman.model.GroupCommandType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * The group admin controller mock test.
@@ -73,17 +85,29 @@ class GroupAdminControllerMockTest {
   @Test
   void findGroupById() {
     Group expected = GroupRepositoryMock.getGroupById(GROUP_0_ID);
-    ResponseEntity<Group> response = mock.findGroupById(GROUP_0_ID);
+    ResponseEntity<Group> response = mock.findGroupById(GROUP_0_ID, null);
     assertNotNull(response);
     assertEquals(expected, response.getBody());
   }
 
+  /**
+   * Find group by id and expect not modified.
+   */
+  @Test
+  void findGroupByIdAndExpectNotModified() {
+    String entityTag = mock.findGroupById(GROUP_0_ID, null).getHeaders().getETag();
+    assertNotNull(entityTag);
+    assertTrue(entityTag.startsWith("W/"));
+    ResponseEntity<Group> response = mock.findGroupById(GROUP_0_ID, entityTag.substring(2));
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+  }
+
   /**
    * Find group by id and expect error.
    */
   @Test
   void findGroupByIdAndExpectError() {
-    ResponseEntity<Group> response = mock.findGroupById(UUID.randomUUID().toString());
+    ResponseEntity<Group> response = mock.findGroupById(UUID.randomUUID().toString(), null);
     assertNotNull(response);
     assertEquals(HttpStatus.NOT_FOUND.value(), response.getStatusCode().value());
   }
@@ -94,11 +118,54 @@ class GroupAdminControllerMockTest {
   @Test
   void findGroups() {
     final List<Group> expected = GroupRepositoryMock.getGroups();
-    ResponseEntity<List<Group>> response = mock.findGroups();
+    ResponseEntity<List<Group>> response = mock.findGroups(null, null);
     assertNotNull(response);
     assertEquals(expected, response.getBody());
   }
 
+  /**
+   * Find groups page by page.
+   */
+  @Test
+  void findGroupsPaged() {
+    final List<Group> expected = GroupRepositoryMock.getGroups();
+    ResponseEntity<List<Group>> response = mock.findGroups(null, 1);
+    assertNotNull(response);
+    assertEquals(expected.subList(0, 1), response.getBody());
+    response = mock.findGroups(expected.get(0).getId(), 1);
+    assertNotNull(response);
+    assertEquals(expected.subList(1, 2), response.getBody());
+  }
+
+  /**
+   * Find groups with a negative limit and expect bad request.
+   */
+  @Test
+  void findGroupsAndExpectBadRequest() {
+    assertEquals(HttpStatus.BAD_REQUEST, mock.findGroups(null, -1).getStatusCode());
+  }
+
+  /**
+   * Stream groups.
+   *
+   * @throws IOException if writing fails
+   */
+  @Test
+  void streamGroups() throws IOException {
+    ResponseEntity<StreamingResponseBody> response = mock.streamGroups();
+    assertNotNull(response);
+    assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+    assertNotNull(response.getBody());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo(out);
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    List<Group> expected = GroupRepositoryMock.getGroups();
+    assertEquals(expected.size(), lines.length);
+    for (int i = 0; i < lines.length; i++) {
+      assertTrue(lines[i].contains(expected.get(i).getId()));
+    }
+  }
+
   /**
    * Find groups by ids.
    */
@@ -121,21 +188,145 @@ class GroupAdminControllerMockTest {
     final Group newGroup = GroupRepositoryMock.getGroupById(GROUP_0_ID).toBuilder()
         .name(value)
         .build();
-    ResponseEntity<Group> response = mock.modifyGroup(GROUP_0_ID, newGroup);
+    ResponseEntity<Group> response = mock.modifyGroup(GROUP_0_ID, newGroup, null);
     assertNotNull(response);
     assertNotNull(response.getBody());
     assertEquals(value, response.getBody().getName());
   }
 
+  /**
+   * Modify group and expect precondition failed.
+   */
+  @Test
+  void modifyGroupAndExpectPreconditionFailed() {
+    final Group oldGroup = GroupRepositoryMock.getGroupById(GROUP_0_ID);
+    final String staleEntityTag = EntityTags.of(oldGroup.getVersion() - 1L);
+    ResponseEntity<Group> response = mock.modifyGroup(
+        GROUP_0_ID, oldGroup.toBuilder().description("Stale").build(), staleEntityTag);
+    assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+    assertEquals(oldGroup, GroupRepositoryMock.getGroupById(GROUP_0_ID));
+  }
+
   /**
    * Modify group and expect error.
    */
   @Test
   void modifyGroupAndExpectError() {
     ResponseEntity<Group> response = mock.modifyGroup(
-        UUID.randomUUID().toString(), Group.builder().build());
+        UUID.randomUUID().toString(), Group.builder().build(), null);
     assertNotNull(response);
     assertEquals(HttpStatus.NOT_FOUND.value(), response.getStatusCode().value());
   }
 
-}
\ No newline at end of file
+  /**
+   * Add and remove member and owner.
+   */
+  @Test
+  void addAndRemoveMemberAndOwner() {
+    final String userName = UUID.randomUUID().toString();
+    final long version = GroupRepositoryMock.getGroupById(GROUP_0_ID).getVersion();
+    ResponseEntity<Group> response = mock.addMember(GROUP_0_ID, userName);
+    assertNotNull(response.getBody());
+    assertTrue(response.getBody().getMembers().contains(userName));
+    response = mock.addOwner(GROUP_0_ID, userName);
+    assertNotNull(response.getBody());
+    assertTrue(response.getBody().getOwners().contains(userName));
+    response = mock.removeMember(GROUP_0_ID, userName);
+    assertNotNull(response.getBody());
+    assertFalse(response.getBody().getMembers().contains(userName));
+    response = mock.removeOwner(GROUP_0_ID, userName);
+    assertNotNull(response.getBody());
+    assertFalse(response.getBody().getOwners().contains(userName));
+    assertEquals(Long.valueOf(version + 4L), response.getBody().getVersion());
+  }
+
+  /**
+   * Remove member and expect error.
+   */
+  @Test
+  void removeMemberAndExpectError() {
+    ResponseEntity<Group> response = mock.removeMember(UUID.randomUUID().toString(), "anna");
+    assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+  }
+
+  /**
+   * Execute batch.
+   */
+  @Test
+  void executeBatch() {
+    ResponseEntity<List<GroupCommandResult>> response = mock.executeBatch(Arrays.asList(
+        GroupCommand.builder()
+            .type(GroupCommandType.CREATE)
+            .group(Group.builder().name("Batch").build())
+            .build(),
+        GroupCommand.builder()
+            .type(GroupCommandType.DELETE)
+            .groupId(GROUP_1_ID)
+            .build(),
+        GroupCommand.builder()
+            .type(GroupCommandType.DELETE)
+            .groupId(GROUP_1_ID)
+            .build()));
+    assertNotNull(response.getBody());
+    assertEquals(3, response.getBody().size());
+    assertEquals(201, response.getBody().get(0).getStatus());
+    assertNotNull(GroupRepositoryMock.getGroupById(response.getBody().get(0).getGroupId()));
+    assertEquals(200, response.getBody().get(1).getStatus());
+    assertEquals(404, response.getBody().get(2).getStatus());
+  }
+
+  /**
+   * Gets changes.
+   */
+  @Test
+  void getChanges() {
+    ResponseEntity<List<GroupChangeEvent>> response = mock.getChanges(null);
+    assertNotNull(response.getBody());
+    assertEquals(2, response.getBody().size());
+    assertEquals(GROUP_0_ID, response.getBody().get(0).getGroupId());
+    assertEquals(GROUP_1_ID, response.getBody().get(1).getGroupId());
+
+    long lastSeen = response.getBody().get(1).getSequence();
+    response = mock.getChanges(lastSeen);
+    assertNotNull(response.getBody());
+    assertTrue(response.getBody().isEmpty());
+  }
+
+  /**
+   * Gets changes after a sequence number that is no longer retained and expect gone.
+   */
+  @Test
+  void getChangesAndExpectGone() {
+    long lastSeen = GroupRepositoryMock.getChangeSequence();
+    GroupRepositoryMock.deleteGroup(GROUP_0_ID);
+    GroupRepositoryMock.reset();
+    ResponseEntity<List<GroupChangeEvent>> response = mock.getChanges(lastSeen);
+    assertEquals(HttpStatus.GONE, response.getStatusCode());
+  }
+
+  /**
+   * Gets changes after a negative sequence number and expect bad request.
+   */
+  @Test
+  void getChangesAndExpectBadRequest() {
+    assertEquals(HttpStatus.BAD_REQUEST, mock.getChanges(-1L).getStatusCode());
+  }
+
+  /**
+   * Uses an injected repository.
+   */
+  @Test
+  void useInjectedRepository() {
+    InMemoryGroupRepository repository = new InMemoryGroupRepository();
+    GroupAdminControllerMock isolated = new GroupAdminControllerMock(repository, null);
+    ResponseEntity<List<Group>> response = isolated.getGroups(null, null);
+    assertNotNull(response.getBody());
+    assertTrue(response.getBody().isEmpty());
+
+    Group group = isolated.addGroup(Group.builder().name("isolated").build()).getBody();
+    assertNotNull(group);
+    assertNotNull(repository.getGroupById(group.getId()));
+    assertNull(GroupRepositoryMock.getGroupById(group.getId()));
+    assertEquals(2, GroupRepositoryMock.getGroups().size());
+  }
+}
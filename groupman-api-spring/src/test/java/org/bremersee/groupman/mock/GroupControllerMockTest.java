@@ -19,20 +19,35 @@ package org.bremersee.groupman.mock;
 import static java.util.Collections.singletonList;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_0_ID;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_0_OWNER;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_1_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import org.bremersee.groupman.model.ContinuationToken;
 import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
 import org.bremersee.groupman.model.GroupIdList;
+import org.bremersee.groupman.model.Membership;
 import org.bremersee.groupman.model.Status;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * The group controller mock test.
@@ -85,7 +100,7 @@ class GroupControllerMockTest {
   @Test
   void getEditableGroups() {
     List<Group> expected = GroupRepositoryMock.getEditableGroups(GROUP_0_OWNER);
-    ResponseEntity<List<Group>> response = mock.getEditableGroups();
+    ResponseEntity<List<Group>> response = mock.getEditableGroups(null, null);
     assertNotNull(response);
     assertEquals(expected, response.getBody());
   }
@@ -96,9 +111,30 @@ class GroupControllerMockTest {
   @Test
   void getGroupById() {
     Group expected = GroupRepositoryMock.getGroupById(GROUP_0_ID);
-    ResponseEntity<Group> response = mock.getGroupById(GROUP_0_ID);
+    ResponseEntity<Group> response = mock.getGroupById(GROUP_0_ID, null);
     assertNotNull(response);
     assertEquals(expected, response.getBody());
+    assertEquals(EntityTags.of(expected), response.getHeaders().getETag());
+  }
+
+  /**
+   * Gets group by id and expect not modified.
+   */
+  @Test
+  void getGroupByIdAndExpectNotModified() {
+    String entityTag = mock.getGroupById(GROUP_0_ID, null).getHeaders().getETag();
+    ResponseEntity<Group> response = mock.getGroupById(GROUP_0_ID, entityTag);
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    assertNull(response.getBody());
+    assertEquals(entityTag, response.getHeaders().getETag());
+
+    Group update = GroupRepositoryMock.getGroupById(GROUP_0_ID).toBuilder()
+        .version(GroupRepositoryMock.getGroupById(GROUP_0_ID).getVersion() + 1L)
+        .build();
+    GroupRepositoryMock.updateGroup(GROUP_0_ID, update);
+    response = mock.getGroupById(GROUP_0_ID, entityTag);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(update, response.getBody());
   }
 
   /**
@@ -106,7 +142,7 @@ class GroupControllerMockTest {
    */
   @Test
   void getGroupByIdAndExpectError() {
-    ResponseEntity<Group> response = mock.getGroupById(UUID.randomUUID().toString());
+    ResponseEntity<Group> response = mock.getGroupById(UUID.randomUUID().toString(), null);
     assertNotNull(response);
     assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
   }
@@ -128,45 +164,159 @@ class GroupControllerMockTest {
   @Test
   void getMembership() {
     List<Group> expected = GroupRepositoryMock.getMembership(GROUP_0_OWNER);
-    ResponseEntity<List<Group>> response = mock.getMembership();
+    ResponseEntity<List<Group>> response = mock.getMembership(null, null);
     assertNotNull(response);
     assertEquals(expected, response.getBody());
   }
 
+  /**
+   * Gets membership page by page.
+   */
+  @Test
+  void getMembershipPaged() {
+    List<Group> expected = GroupRepositoryMock.getMembership(GROUP_0_OWNER);
+    ResponseEntity<List<Group>> response = mock.getMembership(null, 1);
+    assertNotNull(response);
+    assertEquals(expected.subList(0, 1), response.getBody());
+    String next = response.getHeaders().getFirst(ContinuationToken.HEADER_NAME);
+    assertEquals(ContinuationToken.of(expected.get(0)), next);
+    response = mock.getMembership(next, expected.size());
+    assertNotNull(response);
+    assertEquals(expected.subList(1, expected.size()), response.getBody());
+    assertNull(response.getHeaders().getFirst(ContinuationToken.HEADER_NAME));
+  }
+
+  /**
+   * Gets membership and expect bad request on illegal limit or continuation token.
+   */
+  @Test
+  void getMembershipAndExpectBadRequest() {
+    assertEquals(HttpStatus.BAD_REQUEST, mock.getMembership(null, -1).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, mock.getEditableGroups("%%%", null).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, mock.getUsableGroups("%%%", 1).getStatusCode());
+  }
+
   /**
    * Gets membership ids.
    */
   @Test
   void getMembershipIds() {
     Set<String> expected = GroupRepositoryMock.getMembershipIds(GROUP_0_OWNER);
-    ResponseEntity<GroupIdList> response = mock.getMembershipIds();
+    ResponseEntity<GroupIdList> response = mock.getMembershipIds(null);
     assertNotNull(response);
     assertNotNull(response.getBody());
     assertTrue(expected.containsAll(response.getBody()));
   }
 
+  /**
+   * Gets membership ids and expect not modified.
+   */
+  @Test
+  void getMembershipIdsAndExpectNotModified() {
+    String entityTag = mock.getMembershipIds(null).getHeaders().getETag();
+    assertNotNull(entityTag);
+    ResponseEntity<GroupIdList> response = mock.getMembershipIds(entityTag);
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    assertNull(response.getBody());
+
+    GroupRepositoryMock.deleteGroup(GROUP_0_ID);
+    response = mock.getMembershipIds(entityTag);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertFalse(response.getBody().contains(GROUP_0_ID));
+  }
+
+  /**
+   * Check memberships.
+   */
+  @Test
+  void checkMemberships() {
+    ResponseEntity<List<Boolean>> response = mock.checkMemberships(List.of(
+        new Membership(GROUP_0_OWNER, GROUP_0_ID),
+        new Membership(GROUP_0_OWNER, GROUP_1_ID)));
+    assertEquals(List.of(true, false), response.getBody());
+  }
+
   /**
    * Gets status.
    */
   @Test
   void getStatus() {
     Status expected = GroupRepositoryMock.getStatus(GROUP_0_OWNER);
-    ResponseEntity<Status> response = mock.getStatus();
+    ResponseEntity<Status> response = mock.getStatus(null);
     assertNotNull(response);
     assertEquals(expected, response.getBody());
   }
 
+  /**
+   * Gets status and expect not modified.
+   */
+  @Test
+  void getStatusAndExpectNotModified() {
+    String entityTag = mock.getStatus(null).getHeaders().getETag();
+    assertEquals(HttpStatus.NOT_MODIFIED, mock.getStatus(entityTag).getStatusCode());
+
+    GroupRepositoryMock.setMaxOwnedGroups(100L);
+    ResponseEntity<Status> response = mock.getStatus(entityTag);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(100L, response.getBody().getMaxOwnedGroups());
+  }
+
   /**
    * Gets usable groups.
    */
   @Test
   void getUsableGroups() {
     List<Group> expected = GroupRepositoryMock.getUsableGroups(GROUP_0_OWNER);
-    ResponseEntity<List<Group>> response = mock.getUsableGroups();
+    ResponseEntity<List<Group>> response = mock.getUsableGroups(null, null);
     assertNotNull(response);
     assertEquals(expected, response.getBody());
   }
 
+  /**
+   * Stream membership.
+   *
+   * @throws IOException if writing fails
+   */
+  @Test
+  void streamMembership() throws IOException {
+    List<String> expected = GroupRepositoryMock.getMembership(GROUP_0_OWNER).stream()
+        .map(Group::getId)
+        .collect(Collectors.toList());
+    assertEquals(expected, streamIds(mock.streamMembership()));
+  }
+
+  /**
+   * Stream editable and usable groups.
+   *
+   * @throws IOException if writing fails
+   */
+  @Test
+  void streamEditableAndUsableGroups() throws IOException {
+    assertEquals(
+        GroupRepositoryMock.getEditableGroups(GROUP_0_OWNER).size(),
+        streamIds(mock.streamEditableGroups()).size());
+    assertEquals(
+        GroupRepositoryMock.getUsableGroups(GROUP_0_OWNER).size(),
+        streamIds(mock.streamUsableGroups()).size());
+  }
+
+  private static List<String> streamIds(ResponseEntity<StreamingResponseBody> response)
+      throws IOException {
+    assertNotNull(response);
+    assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+    assertNotNull(response.getBody());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo(out);
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    List<String> ids = new ArrayList<>();
+    for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+      ids.add(objectMapper.readValue(line, Group.class).getId());
+    }
+    return ids;
+  }
+
   /**
    * Update group.
    */
@@ -176,12 +326,35 @@ class GroupControllerMockTest {
     final Group newGroup = GroupRepositoryMock.getGroupById(GROUP_0_ID).toBuilder()
         .name(value)
         .build();
-    ResponseEntity<Group> response = mock.updateGroup(GROUP_0_ID, newGroup);
+    ResponseEntity<Group> response = mock.updateGroup(GROUP_0_ID, newGroup, null);
     assertNotNull(response);
     assertNotNull(response.getBody());
     assertEquals(value, response.getBody().getName());
   }
 
+  /**
+   * Update group with if match.
+   */
+  @Test
+  void updateGroupWithIfMatch() {
+    final Group oldGroup = GroupRepositoryMock.getGroupById(GROUP_0_ID);
+    final String entityTag = EntityTags.of(oldGroup);
+    ResponseEntity<Group> response = mock.updateGroup(
+        GROUP_0_ID, oldGroup.toBuilder().description("First").build(), entityTag);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(Long.valueOf(oldGroup.getVersion() + 1L), response.getBody().getVersion());
+    assertEquals(EntityTags.of(response.getBody()), response.getHeaders().getETag());
+
+    response = mock.updateGroup(
+        GROUP_0_ID, oldGroup.toBuilder().description("Second").build(), entityTag);
+    assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+    response = mock.updateGroup(
+        GROUP_0_ID, oldGroup.toBuilder().description("Second").build(), entityTag.substring(2));
+    assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+    assertEquals("First", GroupRepositoryMock.getGroupById(GROUP_0_ID).getDescription());
+  }
+
   /**
    * Update group and expect error.
    */
@@ -191,8 +364,78 @@ class GroupControllerMockTest {
     final Group newGroup = GroupRepositoryMock.getGroupById(GROUP_0_ID).toBuilder()
         .name(value)
         .build();
-    ResponseEntity<Group> response = mock.updateGroup(UUID.randomUUID().toString(), newGroup);
+    ResponseEntity<Group> response = mock
+        .updateGroup(UUID.randomUUID().toString(), newGroup, null);
     assertNotNull(response);
     assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
   }
-}
\ No newline at end of file
+
+  /**
+   * Add and remove member.
+   */
+  @Test
+  void addAndRemoveMember() {
+    final String userName = UUID.randomUUID().toString();
+    ResponseEntity<Group> response = mock.addMember(GROUP_0_ID, userName);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertTrue(response.getBody().getMembers().contains(userName));
+    assertEquals(EntityTags.of(response.getBody()), response.getHeaders().getETag());
+
+    response = mock.removeMember(GROUP_0_ID, userName);
+    assertNotNull(response.getBody());
+    assertFalse(response.getBody().getMembers().contains(userName));
+  }
+
+  /**
+   * Add and remove owner.
+   */
+  @Test
+  void addAndRemoveOwner() {
+    final String userName = UUID.randomUUID().toString();
+    ResponseEntity<Group> response = mock.addOwner(GROUP_0_ID, userName);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertTrue(response.getBody().getOwners().contains(userName));
+
+    response = mock.removeOwner(GROUP_0_ID, userName);
+    assertNotNull(response.getBody());
+    assertFalse(response.getBody().getOwners().contains(userName));
+  }
+
+  /**
+   * Add member and expect error.
+   */
+  @Test
+  void addMemberAndExpectError() {
+    ResponseEntity<Group> response = mock.addMember(UUID.randomUUID().toString(), "anna");
+    assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+  }
+
+  /**
+   * Gets changes.
+   */
+  @Test
+  void getChanges() {
+    ResponseEntity<List<GroupChangeEvent>> response = mock.getChanges(null);
+    assertNotNull(response.getBody());
+    assertEquals(1, response.getBody().size());
+    assertEquals(GROUP_0_ID, response.getBody().get(0).getGroupId());
+
+    long lastSeen = response.getBody().get(0).getSequence();
+    GroupRepositoryMock.deleteGroup(GROUP_0_ID);
+    response = mock.getChanges(lastSeen);
+    assertNotNull(response.getBody());
+    assertEquals(1, response.getBody().size());
+    assertEquals(GROUP_0_ID, response.getBody().get(0).getGroupId());
+    assertTrue(response.getBody().get(0).getSequence() > lastSeen);
+  }
+
+  /**
+   * Gets changes after a negative sequence number and expect bad request.
+   */
+  @Test
+  void getChangesAndExpectBadRequest() {
+    assertEquals(HttpStatus.BAD_REQUEST, mock.getChanges(-1L).getStatusCode());
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.util.function.Supplier;
+
+/**
+ * The response of a conditional request, that is independent of the web framework: the entity
+ * tag of the current representation and either the body or the decision, that the response is
+ * 'Not Modified'. The controller mocks build the response entities from it.
+ *
+ * @param <T> the type of the body
+ * @author Christian Bremer
+ */
+public final class ConditionalResponse<T> {
+
+  private final String entityTag;
+
+  private final boolean notModified;
+
+  private final T body;
+
+  private ConditionalResponse(String entityTag, boolean notModified, T body) {
+    this.entityTag = entityTag;
+    this.notModified = notModified;
+    this.body = body;
+  }
+
+  /**
+   * Creates the response of a conditional read. If the 'If-None-Match' header matches the entity
+   * tag, the response is 'Not Modified' and the body is not created.
+   *
+   * @param <T> the type of the body
+   * @param entityTag the entity tag of the current representation, can be {@code null}
+   * @param ifNoneMatch the value of the 'If-None-Match' header, can be {@code null}
+   * @param body the body supplier
+   * @return the response
+   */
+  public static <T> ConditionalResponse<T> of(
+      String entityTag,
+      String ifNoneMatch,
+      Supplier<T> body) {
+    if (EntityTags.matches(ifNoneMatch, entityTag)) {
+      return new ConditionalResponse<>(entityTag, true, null);
+    }
+    return new ConditionalResponse<>(entityTag, false, body.get());
+  }
+
+  /**
+   * Gets the entity tag.
+   *
+   * @return the entity tag or {@code null}, if the representation has none
+   */
+  public String getEntityTag() {
+    return entityTag;
+  }
+
+  /**
+   * Determines whether the response is 'Not Modified'.
+   *
+   * @return {@code true} if the response is 'Not Modified', otherwise {@code false}
+   */
+  public boolean isNotModified() {
+    return notModified;
+  }
+
+  /**
+   * Gets the body.
+   *
+   * @return the body or {@code null}, if the response is 'Not Modified'
+   */
+  public T getBody() {
+    return body;
+  }
+
+}
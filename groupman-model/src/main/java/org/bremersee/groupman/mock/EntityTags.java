@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.bremersee.groupman.model.Group;
+
+/**
+ * Creates entity tags (ETags) and evaluates the 'If-None-Match' header for conditional requests.
+ *
+ * <p>The entity tags are weak: they are created from versions and revisions, that don't depend
+ * on the representation, so the json and the Smile representation of a group or a status get the
+ * same tag. A strong tag would have to differ between the representations.
+ *
+ * @author Christian Bremer
+ */
+public abstract class EntityTags {
+
+  /**
+   * Matches a wildcard or an entity tag of a list of entity tags.
+   */
+  private static final Pattern ENTITY_TAG = Pattern.compile("\\*|(?:W/)?\"[^\"]*\"");
+
+  /**
+   * Matches the entity tag of a group.
+   */
+  private static final Pattern VERSION_TAG = Pattern.compile("(?:W/)?\"(-?\\d+)\"");
+
+  /**
+   * Creates the weak entity tag of a group from its version.
+   *
+   * @param group the group
+   * @return the entity tag or {@code null}, if the group has no version
+   */
+  public static String of(Group group) {
+    if (group == null || group.getVersion() == null) {
+      return null;
+    }
+    return of(group.getVersion());
+  }
+
+  /**
+   * Creates a weak entity tag from the given revisions.
+   *
+   * @param revisions the revisions
+   * @return the entity tag
+   */
+  public static String of(long... revisions) {
+    return Arrays.stream(revisions)
+        .mapToObj(Long::toString)
+        .collect(Collectors.joining("-", "W/\"", "\""));
+  }
+
+  /**
+   * Determines whether the value of an 'If-None-Match' header matches the given entity tag. As
+   * specified for 'If-None-Match', entity tags are compared weakly.
+   *
+   * @param ifNoneMatch the value of the 'If-None-Match' header
+   * @param entityTag the entity tag of the current representation
+   * @return {@code true} if the header matches, so the response can be 'Not Modified'
+   */
+  public static boolean matches(String ifNoneMatch, String entityTag) {
+    if (ifNoneMatch == null || entityTag == null) {
+      return false;
+    }
+    String opaqueTag = opaqueTag(entityTag);
+    Matcher matcher = ENTITY_TAG.matcher(ifNoneMatch);
+    while (matcher.find()) {
+      String tag = matcher.group();
+      if ("*".equals(tag) || opaqueTag.equals(opaqueTag(tag))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the version of an 'If-Match' header for a compare and set update of a group. The tag is
+   * not compared with a representation but with the version of the stored group, which
+   * identifies its state exactly, so the weak tag of a group is accepted.
+   *
+   * @param ifMatch the value of the 'If-Match' header
+   * @return the expected version or {@code null}, if the header is absent or '*'
+   * @throws IllegalArgumentException if the header is not exactly one entity tag of a group;
+   *     such a header can never match
+   */
+  public static Long version(String ifMatch) {
+    if (ifMatch == null || "*".equals(ifMatch.trim())) {
+      return null;
+    }
+    Matcher matcher = VERSION_TAG.matcher(ifMatch.trim());
+    if (!matcher.matches()) {
+      throw new IllegalArgumentException("Illegal 'If-Match' header: " + ifMatch);
+    }
+    try {
+      return Long.valueOf(matcher.group(1));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Illegal 'If-Match' header: " + ifMatch, e);
+    }
+  }
+
+  private static String opaqueTag(String entityTag) {
+    return entityTag.startsWith("W/") ? entityTag.substring(2) : entityTag;
+  }
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable, compressed bitmap of group IDs. The IDs are split into chunks of 65536 IDs by
+ * their high 16 bits, and only the chunks, that contain an ID, are stored: a chunk with up to
+ * 4096 IDs is a sorted array of the low 16 bits (two bytes per ID), a fuller chunk is a bitmap of
+ * 8 KB. So a bitmap needs space for the IDs, that are set, not for the highest ID, and a change
+ * copies only the affected chunk and the small array of the chunk keys.
+ *
+ * @author Christian Bremer
+ */
+final class GroupBitmap {
+
+  /**
+   * The empty bitmap.
+   */
+  static final GroupBitmap EMPTY = new GroupBitmap(new char[0], new Chunk[0]);
+
+  /**
+   * The maximum number of IDs of a chunk, that is stored as sorted array.
+   */
+  static final int ARRAY_LIMIT = 4096;
+
+  /**
+   * The high 16 bits of the chunks in ascending order.
+   */
+  private final char[] keys;
+
+  private final Chunk[] chunks;
+
+  private GroupBitmap(char[] keys, Chunk[] chunks) {
+    this.keys = keys;
+    this.chunks = chunks;
+  }
+
+  private int indexOf(char key) {
+    return Arrays.binarySearch(keys, key);
+  }
+
+  /**
+   * Determines whether the ID is set.
+   *
+   * @param id the ID
+   * @return {@code true} if the ID is set, otherwise {@code false}
+   */
+  boolean contains(int id) {
+    if (id < 0) {
+      return false;
+    }
+    int index = indexOf((char) (id >>> 16));
+    return index >= 0 && chunks[index].contains((char) id);
+  }
+
+  /**
+   * Returns a bitmap with the given ID set.
+   *
+   * @param id the ID
+   * @return the bitmap
+   */
+  GroupBitmap with(int id) {
+    if (id < 0) {
+      throw new IllegalArgumentException("Illegal ID " + id);
+    }
+    char key = (char) (id >>> 16);
+    int index = indexOf(key);
+    if (index >= 0) {
+      Chunk chunk = chunks[index].with((char) id);
+      return chunk == chunks[index] ? this : replace(index, chunk);
+    }
+    index = -index - 1;
+    char[] newKeys = new char[keys.length + 1];
+    Chunk[] newChunks = new Chunk[chunks.length + 1];
+    System.arraycopy(keys, 0, newKeys, 0, index);
+    System.arraycopy(chunks, 0, newChunks, 0, index);
+    newKeys[index] = key;
+    newChunks[index] = new ArrayChunk(new char[]{(char) id});
+    System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+    System.arraycopy(chunks, index, newChunks, index + 1, chunks.length - index);
+    return new GroupBitmap(newKeys, newChunks);
+  }
+
+  /**
+   * Returns a bitmap without the given ID.
+   *
+   * @param id the ID
+   * @return the bitmap
+   */
+  GroupBitmap without(int id) {
+    if (!contains(id)) {
+      return this;
+    }
+    int index = indexOf((char) (id >>> 16));
+    Chunk chunk = chunks[index].without((char) id);
+    if (chunk != null) {
+      return replace(index, chunk);
+    }
+    if (keys.length == 1) {
+      return EMPTY;
+    }
+    char[] newKeys = new char[keys.length - 1];
+    Chunk[] newChunks = new Chunk[chunks.length - 1];
+    System.arraycopy(keys, 0, newKeys, 0, index);
+    System.arraycopy(chunks, 0, newChunks, 0, index);
+    System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+    System.arraycopy(chunks, index + 1, newChunks, index, chunks.length - index - 1);
+    return new GroupBitmap(newKeys, newChunks);
+  }
+
+  private GroupBitmap replace(int index, Chunk chunk) {
+    Chunk[] newChunks = chunks.clone();
+    newChunks[index] = chunk;
+    return new GroupBitmap(keys, newChunks);
+  }
+
+  /**
+   * Returns the union of this and the other bitmap. The chunks, that only one of the bitmaps has,
+   * are shared with the union.
+   *
+   * @param other the other bitmap
+   * @return the union
+   */
+  GroupBitmap or(GroupBitmap other) {
+    if (other.isEmpty()) {
+      return this;
+    }
+    if (isEmpty()) {
+      return other;
+    }
+    char[] newKeys = new char[keys.length + other.keys.length];
+    Chunk[] newChunks = new Chunk[newKeys.length];
+    int i = 0;
+    int j = 0;
+    int length = 0;
+    while (i < keys.length || j < other.keys.length) {
+      int cmp;
+      if (i == keys.length) {
+        cmp = 1;
+      } else if (j == other.keys.length) {
+        cmp = -1;
+      } else {
+        cmp = Character.compare(keys[i], other.keys[j]);
+      }
+      if (cmp < 0) {
+        newKeys[length] = keys[i];
+        newChunks[length++] = chunks[i++];
+      } else if (cmp > 0) {
+        newKeys[length] = other.keys[j];
+        newChunks[length++] = other.chunks[j++];
+      } else {
+        newKeys[length] = keys[i];
+        newChunks[length++] = chunks[i++].or(other.chunks[j++]);
+      }
+    }
+    return new GroupBitmap(Arrays.copyOf(newKeys, length), Arrays.copyOf(newChunks, length));
+  }
+
+  /**
+   * Gets the number of set IDs.
+   *
+   * @return the cardinality
+   */
+  int cardinality() {
+    int cardinality = 0;
+    for (Chunk chunk : chunks) {
+      cardinality += chunk.cardinality();
+    }
+    return cardinality;
+  }
+
+  /**
+   * Determines whether no ID is set.
+   *
+   * @return {@code true} if no ID is set, otherwise {@code false}
+   */
+  boolean isEmpty() {
+    return keys.length == 0;
+  }
+
+  /**
+   * Calls the action with every set ID in ascending order.
+   *
+   * @param action the action
+   */
+  void forEach(IntConsumer action) {
+    for (int i = 0; i < keys.length; i++) {
+      chunks[i].forEach(keys[i] << 16, action);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof GroupBitmap)) {
+      return false;
+    }
+    GroupBitmap other = (GroupBitmap) o;
+    return Arrays.equals(keys, other.keys) && Arrays.equals(chunks, other.chunks);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(keys) + Arrays.hashCode(chunks);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    forEach(id -> sb.append(sb.length() > 1 ? ", " : "").append(id));
+    return sb.append('}').toString();
+  }
+
+  /**
+   * The low 16 bits of the IDs of a chunk. A chunk is never empty, and it is an array, if it has
+   * not more than {@link #ARRAY_LIMIT} IDs, otherwise a bitmap, so equal chunks have the same
+   * form.
+   */
+  private abstract static class Chunk {
+
+    abstract boolean contains(char value);
+
+    abstract Chunk with(char value);
+
+    /**
+     * Returns a chunk without the value.
+     *
+     * @param value the value, that must be present
+     * @return the chunk or {@code null}, if the chunk would be empty
+     */
+    abstract Chunk without(char value);
+
+    abstract Chunk or(Chunk other);
+
+    abstract int cardinality();
+
+    abstract void forEach(int base, IntConsumer action);
+  }
+
+  /**
+   * A chunk with the sorted values.
+   */
+  private static final class ArrayChunk extends Chunk {
+
+    private final char[] values;
+
+    private ArrayChunk(char[] values) {
+      this.values = values;
+    }
+
+    @Override
+    boolean contains(char value) {
+      return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    @Override
+    Chunk with(char value) {
+      int index = Arrays.binarySearch(values, value);
+      if (index >= 0) {
+        return this;
+      }
+      if (values.length == ARRAY_LIMIT) {
+        return BitmapChunk.of(this).with(value);
+      }
+      index = -index - 1;
+      char[] newValues = new char[values.length + 1];
+      System.arraycopy(values, 0, newValues, 0, index);
+      newValues[index] = value;
+      System.arraycopy(values, index, newValues, index + 1, values.length - index);
+      return new ArrayChunk(newValues);
+    }
+
+    @Override
+    Chunk without(char value) {
+      int index = Arrays.binarySearch(values, value);
+      if (values.length == 1) {
+        return null;
+      }
+      char[] newValues = new char[values.length - 1];
+      System.arraycopy(values, 0, newValues, 0, index);
+      System.arraycopy(values, index + 1, newValues, index, values.length - index - 1);
+      return new ArrayChunk(newValues);
+    }
+
+    @Override
+    Chunk or(Chunk other) {
+      if (other instanceof BitmapChunk) {
+        return other.or(this);
+      }
+      char[] otherValues = ((ArrayChunk) other).values;
+      char[] newValues = new char[values.length + otherValues.length];
+      int i = 0;
+      int j = 0;
+      int length = 0;
+      while (i < values.length && j < otherValues.length) {
+        if (values[i] < otherValues[j]) {
+          newValues[length++] = values[i++];
+        } else if (values[i] > otherValues[j]) {
+          newValues[length++] = otherValues[j++];
+        } else {
+          newValues[length++] = values[i++];
+          j++;
+        }
+      }
+      while (i < values.length) {
+        newValues[length++] = values[i++];
+      }
+      while (j < otherValues.length) {
+        newValues[length++] = otherValues[j++];
+      }
+      ArrayChunk union = new ArrayChunk(Arrays.copyOf(newValues, length));
+      return length > ARRAY_LIMIT ? BitmapChunk.of(union) : union;
+    }
+
+    @Override
+    int cardinality() {
+      return values.length;
+    }
+
+    @Override
+    void forEach(int base, IntConsumer action) {
+      for (char value : values) {
+        action.accept(base | value);
+      }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof ArrayChunk && Arrays.equals(values, ((ArrayChunk) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(values);
+    }
+  }
+
+  /**
+   * A chunk with a bit for each of the 65536 values.
+   */
+  private static final class BitmapChunk extends Chunk {
+
+    private final long[] words;
+
+    private final int cardinality;
+
+    private BitmapChunk(long[] words, int cardinality) {
+      this.words = words;
+      this.cardinality = cardinality;
+    }
+
+    private static BitmapChunk of(ArrayChunk chunk) {
+      long[] words = new long[1 << 10];
+      for (char value : chunk.values) {
+        words[value >>> 6] |= 1L << value;
+      }
+      return new BitmapChunk(words, chunk.values.length);
+    }
+
+    @Override
+    boolean contains(char value) {
+      return (words[value >>> 6] & (1L << value)) != 0L;
+    }
+
+    @Override
+    Chunk with(char value) {
+      if (contains(value)) {
+        return this;
+      }
+      long[] newWords = words.clone();
+      newWords[value >>> 6] |= 1L << value;
+      return new BitmapChunk(newWords, cardinality + 1);
+    }
+
+    @Override
+    Chunk without(char value) {
+      if (cardinality - 1 <= ARRAY_LIMIT) {
+        char[] values = new char[cardinality - 1];
+        int[] length = new int[1];
+        forEach(0, id -> {
+          if (id != value) {
+            values[length[0]++] = (char) id;
+          }
+        });
+        return new ArrayChunk(values);
+      }
+      long[] newWords = words.clone();
+      newWords[value >>> 6] &= ~(1L << value);
+      return new BitmapChunk(newWords, cardinality - 1);
+    }
+
+    @Override
+    Chunk or(Chunk other) {
+      long[] newWords = words.clone();
+      if (other instanceof ArrayChunk) {
+        for (char value : ((ArrayChunk) other).values) {
+          newWords[value >>> 6] |= 1L << value;
+        }
+      } else {
+        long[] otherWords = ((BitmapChunk) other).words;
+        for (int i = 0; i < newWords.length; i++) {
+          newWords[i] |= otherWords[i];
+        }
+      }
+      int newCardinality = 0;
+      for (long word : newWords) {
+        newCardinality += Long.bitCount(word);
+      }
+      return new BitmapChunk(newWords, newCardinality);
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    void forEach(int base, IntConsumer action) {
+      for (int i = 0; i < words.length; i++) {
+        long word = words[i];
+        while (word != 0L) {
+          action.accept(base | ((i << 6) + Long.numberOfTrailingZeros(word)));
+          word &= word - 1L;
+        }
+      }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof BitmapChunk && Arrays.equals(words, ((BitmapChunk) o).words);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(words);
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupSnapshot;
+import org.bremersee.groupman.model.Source;
+
+/**
+ * The binary encoding of groups, that is used by the group journal. Strings are written as
+ * length and UTF-8 bytes, a length of {@code -1} means {@code null}.
+ *
+ * @author Christian Bremer
+ */
+abstract class GroupCodec {
+
+  /**
+   * Writes a group.
+   *
+   * @param out the output
+   * @param group the group
+   * @throws IOException if writing fails
+   */
+  static void write(DataOutput out, GroupSnapshot group) throws IOException {
+    writeString(out, group.getId());
+    out.writeLong(group.getVersion() != null ? group.getVersion() : -1L);
+    writeString(out, group.getCreatedBy());
+    writeTime(out, group.getCreatedAt());
+    writeTime(out, group.getModifiedAt());
+    writeString(out, group.getSource() != null ? group.getSource().toString() : null);
+    writeString(out, group.getName());
+    writeString(out, group.getDescription());
+    writeStrings(out, group.getMembers());
+    writeStrings(out, group.getOwners());
+  }
+
+  /**
+   * Reads a group.
+   *
+   * @param in the input
+   * @return the group
+   * @throws IOException if reading fails
+   */
+  static Group read(DataInput in) throws IOException {
+    String id = readString(in);
+    long version = in.readLong();
+    return Group.builder()
+        .id(id)
+        .version(version >= 0L ? version : null)
+        .createdBy(readString(in))
+        .createdAt(readTime(in))
+        .modifiedAt(readTime(in))
+        .source(Source.fromValue(readString(in)))
+        .name(readString(in))
+        .description(readString(in))
+        .members(readStrings(in))
+        .owners(readStrings(in))
+        .build();
+  }
+
+  /**
+   * Writes a string.
+   *
+   * @param out the output
+   * @param value the string, can be {@code null}
+   * @throws IOException if writing fails
+   */
+  static void writeString(DataOutput out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Reads a string.
+   *
+   * @param in the input
+   * @return the string, can be {@code null}
+   * @throws IOException if reading fails
+   */
+  static String readString(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeStrings(DataOutput out, List<String> values) throws IOException {
+    out.writeInt(values.size());
+    for (String value : values) {
+      writeString(out, value);
+    }
+  }
+
+  private static List<String> readStrings(DataInput in) throws IOException {
+    int size = in.readInt();
+    List<String> values = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      values.add(readString(in));
+    }
+    return values;
+  }
+
+  private static void writeTime(DataOutput out, OffsetDateTime time) throws IOException {
+    out.writeBoolean(time != null);
+    if (time != null) {
+      out.writeLong(time.toEpochSecond());
+      out.writeInt(time.getNano());
+      out.writeInt(time.getOffset().getTotalSeconds());
+    }
+  }
+
+  private static OffsetDateTime readTime(DataInput in) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    long epochSecond = in.readLong();
+    int nano = in.readInt();
+    ZoneOffset offset = ZoneOffset.ofTotalSeconds(in.readInt());
+    return OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nano), offset);
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.util.Iterator;
+
+/**
+ * An immutable set of group IDs in ascending order (as of {@link String#compareTo(String)}). The
+ * repository keeps such a set for each user and relation; a change returns a new set and leaves
+ * this one unchanged, so the sets can be shared between the versions of the store.
+ *
+ * @author Christian Bremer
+ */
+interface GroupIdSet {
+
+  /**
+   * Gets the number of group IDs.
+   *
+   * @return the number of group IDs
+   */
+  int size();
+
+  /**
+   * Determines whether the set is empty.
+   *
+   * @return {@code true} if the set is empty, otherwise {@code false}
+   */
+  default boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Determines whether the set contains the group ID.
+   *
+   * @param groupId the group ID
+   * @return {@code true} if the set contains the group ID, otherwise {@code false}
+   */
+  boolean contains(String groupId);
+
+  /**
+   * Adds the group ID.
+   *
+   * @param groupId the group ID
+   * @return the set with the group ID
+   */
+  GroupIdSet plus(String groupId);
+
+  /**
+   * Removes the group ID.
+   *
+   * @param groupId the group ID
+   * @return the set without the group ID
+   */
+  GroupIdSet minus(String groupId);
+
+  /**
+   * Iterates the group IDs in ascending order after the given one.
+   *
+   * @param afterId the group ID after which the iteration starts, if {@code null} all group IDs
+   *     are iterated
+   * @return the group IDs
+   */
+  Iterator<String> after(String afterId);
+
+}
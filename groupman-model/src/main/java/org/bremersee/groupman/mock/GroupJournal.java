@@ -0,0 +1,758 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupSnapshot;
+
+/**
+ * A file based write-ahead log of the groups, that makes an {@link InMemoryGroupRepository}
+ * durable.
+ *
+ * <p>The directory contains log segments ({@code wal-<n>.log}) and compacted snapshots
+ * ({@code snapshot-<n>.bin}). A snapshot with number {@code n} contains all groups that were
+ * written to the segments before segment {@code n}. On restart the latest snapshot is loaded and
+ * the segments from its number on are replayed. A record, that was not completely written, is
+ * cut off from the last segment.
+ *
+ * <p>Each write of the repository appends its records to a buffer while holding the write lock
+ * of the repository; that is one sequential append of a few bytes. The writer then waits until
+ * the records are forced to the disk: one waiting writer writes the buffer of all writers and
+ * forces the segment (group commit), so concurrent writes share one fsync.
+ *
+ * <p>The records of the changes and the snapshots carry the sequence numbers of the changes, so
+ * the repository continues the sequence after a restart.
+ *
+ * <p>If writing or forcing fails, the journal rejects all records, that are not durable, and
+ * accepts no more records, until the repository has discarded the versions of these records and
+ * called {@link #reset()}; the reset cuts the segment back to the last durable record.
+ *
+ * @author Christian Bremer
+ */
+public class GroupJournal implements Closeable {
+
+  /**
+   * The default number of records after which the repository writes a new snapshot.
+   */
+  public static final int DEFAULT_SNAPSHOT_INTERVAL = 10000;
+
+  private static final String SEGMENT_PREFIX = "wal-";
+
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+  private static final String SNAPSHOT_SUFFIX = ".bin";
+
+  private static final int SNAPSHOT_MAGIC = 0x47534e50;
+
+  private static final byte PUT = 1;
+
+  private static final byte DELETE = 2;
+
+  private static final byte CLEAR = 3;
+
+  private final Path directory;
+
+  private final int snapshotInterval;
+
+  /**
+   * Guards the buffer, the segment and the counters.
+   */
+  private final Object lock = new Object();
+
+  /**
+   * The records that are appended, but not written yet.
+   */
+  private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+  private FileChannel channel;
+
+  private long segment;
+
+  /**
+   * The number of the last appended record; it is the ticket a writer waits for.
+   */
+  private long appended;
+
+  /**
+   * The number of the last record that was forced to the disk.
+   */
+  private long durable;
+
+  /**
+   * The size of the current segment up to the last durable record.
+   */
+  private long durableSize;
+
+  private boolean syncing;
+
+  /**
+   * Specifies whether a snapshot is written; the journal is not closed meanwhile, so the snapshot
+   * doesn't delete segments, while the journal is opened again.
+   */
+  private boolean snapshotting;
+
+  /**
+   * Specifies whether writing or forcing has failed and the journal was not reset yet.
+   */
+  private boolean failed;
+
+  /**
+   * The last failure of writing or forcing.
+   */
+  private IOException failure;
+
+  /**
+   * The number of the last record, that was discarded by a reset; the records after the last
+   * durable one up to this number were never written.
+   */
+  private long discarded;
+
+  private long recordsSinceSnapshot;
+
+  private Collection<Group> recovered;
+
+  private long recoveredSequence;
+
+  private GroupJournal(Path directory, int snapshotInterval) {
+    this.directory = directory;
+    this.snapshotInterval = snapshotInterval;
+  }
+
+  /**
+   * Opens the journal in the given directory with the default snapshot interval. The directory
+   * is created, if it doesn't exist.
+   *
+   * @param directory the directory
+   * @return the journal
+   * @throws IOException if the journal cannot be read
+   */
+  public static GroupJournal open(Path directory) throws IOException {
+    return open(directory, DEFAULT_SNAPSHOT_INTERVAL);
+  }
+
+  /**
+   * Opens the journal in the given directory. The directory is created, if it doesn't exist.
+   *
+   * @param directory the directory
+   * @param snapshotInterval the number of records after which a new snapshot is written, if it
+   *     is not positive, snapshots are only written on {@link InMemoryGroupRepository#checkpoint()}
+   * @return the journal
+   * @throws IOException if the journal cannot be read
+   */
+  public static GroupJournal open(Path directory, int snapshotInterval) throws IOException {
+    if (directory == null) {
+      throw new IllegalArgumentException("Directory must be present.");
+    }
+    Files.createDirectories(directory);
+    GroupJournal journal = new GroupJournal(directory, snapshotInterval);
+    journal.recover();
+    return journal;
+  }
+
+  /**
+   * Gets the directory.
+   *
+   * @return the directory
+   */
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Loads the latest snapshot, replays the segments after it and opens the last segment for
+   * appending.
+   *
+   * @throws IOException if the journal cannot be read
+   */
+  private void recover() throws IOException {
+    TreeMap<Long, Path> segments = new TreeMap<>();
+    TreeMap<Long, Path> snapshots = new TreeMap<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".tmp")) {
+          Files.delete(file);
+        } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+          segments.put(number(name, SEGMENT_PREFIX, SEGMENT_SUFFIX), file);
+        } else if (name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX)) {
+          snapshots.put(number(name, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX), file);
+        }
+      }
+    }
+    Map<String, Group> groups = new TreeMap<>();
+    long first = 0L;
+    long sequence = 0L;
+    if (!snapshots.isEmpty()) {
+      first = snapshots.lastKey();
+      sequence = readSnapshot(snapshots.lastEntry().getValue(), groups);
+    }
+    for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+      if (entry.getKey() < first) {
+        Files.delete(entry.getValue());
+      } else {
+        sequence = Math.max(
+            sequence,
+            replay(entry.getValue(), groups, entry.getKey().equals(segments.lastKey())));
+      }
+    }
+    segment = segments.isEmpty() ? first : Math.max(first, segments.lastKey());
+    channel = openSegment(segment);
+    durableSize = channel.position();
+    recovered = new ArrayList<>(groups.values());
+    recoveredSequence = sequence;
+  }
+
+  /**
+   * Gets the groups that were recovered on opening. They are released after the first call.
+   *
+   * @return the recovered groups
+   */
+  Collection<Group> takeRecovered() {
+    synchronized (lock) {
+      Collection<Group> groups = recovered != null ? recovered : new ArrayList<>();
+      recovered = null;
+      return groups;
+    }
+  }
+
+  /**
+   * Gets the sequence number of the last change, that was recovered on opening.
+   *
+   * @return the sequence number of the last recovered change or {@code 0}
+   */
+  long getRecoveredSequence() {
+    return recoveredSequence;
+  }
+
+  private static long number(String name, String prefix, String suffix) {
+    return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+  }
+
+  private Path segmentFile(long number) {
+    return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+  }
+
+  private Path snapshotFile(long number) {
+    return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, number, SNAPSHOT_SUFFIX));
+  }
+
+  private FileChannel openSegment(long number) throws IOException {
+    FileChannel segmentChannel = FileChannel.open(
+        segmentFile(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    segmentChannel.position(segmentChannel.size());
+    return segmentChannel;
+  }
+
+  /**
+   * Replays the records of a segment. If the segment is the last one, a record that was not
+   * completely written is cut off, otherwise it is an error.
+   *
+   * @param file the segment
+   * @param groups the groups
+   * @param last specifies whether it is the last segment
+   * @return the sequence number of the last change of the segment or {@code 0}
+   * @throws IOException if the segment cannot be read
+   */
+  private static long replay(Path file, Map<String, Group> groups, boolean last)
+      throws IOException {
+    long valid = 0L;
+    long sequence = 0L;
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file)))) {
+      byte[] payload;
+      while ((payload = readRecord(in)) != null) {
+        sequence = Math.max(sequence, apply(payload, groups));
+        valid += Integer.BYTES * 2 + payload.length;
+      }
+    }
+    long size = Files.size(file);
+    if (valid < size) {
+      if (!last) {
+        throw new IOException("Segment " + file + " is corrupt at position " + valid + ".");
+      }
+      try (FileChannel truncate = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        truncate.truncate(valid);
+        truncate.force(true);
+      }
+    }
+    return sequence;
+  }
+
+  /**
+   * Reads the payload of the next record.
+   *
+   * @param in the input
+   * @return the payload or {@code null}, if there is no complete and valid record
+   * @throws IOException if the segment cannot be read
+   */
+  private static byte[] readRecord(DataInputStream in) throws IOException {
+    try {
+      int length = in.readInt();
+      int checksum = in.readInt();
+      if (length <= 0) {
+        return null;
+      }
+      byte[] payload = in.readNBytes(length);
+      if (payload.length < length) {
+        return null;
+      }
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      return (int) crc.getValue() == checksum ? payload : null;
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Applies a record to the groups.
+   *
+   * @param payload the payload of the record
+   * @param groups the groups
+   * @return the sequence number of the change of the record or {@code 0}, if it has none
+   * @throws IOException if the record cannot be read
+   */
+  private static long apply(byte[] payload, Map<String, Group> groups)
+      throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+    byte type = in.readByte();
+    if (type == PUT) {
+      long sequence = in.readLong();
+      Group group = GroupCodec.read(in);
+      groups.put(group.getId(), group);
+      return sequence;
+    } else if (type == DELETE) {
+      long sequence = in.readLong();
+      groups.remove(GroupCodec.readString(in));
+      return sequence;
+    } else if (type == CLEAR) {
+      groups.clear();
+      return 0L;
+    } else {
+      throw new IOException("Unknown record type " + type + ".");
+    }
+  }
+
+  /**
+   * Reads a snapshot.
+   *
+   * @param file the snapshot
+   * @param groups the groups
+   * @return the sequence number of the last change, that is contained in the snapshot
+   * @throws IOException if the snapshot cannot be read
+   */
+  private static long readSnapshot(Path file, Map<String, Group> groups)
+      throws IOException {
+    try (CheckedInputStream checked = new CheckedInputStream(
+        new BufferedInputStream(Files.newInputStream(file)), new CRC32())) {
+      DataInputStream in = new DataInputStream(checked);
+      if (in.readInt() != SNAPSHOT_MAGIC) {
+        throw new IOException("File " + file + " is not a group snapshot.");
+      }
+      long sequence = in.readLong();
+      int size = in.readInt();
+      for (int i = 0; i < size; i++) {
+        Group group = GroupCodec.read(in);
+        groups.put(group.getId(), group);
+      }
+      int checksum = (int) checked.getChecksum().getValue();
+      if (in.readInt() != checksum) {
+        throw new IOException("Snapshot " + file + " is corrupt.");
+      }
+      return sequence;
+    }
+  }
+
+  /**
+   * Encodes a record, that stores a group.
+   *
+   * @param sequence the sequence number of the change
+   * @param group the group
+   * @return the record
+   */
+  static byte[] put(long sequence, GroupSnapshot group) {
+    return record(PUT, out -> {
+      out.writeLong(sequence);
+      GroupCodec.write(out, group);
+    });
+  }
+
+  /**
+   * Encodes a record, that deletes a group.
+   *
+   * @param sequence the sequence number of the change
+   * @param groupId the group id
+   * @return the record
+   */
+  static byte[] delete(long sequence, String groupId) {
+    return record(DELETE, out -> {
+      out.writeLong(sequence);
+      GroupCodec.writeString(out, groupId);
+    });
+  }
+
+  /**
+   * Encodes a record, that deletes all groups.
+   *
+   * @return the record
+   */
+  static byte[] clear() {
+    return record(CLEAR, out -> {
+    });
+  }
+
+  private static byte[] record(byte type, RecordWriter writer) {
+    try {
+      ByteArrayOutputStream payload = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(payload);
+      out.writeByte(type);
+      writer.write(out);
+      out.flush();
+      byte[] bytes = payload.toByteArray();
+      CRC32 crc = new CRC32();
+      crc.update(bytes);
+      ByteBuffer record = ByteBuffer.allocate(Integer.BYTES * 2 + bytes.length);
+      record.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes);
+      return record.array();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Appends records to the buffer. It must be called by the writer of the repository while
+   * holding its write lock, so that the records are in the order of the changes.
+   *
+   * @param records the records
+   * @return the ticket to wait for with {@link #sync(long)}
+   */
+  long append(List<byte[]> records) {
+    synchronized (lock) {
+      checkOpen();
+      for (byte[] record : records) {
+        pending.writeBytes(record);
+      }
+      appended += records.size();
+      recordsSinceSnapshot += records.size();
+      return appended;
+    }
+  }
+
+  /**
+   * Waits until the records up to the ticket are forced to the disk. If no other writer is
+   * writing, this writer writes the records of all writers that have appended in the meantime.
+   *
+   * @param ticket the ticket
+   * @throws UncheckedIOException if the records could not be written; they are never written
+   */
+  void sync(long ticket) {
+    while (true) {
+      byte[] batch;
+      long upTo;
+      FileChannel target;
+      synchronized (lock) {
+        while (syncing && durable < ticket && !failed) {
+          await();
+        }
+        if (durable >= ticket) {
+          return;
+        }
+        if (failed || ticket <= discarded) {
+          throw new UncheckedIOException("Group journal failed.", failure);
+        }
+        syncing = true;
+        batch = pending.toByteArray();
+        pending = new ByteArrayOutputStream();
+        upTo = appended;
+        target = channel;
+      }
+      IOException error = null;
+      long size = 0L;
+      try {
+        ByteBuffer buffer = ByteBuffer.wrap(batch);
+        while (buffer.hasRemaining()) {
+          target.write(buffer);
+        }
+        target.force(false);
+        size = target.position();
+      } catch (IOException e) {
+        error = e;
+      }
+      synchronized (lock) {
+        syncing = false;
+        if (error == null) {
+          durable = upTo;
+          durableSize = size;
+        } else {
+          failed = true;
+          failure = error;
+        }
+        lock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Gets the ticket of the last record, that was forced to the disk.
+   *
+   * @return the ticket of the last durable record
+   */
+  long getDurableTicket() {
+    synchronized (lock) {
+      return durable;
+    }
+  }
+
+  /**
+   * Determines whether writing or forcing has failed and the journal must be reset.
+   *
+   * @return {@code true} if the journal has failed, otherwise {@code false}
+   */
+  boolean isFailed() {
+    synchronized (lock) {
+      return failed;
+    }
+  }
+
+  /**
+   * Discards all records, that are not durable, and cuts the segment back to the last durable
+   * record, so that the journal accepts records again. It must be called by the repository while
+   * holding its write lock, after it has discarded the versions of these records. The writers,
+   * that wait for the discarded records, get an exception.
+   *
+   * @throws UncheckedIOException if the segment cannot be cut back; the journal stays failed
+   */
+  void reset() {
+    synchronized (lock) {
+      while (syncing) {
+        await();
+      }
+      if (!failed) {
+        return;
+      }
+      try {
+        channel.truncate(durableSize);
+        channel.position(durableSize);
+        channel.force(false);
+      } catch (IOException e) {
+        failure = e;
+        throw new UncheckedIOException("Group journal failed.", e);
+      }
+      pending = new ByteArrayOutputStream();
+      discarded = appended;
+      failed = false;
+      lock.notifyAll();
+    }
+  }
+
+  private void await() {
+    try {
+      lock.wait();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the group journal.", e);
+    }
+  }
+
+  private void checkOpen() {
+    if (failed) {
+      throw new UncheckedIOException("Group journal failed.", failure);
+    }
+    if (channel == null) {
+      throw new IllegalStateException("Group journal is closed.");
+    }
+  }
+
+  /**
+   * Determines whether a new snapshot should be written.
+   *
+   * @return {@code true} if enough records were appended since the last snapshot
+   */
+  boolean isSnapshotDue() {
+    synchronized (lock) {
+      return snapshotInterval > 0 && recordsSinceSnapshot >= snapshotInterval;
+    }
+  }
+
+  /**
+   * Forces the current segment to the disk and starts a new one. It must be called by the
+   * repository while holding its write lock, so that no records are appended meanwhile.
+   *
+   * @return the number of the new segment, a snapshot with this number contains all records of
+   *     the previous segments
+   */
+  long rotate() {
+    long ticket;
+    synchronized (lock) {
+      checkOpen();
+      ticket = appended;
+    }
+    sync(ticket);
+    synchronized (lock) {
+      while (syncing) {
+        await();
+      }
+      try {
+        FileChannel next = openSegment(segment + 1L);
+        channel.close();
+        channel = next;
+        durableSize = next.position();
+        segment++;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      recordsSinceSnapshot = 0L;
+      return segment;
+    }
+  }
+
+  /**
+   * Writes a snapshot and deletes the segments and snapshots, that are contained in it. The
+   * snapshot is written to a temporary file, that is renamed, after it is forced to the disk.
+   *
+   * @param number the number of the segment, that was started with {@link #rotate()}, when the
+   *     groups were taken
+   * @param sequence the sequence number of the last change, that is contained in the groups
+   * @param groups the groups
+   */
+  void writeSnapshot(long number, long sequence, Collection<GroupSnapshot> groups) {
+    synchronized (lock) {
+      checkOpen();
+      snapshotting = true;
+    }
+    try {
+      writeSnapshotFile(number, sequence, groups);
+    } finally {
+      synchronized (lock) {
+        snapshotting = false;
+        lock.notifyAll();
+      }
+    }
+  }
+
+  private void writeSnapshotFile(long number, long sequence, Collection<GroupSnapshot> groups) {
+    Path file = snapshotFile(number);
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      try (FileChannel out = FileChannel.open(
+          tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.WRITE)) {
+        CheckedOutputStream checked = new CheckedOutputStream(
+            new BufferedOutputStream(Channels.newOutputStream(out)), new CRC32());
+        DataOutputStream data = new DataOutputStream(checked);
+        data.writeInt(SNAPSHOT_MAGIC);
+        data.writeLong(sequence);
+        data.writeInt(groups.size());
+        for (GroupSnapshot group : groups) {
+          GroupCodec.write(data, group);
+        }
+        data.flush();
+        ByteBuffer checksum = ByteBuffer.allocate(Integer.BYTES)
+            .putInt(0, (int) checked.getChecksum().getValue());
+        while (checksum.hasRemaining()) {
+          out.write(checksum);
+        }
+        out.force(true);
+      }
+      Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+        for (Path old : files) {
+          String name = old.getFileName().toString();
+          if ((name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)
+              && number(name, SEGMENT_PREFIX, SEGMENT_SUFFIX) < number)
+              || (name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX)
+              && number(name, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < number)) {
+            Files.delete(old);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Writes the remaining records and closes the current segment. A snapshot, that is written,
+   * is finished before.
+   *
+   * @throws IOException if the records cannot be written
+   */
+  @Override
+  public void close() throws IOException {
+    long ticket;
+    synchronized (lock) {
+      if (channel == null) {
+        return;
+      }
+      ticket = appended;
+    }
+    try {
+      sync(ticket);
+    } finally {
+      synchronized (lock) {
+        while (syncing || snapshotting) {
+          await();
+        }
+        channel.close();
+        channel = null;
+      }
+    }
+  }
+
+  /**
+   * Writes the payload of a record.
+   */
+  private interface RecordWriter {
+
+    /**
+     * Writes the payload.
+     *
+     * @param out the output
+     * @throws IOException if writing fails
+     */
+    void write(DataOutputStream out) throws IOException;
+  }
+
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.bremersee.groupman.model.ContinuationToken;
+import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.GroupCommand;
+import org.bremersee.groupman.model.GroupCommandResult;
+import org.bremersee.groupman.model.GroupSnapshot;
+import org.bremersee.groupman.model.Membership;
+import org.bremersee.groupman.model.Status;
+
+/**
+ * The group repository, that is used by the controller mocks. The reference implementation is
+ * the {@link InMemoryGroupRepository}; {@link GroupRepositoryMock} gives static access to a
+ * shared instance of it.
+ *
+ * <p>Groups are ordered by their IDs. The streams look up the groups lazily while they are
+ * consumed; the list methods collect the streams.
+ *
+ * @author Christian Bremer
+ */
+public interface GroupRepository {
+
+  /**
+   * Create group. A new group gets the sequence number of the change, that creates it, as
+   * version, so its version differs from the versions of a deleted group with the same ID.
+   *
+   * @param group the group
+   * @return the group
+   */
+  Group createGroup(Group group);
+
+  /**
+   * Gets group by id.
+   *
+   * @param groupId the group id
+   * @return the group or {@code null}, if there is no such group
+   */
+  Group getGroupById(String groupId);
+
+  /**
+   * Gets the snapshot of the group.
+   *
+   * @param groupId the group id
+   * @return the snapshot or {@code null}, if there is no such group
+   */
+  default GroupSnapshot getGroupSnapshot(String groupId) {
+    return groupId != null ? GroupSnapshot.of(getGroupById(groupId)) : null;
+  }
+
+  /**
+   * Update group, if it has the expected version. The version of the group is incremented.
+   *
+   * @param groupId the group id
+   * @param group the group
+   * @param expectedVersion the expected version of the stored group, if {@code null} the group
+   *     is updated unconditionally
+   * @return the group or {@code null}, if there is no such group
+   * @throws ConcurrentModificationException if the stored group has another version
+   */
+  Group updateGroup(String groupId, Group group, Long expectedVersion);
+
+  /**
+   * Adds a member to the group. If the user is already a member, the group is not changed.
+   *
+   * @param groupId the group id
+   * @param userName the name of the member
+   * @return the group or {@code null}, if there is no such group
+   */
+  Group addMember(String groupId, String userName);
+
+  /**
+   * Removes a member from the group. If the user is not a member, the group is not changed.
+   *
+   * @param groupId the group id
+   * @param userName the name of the member
+   * @return the group or {@code null}, if there is no such group
+   */
+  Group removeMember(String groupId, String userName);
+
+  /**
+   * Adds an owner to the group. If the user is already an owner, the group is not changed.
+   *
+   * @param groupId the group id
+   * @param userName the name of the owner
+   * @return the group or {@code null}, if there is no such group
+   */
+  Group addOwner(String groupId, String userName);
+
+  /**
+   * Removes an owner from the group. If the user is not an owner, the group is not changed.
+   *
+   * @param groupId the group id
+   * @param userName the name of the owner
+   * @return the group or {@code null}, if there is no such group
+   */
+  Group removeOwner(String groupId, String userName);
+
+  /**
+   * Delete group, if it has the expected version.
+   *
+   * @param groupId the group id
+   * @param expectedVersion the expected version of the stored group, if {@code null} the group
+   *     is deleted unconditionally
+   * @return the deleted group or {@code null}, if there is no such group
+   * @throws ConcurrentModificationException if the stored group has another version
+   */
+  Group deleteGroup(String groupId, Long expectedVersion);
+
+  /**
+   * Executes a command of a batch.
+   *
+   * @param index the position of the command in the batch
+   * @param command the command
+   * @return the result
+   */
+  GroupCommandResult execute(int index, GroupCommand command);
+
+  /**
+   * Executes the commands of a batch. A failed command does not stop the batch, the result of
+   * every command contains its status.
+   *
+   * @param commands the commands
+   * @return the results in the order of the commands
+   */
+  default List<GroupCommandResult> execute(Collection<GroupCommand> commands) {
+    if (commands == null) {
+      return Collections.emptyList();
+    }
+    List<GroupCommandResult> results = new ArrayList<>(commands.size());
+    for (GroupCommand command : commands) {
+      results.add(execute(results.size(), command));
+    }
+    return results;
+  }
+
+  /**
+   * Streams a page of groups.
+   *
+   * @param afterId the ID after which the page starts, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the groups
+   */
+  Stream<Group> streamGroups(String afterId, Integer limit);
+
+  /**
+   * Gets a page of groups.
+   *
+   * @param afterId the ID after which the page starts, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the groups
+   */
+  default List<Group> getGroups(String afterId, Integer limit) {
+    return streamGroups(afterId, limit).collect(Collectors.toList());
+  }
+
+  /**
+   * Streams groups by ids.
+   *
+   * @param ids the ids
+   * @return the groups
+   */
+  Stream<Group> streamGroupsByIds(Collection<String> ids);
+
+  /**
+   * Gets groups by ids.
+   *
+   * @param ids the ids
+   * @return the groups
+   */
+  default List<Group> getGroupsByIds(Collection<String> ids) {
+    return streamGroupsByIds(ids).collect(Collectors.toList());
+  }
+
+  /**
+   * Streams a page of the groups, that the user has created or owns.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the editable groups
+   * @see ContinuationToken
+   */
+  Stream<Group> streamEditableGroups(String userName, String continuation, Integer limit);
+
+  /**
+   * Gets a page of the groups, that the user has created or owns.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the editable groups
+   * @see ContinuationToken
+   */
+  default List<Group> getEditableGroups(String userName, String continuation, Integer limit) {
+    return streamEditableGroups(userName, continuation, limit).collect(Collectors.toList());
+  }
+
+  /**
+   * Streams a page of usable groups. Usable groups are the editable groups and the groups the
+   * user is a member of.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the usable groups
+   * @see ContinuationToken
+   */
+  Stream<Group> streamUsableGroups(String userName, String continuation, Integer limit);
+
+  /**
+   * Gets a page of usable groups. Usable groups are the editable groups and the groups the user
+   * is a member of.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the usable groups
+   * @see ContinuationToken
+   */
+  default List<Group> getUsableGroups(String userName, String continuation, Integer limit) {
+    return streamUsableGroups(userName, continuation, limit).collect(Collectors.toList());
+  }
+
+  /**
+   * Streams a page of the groups the user is a member of.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the membership
+   * @see ContinuationToken
+   */
+  Stream<Group> streamMembership(String userName, String continuation, Integer limit);
+
+  /**
+   * Gets a page of the groups the user is a member of.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the membership
+   * @see ContinuationToken
+   */
+  default List<Group> getMembership(String userName, String continuation, Integer limit) {
+    return streamMembership(userName, continuation, limit).collect(Collectors.toList());
+  }
+
+  /**
+   * Gets membership ids.
+   *
+   * @param userName the user name
+   * @return the membership ids
+   */
+  Set<String> getMembershipIds(String userName);
+
+  /**
+   * Gets the IDs of the groups, that the user can use, because the user has created or owns them
+   * or is a member of them.
+   *
+   * @param userName the user name
+   * @return the usable group ids
+   */
+  Set<String> getUsableGroupIds(String userName);
+
+  /**
+   * Determines whether the user is a member of the group.
+   *
+   * @param userName the user name
+   * @param groupId the group id
+   * @return {@code true} if the user is a member of the group, otherwise {@code false}
+   */
+  boolean isMember(String userName, String groupId);
+
+  /**
+   * Checks the memberships. The results are in the order of the memberships; a membership
+   * without user name or group ID is never given.
+   *
+   * @param memberships the memberships to check
+   * @return the results
+   */
+  default List<Boolean> isMember(Collection<Membership> memberships) {
+    if (memberships == null) {
+      return Collections.emptyList();
+    }
+    List<Boolean> results = new ArrayList<>(memberships.size());
+    for (Membership membership : memberships) {
+      results.add(membership != null
+          && isMember(membership.getUserName(), membership.getGroupId()));
+    }
+    return results;
+  }
+
+  /**
+   * Gets status.
+   *
+   * @param userName the user name
+   * @return the status
+   */
+  Status getStatus(String userName);
+
+  /**
+   * Gets the maximum number of owned groups that is reported in the status.
+   *
+   * @return the max owned groups, a negative value means unlimited
+   */
+  long getMaxOwnedGroups();
+
+  /**
+   * Gets the revision of a user. It changes whenever a group is changed that the user has
+   * created, owns or is a member of (before or after the change), so it can be used as aggregate
+   * version of the membership and the status of the user.
+   *
+   * @param userName the user name
+   * @return the sequence number of the last change that concerns the user or {@code 0}
+   */
+  long getRevision(String userName);
+
+  /**
+   * Gets the sequence number of the last change.
+   *
+   * @return the sequence number of the last change
+   */
+  long getChangeSequence();
+
+  /**
+   * Streams the retained changes after the given sequence number in ascending order.
+   *
+   * @param userName the user name, if present only the changes of groups the user has created,
+   *     owns or is a member of (before or after the change) are returned
+   * @param afterSequence the sequence number of the last seen change, if {@code null} all
+   *     retained changes are returned
+   * @param limit the maximum number of changes, if {@code null} all remaining changes are
+   *     returned
+   * @return the changes
+   * @throws IllegalStateException if changes after the given sequence number are no longer
+   *     retained or if the sequence number is greater than the one of the last change
+   */
+  Stream<GroupChangeEvent> streamChanges(String userName, Long afterSequence, Integer limit);
+
+  /**
+   * Gets the retained changes after the given sequence number in ascending order.
+   *
+   * @param userName the user name, if present only the changes of groups the user has created,
+   *     owns or is a member of (before or after the change) are returned
+   * @param afterSequence the sequence number of the last seen change, if {@code null} all
+   *     retained changes are returned
+   * @param limit the maximum number of changes, if {@code null} all remaining changes are
+   *     returned
+   * @return the changes
+   * @throws IllegalStateException if changes after the given sequence number are no longer
+   *     retained or if the sequence number is greater than the one of the last change
+   */
+  default List<GroupChangeEvent> getChanges(String userName, Long afterSequence, Integer limit) {
+    return streamChanges(userName, afterSequence, limit).collect(Collectors.toList());
+  }
+
+  /**
+   * Adds a change listener. The listener is called after a change was applied and can be read
+   * with {@link #getChanges(String, Long, Integer)}, so it should return quickly.
+   *
+   * @param listener the listener
+   */
+  void addChangeListener(Consumer<GroupChangeEvent> listener);
+
+  /**
+   * Removes a change listener.
+   *
+   * @param listener the listener
+   */
+  void removeChangeListener(Consumer<GroupChangeEvent> listener);
+
+}
@@ -16,23 +16,32 @@
 
 package org.bremersee.groupman.mock;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.ConcurrentModificationException;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.bremersee.groupman.model.ContinuationToken;
 import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.GroupCommand;
+import org.bremersee.groupman.model.GroupCommandResult;
+import org.bremersee.groupman.model.GroupSnapshot;
+import org.bremersee.groupman.model.Membership;
 import org.bremersee.groupman.model.Source;
 import org.bremersee.groupman.model.Status;
 
 /**
- * The group repository mock.
+ * The group repository mock. It gives static access to a shared {@link InMemoryGroupRepository},
+ * that contains two groups after {@link #reset()} or the groups of a {@link MappedGroupSnapshot}
+ * after {@link #reset(Path)}. The controller mocks use this repository, if no other repository is
+ * given.
  *
  * @author Christian Bremer
  */
@@ -79,17 +88,31 @@ public abstract class GroupRepositoryMock {
    */
   public static final String GROUP_1_MEMBER_1 = "kierkegaard";
 
-  private static final Map<String, Group> DB = new ConcurrentHashMap<>();
+  /**
+   * The maximum number of changes that are retained for resuming the change feed.
+   */
+  public static final int CHANGE_LOG_CAPACITY = InMemoryGroupRepository.CHANGE_LOG_CAPACITY;
+
+  private static final InMemoryGroupRepository REPOSITORY = new InMemoryGroupRepository();
 
   static {
     reset();
   }
 
+  /**
+   * Gets the shared repository.
+   *
+   * @return the repository
+   */
+  public static InMemoryGroupRepository getRepository() {
+    return REPOSITORY;
+  }
+
   /**
    * Reset.
    */
   public static void reset() {
-    DB.clear();
+    REPOSITORY.clear();
     Group group0 = new Group();
     group0.setCreatedAt(OffsetDateTime.now());
     group0.setCreatedBy(GROUP_0_OWNER);
@@ -101,7 +124,7 @@ public abstract class GroupRepositoryMock {
     group0.setOwners(Collections.singletonList(GROUP_0_OWNER));
     group0.setSource(Source.INTERNAL);
     group0.setVersion(1L);
-    DB.put(group0.getId(), group0);
+    REPOSITORY.createGroup(group0);
 
     Group group1 = new Group();
     group1.setCreatedAt(OffsetDateTime.now());
@@ -115,33 +138,94 @@ public abstract class GroupRepositoryMock {
     group1.setOwners(Collections.singletonList(GROUP_1_OWNER));
     group1.setSource(Source.INTERNAL);
     group1.setVersion(1L);
-    DB.put(group1.getId(), group1);
+    REPOSITORY.createGroup(group1);
   }
 
   /**
-   * Create group.
+   * Resets the repository to the groups of the mapped snapshot file instead of the two groups.
+   * The groups are queried in the mapped file; it stays mapped, until the repository is reset
+   * again.
+   *
+   * @param snapshotFile the snapshot file
+   * @throws IOException if the file cannot be mapped or is not a snapshot
+   */
+  public static void reset(Path snapshotFile) throws IOException {
+    MappedGroupSnapshot snapshot = MappedGroupSnapshot.open(snapshotFile);
+    REPOSITORY.setMaxOwnedGroups(-1L);
+    REPOSITORY.load(snapshot);
+  }
+
+  /**
+   * Gets the maximum number of owned groups that is reported in the status.
+   *
+   * @return the max owned groups, a negative value means unlimited
+   */
+  public static long getMaxOwnedGroups() {
+    return REPOSITORY.getMaxOwnedGroups();
+  }
+
+  /**
+   * Sets the maximum number of owned groups that is reported in the status. It will be restored
+   * to unlimited on {@link #reset()}.
+   *
+   * @param maxOwnedGroups the max owned groups, a negative value means unlimited
+   */
+  public static void setMaxOwnedGroups(long maxOwnedGroups) {
+    REPOSITORY.setMaxOwnedGroups(maxOwnedGroups);
+  }
+
+  /**
+   * Create group. A new group gets the sequence number of the change, that creates it, as
+   * version, so its version differs from the versions of a deleted group with the same ID.
    *
    * @param group the group
    * @return the group
    */
   public static Group createGroup(Group group) {
-    if (group == null) {
-      throw new IllegalArgumentException("Illegal group");
-    }
-    if (group.getId() == null) {
-      group.setId(UUID.randomUUID().toString());
-    }
-    DB.put(group.getId(), group);
-    return group;
+    return REPOSITORY.createGroup(group);
   }
 
   /**
-   * Gets groups.
+   * Gets groups ordered by their IDs.
    *
    * @return the groups
    */
   public static List<Group> getGroups() {
-    return new ArrayList<>(DB.values());
+    return getGroups(null, null);
+  }
+
+  /**
+   * Gets a page of groups ordered by their IDs. The next page starts after the ID of the last
+   * group of the previous page, so the cost of a page does not depend on its position.
+   *
+   * @param afterId the ID after which the page starts, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the groups
+   */
+  public static List<Group> getGroups(String afterId, Integer limit) {
+    return REPOSITORY.getGroups(afterId, limit);
+  }
+
+  /**
+   * Streams all groups ordered by their IDs. The groups are looked up lazily while the stream is
+   * consumed.
+   *
+   * @return the groups
+   */
+  public static Stream<Group> streamGroups() {
+    return streamGroups(null, null);
+  }
+
+  /**
+   * Streams a page of groups ordered by their IDs. The groups are looked up lazily while the
+   * stream is consumed.
+   *
+   * @param afterId the ID after which the page starts, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the groups
+   */
+  public static Stream<Group> streamGroups(String afterId, Integer limit) {
+    return REPOSITORY.streamGroups(afterId, limit);
   }
 
   /**
@@ -151,29 +235,87 @@ public abstract class GroupRepositoryMock {
    * @return the group by id
    */
   public static Group getGroupById(String groupId) {
-    return DB.get(groupId);
+    return REPOSITORY.getGroupById(groupId);
   }
 
   /**
-   * Update group.
+   * Gets the snapshot of the group.
+   *
+   * @param groupId the group id
+   * @return the snapshot or {@code null}, if there is no such group
+   */
+  public static GroupSnapshot getGroupSnapshot(String groupId) {
+    return REPOSITORY.getGroupSnapshot(groupId);
+  }
+
+  /**
+   * Update group. The version of the group is incremented.
    *
    * @param groupId the group id
    * @param group the group
-   * @return the group
+   * @return the group or {@code null}, if there is no such group
    */
   public static Group updateGroup(String groupId, Group group) {
-    if (groupId == null) {
-      throw new IllegalArgumentException("Illegal group ID");
-    }
-    if (group == null) {
-      throw new IllegalArgumentException("Illegal group");
-    }
-    if (!DB.containsKey(groupId)) {
-      return null;
-    }
-    group.setId(groupId);
-    DB.put(groupId, group);
-    return group;
+    return updateGroup(groupId, group, null);
+  }
+
+  /**
+   * Update group, if it has the expected version (compare and set). The version of the group is
+   * incremented.
+   *
+   * @param groupId the group id
+   * @param group the group
+   * @param expectedVersion the expected version of the stored group, if {@code null} the group
+   *     is updated unconditionally
+   * @return the group or {@code null}, if there is no such group
+   * @throws ConcurrentModificationException if the stored group has another version
+   */
+  public static Group updateGroup(String groupId, Group group, Long expectedVersion) {
+    return REPOSITORY.updateGroup(groupId, group, expectedVersion);
+  }
+
+  /**
+   * Adds a member to the group. If the user is already a member, the group is not changed.
+   *
+   * @param groupId the group id
+   * @param userName the name of the member
+   * @return the group or {@code null}, if there is no such group
+   */
+  public static Group addMember(String groupId, String userName) {
+    return REPOSITORY.addMember(groupId, userName);
+  }
+
+  /**
+   * Removes a member from the group. If the user is not a member, the group is not changed.
+   *
+   * @param groupId the group id
+   * @param userName the name of the member
+   * @return the group or {@code null}, if there is no such group
+   */
+  public static Group removeMember(String groupId, String userName) {
+    return REPOSITORY.removeMember(groupId, userName);
+  }
+
+  /**
+   * Adds an owner to the group. If the user is already an owner, the group is not changed.
+   *
+   * @param groupId the group id
+   * @param userName the name of the owner
+   * @return the group or {@code null}, if there is no such group
+   */
+  public static Group addOwner(String groupId, String userName) {
+    return REPOSITORY.addOwner(groupId, userName);
+  }
+
+  /**
+   * Removes an owner from the group. If the user is not an owner, the group is not changed.
+   *
+   * @param groupId the group id
+   * @param userName the name of the owner
+   * @return the group or {@code null}, if there is no such group
+   */
+  public static Group removeOwner(String groupId, String userName) {
+    return REPOSITORY.removeOwner(groupId, userName);
   }
 
   /**
@@ -182,7 +324,43 @@ public abstract class GroupRepositoryMock {
    * @param groupId the group id
    */
   public static void deleteGroup(String groupId) {
-    DB.remove(groupId);
+    deleteGroup(groupId, null);
+  }
+
+  /**
+   * Delete group, if it has the expected version (compare and delete).
+   *
+   * @param groupId the group id
+   * @param expectedVersion the expected version of the stored group, if {@code null} the group
+   *     is deleted unconditionally
+   * @return the deleted group or {@code null}, if there is no such group
+   * @throws ConcurrentModificationException if the stored group has another version
+   */
+  public static Group deleteGroup(String groupId, Long expectedVersion) {
+    return REPOSITORY.deleteGroup(groupId, expectedVersion);
+  }
+
+  /**
+   * Executes the commands of a batch in one pass.
+   *
+   * @param commands the commands
+   * @return the results in the order of the commands
+   * @see InMemoryGroupRepository#execute(Collection)
+   */
+  public static List<GroupCommandResult> execute(Collection<GroupCommand> commands) {
+    return REPOSITORY.execute(commands);
+  }
+
+  /**
+   * Executes a command of a batch.
+   *
+   * @param index the position of the command in the batch
+   * @param command the command
+   * @return the result
+   * @see InMemoryGroupRepository#execute(int, GroupCommand)
+   */
+  public static GroupCommandResult execute(int index, GroupCommand command) {
+    return REPOSITORY.execute(index, command);
   }
 
   /**
@@ -191,17 +369,18 @@ public abstract class GroupRepositoryMock {
    * @param ids the ids
    * @return the groups by ids
    */
-  public static List<Group> getGroupsByIds(List<String> ids) {
-    List<Group> list = new ArrayList<>();
-    if (ids != null) {
-      for (String id : ids) {
-        Group group = DB.get(id);
-        if (group != null) {
-          list.add(group);
-        }
-      }
-    }
-    return list;
+  public static List<Group> getGroupsByIds(Collection<String> ids) {
+    return REPOSITORY.getGroupsByIds(ids);
+  }
+
+  /**
+   * Streams groups by ids. The groups are looked up lazily while the stream is consumed.
+   *
+   * @param ids the ids
+   * @return the groups
+   */
+  public static Stream<Group> streamGroupsByIds(Collection<String> ids) {
+    return REPOSITORY.streamGroupsByIds(ids);
   }
 
   /**
@@ -211,17 +390,51 @@ public abstract class GroupRepositoryMock {
    * @return the editable groups
    */
   public static List<Group> getEditableGroups(String userName) {
-    if (userName == null) {
-      throw new IllegalArgumentException("User name must be present.");
-    }
-    List<Group> list = new ArrayList<>();
-    for (Group group : DB.values()) {
-      if (userName.equals(group.getCreatedBy())
-          || (group.getOwners() != null && group.getOwners().contains(userName))) {
-        list.add(group);
-      }
-    }
-    return list;
+    return getEditableGroups(userName, null, null);
+  }
+
+  /**
+   * Gets a page of editable groups ordered by their IDs.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the editable groups
+   * @see ContinuationToken
+   */
+  public static List<Group> getEditableGroups(
+      String userName,
+      String continuation,
+      Integer limit) {
+    return REPOSITORY.getEditableGroups(userName, continuation, limit);
+  }
+
+  /**
+   * Streams editable groups ordered by their IDs. The groups are looked up lazily while the
+   * stream is consumed.
+   *
+   * @param userName the user name
+   * @return the editable groups
+   */
+  public static Stream<Group> streamEditableGroups(String userName) {
+    return streamEditableGroups(userName, null, null);
+  }
+
+  /**
+   * Streams a page of editable groups ordered by their IDs. The groups are looked up lazily
+   * while the stream is consumed.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the editable groups
+   * @see ContinuationToken
+   */
+  public static Stream<Group> streamEditableGroups(
+      String userName,
+      String continuation,
+      Integer limit) {
+    return REPOSITORY.streamEditableGroups(userName, continuation, limit);
   }
 
   /**
@@ -231,16 +444,52 @@ public abstract class GroupRepositoryMock {
    * @return the usable groups
    */
   public static List<Group> getUsableGroups(String userName) {
-    if (userName == null) {
-      throw new IllegalArgumentException("User name must be present.");
-    }
-    Set<Group> set = new HashSet<>(getEditableGroups(userName));
-    for (Group group : DB.values()) {
-      if (group.getMembers() != null && group.getMembers().contains(userName)) {
-        set.add(group);
-      }
-    }
-    return new ArrayList<>(set);
+    return getUsableGroups(userName, null, null);
+  }
+
+  /**
+   * Gets a page of usable groups ordered by their IDs. Usable groups are the editable groups
+   * and the groups the user is a member of.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the usable groups
+   * @see ContinuationToken
+   */
+  public static List<Group> getUsableGroups(
+      String userName,
+      String continuation,
+      Integer limit) {
+    return REPOSITORY.getUsableGroups(userName, continuation, limit);
+  }
+
+  /**
+   * Streams usable groups ordered by their IDs. The groups are looked up lazily while the stream is
+   * consumed.
+   *
+   * @param userName the user name
+   * @return the usable groups
+   */
+  public static Stream<Group> streamUsableGroups(String userName) {
+    return streamUsableGroups(userName, null, null);
+  }
+
+  /**
+   * Streams a page of usable groups ordered by their IDs. The groups are looked up lazily while the
+   * stream is consumed.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the usable groups
+   * @see ContinuationToken
+   */
+  public static Stream<Group> streamUsableGroups(
+      String userName,
+      String continuation,
+      Integer limit) {
+    return REPOSITORY.streamUsableGroups(userName, continuation, limit);
   }
 
   /**
@@ -250,16 +499,51 @@ public abstract class GroupRepositoryMock {
    * @return the membership
    */
   public static List<Group> getMembership(String userName) {
-    if (userName == null) {
-      throw new IllegalArgumentException("User name must be present.");
-    }
-    List<Group> list = new ArrayList<>();
-    for (Group group : DB.values()) {
-      if (group.getMembers() != null && group.getMembers().contains(userName)) {
-        list.add(group);
-      }
-    }
-    return list;
+    return getMembership(userName, null, null);
+  }
+
+  /**
+   * Gets a page of the groups the user is a member of ordered by their IDs.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the membership
+   * @see ContinuationToken
+   */
+  public static List<Group> getMembership(
+      String userName,
+      String continuation,
+      Integer limit) {
+    return REPOSITORY.getMembership(userName, continuation, limit);
+  }
+
+  /**
+   * Streams the groups the user is a member of ordered by their IDs. The groups are looked up
+   * lazily while the stream is consumed.
+   *
+   * @param userName the user name
+   * @return the membership
+   */
+  public static Stream<Group> streamMembership(String userName) {
+    return streamMembership(userName, null, null);
+  }
+
+  /**
+   * Streams a page of the groups the user is a member of ordered by their IDs. The groups are
+   * looked up lazily while the stream is consumed.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the membership
+   * @see ContinuationToken
+   */
+  public static Stream<Group> streamMembership(
+      String userName,
+      String continuation,
+      Integer limit) {
+    return REPOSITORY.streamMembership(userName, continuation, limit);
   }
 
   /**
@@ -269,7 +553,40 @@ public abstract class GroupRepositoryMock {
    * @return the membership ids
    */
   public static Set<String> getMembershipIds(String userName) {
-    return getMembership(userName).stream().map(Group::getId).collect(Collectors.toSet());
+    return REPOSITORY.getMembershipIds(userName);
+  }
+
+  /**
+   * Gets the IDs of the groups, that the user can use, because the user has created or owns them
+   * or is a member of them.
+   *
+   * @param userName the user name
+   * @return the usable group ids
+   */
+  public static Set<String> getUsableGroupIds(String userName) {
+    return REPOSITORY.getUsableGroupIds(userName);
+  }
+
+  /**
+   * Determines whether the user is a member of the group.
+   *
+   * @param userName the user name
+   * @param groupId the group id
+   * @return {@code true} if the user is a member of the group, otherwise {@code false}
+   */
+  public static boolean isMember(String userName, String groupId) {
+    return REPOSITORY.isMember(userName, groupId);
+  }
+
+  /**
+   * Checks the memberships. The results are in the order of the memberships; a membership
+   * without user name or group ID is never given.
+   *
+   * @param memberships the memberships to check
+   * @return the results
+   */
+  public static List<Boolean> isMember(Collection<Membership> memberships) {
+    return REPOSITORY.isMember(memberships);
   }
 
   /**
@@ -279,12 +596,86 @@ public abstract class GroupRepositoryMock {
    * @return the status
    */
   public static Status getStatus(String userName) {
-    if (userName == null) {
-      throw new IllegalArgumentException("User name must be present.");
-    }
-    return Status.builder()
-        .membershipSize(getMembership(userName).size())
-        .ownedGroupSize(getEditableGroups(userName).size())
-        .build();
+    return REPOSITORY.getStatus(userName);
+  }
+
+  /**
+   * Adds a change listener. The listener is called by the thread that has applied the change,
+   * after the change was applied and appended to the change log, so it should return quickly.
+   * Listeners are not removed on {@link #reset()}.
+   *
+   * @param listener the listener
+   */
+  public static void addChangeListener(Consumer<GroupChangeEvent> listener) {
+    REPOSITORY.addChangeListener(listener);
+  }
+
+  /**
+   * Removes a change listener.
+   *
+   * @param listener the listener
+   */
+  public static void removeChangeListener(Consumer<GroupChangeEvent> listener) {
+    REPOSITORY.removeChangeListener(listener);
+  }
+
+  /**
+   * Gets the sequence number of the last change.
+   *
+   * @return the sequence number of the last change
+   */
+  public static long getChangeSequence() {
+    return REPOSITORY.getChangeSequence();
+  }
+
+  /**
+   * Gets the revision of a user.
+   *
+   * @param userName the user name
+   * @return the sequence number of the last change that concerns the user or {@code 0}
+   * @see GroupRepository#getRevision(String)
+   */
+  public static long getRevision(String userName) {
+    return REPOSITORY.getRevision(userName);
+  }
+
+  /**
+   * Gets the retained changes after the given sequence number in ascending order.
+   *
+   * @param userName the user name, if present only the changes of groups the user has created,
+   *     owns or is a member of (before or after the change) are returned
+   * @param afterSequence the sequence number of the last seen change, if {@code null} all
+   *     retained changes are returned
+   * @param limit the maximum number of changes, if {@code null} all remaining changes are
+   *     returned
+   * @return the changes
+   * @throws IllegalStateException if changes after the given sequence number are no longer
+   *     retained or if the sequence number is greater than the one of the last change
+   */
+  public static List<GroupChangeEvent> getChanges(
+      String userName,
+      Long afterSequence,
+      Integer limit) {
+    return REPOSITORY.getChanges(userName, afterSequence, limit);
+  }
+
+  /**
+   * Streams the retained changes after the given sequence number in ascending order.
+   *
+   * @param userName the user name, if present only the changes of groups the user has created,
+   *     owns or is a member of (before or after the change) are returned
+   * @param afterSequence the sequence number of the last seen change, if {@code null} all
+   *     retained changes are returned
+   * @param limit the maximum number of changes, if {@code null} all remaining changes are
+   *     returned
+   * @return the changes
+   * @throws IllegalStateException if changes after the given sequence number are no longer
+   *     retained or if the sequence number is greater than the one of the last change
+   */
+  public static Stream<GroupChangeEvent> streamChanges(
+      String userName,
+      Long afterSequence,
+      Integer limit) {
+    return REPOSITORY.streamChanges(userName, afterSequence, limit);
   }
 }
@@ -0,0 +1,419 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * An immutable hash map, that is stored as hash array mapped trie. A change returns a new map,
+ * that shares all nodes with this map except the path from the root to the changed entry, so it
+ * costs {@code O(log32 n)} instead of a copy of the whole map. Different versions of a map can be
+ * read by different threads without locking.
+ *
+ * <p>Keys must not be {@code null}.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author Christian Bremer
+ */
+final class HashTrieMap<K, V> {
+
+  private static final HashTrieMap<?, ?> EMPTY = new HashTrieMap<>(Node.EMPTY, 0);
+
+  private static final int BITS = 5;
+
+  private static final int MASK = (1 << BITS) - 1;
+
+  private final Node root;
+
+  private final int size;
+
+  private HashTrieMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Gets the empty map.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   * @return the empty map
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> HashTrieMap<K, V> empty() {
+    return (HashTrieMap<K, V>) EMPTY;
+  }
+
+  /**
+   * Gets the number of entries.
+   *
+   * @return the size
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Determines whether the map has no entries.
+   *
+   * @return {@code true} if the map is empty, otherwise {@code false}
+   */
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Gets the value of the key.
+   *
+   * @param key the key
+   * @return the value or {@code null}, if there is no such key
+   */
+  V get(Object key) {
+    return getOrDefault(key, null);
+  }
+
+  /**
+   * Gets the value of the key or the given default value.
+   *
+   * @param key the key
+   * @param defaultValue the default value
+   * @return the value or the default value, if there is no such key
+   */
+  @SuppressWarnings("unchecked")
+  V getOrDefault(Object key, V defaultValue) {
+    if (key == null) {
+      return defaultValue;
+    }
+    Entry entry = root.find(hash(key), key, 0);
+    return entry != null ? (V) entry.value : defaultValue;
+  }
+
+  /**
+   * Determines whether the map contains the key.
+   *
+   * @param key the key
+   * @return {@code true} if the map contains the key, otherwise {@code false}
+   */
+  boolean containsKey(Object key) {
+    return key != null && root.find(hash(key), key, 0) != null;
+  }
+
+  /**
+   * Returns a map, that maps the key to the value.
+   *
+   * @param key the key
+   * @param value the value
+   * @return the new map or this map, if the key is already mapped to the same value
+   */
+  HashTrieMap<K, V> plus(K key, V value) {
+    if (key == null) {
+      throw new IllegalArgumentException("Key must be present.");
+    }
+    boolean[] added = new boolean[1];
+    Node newRoot = root.put(new Entry(hash(key), key, value), 0, added);
+    return newRoot == root ? this : new HashTrieMap<>(newRoot, added[0] ? size + 1 : size);
+  }
+
+  /**
+   * Returns a map without the key.
+   *
+   * @param key the key
+   * @return the new map or this map, if there is no such key
+   */
+  HashTrieMap<K, V> minus(Object key) {
+    if (key == null) {
+      return this;
+    }
+    Node newRoot = root.remove(hash(key), key, 0);
+    if (newRoot == root) {
+      return this;
+    }
+    return size == 1 ? empty() : new HashTrieMap<>(newRoot, size - 1);
+  }
+
+  /**
+   * Calls the action with every entry in no particular order.
+   *
+   * @param action the action
+   */
+  @SuppressWarnings("unchecked")
+  void forEach(BiConsumer<? super K, ? super V> action) {
+    root.forEach(entry -> action.accept((K) entry.key, (V) entry.value));
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static int fragment(int hash, int shift) {
+    return (hash >>> shift) & MASK;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    forEach((key, value) -> sb.append(sb.length() > 1 ? ", " : "").append(key).append('=')
+        .append(value));
+    return sb.append('}').toString();
+  }
+
+  /**
+   * An entry of the map.
+   */
+  private static final class Entry {
+
+    private final int hash;
+
+    private final Object key;
+
+    private final Object value;
+
+    private Entry(int hash, Object key, Object value) {
+      this.hash = hash;
+      this.key = key;
+      this.value = value;
+    }
+
+    private boolean matches(int hash, Object key) {
+      return this.hash == hash && this.key.equals(key);
+    }
+  }
+
+  /**
+   * A node of the trie. Each set bit of the bitmap stands for one of the 32 children; a child is
+   * an entry, a node of the next level or the entries with a colliding hash.
+   */
+  private static final class Node {
+
+    private static final Node EMPTY = new Node(0, new Object[0]);
+
+    private final int bitmap;
+
+    private final Object[] children;
+
+    private Node(int bitmap, Object[] children) {
+      this.bitmap = bitmap;
+      this.children = children;
+    }
+
+    private int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    private Entry find(int hash, Object key, int shift) {
+      int bit = 1 << fragment(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return null;
+      }
+      Object child = children[index(bit)];
+      if (child instanceof Node) {
+        return ((Node) child).find(hash, key, shift + BITS);
+      }
+      if (child instanceof Entry) {
+        Entry entry = (Entry) child;
+        return entry.matches(hash, key) ? entry : null;
+      }
+      return ((Collision) child).find(hash, key);
+    }
+
+    private Node put(Entry entry, int shift, boolean[] added) {
+      int bit = 1 << fragment(entry.hash, shift);
+      int index = index(bit);
+      if ((bitmap & bit) == 0) {
+        added[0] = true;
+        Object[] newChildren = new Object[children.length + 1];
+        System.arraycopy(children, 0, newChildren, 0, index);
+        newChildren[index] = entry;
+        System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+        return new Node(bitmap | bit, newChildren);
+      }
+      Object child = children[index];
+      Object newChild;
+      if (child instanceof Node) {
+        newChild = ((Node) child).put(entry, shift + BITS, added);
+      } else if (child instanceof Entry) {
+        Entry old = (Entry) child;
+        if (old.matches(entry.hash, entry.key)) {
+          newChild = old.value == entry.value ? old : entry;
+        } else {
+          added[0] = true;
+          newChild = merge(old, old.hash, entry, shift + BITS);
+        }
+      } else {
+        Collision collision = (Collision) child;
+        if (collision.hash == entry.hash) {
+          newChild = collision.put(entry, added);
+        } else {
+          added[0] = true;
+          newChild = merge(collision, collision.hash, entry, shift + BITS);
+        }
+      }
+      return newChild == child ? this : replace(index, newChild);
+    }
+
+    /**
+     * Creates the child, that holds an entry or a collision and a new entry with another key,
+     * whose hashes are equal up to the given level.
+     *
+     * @param first the entry or collision
+     * @param firstHash the hash of the first
+     * @param second the new entry
+     * @param shift the shift of the level of the child
+     * @return the child
+     */
+    private static Object merge(Object first, int firstHash, Entry second, int shift) {
+      if (firstHash == second.hash) {
+        return new Collision(firstHash, new Entry[]{(Entry) first, second});
+      }
+      int firstFragment = fragment(firstHash, shift);
+      int secondFragment = fragment(second.hash, shift);
+      if (firstFragment == secondFragment) {
+        return new Node(
+            1 << firstFragment,
+            new Object[]{merge(first, firstHash, second, shift + BITS)});
+      }
+      return new Node(
+          (1 << firstFragment) | (1 << secondFragment),
+          firstFragment < secondFragment
+              ? new Object[]{first, second}
+              : new Object[]{second, first});
+    }
+
+    private Node remove(int hash, Object key, int shift) {
+      int bit = 1 << fragment(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+      int index = index(bit);
+      Object child = children[index];
+      Object newChild;
+      if (child instanceof Node) {
+        Node node = (Node) child;
+        Node newNode = node.remove(hash, key, shift + BITS);
+        if (newNode == node) {
+          return this;
+        }
+        newChild = newNode.children.length == 1 && !(newNode.children[0] instanceof Node)
+            ? newNode.children[0]
+            : newNode;
+      } else if (child instanceof Entry) {
+        if (!((Entry) child).matches(hash, key)) {
+          return this;
+        }
+        newChild = null;
+      } else {
+        newChild = ((Collision) child).remove(hash, key);
+        if (newChild == child) {
+          return this;
+        }
+      }
+      if (newChild != null) {
+        return replace(index, newChild);
+      }
+      if (children.length == 1) {
+        return EMPTY;
+      }
+      Object[] newChildren = new Object[children.length - 1];
+      System.arraycopy(children, 0, newChildren, 0, index);
+      System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+      return new Node(bitmap & ~bit, newChildren);
+    }
+
+    private Node replace(int index, Object child) {
+      Object[] newChildren = children.clone();
+      newChildren[index] = child;
+      return new Node(bitmap, newChildren);
+    }
+
+    private void forEach(Consumer<Entry> action) {
+      for (Object child : children) {
+        if (child instanceof Node) {
+          ((Node) child).forEach(action);
+        } else if (child instanceof Entry) {
+          action.accept((Entry) child);
+        } else {
+          for (Entry entry : ((Collision) child).entries) {
+            action.accept(entry);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The entries, whose keys have the same hash.
+   */
+  private static final class Collision {
+
+    private final int hash;
+
+    private final Entry[] entries;
+
+    private Collision(int hash, Entry[] entries) {
+      this.hash = hash;
+      this.entries = entries;
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < entries.length; i++) {
+        if (entries[i].key.equals(key)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private Entry find(int hash, Object key) {
+      int index = hash == this.hash ? indexOf(key) : -1;
+      return index >= 0 ? entries[index] : null;
+    }
+
+    private Collision put(Entry entry, boolean[] added) {
+      int index = indexOf(entry.key);
+      if (index < 0) {
+        added[0] = true;
+        Entry[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+        newEntries[entries.length] = entry;
+        return new Collision(hash, newEntries);
+      }
+      if (entries[index].value == entry.value) {
+        return this;
+      }
+      Entry[] newEntries = entries.clone();
+      newEntries[index] = entry;
+      return new Collision(hash, newEntries);
+    }
+
+    private Object remove(int hash, Object key) {
+      int index = hash == this.hash ? indexOf(key) : -1;
+      if (index < 0) {
+        return this;
+      }
+      if (entries.length == 2) {
+        return entries[1 - index];
+      }
+      Entry[] newEntries = new Entry[entries.length - 1];
+      System.arraycopy(entries, 0, newEntries, 0, index);
+      System.arraycopy(entries, index + 1, newEntries, index, entries.length - index - 1);
+      return new Collision(hash, newEntries);
+    }
+  }
+}
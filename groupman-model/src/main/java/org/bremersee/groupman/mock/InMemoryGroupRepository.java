@@ -0,0 +1,1904 @@
+/*
+ * Copyright 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.time.OffsetDateTime;
+import java.lang.System.Logger.Level;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.bremersee.groupman.mock.MembershipBitmaps.Relation;
+import org.bremersee.groupman.model.ContinuationToken;
+import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.GroupChangeType;
+import org.bremersee.groupman.model.GroupCommand;
+import org.bremersee.groupman.model.GroupCommandResult;
+import org.bremersee.groupman.model.GroupSnapshot;
+import org.bremersee.groupman.model.Membership;
+import org.bremersee.groupman.model.Status;
+import org.bremersee.groupman.model.UserNameList;
+import org.bremersee.groupman.model.UserNameTable;
+
+/**
+ * The group repository, that keeps the groups in memory. It is the reference implementation of
+ * the {@link GroupRepository}; each instance is an independent store.
+ *
+ * <p>The groups and the indexes are kept in immutable versions of the store. Writers are
+ * serialized and publish a new version, that shares the unchanged parts with the previous one.
+ * Readers don't lock: a read, that consists of several steps (like the status or a stream of
+ * groups), uses the version that was current when it started.
+ *
+ * <p>With a {@link GroupJournal} the groups survive a restart: a write is published to the
+ * readers and returns, after its records are forced to the log, and the groups are recovered,
+ * when the repository is created. If the records cannot be forced, the write and all writes, that
+ * were built on it, are discarded and fail. The sequence numbers of the changes continue after a
+ * restart; the change log, the revisions and the maximum number of owned groups are not
+ * persisted, so the changes before the restart are gone and the revisions of all users start at
+ * a new sequence number.
+ *
+ * @author Christian Bremer
+ */
+public class InMemoryGroupRepository implements GroupRepository {
+
+  /**
+   * The maximum number of changes that are retained for resuming the change feed.
+   */
+  public static final int CHANGE_LOG_CAPACITY = 10000;
+
+  private static final System.Logger LOGGER =
+      System.getLogger(InMemoryGroupRepository.class.getName());
+
+  /**
+   * Runs each snapshot, that is due after a write, on a new daemon thread. Snapshots are rare,
+   * so there is no pool to shut down.
+   */
+  static final Executor CHECKPOINT_THREAD = checkpoint -> {
+    Thread thread = new Thread(checkpoint, "group-journal-checkpoint");
+    thread.setDaemon(true);
+    thread.start();
+  };
+
+  /**
+   * Serializes the writers.
+   */
+  private final Object writeLock = new Object();
+
+  /**
+   * The user names of this repository. Each repository has its own table, so the user names are
+   * released with the repository.
+   */
+  private final UserNameTable users;
+
+  /**
+   * The published version of the store. It is never changed; a writer changes a copy of the parts
+   * it needs while holding the write lock and publishes the copy as new version. A reader pins
+   * the version once, so it sees a consistent view without locking, while writes continue.
+   */
+  private volatile Store store;
+
+  /**
+   * The last version of the store, on which the next writer builds. Without a journal it is the
+   * published version; with a journal it may contain writes, that are not durable yet. It is
+   * guarded by the write lock.
+   */
+  private Store head;
+
+  /**
+   * The versions, that are appended to the journal, but not published yet, in the order of their
+   * tickets. It is guarded by the write lock.
+   */
+  private final Deque<Commit> unpublished = new ArrayDeque<>();
+
+  private volatile long maxOwnedGroups = -1L;
+
+  /**
+   * The retained changes by their sequence numbers. A sequence number is assigned and appended
+   * while holding the lock of this map, so the retained sequence numbers never have gaps.
+   */
+  private final NavigableMap<Long, Change> changeLog = new ConcurrentSkipListMap<>();
+
+  private final List<Consumer<GroupChangeEvent>> changeListeners =
+      new CopyOnWriteArrayList<>();
+
+  /**
+   * The sequence number of the last published change; it is not reset, so consumers never see a
+   * sequence number twice.
+   */
+  private volatile long changeSequence = 0L;
+
+  /**
+   * The lowest sequence number, after which all changes are retained.
+   */
+  private volatile long changeLogStart = 0L;
+
+  /**
+   * The revisions of the users: user name to the sequence number of the last change that
+   * concerns the user.
+   */
+  private final Map<String, Long> userRevisions = new ConcurrentHashMap<>();
+
+  /**
+   * The revision of the users without an entry in the revisions.
+   */
+  private volatile long revisionBaseline = 0L;
+
+  /**
+   * The write-ahead log of the groups or {@code null}, if the groups are only kept in memory.
+   */
+  private final GroupJournal journal;
+
+  /**
+   * Serializes the snapshots of the journal.
+   */
+  private final ReentrantLock snapshotLock = new ReentrantLock();
+
+  /**
+   * Runs the snapshots, that are due after a write, so the writer doesn't wait for them.
+   */
+  private final Executor checkpointExecutor;
+
+  /**
+   * Specifies whether a snapshot, that is due, is passed to the executor and not finished yet.
+   */
+  private final AtomicBoolean checkpointScheduled = new AtomicBoolean();
+
+  /**
+   * Stores the members and the owners of the stored groups.
+   */
+  private final UnaryOperator<List<String>> userLists;
+
+  /**
+   * The empty set of the group IDs of a user, from which the indexes are built.
+   */
+  private final GroupIdSet emptyGroupIds;
+
+  /**
+   * Instantiates a new and empty group repository.
+   */
+  public InMemoryGroupRepository() {
+    this(null);
+  }
+
+  /**
+   * Instantiates a new group repository, that writes the groups to the given journal. The groups
+   * of the journal are loaded; they don't create changes.
+   *
+   * @param journal the journal, if {@code null} the groups are only kept in memory
+   */
+  public InMemoryGroupRepository(GroupJournal journal) {
+    this(journal, CHECKPOINT_THREAD);
+  }
+
+  /**
+   * Instantiates a new group repository, that writes the groups to the given journal and the
+   * snapshots, that are due after a write, with the given executor.
+   *
+   * @param journal the journal, if {@code null} the groups are only kept in memory
+   * @param checkpointExecutor the executor of the snapshots
+   */
+  public InMemoryGroupRepository(GroupJournal journal, Executor checkpointExecutor) {
+    this(
+        journal,
+        new UserNameTable(),
+        UnaryOperator.identity(),
+        TreeGroupIdSet.EMPTY,
+        checkpointExecutor);
+  }
+
+  /**
+   * Instantiates a new group repository, that stores the members and the owners of the groups
+   * with the given function and the group IDs of the users in sets, that are derived from the
+   * given empty set. Only with the sets on the heap ({@link TreeGroupIdSet}) the repository keeps
+   * the membership bitmaps in addition; otherwise the sets answer the membership queries, so
+   * nothing of the size of the memberships stays on the heap.
+   *
+   * @param journal the journal, if {@code null} the groups are only kept in memory
+   * @param users the user name table of the repository
+   * @param userLists the function, that stores the members and the owners; it gets user name
+   *     lists of the given table
+   * @param emptyGroupIds the empty set of the group IDs of a user
+   */
+  InMemoryGroupRepository(
+      GroupJournal journal,
+      UserNameTable users,
+      UnaryOperator<List<String>> userLists,
+      GroupIdSet emptyGroupIds) {
+    this(journal, users, userLists, emptyGroupIds, CHECKPOINT_THREAD);
+  }
+
+  /**
+   * Instantiates a new group repository like {@link #InMemoryGroupRepository(GroupJournal,
+   * UserNameTable, UnaryOperator, GroupIdSet)} with the given executor of the snapshots.
+   *
+   * @param journal the journal, if {@code null} the groups are only kept in memory
+   * @param users the user name table of the repository
+   * @param userLists the function, that stores the members and the owners
+   * @param emptyGroupIds the empty set of the group IDs of a user
+   * @param checkpointExecutor the executor of the snapshots
+   */
+  InMemoryGroupRepository(
+      GroupJournal journal,
+      UserNameTable users,
+      UnaryOperator<List<String>> userLists,
+      GroupIdSet emptyGroupIds,
+      Executor checkpointExecutor) {
+    if (checkpointExecutor == null) {
+      throw new IllegalArgumentException("Checkpoint executor must be present.");
+    }
+    this.checkpointExecutor = checkpointExecutor;
+    this.journal = journal;
+    this.users = users;
+    this.userLists = userLists;
+    this.emptyGroupIds = emptyGroupIds;
+    long recoveredSequence = journal != null ? journal.getRecoveredSequence() : 0L;
+    // The sequence number after the recovered one is skipped, so that the revisions of the
+    // recovered groups differ from every revision, that was returned before the restart.
+    long sequence = recoveredSequence > 0L ? recoveredSequence + 1L : 0L;
+    Transaction tx = new Transaction(emptyStore(sequence));
+    if (journal != null) {
+      for (Group recovered : journal.takeRecovered()) {
+        GroupSnapshot group = snapshot(recovered);
+        tx.put(group);
+        tx.index(group);
+      }
+    }
+    this.store = tx.toStore();
+    this.head = store;
+    this.changeSequence = sequence;
+    this.changeLogStart = recoveredSequence;
+    this.revisionBaseline = sequence;
+  }
+
+  private Store emptyStore(long sequence) {
+    return new Store(
+        SortedTreeMap.empty(),
+        HashTrieMap.empty(),
+        HashTrieMap.empty(),
+        emptyGroupIds == TreeGroupIdSet.EMPTY ? new MembershipBitmaps(users) : null,
+        emptyGroupIds,
+        null,
+        TreeGroupIdSet.EMPTY,
+        sequence);
+  }
+
+  /**
+   * Removes all groups and changes and restores the maximum number of owned groups to unlimited.
+   * The sequence number of the changes is not reset; the clear takes the next one, which becomes
+   * the revision of all users.
+   */
+  public void clear() {
+    write(tx -> {
+      tx.clear();
+      maxOwnedGroups = -1L;
+      return null;
+    });
+  }
+
+  /**
+   * Replaces all groups by the groups of the mapped snapshot, so that a node starts from a
+   * snapshot instead of creating its groups one by one. The change log is dropped like on
+   * {@link #clear()}; the loaded groups keep their versions and don't create changes.
+   *
+   * <p>Without a journal the snapshot is not read: the repository queries it in place and copies
+   * a group into the heap, when it is changed; the copy replaces the group of the snapshot. The
+   * snapshot must not be closed, until the groups are replaced again. With a journal the groups
+   * are decoded into the heap and written to the journal, so they are durable, and the snapshot
+   * can be closed afterwards.
+   *
+   * @param snapshot the snapshot
+   */
+  public void load(MappedGroupSnapshot snapshot) {
+    if (snapshot == null) {
+      throw new IllegalArgumentException("Snapshot must be present.");
+    }
+    write(tx -> {
+      if (journal == null) {
+        tx.mount(snapshot);
+      } else {
+        tx.clear();
+        snapshot.streamGroups(null, null).forEach(group -> tx.load(snapshot(group)));
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Writes a compacted snapshot of the groups to the journal and deletes the log segments, that
+   * are contained in it. Writers are only blocked while the log is switched to a new segment;
+   * the snapshot is written from the version of the store at that point. The repository calls it
+   * itself with the checkpoint executor, whenever the snapshot interval of the journal is
+   * reached.
+   *
+   * @throws java.io.UncheckedIOException if the snapshot cannot be written
+   */
+  public void checkpoint() {
+    if (journal != null) {
+      snapshotLock.lock();
+      try {
+        writeSnapshot();
+      } finally {
+        snapshotLock.unlock();
+      }
+    }
+  }
+
+  private void writeSnapshot() {
+    Store pinned;
+    long segment;
+    synchronized (writeLock) {
+      pinned = head;
+      segment = journal.rotate();
+    }
+    journal.writeSnapshot(segment, pinned.sequence, pinned.groups.values());
+  }
+
+  /**
+   * Determines whether the repository writes the groups to a journal. Then a write blocks, until
+   * its records are forced to the disk.
+   *
+   * @return {@code true} if there is a journal, otherwise {@code false}
+   */
+  public boolean isJournaled() {
+    return journal != null;
+  }
+
+  /**
+   * Gets the maximum number of owned groups that is reported in the status.
+   *
+   * @return the max owned groups, a negative value means unlimited
+   */
+  @Override
+  public long getMaxOwnedGroups() {
+    return maxOwnedGroups;
+  }
+
+  /**
+   * Sets the maximum number of owned groups that is reported in the status. It will be restored
+   * to unlimited on {@link #clear()}.
+   *
+   * @param maxOwnedGroups the max owned groups, a negative value means unlimited
+   */
+  public void setMaxOwnedGroups(long maxOwnedGroups) {
+    this.maxOwnedGroups = maxOwnedGroups;
+  }
+
+  /**
+   * Create group. A new group gets the sequence number of the change, that creates it, as
+   * version.
+   *
+   * @param group the group
+   * @return the group
+   */
+  @Override
+  public Group createGroup(Group group) {
+    if (group == null) {
+      throw new IllegalArgumentException("Illegal group");
+    }
+    if (group.getId() == null) {
+      group.setId(UUID.randomUUID().toString());
+    }
+    save(group);
+    return group;
+  }
+
+  /**
+   * Saves the group and keeps the indexes consistent with the stored groups.
+   *
+   * @param group the group
+   */
+  private void save(Group group) {
+    write(tx -> {
+      GroupSnapshot oldGroup = tx.get(group.getId());
+      group.setVersion(tx.nextVersion(oldGroup));
+      GroupSnapshot newGroup = snapshot(group);
+      tx.unindex(oldGroup);
+      tx.put(newGroup);
+      tx.index(newGroup);
+      tx.record(
+          oldGroup == null ? GroupChangeType.CREATED : GroupChangeType.UPDATED, oldGroup, newGroup);
+      return newGroup;
+    });
+  }
+
+  /**
+   * Applies the operation to a new version of the store and publishes it. The writers are
+   * serialized, so the operation sees the last version; if the operation fails, nothing is
+   * published.
+   *
+   * <p>If there is a journal, the new version is published, after the records of the changes are
+   * forced to the log, and the call returns after that; the next writer builds on the new version
+   * meanwhile, so concurrent writers share the force. If the records cannot be forced, the new
+   * version and all versions, that were built on it, are discarded and their writers fail.
+   *
+   * <p>The change listeners are notified after the write lock is released.
+   *
+   * @param operation the operation
+   * @param <T> the type of the result
+   * @return the result of the operation
+   */
+  private <T> T write(Function<Transaction, T> operation) {
+    List<Change> published = new ArrayList<>();
+    try {
+      T result;
+      long ticket;
+      synchronized (writeLock) {
+        published.addAll(discardFailed());
+        Transaction tx = new Transaction(head);
+        result = operation.apply(tx);
+        ticket = tx.commit(published);
+      }
+      if (ticket > 0L) {
+        awaitDurable(ticket, published);
+        scheduleCheckpoint();
+      }
+      return result;
+    } finally {
+      for (Change change : published) {
+        publish(change);
+      }
+    }
+  }
+
+  /**
+   * Passes a snapshot, that is due, to the checkpoint executor. The write is durable already, so
+   * the writer neither waits for the snapshot nor sees its failure; a failed snapshot is logged
+   * and the next snapshot is written, when the snapshot interval is reached again.
+   */
+  private void scheduleCheckpoint() {
+    if (!journal.isSnapshotDue() || !checkpointScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      checkpointExecutor.execute(() -> {
+        try {
+          if (journal.isSnapshotDue()) {
+            checkpoint();
+          }
+        } catch (RuntimeException e) {
+          LOGGER.log(Level.WARNING, "Writing the snapshot of the group journal failed.", e);
+        } finally {
+          checkpointScheduled.set(false);
+        }
+      });
+    } catch (RuntimeException e) {
+      checkpointScheduled.set(false);
+      LOGGER.log(Level.WARNING, "Scheduling the snapshot of the group journal failed.", e);
+    }
+  }
+
+  /**
+   * Waits until the records up to the ticket are forced to the log and publishes the durable
+   * versions. If the records cannot be forced, the versions, that are not durable, are
+   * discarded.
+   *
+   * @param ticket the ticket of the journal
+   * @param published the list, to which the published changes are added
+   */
+  private void awaitDurable(long ticket, List<Change> published) {
+    try {
+      journal.sync(ticket);
+    } catch (RuntimeException e) {
+      synchronized (writeLock) {
+        published.addAll(discardFailed());
+      }
+      throw e;
+    }
+    synchronized (writeLock) {
+      published.addAll(publishDurable());
+    }
+  }
+
+  /**
+   * Publishes the versions, whose records are forced to the log, in the order of their tickets.
+   * It must be called while holding the write lock.
+   *
+   * @return the published changes
+   */
+  private List<Change> publishDurable() {
+    List<Change> published = new ArrayList<>();
+    long durable = journal.getDurableTicket();
+    while (!unpublished.isEmpty() && unpublished.peekFirst().ticket <= durable) {
+      Commit commit = unpublished.pollFirst();
+      publish(commit);
+      published.addAll(commit.changes);
+    }
+    return published;
+  }
+
+  /**
+   * Discards the versions, that are not durable, if the journal has failed, and resets the
+   * journal, so that the next writer builds on the last durable version. It must be called while
+   * holding the write lock.
+   *
+   * @return the changes of the durable versions, that were published
+   */
+  private List<Change> discardFailed() {
+    if (journal == null || !journal.isFailed()) {
+      return Collections.emptyList();
+    }
+    List<Change> published = publishDurable();
+    unpublished.clear();
+    head = store;
+    journal.reset();
+    return published;
+  }
+
+  /**
+   * Publishes a version of the store and appends its changes to the change log. It must be called
+   * while holding the write lock in the order of the versions.
+   *
+   * @param commit the version
+   */
+  private void publish(Commit commit) {
+    synchronized (changeLog) {
+      store = commit.store;
+      if (commit.cleared) {
+        // the clear has its own sequence number, so the revisions after it differ from every
+        // revision, that was returned before
+        long clearSequence = commit.store.sequence - commit.changes.size();
+        changeLog.clear();
+        userRevisions.clear();
+        changeSequence = clearSequence;
+        changeLogStart = clearSequence;
+        revisionBaseline = clearSequence;
+      }
+      for (Change change : commit.changes) {
+        append(change);
+      }
+    }
+  }
+
+  /**
+   * Streams a page of groups ordered by their IDs. The groups are looked up lazily while the
+   * stream is consumed.
+   *
+   * @param afterId the ID after which the page starts, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the groups
+   */
+  @Override
+  public Stream<Group> streamGroups(String afterId, Integer limit) {
+    Store current = store;
+    return limit(stream(current, current.groupIds(afterId)), limit);
+  }
+
+  /**
+   * Gets group by id. The group is created from the stored snapshot without copying the user
+   * names: its members and owners are read-only views of the lists of the snapshot.
+   *
+   * @param groupId the group id
+   * @return the group by id
+   */
+  @Override
+  public Group getGroupById(String groupId) {
+    return store.group(groupId);
+  }
+
+  /**
+   * Gets the snapshot of the group. Unlike {@link #getGroupById(String)} no group is created,
+   * the stored snapshot is returned (a group of a mapped snapshot is decoded).
+   *
+   * @param groupId the group id
+   * @return the snapshot or {@code null}, if there is no such group
+   */
+  @Override
+  public GroupSnapshot getGroupSnapshot(String groupId) {
+    return groupId != null ? store.get(groupId) : null;
+  }
+
+  /**
+   * Takes the snapshot of a group, that is stored.
+   *
+   * @param group the group
+   * @return the snapshot
+   */
+  private GroupSnapshot snapshot(Group group) {
+    return GroupSnapshot.of(group, users, userLists);
+  }
+
+  private static Group toGroup(GroupSnapshot snapshot) {
+    return snapshot != null ? snapshot.toGroup() : null;
+  }
+
+  /**
+   * Update group, if it has the expected version (compare and set). The version check and the
+   * update are applied atomically, so of concurrent updates with the same expected version only
+   * one succeeds. The version of the group is incremented.
+   *
+   * @param groupId the group id
+   * @param group the group
+   * @param expectedVersion the expected version of the stored group, if {@code null} the group
+   *     is updated unconditionally
+   * @return the group or {@code null}, if there is no such group
+   * @throws ConcurrentModificationException if the stored group has another version
+   */
+  @Override
+  public Group updateGroup(String groupId, Group group, Long expectedVersion) {
+    if (groupId == null) {
+      throw new IllegalArgumentException("Illegal group ID");
+    }
+    if (group == null) {
+      throw new IllegalArgumentException("Illegal group");
+    }
+    return toGroup(write(tx -> update(tx, groupId, group, expectedVersion)));
+  }
+
+  private GroupSnapshot update(
+      Transaction tx,
+      String groupId,
+      Group group,
+      Long expectedVersion) {
+    GroupSnapshot oldGroup = tx.get(groupId);
+    if (oldGroup == null) {
+      return null;
+    }
+    checkVersion(oldGroup, expectedVersion);
+    group.setId(groupId);
+    group.setVersion(tx.nextVersion(oldGroup));
+    GroupSnapshot newGroup = snapshot(group);
+    tx.unindex(oldGroup);
+    tx.put(newGroup);
+    tx.index(newGroup);
+    tx.record(GroupChangeType.UPDATED, oldGroup, newGroup);
+    return newGroup;
+  }
+
+  /**
+   * Adds a member to the group. The members are changed atomically, so concurrent changes of the
+   * members are not lost, and only the index entry of the member is added. If the user is already
+   * a member, the group is not changed.
+   *
+   * @param groupId the group id
+   * @param userName the name of the member
+   * @return the group or {@code null}, if there is no such group
+   */
+  @Override
+  public Group addMember(String groupId, String userName) {
+    return changeUsers(groupId, userName, Role.MEMBER, true);
+  }
+
+  /**
+   * Removes a member from the group. The members are changed atomically, so concurrent changes
+   * of the members are not lost, and only the index entry of the member is removed. If the user
+   * is not a member, the group is not changed.
+   *
+   * @param groupId the group id
+   * @param userName the name of the member
+   * @return the group or {@code null}, if there is no such group
+   */
+  @Override
+  public Group removeMember(String groupId, String userName) {
+    return changeUsers(groupId, userName, Role.MEMBER, false);
+  }
+
+  /**
+   * Adds an owner to the group. The owners are changed atomically, so concurrent changes of the
+   * owners are not lost, and only the index entry of the owner is added. If the user is already
+   * an owner, the group is not changed.
+   *
+   * @param groupId the group id
+   * @param userName the name of the owner
+   * @return the group or {@code null}, if there is no such group
+   */
+  @Override
+  public Group addOwner(String groupId, String userName) {
+    return changeUsers(groupId, userName, Role.OWNER, true);
+  }
+
+  /**
+   * Removes an owner from the group. The owners are changed atomically, so concurrent changes of
+   * the owners are not lost, and only the index entry of the owner is removed (unless the owner
+   * has created the group). If the user is not an owner, the group is not changed.
+   *
+   * @param groupId the group id
+   * @param userName the name of the owner
+   * @return the group or {@code null}, if there is no such group
+   */
+  @Override
+  public Group removeOwner(String groupId, String userName) {
+    return changeUsers(groupId, userName, Role.OWNER, false);
+  }
+
+  private Group changeUsers(String groupId, String userName, Role role, boolean add) {
+    if (groupId == null) {
+      throw new IllegalArgumentException("Illegal group ID");
+    }
+    if (userName == null) {
+      throw new IllegalArgumentException("User name must be present.");
+    }
+    // an added user name becomes a key of the indexes, so the stored instance is used
+    String user = add ? users.canonical(userName) : userName;
+    return toGroup(write(tx -> {
+      GroupSnapshot oldGroup = tx.get(groupId);
+      if (oldGroup == null) {
+        return null;
+      }
+      List<String> oldUsers = role == Role.MEMBER ? oldGroup.getMembers() : oldGroup.getOwners();
+      if (oldUsers.contains(user) == add) {
+        return oldGroup;
+      }
+      List<String> newUsers = new UserNameList(users, oldUsers);
+      if (add) {
+        newUsers.add(user);
+      } else {
+        newUsers.remove(user);
+      }
+      Group.GroupBuilder builder = oldGroup.toBuilder()
+          .version(tx.nextVersion(oldGroup))
+          .modifiedAt(OffsetDateTime.now());
+      GroupSnapshot group;
+      if (role == Role.MEMBER) {
+        group = snapshot(builder.members(newUsers).build());
+        if (add) {
+          tx.addToIndex(Relation.MEMBER, user, groupId);
+        } else {
+          tx.removeFromIndex(Relation.MEMBER, user, groupId);
+        }
+      } else {
+        group = snapshot(builder.owners(newUsers).build());
+        if (add) {
+          tx.addToIndex(Relation.EDITOR, user, groupId);
+        } else if (!user.equals(oldGroup.getCreatedBy())) {
+          tx.removeFromIndex(Relation.EDITOR, user, groupId);
+        }
+      }
+      tx.put(group);
+      tx.record(GroupChangeType.UPDATED, oldGroup, group);
+      return group;
+    }));
+  }
+
+  /**
+   * Delete group, if it has the expected version (compare and delete).
+   *
+   * @param groupId the group id
+   * @param expectedVersion the expected version of the stored group, if {@code null} the group
+   *     is deleted unconditionally
+   * @return the deleted group or {@code null}, if there is no such group
+   * @throws ConcurrentModificationException if the stored group has another version
+   */
+  @Override
+  public Group deleteGroup(String groupId, Long expectedVersion) {
+    if (groupId == null) {
+      return null;
+    }
+    return toGroup(write(tx -> delete(tx, groupId, expectedVersion)));
+  }
+
+  private GroupSnapshot delete(Transaction tx, String groupId, Long expectedVersion) {
+    GroupSnapshot oldGroup = tx.get(groupId);
+    if (oldGroup == null) {
+      return null;
+    }
+    checkVersion(oldGroup, expectedVersion);
+    tx.unindex(oldGroup);
+    tx.remove(groupId);
+    tx.record(GroupChangeType.DELETED, oldGroup, null);
+    return oldGroup;
+  }
+
+  private static void checkVersion(GroupSnapshot oldGroup, Long expectedVersion) {
+    if (expectedVersion != null && !expectedVersion.equals(oldGroup.getVersion())) {
+      throw new ConcurrentModificationException("Group " + oldGroup.getId() + " has version "
+          + oldGroup.getVersion() + ", but expected was version " + expectedVersion + ".");
+    }
+  }
+
+  /**
+   * Executes the commands of a batch in one pass. A failed command does not stop the batch, the
+   * result of every command contains its status. The successful commands are published as one
+   * new version of the store, so a reader sees either none or all of them.
+   *
+   * @param commands the commands
+   * @return the results in the order of the commands
+   * @see #execute(int, GroupCommand)
+   */
+  @Override
+  public List<GroupCommandResult> execute(Collection<GroupCommand> commands) {
+    if (commands == null) {
+      return Collections.emptyList();
+    }
+    return write(tx -> {
+      List<GroupCommandResult> results = new ArrayList<>(commands.size());
+      for (GroupCommand command : commands) {
+        results.add(execute(tx, results.size(), command));
+      }
+      return results;
+    });
+  }
+
+  /**
+   * Executes a command of a batch. Each command is applied atomically like the single
+   * operations, and the indexes are updated by delta. A created group must not exist; an update
+   * or a delete, that specifies the expected version, fails if the stored group has another
+   * version.
+   *
+   * @param index the position of the command in the batch
+   * @param command the command
+   * @return the result
+   */
+  @Override
+  public GroupCommandResult execute(int index, GroupCommand command) {
+    return write(tx -> execute(tx, index, command));
+  }
+
+  private GroupCommandResult execute(Transaction tx, int index, GroupCommand command) {
+    GroupCommandResult.GroupCommandResultBuilder result = GroupCommandResult.builder()
+        .index(index);
+    if (command == null || command.getType() == null) {
+      return result.status(400).message("Illegal command").build();
+    }
+    result.type(command.getType());
+    Group group = command.getGroup();
+    String groupId = command.getGroupId() != null || group == null
+        ? command.getGroupId()
+        : group.getId();
+    result.groupId(groupId);
+    try {
+      switch (command.getType()) {
+        case CREATE:
+          if (group == null) {
+            throw new IllegalArgumentException("Illegal group");
+          }
+          group.setId(groupId != null ? groupId : UUID.randomUUID().toString());
+          if (!insert(tx, group)) {
+            return result.groupId(group.getId()).status(409)
+                .message("Group " + group.getId() + " already exists.").build();
+          }
+          return result.groupId(group.getId()).status(201).version(group.getVersion()).build();
+        case UPDATE:
+          if (groupId == null) {
+            throw new IllegalArgumentException("Illegal group ID");
+          }
+          if (group == null) {
+            throw new IllegalArgumentException("Illegal group");
+          }
+          GroupSnapshot updated = update(tx, groupId, group, command.getVersion());
+          return updated != null
+              ? result.status(200).version(updated.getVersion()).build()
+              : result.status(404).message("Group " + groupId + " does not exist.").build();
+        default:
+          if (groupId == null) {
+            throw new IllegalArgumentException("Illegal group ID");
+          }
+          GroupSnapshot deleted = delete(tx, groupId, command.getVersion());
+          return deleted != null
+              ? result.status(200).version(deleted.getVersion()).build()
+              : result.status(404).message("Group " + groupId + " does not exist.").build();
+      }
+    } catch (IllegalArgumentException e) {
+      return result.status(400).message(e.getMessage()).build();
+    } catch (ConcurrentModificationException e) {
+      return result.status(412).message(e.getMessage()).build();
+    }
+  }
+
+  /**
+   * Inserts the group, if there is no group with the same ID.
+   *
+   * @param tx the transaction
+   * @param group the group with ID
+   * @return {@code true} if the group was inserted, otherwise {@code false}
+   */
+  private boolean insert(Transaction tx, Group group) {
+    if (tx.get(group.getId()) != null) {
+      return false;
+    }
+    group.setVersion(tx.nextVersion(null));
+    GroupSnapshot newGroup = snapshot(group);
+    tx.put(newGroup);
+    tx.index(newGroup);
+    tx.record(GroupChangeType.CREATED, null, newGroup);
+    return true;
+  }
+
+  /**
+   * Streams groups by ids. The groups are looked up lazily while the stream is consumed.
+   *
+   * @param ids the ids
+   * @return the groups
+   */
+  @Override
+  public Stream<Group> streamGroupsByIds(Collection<String> ids) {
+    if (ids == null) {
+      return Stream.empty();
+    }
+    Store current = store;
+    return ids.stream()
+        .map(current::group)
+        .filter(Objects::nonNull);
+  }
+
+  /**
+   * Streams a page of editable groups ordered by their IDs. The groups are looked up lazily
+   * while the stream is consumed.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the editable groups
+   * @see ContinuationToken
+   */
+  @Override
+  public Stream<Group> streamEditableGroups(
+      String userName,
+      String continuation,
+      Integer limit) {
+    if (userName == null) {
+      throw new IllegalArgumentException("User name must be present.");
+    }
+    String afterId = ContinuationToken.decode(continuation);
+    Store current = store;
+    return limit(
+        stream(current, current.groupIds(Relation.EDITOR, userName, afterId)), limit);
+  }
+
+  /**
+   * Streams a page of usable groups ordered by their IDs. The groups are looked up lazily while the
+   * stream is consumed.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the usable groups
+   * @see ContinuationToken
+   */
+  @Override
+  public Stream<Group> streamUsableGroups(
+      String userName,
+      String continuation,
+      Integer limit) {
+    if (userName == null) {
+      throw new IllegalArgumentException("User name must be present.");
+    }
+    String afterId = ContinuationToken.decode(continuation);
+    Store current = store;
+    return limit(stream(current, new UnionIterator(
+        current.groupIds(Relation.EDITOR, userName, afterId),
+        current.groupIds(Relation.MEMBER, userName, afterId))), limit);
+  }
+
+  /**
+   * Streams a page of the groups the user is a member of ordered by their IDs. The groups are
+   * looked up lazily while the stream is consumed.
+   *
+   * @param userName the user name
+   * @param continuation the continuation token, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the membership
+   * @see ContinuationToken
+   */
+  @Override
+  public Stream<Group> streamMembership(
+      String userName,
+      String continuation,
+      Integer limit) {
+    if (userName == null) {
+      throw new IllegalArgumentException("User name must be present.");
+    }
+    String afterId = ContinuationToken.decode(continuation);
+    Store current = store;
+    return limit(
+        stream(current, current.groupIds(Relation.MEMBER, userName, afterId)), limit);
+  }
+
+  private static <T> Stream<T> limit(Stream<T> values, Integer limit) {
+    if (limit == null) {
+      return values;
+    }
+    if (limit < 0) {
+      throw new IllegalArgumentException("Limit must not be negative.");
+    }
+    return values.limit(limit);
+  }
+
+  private static Stream<Group> stream(Store current, Iterator<String> ids) {
+    return StreamSupport
+        .stream(Spliterators.spliteratorUnknownSize(ids, Spliterator.ORDERED), false)
+        .map(current::group)
+        .filter(Objects::nonNull);
+  }
+
+  /**
+   * Gets membership ids.
+   *
+   * @param userName the user name
+   * @return the membership ids
+   */
+  @Override
+  public Set<String> getMembershipIds(String userName) {
+    if (userName == null) {
+      throw new IllegalArgumentException("User name must be present.");
+    }
+    Store current = store;
+    Set<String> ids = current.bitmaps == null
+        ? groupIds(current.heapGroupIds(Relation.MEMBER, userName))
+        : current.bitmaps.groupIds(current.bitmaps.get(Relation.MEMBER, userName));
+    current.addMappedGroupIds(Relation.MEMBER, userName, ids);
+    return ids;
+  }
+
+  private static Set<String> groupIds(GroupIdSet... sets) {
+    Set<String> ids = new HashSet<>();
+    for (GroupIdSet set : sets) {
+      set.after(null).forEachRemaining(ids::add);
+    }
+    return ids;
+  }
+
+  /**
+   * Gets the IDs of the groups, that the user can use, because the user has created or owns them
+   * or is a member of them.
+   *
+   * @param userName the user name
+   * @return the usable group ids
+   */
+  @Override
+  public Set<String> getUsableGroupIds(String userName) {
+    if (userName == null) {
+      throw new IllegalArgumentException("User name must be present.");
+    }
+    Store current = store;
+    MembershipBitmaps bitmaps = current.bitmaps;
+    Set<String> ids;
+    if (bitmaps == null) {
+      ids = groupIds(
+          current.heapGroupIds(Relation.EDITOR, userName),
+          current.heapGroupIds(Relation.MEMBER, userName));
+    } else {
+      ids = bitmaps.groupIds(
+          bitmaps.get(Relation.EDITOR, userName).or(bitmaps.get(Relation.MEMBER, userName)));
+    }
+    current.addMappedGroupIds(Relation.EDITOR, userName, ids);
+    current.addMappedGroupIds(Relation.MEMBER, userName, ids);
+    return ids;
+  }
+
+  /**
+   * Determines whether the user is a member of the group. Only the bit of the group in the
+   * membership bitmap of the user is tested.
+   *
+   * @param userName the user name
+   * @param groupId the group id
+   * @return {@code true} if the user is a member of the group, otherwise {@code false}
+   */
+  @Override
+  public boolean isMember(String userName, String groupId) {
+    return isMember(store, userName, groupId);
+  }
+
+  private static boolean isMember(Store current, String userName, String groupId) {
+    if (userName == null || groupId == null) {
+      return false;
+    }
+    boolean member = current.bitmaps != null
+        ? current.bitmaps.contains(Relation.MEMBER, userName, groupId)
+        : current.heapGroupIds(Relation.MEMBER, userName).contains(groupId);
+    return member || current.isMapped(groupId) && current.mapped.isMember(userName, groupId);
+  }
+
+  /**
+   * Checks the memberships. The results are in the order of the memberships; a membership
+   * without user name or group ID is never given. All memberships are checked against the same
+   * version of the store.
+   *
+   * @param memberships the memberships to check
+   * @return the results
+   */
+  @Override
+  public List<Boolean> isMember(Collection<Membership> memberships) {
+    if (memberships == null) {
+      return Collections.emptyList();
+    }
+    Store current = store;
+    List<Boolean> results = new ArrayList<>(memberships.size());
+    for (Membership membership : memberships) {
+      results.add(membership != null
+          && isMember(current, membership.getUserName(), membership.getGroupId()));
+    }
+    return results;
+  }
+
+  /**
+   * Gets status.
+   *
+   * @param userName the user name
+   * @return the status
+   */
+  @Override
+  public Status getStatus(String userName) {
+    if (userName == null) {
+      throw new IllegalArgumentException("User name must be present.");
+    }
+    Store current = store;
+    return Status.builder()
+        .maxOwnedGroups(maxOwnedGroups)
+        .membershipSize((long) current.count(Relation.MEMBER, userName))
+        .ownedGroupSize((long) current.count(Relation.EDITOR, userName))
+        .build();
+  }
+
+  /**
+   * Appends a change to the change log. It must be called, after the version of the store with
+   * the change was published, so that a consumer of the change log can always read the changed
+   * group.
+   *
+   * @param change the change
+   */
+  private void append(Change change) {
+    synchronized (changeLog) {
+      long sequence = change.event.getSequence();
+      changeLog.put(sequence, change);
+      if (changeLog.remove(sequence - CHANGE_LOG_CAPACITY) != null) {
+        changeLogStart = sequence - CHANGE_LOG_CAPACITY;
+      }
+      change.forEachUserName(userName -> userRevisions.put(userName, sequence));
+      changeSequence = sequence;
+    }
+  }
+
+  /**
+   * Notifies the change listeners. It must not be called within the computation of a group.
+   *
+   * @param change the change
+   */
+  private void publish(Change change) {
+    if (change != null) {
+      for (Consumer<GroupChangeEvent> listener : changeListeners) {
+        listener.accept(change.event);
+      }
+    }
+  }
+
+  /**
+   * Adds a change listener. The listener is called by the thread that has applied the change,
+   * after the change was applied and appended to the change log, so it should return quickly.
+   * Listeners are not removed on {@link #clear()}.
+   *
+   * @param listener the listener
+   */
+  @Override
+  public void addChangeListener(Consumer<GroupChangeEvent> listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Listener must be present.");
+    }
+    changeListeners.add(listener);
+  }
+
+  /**
+   * Removes a change listener.
+   *
+   * @param listener the listener
+   */
+  @Override
+  public void removeChangeListener(Consumer<GroupChangeEvent> listener) {
+    changeListeners.remove(listener);
+  }
+
+  /**
+   * Gets the sequence number of the last change.
+   *
+   * @return the sequence number of the last change
+   */
+  @Override
+  public long getChangeSequence() {
+    return changeSequence;
+  }
+
+  /**
+   * Gets the revision of a user. It changes whenever a group is changed that the user has
+   * created, owns or is a member of (before or after the change), so it can be used as aggregate
+   * version of the membership and the status of the user.
+   *
+   * @param userName the user name
+   * @return the sequence number of the last change that concerns the user or the sequence number,
+   *     at which the repository was recovered or cleared
+   */
+  @Override
+  public long getRevision(String userName) {
+    if (userName == null) {
+      throw new IllegalArgumentException("User name must be present.");
+    }
+    return userRevisions.getOrDefault(userName, revisionBaseline);
+  }
+
+  /**
+   * Streams the retained changes after the given sequence number in ascending order.
+   *
+   * @param userName the user name, if present only the changes of groups the user has created,
+   *     owns or is a member of (before or after the change) are returned
+   * @param afterSequence the sequence number of the last seen change, if {@code null} all
+   *     retained changes are returned
+   * @param limit the maximum number of changes, if {@code null} all remaining changes are
+   *     returned
+   * @return the changes
+   * @throws IllegalStateException if changes after the given sequence number are no longer
+   *     retained or if the sequence number is greater than the one of the last change
+   */
+  @Override
+  public Stream<GroupChangeEvent> streamChanges(
+      String userName,
+      Long afterSequence,
+      Integer limit) {
+    NavigableMap<Long, Change> changes = changeLog;
+    if (afterSequence != null) {
+      if (afterSequence < 0L) {
+        throw new IllegalArgumentException("Sequence must not be negative.");
+      }
+      if (afterSequence > changeSequence) {
+        throw new IllegalStateException(
+            "Sequence " + afterSequence + " is unknown, the last change has sequence "
+                + changeSequence + ".");
+      }
+      if (afterSequence < changeLogStart) {
+        throw new IllegalStateException(
+            "Changes after sequence " + afterSequence + " are no longer available.");
+      }
+      changes = changeLog.tailMap(afterSequence, false);
+    }
+    return limit(
+        changes.values().stream()
+            .filter(change -> userName == null || change.concerns(userName))
+            .map(change -> change.event),
+        limit);
+  }
+
+  /**
+   * A retained change with the snapshots of the group before and after the change. The users it
+   * concerns are looked up in the user name lists of the snapshots, so a retained change doesn't
+   * hold a set of its users; the snapshot after the change is usually the stored one.
+   */
+  private static final class Change {
+
+    private final GroupChangeEvent event;
+
+    private final GroupSnapshot oldGroup;
+
+    private final GroupSnapshot newGroup;
+
+    private Change(GroupChangeEvent event, GroupSnapshot oldGroup, GroupSnapshot newGroup) {
+      this.event = event;
+      this.oldGroup = oldGroup;
+      this.newGroup = newGroup;
+    }
+
+    /**
+     * Creates a change.
+     *
+     * @param type the type of the change
+     * @param sequence the sequence number of the change
+     * @param oldGroup the group before the change
+     * @param newGroup the group after the change
+     * @return the change
+     */
+    private static Change of(
+        GroupChangeType type,
+        long sequence,
+        GroupSnapshot oldGroup,
+        GroupSnapshot newGroup) {
+      GroupSnapshot group = newGroup != null ? newGroup : oldGroup;
+      return new Change(
+          GroupChangeEvent.builder()
+              .sequence(sequence)
+              .type(type)
+              .groupId(group.getId())
+              .version(group.getVersion())
+              .build(),
+          oldGroup,
+          newGroup);
+    }
+
+    /**
+     * Determines whether the user has created, owns or is a member of the group before or after
+     * the change.
+     *
+     * @param userName the user name
+     * @return {@code true} if the change concerns the user, otherwise {@code false}
+     */
+    private boolean concerns(String userName) {
+      return concerns(oldGroup, userName) || concerns(newGroup, userName);
+    }
+
+    private static boolean concerns(GroupSnapshot group, String userName) {
+      return group != null
+          && (userName.equals(group.getCreatedBy())
+          || group.getMembers().contains(userName)
+          || group.getOwners().contains(userName));
+    }
+
+    /**
+     * Calls the consumer with the name of each user the change concerns; a name can be passed more
+     * than once, user names, that are {@code null}, are skipped.
+     *
+     * @param consumer the consumer
+     */
+    private void forEachUserName(Consumer<String> consumer) {
+      forEachUserName(oldGroup, consumer);
+      forEachUserName(newGroup, consumer);
+    }
+
+    private static void forEachUserName(GroupSnapshot group, Consumer<String> consumer) {
+      if (group != null) {
+        accept(group.getCreatedBy(), consumer);
+        group.getMembers().forEach(userName -> accept(userName, consumer));
+        group.getOwners().forEach(userName -> accept(userName, consumer));
+      }
+    }
+
+    private static void accept(String userName, Consumer<String> consumer) {
+      if (userName != null) {
+        consumer.accept(userName);
+      }
+    }
+  }
+
+  /**
+   * A version of the store. It is not changed after it was published. All parts are immutable
+   * maps, that share their unchanged nodes with the previous version, so a write copies only the
+   * paths to the entries it changes.
+   */
+  private static final class Store {
+
+    /**
+     * The groups by their IDs in ascending order, used for keyset pagination.
+     */
+    private final SortedTreeMap<String, GroupSnapshot> groups;
+
+    /**
+     * The inverted membership index: user name to the ordered IDs of the groups the user is a
+     * member of.
+     */
+    private final HashTrieMap<String, GroupIdSet> membershipIndex;
+
+    /**
+     * The editable index: user name to the ordered IDs of the groups the user has created or
+     * owns.
+     */
+    private final HashTrieMap<String, GroupIdSet> editableIndex;
+
+    /**
+     * The membership engine with a bitmap of group IDs for each user and relation, adjusted
+     * whenever an index entry is added or removed. It answers the membership checks, the
+     * membership IDs and the counts of the status. It is {@code null}, if the indexes answer
+     * them.
+     */
+    private final MembershipBitmaps bitmaps;
+
+    /**
+     * The empty set of group IDs of the indexes.
+     */
+    private final GroupIdSet emptyGroupIds;
+
+    /**
+     * The mapped snapshot, whose groups are queried in place, or {@code null}. The groups and the
+     * indexes above contain only the groups, that were changed since the snapshot was mounted.
+     */
+    private final MappedGroupSnapshot mapped;
+
+    /**
+     * The IDs of the groups of the mapped snapshot, that are replaced by a group on the heap or
+     * deleted.
+     */
+    private final GroupIdSet shadowed;
+
+    /**
+     * The sequence number of the last change, that is contained in this version.
+     */
+    private final long sequence;
+
+    private Store(
+        SortedTreeMap<String, GroupSnapshot> groups,
+        HashTrieMap<String, GroupIdSet> membershipIndex,
+        HashTrieMap<String, GroupIdSet> editableIndex,
+        MembershipBitmaps bitmaps,
+        GroupIdSet emptyGroupIds,
+        MappedGroupSnapshot mapped,
+        GroupIdSet shadowed,
+        long sequence) {
+      this.groups = groups;
+      this.membershipIndex = membershipIndex;
+      this.editableIndex = editableIndex;
+      this.bitmaps = bitmaps;
+      this.emptyGroupIds = emptyGroupIds;
+      this.mapped = mapped;
+      this.shadowed = shadowed;
+      this.sequence = sequence;
+    }
+
+    /**
+     * Determines whether the group has to be looked up in the mapped snapshot.
+     *
+     * @param groupId the group id
+     * @return {@code true} if there is a mapped snapshot, that is not shadowed for the group
+     */
+    private boolean isMapped(String groupId) {
+      return mapped != null && !shadowed.contains(groupId);
+    }
+
+    private GroupSnapshot get(String groupId) {
+      GroupSnapshot group = groups.get(groupId);
+      if (group == null && isMapped(groupId)) {
+        Group mappedGroup = mapped.getGroupById(groupId);
+        return mappedGroup != null ? GroupSnapshot.of(mappedGroup) : null;
+      }
+      return group;
+    }
+
+    private Group group(String groupId) {
+      GroupSnapshot group = groups.get(groupId);
+      if (group == null) {
+        return isMapped(groupId) ? mapped.getGroupById(groupId) : null;
+      }
+      return group.toGroup();
+    }
+
+    private HashTrieMap<String, GroupIdSet> index(Relation relation) {
+      return relation == Relation.MEMBER ? membershipIndex : editableIndex;
+    }
+
+    private GroupIdSet heapGroupIds(Relation relation, String userName) {
+      return index(relation).getOrDefault(userName, emptyGroupIds);
+    }
+
+    /**
+     * Iterates the IDs of all groups in ascending order.
+     *
+     * @param afterId the ID after which the iteration starts, if {@code null} all IDs are
+     *     iterated
+     * @return the group IDs
+     */
+    private Iterator<String> groupIds(String afterId) {
+      Iterator<String> ids = groups.keys(afterId);
+      if (mapped == null) {
+        return ids;
+      }
+      return new UnionIterator(ids, unshadowed(mapped.streamGroupIds(afterId)));
+    }
+
+    /**
+     * Iterates the IDs of the groups of a user in ascending order.
+     *
+     * @param relation the relation of the user to the groups
+     * @param userName the user name
+     * @param afterId the ID after which the iteration starts, if {@code null} all IDs are
+     *     iterated
+     * @return the group IDs
+     */
+    private Iterator<String> groupIds(Relation relation, String userName, String afterId) {
+      Iterator<String> ids = heapGroupIds(relation, userName).after(afterId);
+      if (mapped == null) {
+        return ids;
+      }
+      return new UnionIterator(
+          ids, unshadowed(mapped.streamGroupIds(relation, userName, afterId)));
+    }
+
+    private Iterator<String> unshadowed(Stream<String> mappedIds) {
+      return mappedIds.filter(id -> !shadowed.contains(id)).iterator();
+    }
+
+    /**
+     * Adds the IDs of the groups of the mapped snapshot, that are not shadowed, to the set.
+     *
+     * @param relation the relation of the user to the groups
+     * @param userName the user name
+     * @param ids the set of group IDs
+     */
+    private void addMappedGroupIds(Relation relation, String userName, Set<String> ids) {
+      if (mapped != null) {
+        mapped.streamGroupIds(relation, userName, null)
+            .filter(id -> !shadowed.contains(id))
+            .forEach(ids::add);
+      }
+    }
+
+    private int count(Relation relation, String userName) {
+      int count = bitmaps != null
+          ? bitmaps.count(relation, userName)
+          : heapGroupIds(relation, userName).size();
+      if (mapped != null) {
+        count += shadowed.isEmpty()
+            ? mapped.size(relation, userName)
+            : (int) mapped.streamGroupIds(relation, userName, null)
+                .filter(id -> !shadowed.contains(id))
+                .count();
+      }
+      return count;
+    }
+  }
+
+  /**
+   * A version of the store with its changes, that is appended to the journal, but not published
+   * yet.
+   */
+  private static final class Commit {
+
+    private final long ticket;
+
+    private final Store store;
+
+    private final List<Change> changes;
+
+    private final boolean cleared;
+
+    private Commit(long ticket, Store store, List<Change> changes, boolean cleared) {
+      this.ticket = ticket;
+      this.store = store;
+      this.changes = changes;
+      this.cleared = cleared;
+    }
+  }
+
+  /**
+   * The changes of a writer. Every change replaces a part of the store by a new immutable
+   * version, that shares all unchanged nodes with the version it is built on, so that version is
+   * never changed and a write costs only the paths it changes.
+   */
+  private final class Transaction {
+
+    private final Store base;
+
+    private SortedTreeMap<String, GroupSnapshot> groups;
+
+    private HashTrieMap<String, GroupIdSet> membershipIndex;
+
+    private HashTrieMap<String, GroupIdSet> editableIndex;
+
+    private MembershipBitmaps bitmaps;
+
+    private MappedGroupSnapshot mapped;
+
+    private GroupIdSet shadowed;
+
+    private final List<Change> changes = new ArrayList<>();
+
+    private final List<byte[]> records = new ArrayList<>();
+
+    /**
+     * The sequence number of the last change of the transaction.
+     */
+    private long sequence;
+
+    /**
+     * Specifies whether all groups were removed.
+     */
+    private boolean cleared;
+
+    private Transaction(Store base) {
+      this.base = base;
+      this.groups = base.groups;
+      this.membershipIndex = base.membershipIndex;
+      this.editableIndex = base.editableIndex;
+      this.mapped = base.mapped;
+      this.shadowed = base.shadowed;
+      this.sequence = base.sequence;
+    }
+
+    /**
+     * Gets the group, that is changed. A group of the mapped snapshot is copied into the heap
+     * and indexed there, so it replaces the mapped group, before it is changed.
+     *
+     * @param groupId the group id
+     * @return the group or {@code null}, if there is no such group
+     */
+    private GroupSnapshot get(String groupId) {
+      GroupSnapshot group = groups.get(groupId);
+      if (group == null && mapped != null && !shadowed.contains(groupId)) {
+        Group mappedGroup = mapped.getGroupById(groupId);
+        if (mappedGroup != null) {
+          group = snapshot(mappedGroup);
+          put(group);
+          index(group);
+          shadowed = shadowed.plus(groupId);
+        }
+      }
+      return group;
+    }
+
+    private void put(GroupSnapshot group) {
+      groups = groups.plus(group.getId(), group);
+    }
+
+    private void remove(String groupId) {
+      groups = groups.minus(groupId);
+    }
+
+    /**
+     * Gets the membership engine of the transaction.
+     *
+     * @return the membership engine or {@code null}, if the store has none
+     */
+    private MembershipBitmaps bitmaps() {
+      if (bitmaps == null && base.bitmaps != null) {
+        bitmaps = base.bitmaps.copy();
+      }
+      return bitmaps;
+    }
+
+    /**
+     * Adds the group to the indexes.
+     *
+     * @param group the group
+     */
+    private void index(GroupSnapshot group) {
+      if (group != null) {
+        for (String member : group.getMembers()) {
+          addToIndex(Relation.MEMBER, member, group.getId());
+        }
+        addToIndex(Relation.EDITOR, group.getCreatedBy(), group.getId());
+        for (String owner : group.getOwners()) {
+          addToIndex(Relation.EDITOR, owner, group.getId());
+        }
+      }
+    }
+
+    /**
+     * Removes the group from the indexes.
+     *
+     * @param group the group
+     */
+    private void unindex(GroupSnapshot group) {
+      if (group != null) {
+        for (String member : group.getMembers()) {
+          removeFromIndex(Relation.MEMBER, member, group.getId());
+        }
+        removeFromIndex(Relation.EDITOR, group.getCreatedBy(), group.getId());
+        for (String owner : group.getOwners()) {
+          removeFromIndex(Relation.EDITOR, owner, group.getId());
+        }
+      }
+    }
+
+    private HashTrieMap<String, GroupIdSet> index(Relation relation) {
+      return relation == Relation.MEMBER ? membershipIndex : editableIndex;
+    }
+
+    private void setIndex(Relation relation, HashTrieMap<String, GroupIdSet> index) {
+      if (relation == Relation.MEMBER) {
+        membershipIndex = index;
+      } else {
+        editableIndex = index;
+      }
+    }
+
+    private void addToIndex(Relation relation, String userName, String groupId) {
+      if (userName != null) {
+        HashTrieMap<String, GroupIdSet> index = index(relation);
+        GroupIdSet ids = index.getOrDefault(userName, base.emptyGroupIds);
+        if (!ids.contains(groupId)) {
+          setIndex(relation, index.plus(userName, ids.plus(groupId)));
+          if (bitmaps() != null) {
+            bitmaps().add(relation, userName, groupId);
+          }
+        }
+      }
+    }
+
+    private void removeFromIndex(Relation relation, String userName, String groupId) {
+      if (userName != null) {
+        HashTrieMap<String, GroupIdSet> index = index(relation);
+        GroupIdSet ids = index.get(userName);
+        if (ids != null && ids.contains(groupId)) {
+          ids = ids.minus(groupId);
+          setIndex(relation, ids.isEmpty() ? index.minus(userName) : index.plus(userName, ids));
+          if (bitmaps() != null) {
+            bitmaps().remove(relation, userName, groupId);
+          }
+        }
+      }
+    }
+
+    /**
+     * Removes all groups. The changes of the transaction before are dropped; the clear takes the
+     * next sequence number.
+     */
+    private void clear() {
+      groups = SortedTreeMap.empty();
+      membershipIndex = HashTrieMap.empty();
+      editableIndex = HashTrieMap.empty();
+      bitmaps = base.bitmaps != null ? new MembershipBitmaps(users) : null;
+      mapped = null;
+      shadowed = TreeGroupIdSet.EMPTY;
+      changes.clear();
+      records.clear();
+      sequence = base.sequence + 1L;
+      if (journal != null) {
+        records.add(GroupJournal.clear());
+      }
+      cleared = true;
+    }
+
+    /**
+     * Removes all groups and mounts the mapped snapshot, whose groups are queried in place.
+     *
+     * @param snapshot the snapshot
+     */
+    private void mount(MappedGroupSnapshot snapshot) {
+      clear();
+      mapped = snapshot;
+    }
+
+    /**
+     * Adds a loaded group, that doesn't create a change; only its record is written to the
+     * journal.
+     *
+     * @param group the group
+     */
+    private void load(GroupSnapshot group) {
+      put(group);
+      index(group);
+      if (journal != null) {
+        records.add(GroupJournal.put(sequence, group));
+      }
+    }
+
+    /**
+     * Gets the version of a group, that is changed by the next change of the transaction. A new
+     * group gets the sequence number of the change, that creates it, as version; a change
+     * increments the version. A group takes at least one sequence number for each version, so a
+     * group, that is deleted and created again with the same ID, never gets a version of the
+     * deleted one.
+     *
+     * @param oldGroup the group before the change or {@code null}, if the group is created
+     * @return the version of the group after the change
+     */
+    private long nextVersion(GroupSnapshot oldGroup) {
+      if (oldGroup == null || oldGroup.getVersion() == null) {
+        return sequence + 1L;
+      }
+      return oldGroup.getVersion() + 1L;
+    }
+
+    /**
+     * Records a change and assigns the next sequence number to it.
+     *
+     * @param type the type of the change
+     * @param oldGroup the group before the change
+     * @param newGroup the group after the change
+     */
+    private void record(GroupChangeType type, GroupSnapshot oldGroup, GroupSnapshot newGroup) {
+      long sequence = ++this.sequence;
+      changes.add(Change.of(type, sequence, oldGroup, newGroup));
+      if (journal != null) {
+        records.add(newGroup != null
+            ? GroupJournal.put(sequence, newGroup)
+            : GroupJournal.delete(sequence, oldGroup.getId()));
+      }
+    }
+
+    private Store toStore() {
+      return new Store(
+          groups,
+          membershipIndex,
+          editableIndex,
+          bitmaps != null ? bitmaps : base.bitmaps,
+          base.emptyGroupIds,
+          mapped,
+          shadowed,
+          sequence);
+    }
+
+    /**
+     * Makes the new version of the store the version, on which the next writer builds, if
+     * anything was changed. Without a journal the version is published at once; otherwise its
+     * records are appended to the journal and it is published, when they are durable. It must be
+     * called while holding the write lock.
+     *
+     * @param published the list, to which the published changes are added
+     * @return the ticket of the journal to wait for or {@code 0}, if the version was published or
+     *     nothing was changed
+     */
+    private long commit(List<Change> published) {
+      if (changes.isEmpty() && !cleared) {
+        return 0L;
+      }
+      Store version = toStore();
+      if (journal == null) {
+        head = version;
+        publish(new Commit(0L, version, changes, cleared));
+        published.addAll(changes);
+        return 0L;
+      }
+      long ticket = journal.append(records);
+      head = version;
+      unpublished.addLast(new Commit(ticket, version, changes, cleared));
+      return ticket;
+    }
+  }
+
+  /**
+   * The role of a user in a group.
+   */
+  private enum Role {
+    MEMBER, OWNER
+  }
+
+  /**
+   * Iterates over the union of two ascending ordered iterators without duplicates.
+   */
+  private static final class UnionIterator implements Iterator<String> {
+
+    private final Iterator<String> first;
+
+    private final Iterator<String> second;
+
+    private String nextOfFirst;
+
+    private String nextOfSecond;
+
+    private UnionIterator(Iterator<String> first, Iterator<String> second) {
+      this.first = first;
+      this.second = second;
+      this.nextOfFirst = first.hasNext() ? first.next() : null;
+      this.nextOfSecond = second.hasNext() ? second.next() : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextOfFirst != null || nextOfSecond != null;
+    }
+
+    @Override
+    public String next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int cmp;
+      if (nextOfFirst == null) {
+        cmp = 1;
+      } else if (nextOfSecond == null) {
+        cmp = -1;
+      } else {
+        cmp = nextOfFirst.compareTo(nextOfSecond);
+      }
+      String next = cmp <= 0 ? nextOfFirst : nextOfSecond;
+      if (cmp <= 0) {
+        nextOfFirst = first.hasNext() ? first.next() : null;
+      }
+      if (cmp >= 0) {
+        nextOfSecond = second.hasNext() ? second.next() : null;
+      }
+      return next;
+    }
+  }
+}
@@ -0,0 +1,795 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.bremersee.groupman.mock.MembershipBitmaps.Relation;
+import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupSnapshot;
+import org.bremersee.groupman.model.Source;
+
+/**
+ * A read-only snapshot of groups in a compact binary file, that is memory-mapped and queried in
+ * place. Opening a snapshot only maps the file; a group is decoded, when it is returned. A
+ * repository without journal, that is started from a snapshot with {@link
+ * InMemoryGroupRepository#load(MappedGroupSnapshot)}, reads the groups from the snapshot and
+ * copies a group into the heap only, when it is changed, so a node with millions of memberships
+ * is ready without loading the groups into the heap.
+ *
+ * <p>The file consists of a header and five sections; all numbers are big-endian:
+ * <ul>
+ *   <li>the string table: each string as length and UTF-8 bytes,</li>
+ *   <li>the groups: an entry of fixed size for each group, ordered by the IDs like the groups of
+ *   the repository ({@link String#compareTo(String)}), so a group is found by binary search and
+ *   the pages are the same,</li>
+ *   <li>the users: the references of the user names in the same order; the position of a user
+ *   name is the dense ID of the user,</li>
+ *   <li>the lists: the dense user IDs of the members and the owners of the groups, {@code -1}
+ *   for a user name, that is {@code null},</li>
+ *   <li>the membership index and the editable index: for each user the positions of the groups
+ *   in ascending order, as offsets (one more than the number of users) and values.</li>
+ * </ul>
+ *
+ * <p>The strings are compared with the keys in place without decoding them.
+ *
+ * @author Christian Bremer
+ */
+public final class MappedGroupSnapshot implements Closeable {
+
+  private static final int MAGIC = 0x474d4150;
+
+  private static final int FORMAT = 2;
+
+  private static final int HEADER_SIZE = 44;
+
+  private static final int GROUP_SIZE = 76;
+
+  private static final long NO_VERSION = Long.MIN_VALUE;
+
+  private static final int NO_TIME = Integer.MIN_VALUE;
+
+  private static final int NO_USER = -1;
+
+  private volatile ByteBuffer buffer;
+
+  private final int groupCount;
+
+  private final int userCount;
+
+  private final int strings;
+
+  private final int groups;
+
+  private final int users;
+
+  private final int lists;
+
+  private final int membershipIndex;
+
+  private final int editableIndex;
+
+  private MappedGroupSnapshot(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new IOException("File is not a mapped group snapshot.");
+    }
+    if (buffer.getInt(4) != FORMAT) {
+      throw new IOException("Unsupported format " + buffer.getInt(4) + ".");
+    }
+    this.groupCount = buffer.getInt(8);
+    this.userCount = buffer.getInt(12);
+    this.strings = buffer.getInt(16);
+    this.groups = buffer.getInt(20);
+    this.users = buffer.getInt(24);
+    this.lists = buffer.getInt(28);
+    this.membershipIndex = buffer.getInt(32);
+    this.editableIndex = buffer.getInt(36);
+    if (buffer.getInt(40) != buffer.capacity()) {
+      throw new IOException("Mapped group snapshot is truncated.");
+    }
+    checkSections();
+  }
+
+  /**
+   * Checks the sections of the header against each other and against the size of the file, so
+   * that a corrupt file is rejected, when it is opened, and not in the middle of a query.
+   *
+   * @throws IOException if the sections don't fit
+   */
+  private void checkSections() throws IOException {
+    long size = buffer.capacity();
+    if (groupCount < 0 || userCount < 0
+        || strings != HEADER_SIZE
+        || groups < strings
+        || users != groups + (long) groupCount * GROUP_SIZE
+        || lists != users + (long) userCount * Integer.BYTES
+        || membershipIndex < lists || (membershipIndex - lists) % Integer.BYTES != 0
+        || editableIndex < membershipIndex
+        || size < editableIndex) {
+      throw new IOException("Mapped group snapshot has illegal sections.");
+    }
+    checkIndex(membershipIndex, editableIndex);
+    checkIndex(editableIndex, size);
+  }
+
+  private void checkIndex(int index, long end) throws IOException {
+    long valuesSize = end - indexValues(index);
+    if (valuesSize < 0L || valuesSize % Integer.BYTES != 0
+        || buffer.getInt(index) != 0
+        || buffer.getInt(index + userCount * Integer.BYTES) != valuesSize / Integer.BYTES) {
+      throw new IOException("Mapped group snapshot has an illegal index.");
+    }
+  }
+
+  /**
+   * Maps the snapshot file into memory. The file is not read; the pages are loaded by the
+   * operating system, when they are accessed.
+   *
+   * @param file the file
+   * @return the snapshot
+   * @throws IOException if the file cannot be mapped or is not a snapshot
+   */
+  public static MappedGroupSnapshot open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Mapped group snapshot is too large.");
+      }
+      return new MappedGroupSnapshot(channel.map(MapMode.READ_ONLY, 0L, channel.size()));
+    }
+  }
+
+  /**
+   * Closes the snapshot; its groups cannot be queried anymore. Java cannot unmap a file on
+   * request, so the mapping is released, when the buffer is garbage collected.
+   */
+  @Override
+  public void close() {
+    buffer = null;
+  }
+
+  private ByteBuffer buffer() {
+    ByteBuffer current = buffer;
+    if (current == null) {
+      throw new IllegalStateException("Mapped group snapshot is closed.");
+    }
+    return current;
+  }
+
+  /**
+   * Gets the number of groups.
+   *
+   * @return the number of groups
+   */
+  public int size() {
+    return groupCount;
+  }
+
+  /**
+   * Gets the group by id.
+   *
+   * @param groupId the group id
+   * @return the group or {@code null}, if there is no such group
+   */
+  public Group getGroupById(String groupId) {
+    int index = groupIndex(groupId);
+    return index >= 0 ? group(index) : null;
+  }
+
+  /**
+   * Streams the groups ordered by their IDs.
+   *
+   * @param afterId the ID after which the page starts, if {@code null} the first page is returned
+   * @param limit the maximum size of the page, if {@code null} all remaining groups are returned
+   * @return the groups
+   * @throws IllegalArgumentException if the limit is negative
+   */
+  public Stream<Group> streamGroups(String afterId, Integer limit) {
+    if (limit != null && limit < 0) {
+      throw new IllegalArgumentException("Limit must not be negative.");
+    }
+    int from = after(afterId);
+    int to = limit != null ? (int) Math.min(groupCount, (long) from + limit) : groupCount;
+    return IntStream.range(from, to).mapToObj(this::group);
+  }
+
+  /**
+   * Streams the IDs of the groups in ascending order. Only the IDs are decoded.
+   *
+   * @param afterId the ID after which the stream starts, if {@code null} all IDs are streamed
+   * @return the group IDs
+   */
+  Stream<String> streamGroupIds(String afterId) {
+    return IntStream.range(after(afterId), groupCount).mapToObj(this::groupId);
+  }
+
+  /**
+   * Streams the IDs of the groups of a user in ascending order. Only the IDs are decoded.
+   *
+   * @param relation the relation of the user to the groups
+   * @param userName the user name
+   * @param afterId the ID after which the stream starts, if {@code null} all IDs are streamed
+   * @return the group IDs
+   */
+  Stream<String> streamGroupIds(Relation relation, String userName, String afterId) {
+    int index = relation == Relation.MEMBER ? membershipIndex : editableIndex;
+    return groupIndexes(index, userName, after(afterId)).mapToObj(this::groupId);
+  }
+
+  /**
+   * Gets the number of groups of a user.
+   *
+   * @param relation the relation of the user to the groups
+   * @param userName the user name
+   * @return the number of groups
+   */
+  int size(Relation relation, String userName) {
+    return relation == Relation.MEMBER
+        ? getMembershipSize(userName)
+        : getEditableSize(userName);
+  }
+
+  /**
+   * Determines whether the user is a member of the group.
+   *
+   * @param userName the user name
+   * @param groupId the group id
+   * @return {@code true} if the user is a member of the group, otherwise {@code false}
+   */
+  public boolean isMember(String userName, String groupId) {
+    int user = userId(userName);
+    int group = groupIndex(groupId);
+    if (user < 0 || group < 0) {
+      return false;
+    }
+    int low = indexStart(membershipIndex, user);
+    int high = indexStart(membershipIndex, user + 1) - 1;
+    int values = indexValues(membershipIndex);
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int value = buffer().getInt(values + mid * Integer.BYTES);
+      if (value < group) {
+        low = mid + 1;
+      } else if (value > group) {
+        high = mid - 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the ids of the groups the user is a member of.
+   *
+   * @param userName the user name
+   * @return the group ids
+   */
+  public Set<String> getMembershipIds(String userName) {
+    Set<String> ids = new LinkedHashSet<>();
+    groupIndexes(membershipIndex, userName, 0).forEach(index -> ids.add(groupId(index)));
+    return ids;
+  }
+
+  /**
+   * Gets the number of groups the user is a member of.
+   *
+   * @param userName the user name
+   * @return the number of groups
+   */
+  public int getMembershipSize(String userName) {
+    int user = userId(userName);
+    return user < 0 ? 0 : indexStart(membershipIndex, user + 1) - indexStart(membershipIndex, user);
+  }
+
+  /**
+   * Gets the number of groups the user has created or owns.
+   *
+   * @param userName the user name
+   * @return the number of groups
+   */
+  public int getEditableSize(String userName) {
+    int user = userId(userName);
+    return user < 0 ? 0 : indexStart(editableIndex, user + 1) - indexStart(editableIndex, user);
+  }
+
+  /**
+   * Streams the groups the user is a member of.
+   *
+   * @param userName the user name
+   * @return the groups
+   */
+  public Stream<Group> streamMembership(String userName) {
+    return groupIndexes(membershipIndex, userName, 0).mapToObj(this::group);
+  }
+
+  /**
+   * Streams the groups the user has created or owns.
+   *
+   * @param userName the user name
+   * @return the groups
+   */
+  public Stream<Group> streamEditableGroups(String userName) {
+    return groupIndexes(editableIndex, userName, 0).mapToObj(this::group);
+  }
+
+  /**
+   * Streams the groups the user has created, owns or is a member of.
+   *
+   * @param userName the user name
+   * @return the groups
+   */
+  public Stream<Group> streamUsableGroups(String userName) {
+    return IntStream
+        .concat(
+            groupIndexes(editableIndex, userName, 0),
+            groupIndexes(membershipIndex, userName, 0))
+        .sorted()
+        .distinct()
+        .mapToObj(this::group);
+  }
+
+  /**
+   * Streams the positions of the groups of a user, that are not lower than the given one.
+   *
+   * @param index the offset of the index
+   * @param userName the user name
+   * @param from the lowest position
+   * @return the positions of the groups in ascending order
+   */
+  private IntStream groupIndexes(int index, String userName, int from) {
+    int user = userId(userName);
+    if (user < 0) {
+      return IntStream.empty();
+    }
+    int values = indexValues(index);
+    int low = indexStart(index, user);
+    int end = indexStart(index, user + 1);
+    int high = end;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (buffer().getInt(values + mid * Integer.BYTES) < from) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return IntStream
+        .range(low, end)
+        .map(position -> buffer().getInt(values + position * Integer.BYTES));
+  }
+
+  /**
+   * Gets the position of the first group after the given ID.
+   *
+   * @param afterId the group ID, if {@code null} the position of the first group is returned
+   * @return the position
+   */
+  private int after(String afterId) {
+    if (afterId == null) {
+      return 0;
+    }
+    int index = groupIndex(afterId);
+    return index >= 0 ? index + 1 : -index - 1;
+  }
+
+  private int indexStart(int index, int user) {
+    return buffer().getInt(index + user * Integer.BYTES);
+  }
+
+  private int indexValues(int index) {
+    return index + (userCount + 1) * Integer.BYTES;
+  }
+
+  private int groupEntry(int index) {
+    return groups + index * GROUP_SIZE;
+  }
+
+  /**
+   * Finds a group by binary search.
+   *
+   * @param groupId the group id
+   * @return the position of the group or {@code -(insertion point) - 1}
+   */
+  private int groupIndex(String groupId) {
+    if (groupId == null) {
+      return -1;
+    }
+    int low = 0;
+    int high = groupCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compare(buffer().getInt(groupEntry(mid)), groupId);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private int userId(String userName) {
+    if (userName == null) {
+      return -1;
+    }
+    int low = 0;
+    int high = userCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compare(buffer().getInt(users + mid * Integer.BYTES), userName);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Compares a string of the string table with the key like {@link String#compareTo(String)}.
+   * The UTF-8 bytes are decoded into the UTF-16 chars, that are compared, one at a time.
+   *
+   * @param ref the reference of the string
+   * @param key the key
+   * @return the result of the comparison
+   */
+  private int compare(int ref, String key) {
+    ByteBuffer current = buffer();
+    int position = strings + ref;
+    int end = position + Integer.BYTES + current.getInt(position);
+    position += Integer.BYTES;
+    int i = 0;
+    while (position < end && i < key.length()) {
+      int first = current.get(position) & 0xff;
+      int length = first < 0x80 ? 1 : first < 0xe0 ? 2 : first < 0xf0 ? 3 : 4;
+      int codePoint = length == 1 ? first : first & (0x7f >> length);
+      for (int k = 1; k < length; k++) {
+        codePoint = codePoint << 6 | current.get(position + k) & 0x3f;
+      }
+      position += length;
+      if (Character.isBmpCodePoint(codePoint)) {
+        int cmp = Character.compare((char) codePoint, key.charAt(i++));
+        if (cmp != 0) {
+          return cmp;
+        }
+      } else {
+        int cmp = Character.compare(Character.highSurrogate(codePoint), key.charAt(i++));
+        if (cmp != 0) {
+          return cmp;
+        }
+        if (i == key.length()) {
+          return 1;
+        }
+        cmp = Character.compare(Character.lowSurrogate(codePoint), key.charAt(i++));
+        if (cmp != 0) {
+          return cmp;
+        }
+      }
+    }
+    return position < end ? 1 : i < key.length() ? -1 : 0;
+  }
+
+  private String string(int ref) {
+    if (ref < 0) {
+      return null;
+    }
+    int position = strings + ref;
+    byte[] bytes = new byte[buffer().getInt(position)];
+    ByteBuffer view = buffer().duplicate();
+    view.position(position + Integer.BYTES);
+    view.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private String groupId(int index) {
+    return string(buffer().getInt(groupEntry(index)));
+  }
+
+  private String userName(int user) {
+    if (user == NO_USER) {
+      return null;
+    }
+    return string(buffer().getInt(users + user * Integer.BYTES));
+  }
+
+  private List<String> userNames(int position, int size) {
+    List<String> names = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      names.add(userName(buffer().getInt(lists + (position + i) * Integer.BYTES)));
+    }
+    return names;
+  }
+
+  private OffsetDateTime time(int position) {
+    int offset = buffer().getInt(position + 12);
+    if (offset == NO_TIME) {
+      return null;
+    }
+    return OffsetDateTime.ofInstant(
+        Instant.ofEpochSecond(buffer().getLong(position), buffer().getInt(position + 8)),
+        ZoneOffset.ofTotalSeconds(offset));
+  }
+
+  /**
+   * Decodes a group.
+   *
+   * @param index the position of the group
+   * @return the group
+   */
+  private Group group(int index) {
+    int entry = groupEntry(index);
+    long version = buffer().getLong(entry + 4);
+    String source = string(buffer().getInt(entry + 48));
+    return Group.builder()
+        .id(groupId(index))
+        .version(version != NO_VERSION ? version : null)
+        .createdBy(string(buffer().getInt(entry + 12)))
+        .createdAt(time(entry + 16))
+        .modifiedAt(time(entry + 32))
+        .source(source != null ? Source.fromValue(source) : null)
+        .name(string(buffer().getInt(entry + 52)))
+        .description(string(buffer().getInt(entry + 56)))
+        .members(userNames(buffer().getInt(entry + 60), buffer().getInt(entry + 64)))
+        .owners(userNames(buffer().getInt(entry + 68), buffer().getInt(entry + 72)))
+        .build();
+  }
+
+  /**
+   * Writes the groups as snapshot. The file is written to a temporary file, that is renamed, when
+   * it is complete.
+   *
+   * @param file the file
+   * @param groups the groups
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(Path file, Collection<? extends Group> groups) throws IOException {
+    new Writer(groups).write(file);
+  }
+
+  /**
+   * Encodes the sections of a snapshot.
+   */
+  private static final class Writer {
+
+    private final List<GroupSnapshot> sortedGroups;
+
+    private final Map<String, Integer> stringRefs = new HashMap<>();
+
+    private final ByteArrayOutputStream strings = new ByteArrayOutputStream();
+
+    private final Map<String, Integer> userIds = new HashMap<>();
+
+    private final List<String> userNames;
+
+    private Writer(Collection<? extends Group> groups) {
+      sortedGroups = new ArrayList<>(groups.size());
+      Set<String> names = new HashSet<>();
+      for (Group group : groups) {
+        GroupSnapshot snapshot = GroupSnapshot.of(group);
+        if (snapshot.getId() == null) {
+          throw new IllegalArgumentException("Group ID must be present.");
+        }
+        sortedGroups.add(snapshot);
+        names.add(snapshot.getCreatedBy());
+        names.addAll(snapshot.getMembers());
+        names.addAll(snapshot.getOwners());
+      }
+      names.remove(null);
+      sortedGroups.sort(Comparator.comparing(GroupSnapshot::getId));
+      for (int i = 1; i < sortedGroups.size(); i++) {
+        if (sortedGroups.get(i - 1).getId().equals(sortedGroups.get(i).getId())) {
+          throw new IllegalArgumentException(
+              "Duplicate group ID " + sortedGroups.get(i).getId() + ".");
+        }
+      }
+      userNames = new ArrayList<>(names);
+      userNames.sort(Comparator.naturalOrder());
+      for (int i = 0; i < userNames.size(); i++) {
+        userIds.put(userNames.get(i), i);
+      }
+    }
+
+    private int ref(String value) {
+      if (value == null) {
+        return -1;
+      }
+      return stringRefs.computeIfAbsent(value, key -> {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int ref = strings.size();
+        strings.write(bytes.length >>> 24);
+        strings.write(bytes.length >>> 16);
+        strings.write(bytes.length >>> 8);
+        strings.write(bytes.length);
+        strings.writeBytes(bytes);
+        return ref;
+      });
+    }
+
+    private void write(Path file) throws IOException {
+      ByteBuffer groupSection = ByteBuffer.allocate(sortedGroups.size() * GROUP_SIZE);
+      ByteBuffer userSection = ByteBuffer.allocate(userNames.size() * Integer.BYTES);
+      ByteArrayOutputStream listBytes = new ByteArrayOutputStream();
+      DataOutputStream listSection = new DataOutputStream(listBytes);
+      int listSize = 0;
+      List<int[]> members = new ArrayList<>(sortedGroups.size());
+      List<int[]> editors = new ArrayList<>(sortedGroups.size());
+      for (GroupSnapshot group : sortedGroups) {
+        groupSection.putInt(ref(group.getId()));
+        groupSection.putLong(group.getVersion() != null ? group.getVersion() : NO_VERSION);
+        groupSection.putInt(ref(group.getCreatedBy()));
+        putTime(groupSection, group.getCreatedAt());
+        putTime(groupSection, group.getModifiedAt());
+        groupSection.putInt(ref(group.getSource() != null ? group.getSource().toString() : null));
+        groupSection.putInt(ref(group.getName()));
+        groupSection.putInt(ref(group.getDescription()));
+        int[] memberIds = userIds(group.getMembers());
+        int[] ownerIds = userIds(group.getOwners());
+        for (int[] ids : List.of(memberIds, ownerIds)) {
+          groupSection.putInt(listSize);
+          groupSection.putInt(ids.length);
+          for (int id : ids) {
+            listSection.writeInt(id);
+          }
+          listSize += ids.length;
+        }
+        members.add(memberIds);
+        Set<Integer> editorIds = new LinkedHashSet<>();
+        if (group.getCreatedBy() != null) {
+          editorIds.add(userIds.get(group.getCreatedBy()));
+        }
+        for (int id : ownerIds) {
+          editorIds.add(id);
+        }
+        editors.add(editorIds.stream().mapToInt(Integer::intValue).toArray());
+      }
+      for (String userName : userNames) {
+        userSection.putInt(ref(userName));
+      }
+      byte[] membershipSection = index(members);
+      byte[] editableSection = index(editors);
+
+      int stringsOffset = HEADER_SIZE;
+      int groupsOffset = stringsOffset + strings.size();
+      int usersOffset = groupsOffset + groupSection.capacity();
+      int listsOffset = usersOffset + userSection.capacity();
+      int membershipOffset = listsOffset + listBytes.size();
+      int editableOffset = membershipOffset + membershipSection.length;
+      long end = (long) editableOffset + editableSection.length;
+      if (end > Integer.MAX_VALUE) {
+        throw new IOException("Mapped group snapshot is too large.");
+      }
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+          .putInt(MAGIC)
+          .putInt(FORMAT)
+          .putInt(sortedGroups.size())
+          .putInt(userNames.size())
+          .putInt(stringsOffset)
+          .putInt(groupsOffset)
+          .putInt(usersOffset)
+          .putInt(listsOffset)
+          .putInt(membershipOffset)
+          .putInt(editableOffset)
+          .putInt((int) end);
+
+      Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+      try (FileChannel channel = FileChannel.open(
+          tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.WRITE)) {
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+        out.write(header.array());
+        strings.writeTo(out);
+        out.write(groupSection.array());
+        out.write(userSection.array());
+        listBytes.writeTo(out);
+        out.write(membershipSection);
+        out.write(editableSection);
+        out.flush();
+        channel.force(true);
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int[] userIds(List<String> names) {
+      int[] ids = new int[names.size()];
+      for (int i = 0; i < ids.length; i++) {
+        String name = names.get(i);
+        ids[i] = name != null ? userIds.get(name) : NO_USER;
+      }
+      return ids;
+    }
+
+    /**
+     * Builds an index: the offsets of the users and the positions of their groups.
+     *
+     * @param relations the user IDs of each group
+     * @return the index
+     */
+    private byte[] index(List<int[]> relations) {
+      int[] offsets = new int[userNames.size() + 1];
+      List<int[]> unique = new ArrayList<>(relations.size());
+      for (int[] ids : relations) {
+        int[] users = IntStream.of(ids).filter(id -> id != NO_USER).distinct().toArray();
+        unique.add(users);
+        for (int user : users) {
+          offsets[user + 1]++;
+        }
+      }
+      for (int i = 1; i < offsets.length; i++) {
+        offsets[i] += offsets[i - 1];
+      }
+      int[] values = new int[offsets[offsets.length - 1]];
+      int[] next = offsets.clone();
+      for (int group = 0; group < unique.size(); group++) {
+        for (int user : unique.get(group)) {
+          values[next[user]++] = group;
+        }
+      }
+      ByteBuffer index = ByteBuffer.allocate((offsets.length + values.length) * Integer.BYTES);
+      for (int offset : offsets) {
+        index.putInt(offset);
+      }
+      for (int value : values) {
+        index.putInt(value);
+      }
+      return index.array();
+    }
+
+    private static void putTime(ByteBuffer buffer, OffsetDateTime time) {
+      if (time == null) {
+        buffer.putLong(0L).putInt(0).putInt(NO_TIME);
+      } else {
+        buffer.putLong(time.toEpochSecond())
+            .putInt(time.getNano())
+            .putInt(time.getOffset().getTotalSeconds());
+      }
+    }
+  }
+
+}
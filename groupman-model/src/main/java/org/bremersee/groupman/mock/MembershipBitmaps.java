@@ -0,0 +1,316 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.bremersee.groupman.model.UserNameTable;
+
+/**
+ * The membership engine. Users and groups get int IDs, and for each user and relation (member of
+ * a group or editor of a group) the groups are stored as a compressed {@link GroupBitmap}, so
+ * membership checks, the usable groups (editable groups united with the membership) and the
+ * counts of the status don't touch the groups.
+ *
+ * <p>The bitmaps are immutable and replaced on change. The engine itself is changed only by a
+ * writer on its own {@link #copy()}, before the copy is published to the readers; after that it
+ * isn't changed anymore.
+ *
+ * <p>A group gets an ID, when the first user is related to it, and the ID is released, when the
+ * last relation is removed, so it can be reused by another group and the IDs stay as dense as the
+ * groups with relations. The table of the group IDs is immutable as well; each copy of the engine
+ * keeps the version of the table, that matches its bitmaps, so a reader of an old copy never
+ * resolves a reused ID to the wrong group.
+ *
+ * @author Christian Bremer
+ */
+final class MembershipBitmaps {
+
+  /**
+   * The relation of a user to a group.
+   */
+  enum Relation {
+
+    /**
+     * The user is a member of the group.
+     */
+    MEMBER,
+
+    /**
+     * The user has created or owns the group.
+     */
+    EDITOR
+  }
+
+  private final UserNameTable users;
+
+  private GroupIds groups;
+
+  private HashTrieMap<Integer, GroupBitmap> members;
+
+  private HashTrieMap<Integer, GroupBitmap> editors;
+
+  /**
+   * Instantiates a new membership engine.
+   *
+   * @param users the symbol table of the user names
+   */
+  MembershipBitmaps(UserNameTable users) {
+    this(users, GroupIds.EMPTY, HashTrieMap.empty(), HashTrieMap.empty());
+  }
+
+  private MembershipBitmaps(
+      UserNameTable users,
+      GroupIds groups,
+      HashTrieMap<Integer, GroupBitmap> members,
+      HashTrieMap<Integer, GroupBitmap> editors) {
+    this.users = users;
+    this.groups = groups;
+    this.members = members;
+    this.editors = editors;
+  }
+
+  /**
+   * Creates a copy, that can be changed without changing this engine. Nothing is copied: the
+   * maps of the users to their bitmaps and the group IDs are immutable and shared, a change of
+   * the copy replaces only the path to the changed entry.
+   *
+   * @return the copy
+   */
+  MembershipBitmaps copy() {
+    return new MembershipBitmaps(users, groups, members, editors);
+  }
+
+  private HashTrieMap<Integer, GroupBitmap> bitmaps(Relation relation) {
+    return relation == Relation.MEMBER ? members : editors;
+  }
+
+  private void setBitmaps(Relation relation, HashTrieMap<Integer, GroupBitmap> bitmaps) {
+    if (relation == Relation.MEMBER) {
+      members = bitmaps;
+    } else {
+      editors = bitmaps;
+    }
+  }
+
+  /**
+   * Adds the relation of the user to the group.
+   *
+   * @param relation the relation
+   * @param userName the user name
+   * @param groupId the group id
+   */
+  void add(Relation relation, String userName, String groupId) {
+    int user = users.intern(userName);
+    GroupBitmap bitmap = bitmaps(relation).getOrDefault(user, GroupBitmap.EMPTY);
+    Integer group = groups.idOf(groupId);
+    if (group == null || !bitmap.contains(group)) {
+      groups = groups.acquire(groupId);
+      setBitmaps(relation, bitmaps(relation).plus(user, bitmap.with(groups.idOf(groupId))));
+    }
+  }
+
+  /**
+   * Removes the relation of the user to the group.
+   *
+   * @param relation the relation
+   * @param userName the user name
+   * @param groupId the group id
+   */
+  void remove(Relation relation, String userName, String groupId) {
+    int user = users.idOf(userName);
+    Integer group = groups.idOf(groupId);
+    GroupBitmap bitmap = user >= 0 ? bitmaps(relation).get(user) : null;
+    if (bitmap != null && group != null && bitmap.contains(group)) {
+      GroupBitmap newBitmap = bitmap.without(group);
+      setBitmaps(relation, newBitmap.isEmpty()
+          ? bitmaps(relation).minus(user)
+          : bitmaps(relation).plus(user, newBitmap));
+      groups = groups.release(group);
+    }
+  }
+
+  /**
+   * Gets the bitmap of the user.
+   *
+   * @param relation the relation
+   * @param userName the user name
+   * @return the bitmap
+   */
+  GroupBitmap get(Relation relation, String userName) {
+    int user = users.idOf(userName);
+    return user < 0 ? GroupBitmap.EMPTY : bitmaps(relation).getOrDefault(user, GroupBitmap.EMPTY);
+  }
+
+  /**
+   * Determines whether the user has the relation to the group.
+   *
+   * @param relation the relation
+   * @param userName the user name
+   * @param groupId the group id
+   * @return {@code true} if the user has the relation to the group, otherwise {@code false}
+   */
+  boolean contains(Relation relation, String userName, String groupId) {
+    Integer group = groups.idOf(groupId);
+    return group != null && get(relation, userName).contains(group);
+  }
+
+  /**
+   * Gets the number of groups, to which the user has the relation.
+   *
+   * @param relation the relation
+   * @param userName the user name
+   * @return the number of groups
+   */
+  int count(Relation relation, String userName) {
+    return get(relation, userName).cardinality();
+  }
+
+  /**
+   * Gets the group IDs of the bitmap.
+   *
+   * @param bitmap the bitmap
+   * @return the group IDs
+   */
+  Set<String> groupIds(GroupBitmap bitmap) {
+    GroupIds current = groups;
+    Set<String> ids = new HashSet<>(Math.max(16, (int) (bitmap.cardinality() / .75f) + 1));
+    bitmap.forEach(id -> ids.add(current.nameOf(id)));
+    return ids;
+  }
+
+  /**
+   * Gets the number of group IDs, that are in use.
+   *
+   * @return the number of group IDs
+   */
+  int groupIdCount() {
+    return groups.names.size();
+  }
+
+  /**
+   * Removes all relations and releases the IDs of the groups.
+   */
+  void clear() {
+    members = HashTrieMap.empty();
+    editors = HashTrieMap.empty();
+    groups = GroupIds.EMPTY;
+  }
+
+  /**
+   * An immutable version of the IDs of the groups. Each ID counts the relations, that refer to
+   * it; the ID of a group without relations is free and is reused first.
+   */
+  private static final class GroupIds {
+
+    private static final GroupIds EMPTY = new GroupIds(
+        HashTrieMap.empty(), HashTrieMap.empty(), HashTrieMap.empty(), null, 0);
+
+    private final HashTrieMap<String, Integer> ids;
+
+    private final HashTrieMap<Integer, String> names;
+
+    private final HashTrieMap<Integer, Integer> references;
+
+    private final FreeId free;
+
+    private final int next;
+
+    private GroupIds(
+        HashTrieMap<String, Integer> ids,
+        HashTrieMap<Integer, String> names,
+        HashTrieMap<Integer, Integer> references,
+        FreeId free,
+        int next) {
+      this.ids = ids;
+      this.names = names;
+      this.references = references;
+      this.free = free;
+      this.next = next;
+    }
+
+    private Integer idOf(String groupId) {
+      return ids.get(groupId);
+    }
+
+    private String nameOf(int id) {
+      return names.get(id);
+    }
+
+    /**
+     * Adds a reference to the ID of the group; the group gets a free ID, if it has none.
+     *
+     * @param groupId the group ID
+     * @return the new version of the IDs
+     */
+    private GroupIds acquire(String groupId) {
+      Integer id = ids.get(groupId);
+      if (id != null) {
+        return new GroupIds(
+            ids, names, references.plus(id, references.get(id) + 1), free, next);
+      }
+      if (free != null) {
+        return new GroupIds(
+            ids.plus(groupId, free.id),
+            names.plus(free.id, groupId),
+            references.plus(free.id, 1),
+            free.next,
+            next);
+      }
+      return new GroupIds(
+          ids.plus(groupId, next),
+          names.plus(next, groupId),
+          references.plus(next, 1),
+          null,
+          next + 1);
+    }
+
+    /**
+     * Removes a reference from the ID; the ID is freed, when it has no references anymore.
+     *
+     * @param id the ID
+     * @return the new version of the IDs
+     */
+    private GroupIds release(int id) {
+      int count = references.get(id) - 1;
+      if (count > 0) {
+        return new GroupIds(ids, names, references.plus(id, count), free, next);
+      }
+      return new GroupIds(
+          ids.minus(names.get(id)),
+          names.minus(id),
+          references.minus(id),
+          new FreeId(id, free),
+          next);
+    }
+  }
+
+  /**
+   * An immutable stack of free IDs.
+   */
+  private static final class FreeId {
+
+    private final int id;
+
+    private final FreeId next;
+
+    private FreeId(int id, FreeId next) {
+      this.id = id;
+      this.next = next;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+/**
+ * A group repository, that keeps the members and the owners of the groups and the indexes of the
+ * users outside of the heap. It works like the {@link InMemoryGroupRepository}, but the user name
+ * lists of the stored groups and the group IDs of each user are views of direct byte buffers (see
+ * {@link OffHeapUserLists}), so millions of member entries don't load the heap and the garbage
+ * collector. The membership queries are answered by the group IDs of the users instead of the
+ * membership bitmaps. A returned group reads its members and owners from the same buffers.
+ *
+ * @author Christian Bremer
+ */
+public class OffHeapGroupRepository extends InMemoryGroupRepository {
+
+  private final OffHeapUserLists userLists;
+
+  /**
+   * Instantiates a new and empty off-heap group repository.
+   */
+  public OffHeapGroupRepository() {
+    this(null, new OffHeapUserLists());
+  }
+
+  /**
+   * Instantiates a new off-heap group repository, that writes the groups to the given journal.
+   *
+   * @param journal the journal, if {@code null} the groups are only kept in memory
+   */
+  public OffHeapGroupRepository(GroupJournal journal) {
+    this(journal, new OffHeapUserLists());
+  }
+
+  /**
+   * Instantiates a new off-heap group repository.
+   *
+   * @param journal the journal, if {@code null} the groups are only kept in memory
+   * @param userLists the storage of the members and the owners
+   */
+  public OffHeapGroupRepository(GroupJournal journal, OffHeapUserLists userLists) {
+    super(
+        journal,
+        checkUserLists(userLists).getTable(),
+        userLists,
+        userLists.emptyGroupIds());
+    this.userLists = userLists;
+  }
+
+  private static OffHeapUserLists checkUserLists(OffHeapUserLists userLists) {
+    if (userLists == null) {
+      throw new IllegalArgumentException("User lists must be present.");
+    }
+    return userLists;
+  }
+
+  /**
+   * Gets the storage of the members and the owners.
+   *
+   * @return the user lists
+   */
+  public OffHeapUserLists getUserLists() {
+    return userLists;
+  }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * An allocator of blocks outside of the heap. The blocks are cut from direct byte buffers (the
+ * slabs), that are never released, so the direct memory is bounded by the peak of the used
+ * blocks and allocating a block never waits for the garbage collector.
+ *
+ * <p>A block belongs to an owner. When the owner is not reachable anymore, the block is returned
+ * to the free blocks and merged with its free neighbours; an allocation takes the smallest free
+ * block, that is large enough (best fit). A block, that is larger than a slab, gets a slab of its
+ * own, that is reused like the others after the block is freed.
+ *
+ * @author Christian Bremer
+ */
+final class OffHeapSlabs {
+
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  private static final Comparator<Block> BY_SIZE = Comparator
+      .comparingInt((Block block) -> block.length)
+      .thenComparingInt(block -> block.slab)
+      .thenComparingInt(block -> block.offset);
+
+  private final int slabSize;
+
+  private final List<ByteBuffer> slabs = new ArrayList<>();
+
+  /**
+   * The free blocks ordered by their size.
+   */
+  private final TreeSet<Block> free = new TreeSet<>(BY_SIZE);
+
+  /**
+   * The free blocks of each slab by their offset, used to merge neighbours.
+   */
+  private final List<TreeMap<Integer, Block>> freeBySlab = new ArrayList<>();
+
+  private long allocated;
+
+  private long used;
+
+  /**
+   * Instantiates a new allocator.
+   *
+   * @param slabSize the size of a slab in bytes
+   */
+  OffHeapSlabs(int slabSize) {
+    if (slabSize < Long.BYTES) {
+      throw new IllegalArgumentException("Illegal slab size " + slabSize + ".");
+    }
+    this.slabSize = slabSize;
+  }
+
+  /**
+   * Gets the number of bytes of the slabs.
+   *
+   * @return the allocated bytes
+   */
+  synchronized long getAllocatedBytes() {
+    return allocated;
+  }
+
+  /**
+   * Gets the number of bytes of the blocks, that are in use.
+   *
+   * @return the used bytes
+   */
+  synchronized long getUsedBytes() {
+    return used;
+  }
+
+  /**
+   * Allocates a block, that is freed, when the owner is not reachable anymore. The owner must hold
+   * the returned buffer, and nothing else may keep the buffer after that.
+   *
+   * @param owner the owner
+   * @param bytes the size of the block
+   * @return the buffer of the block
+   */
+  ByteBuffer allocate(Object owner, int bytes) {
+    if (owner == null) {
+      throw new IllegalArgumentException("Owner must be present.");
+    }
+    if (bytes <= 0) {
+      throw new IllegalArgumentException("Illegal size " + bytes + ".");
+    }
+    int length = (bytes + Long.BYTES - 1) & -Long.BYTES;
+    Block block;
+    ByteBuffer buffer;
+    synchronized (this) {
+      block = free.ceiling(new Block(-1, -1, length));
+      if (block == null) {
+        block = newSlab(Math.max(slabSize, length));
+      }
+      removeFree(block);
+      if (block.length > length) {
+        addFree(new Block(block.slab, block.offset + length, block.length - length));
+        block = new Block(block.slab, block.offset, length);
+      }
+      used += length;
+      buffer = slabs.get(block.slab).slice(block.offset, bytes);
+    }
+    CLEANER.register(owner, new Release(this, block));
+    return buffer;
+  }
+
+  private Block newSlab(int size) {
+    slabs.add(ByteBuffer.allocateDirect(size));
+    freeBySlab.add(new TreeMap<>());
+    allocated += size;
+    Block block = new Block(slabs.size() - 1, 0, size);
+    addFree(block);
+    return block;
+  }
+
+  /**
+   * Returns a block to the free blocks and merges it with its free neighbours.
+   *
+   * @param block the block
+   */
+  private synchronized void release(Block block) {
+    used -= block.length;
+    TreeMap<Integer, Block> slabFree = freeBySlab.get(block.slab);
+    int offset = block.offset;
+    int length = block.length;
+    Map.Entry<Integer, Block> before = slabFree.lowerEntry(offset);
+    if (before != null && before.getValue().end() == offset) {
+      removeFree(before.getValue());
+      offset = before.getValue().offset;
+      length += before.getValue().length;
+    }
+    Block after = slabFree.get(block.end());
+    if (after != null) {
+      removeFree(after);
+      length += after.length;
+    }
+    addFree(new Block(block.slab, offset, length));
+  }
+
+  private void addFree(Block block) {
+    free.add(block);
+    freeBySlab.get(block.slab).put(block.offset, block);
+  }
+
+  private void removeFree(Block block) {
+    free.remove(block);
+    freeBySlab.get(block.slab).remove(block.offset);
+  }
+
+  /**
+   * A part of a slab.
+   */
+  private static final class Block {
+
+    private final int slab;
+
+    private final int offset;
+
+    private final int length;
+
+    private Block(int slab, int offset, int length) {
+      this.slab = slab;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    private int end() {
+      return offset + length;
+    }
+  }
+
+  /**
+   * Frees a block, when its owner is not reachable anymore. It must not refer to the owner.
+   */
+  private static final class Release implements Runnable {
+
+    private final OffHeapSlabs slabs;
+
+    private final Block block;
+
+    private Release(OffHeapSlabs slabs, Block block) {
+      this.slabs = slabs;
+      this.block = block;
+    }
+
+    @Override
+    public void run() {
+      slabs.release(block);
+    }
+  }
+}
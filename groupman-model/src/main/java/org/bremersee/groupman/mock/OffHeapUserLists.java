@@ -0,0 +1,456 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.UnaryOperator;
+import org.bremersee.groupman.model.UserNameList;
+import org.bremersee.groupman.model.UserNameTable;
+
+/**
+ * Stores user name lists and the group IDs of the users outside of the heap. The user names are
+ * replaced by their IDs of the user name table, and the IDs are written into blocks of direct
+ * byte buffers (see {@link OffHeapSlabs}). A stored list is an immutable view of its block; the
+ * heap only holds the view.
+ *
+ * <p>A list keeps its IDs in the given order and a second time sorted, so {@link List#contains}
+ * is a binary search. The block of a list is reused, when the list is not referenced anymore, so
+ * a reader can keep using a list of an old version of the store, and the direct memory is
+ * bounded by the lists in use.
+ *
+ * @author Christian Bremer
+ */
+public class OffHeapUserLists implements UnaryOperator<List<String>> {
+
+  /**
+   * The default size of a slab.
+   */
+  public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+  private final UserNameTable table;
+
+  private final OffHeapSlabs slabs;
+
+  private final GroupIdSet emptyGroupIds;
+
+  /**
+   * Instantiates new off-heap user lists with a user name table of their own and the default
+   * slab size.
+   */
+  public OffHeapUserLists() {
+    this(new UserNameTable(), DEFAULT_SLAB_SIZE);
+  }
+
+  /**
+   * Instantiates new off-heap user lists.
+   *
+   * @param table the user name table
+   * @param slabSize the size of a slab in bytes; a larger list gets a slab of its own
+   */
+  public OffHeapUserLists(UserNameTable table, int slabSize) {
+    if (table == null) {
+      throw new IllegalArgumentException("User name table must be present.");
+    }
+    this.table = table;
+    this.slabs = new OffHeapSlabs(slabSize);
+    this.emptyGroupIds = new OffHeapGroupIdSet(slabs, 0, 0);
+  }
+
+  /**
+   * Gets the user name table, that stores the user names of the lists.
+   *
+   * @return the user name table
+   */
+  public UserNameTable getTable() {
+    return table;
+  }
+
+  /**
+   * Gets the number of bytes, that were allocated outside of the heap. It grows only up to the
+   * peak of the used bytes, because freed space is reused.
+   *
+   * @return the allocated bytes
+   */
+  public long getAllocatedBytes() {
+    return slabs.getAllocatedBytes();
+  }
+
+  /**
+   * Gets the number of bytes outside of the heap, that are used by lists and group IDs, which are
+   * still referenced.
+   *
+   * @return the used bytes
+   */
+  public long getUsedBytes() {
+    return slabs.getUsedBytes();
+  }
+
+  /**
+   * Stores the user names.
+   *
+   * @param userNames the user names
+   * @return an immutable list with the user names, that is backed by a direct byte buffer
+   */
+  @Override
+  public List<String> apply(List<String> userNames) {
+    if (userNames == null || userNames.isEmpty()) {
+      return Collections.emptyList();
+    }
+    int size = userNames.size();
+    int[] ids = new int[size];
+    for (int i = 0; i < size; i++) {
+      ids[i] = table.intern(userNames.get(i));
+    }
+    return new OffHeapUserNameList(table, slabs, ids);
+  }
+
+  /**
+   * Gets an empty set of group IDs, whose changes are stored outside of the heap.
+   *
+   * @return the empty set of group IDs
+   */
+  GroupIdSet emptyGroupIds() {
+    return emptyGroupIds;
+  }
+
+  /**
+   * An immutable user name list, that is backed by the IDs in a direct byte buffer. The buffer
+   * contains the IDs in the order of the list followed by the same IDs in ascending order.
+   */
+  private static final class OffHeapUserNameList extends AbstractList<String>
+      implements RandomAccess, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final transient UserNameTable table;
+
+    private final transient ByteBuffer ids;
+
+    private final int size;
+
+    private OffHeapUserNameList(UserNameTable table, OffHeapSlabs slabs, int[] values) {
+      this.table = table;
+      this.size = values.length;
+      this.ids = slabs.allocate(this, 2 * size * Integer.BYTES);
+      int[] sorted = values.clone();
+      Arrays.sort(sorted);
+      for (int i = 0; i < size; i++) {
+        ids.putInt(i * Integer.BYTES, values[i]);
+        ids.putInt((size + i) * Integer.BYTES, sorted[i]);
+      }
+    }
+
+    // The list is the owner of the block of its buffer, so it must stay reachable while the
+    // buffer is read; otherwise the block may be released and reused by another list.
+    private int idAt(int index) {
+      try {
+        return ids.getInt(index * Integer.BYTES);
+      } finally {
+        Reference.reachabilityFence(this);
+      }
+    }
+
+    private int sortedIdAt(int position) {
+      try {
+        return ids.getInt((size + position) * Integer.BYTES);
+      } finally {
+        Reference.reachabilityFence(this);
+      }
+    }
+
+    @Override
+    public String get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      return table.nameOf(idAt(index));
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return idOf(o) >= 0;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+      int id = idOf(o);
+      if (id < 0) {
+        return -1;
+      }
+      for (int i = 0; i < size; i++) {
+        if (idAt(i) == id) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Gets the ID of the object by a binary search in the sorted IDs.
+     *
+     * @param o the object
+     * @return the ID or {@code -1}, if the object is not in the list
+     */
+    private int idOf(Object o) {
+      if (o != null && !(o instanceof String)) {
+        return -1;
+      }
+      int id = table.idOf((String) o);
+      if (id < 0) {
+        return -1;
+      }
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        int value = sortedIdAt(middle);
+        if (value < id) {
+          low = middle + 1;
+        } else if (value > id) {
+          high = middle - 1;
+        } else {
+          return id;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Replaces the list by a user name list on serialization, because the buffer can't be
+     * serialized.
+     *
+     * @return the user name list
+     */
+    @Serial
+    private Object writeReplace() {
+      return new UserNameList(table, this);
+    }
+  }
+
+  /**
+   * An immutable set of group IDs, that is backed by a direct byte buffer. The buffer contains
+   * the offsets of the group IDs (one more than the size) followed by the characters of the group
+   * IDs in ascending order, so a lookup is a binary search, that compares the characters in the
+   * buffer. A change copies the set into a new buffer.
+   */
+  private static final class OffHeapGroupIdSet implements GroupIdSet {
+
+    private final OffHeapSlabs slabs;
+
+    private final ByteBuffer buffer;
+
+    private final int size;
+
+    private OffHeapGroupIdSet(OffHeapSlabs slabs, int size, int chars) {
+      this.slabs = slabs;
+      this.size = size;
+      this.buffer = size == 0
+          ? null
+          : slabs.allocate(this, (size + 1) * Integer.BYTES + chars * Character.BYTES);
+    }
+
+    // The set is the owner of the block of its buffer, so it must stay reachable while the
+    // buffer is read; otherwise the block may be released and reused by another set.
+    private int offset(int index) {
+      try {
+        return buffer.getInt(index * Integer.BYTES);
+      } finally {
+        Reference.reachabilityFence(this);
+      }
+    }
+
+    private int charPosition(int offset) {
+      return (size + 1) * Integer.BYTES + offset * Character.BYTES;
+    }
+
+    private String groupIdAt(int index) {
+      try {
+        int start = offset(index);
+        char[] chars = new char[offset(index + 1) - start];
+        for (int i = 0; i < chars.length; i++) {
+          chars[i] = buffer.getChar(charPosition(start + i));
+        }
+        return new String(chars);
+      } finally {
+        Reference.reachabilityFence(this);
+      }
+    }
+
+    private int compare(int index, String groupId) {
+      try {
+        int start = offset(index);
+        int length = offset(index + 1) - start;
+        int common = Math.min(length, groupId.length());
+        for (int i = 0; i < common; i++) {
+          char c = buffer.getChar(charPosition(start + i));
+          if (c != groupId.charAt(i)) {
+            return c - groupId.charAt(i);
+          }
+        }
+        return length - groupId.length();
+      } finally {
+        Reference.reachabilityFence(this);
+      }
+    }
+
+    /**
+     * Searches the group ID.
+     *
+     * @param groupId the group ID
+     * @return the index of the group ID or {@code -(insertion point) - 1}
+     */
+    private int search(String groupId) {
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        int cmp = compare(middle, groupId);
+        if (cmp < 0) {
+          low = middle + 1;
+        } else if (cmp > 0) {
+          high = middle - 1;
+        } else {
+          return middle;
+        }
+      }
+      return -(low + 1);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean contains(String groupId) {
+      return groupId != null && search(groupId) >= 0;
+    }
+
+    @Override
+    public GroupIdSet plus(String groupId) {
+      if (groupId == null) {
+        throw new IllegalArgumentException("Group ID must be present.");
+      }
+      int index = search(groupId);
+      if (index >= 0) {
+        return this;
+      }
+      index = -index - 1;
+      int chars = size == 0 ? 0 : offset(size);
+      int length = groupId.length();
+      OffHeapGroupIdSet set = new OffHeapGroupIdSet(slabs, size + 1, chars + length);
+      int start = size == 0 ? 0 : offset(index);
+      for (int i = 0; i <= size; i++) {
+        int offset = size == 0 ? 0 : offset(i);
+        if (i < index) {
+          set.buffer.putInt(i * Integer.BYTES, offset);
+        } else {
+          set.buffer.putInt((i + 1) * Integer.BYTES, offset + length);
+        }
+      }
+      set.buffer.putInt(index * Integer.BYTES, start);
+      copyChars(0, start, set, 0);
+      for (int i = 0; i < length; i++) {
+        set.buffer.putChar(set.charPosition(start + i), groupId.charAt(i));
+      }
+      copyChars(start, chars, set, start + length);
+      return set;
+    }
+
+    @Override
+    public GroupIdSet minus(String groupId) {
+      int index = groupId != null ? search(groupId) : -1;
+      if (index < 0) {
+        return this;
+      }
+      int chars = offset(size);
+      int start = offset(index);
+      int length = offset(index + 1) - start;
+      OffHeapGroupIdSet set = new OffHeapGroupIdSet(slabs, size - 1, chars - length);
+      if (set.size == 0) {
+        return set;
+      }
+      for (int i = 0; i <= size; i++) {
+        if (i < index) {
+          set.buffer.putInt(i * Integer.BYTES, offset(i));
+        } else if (i > index) {
+          set.buffer.putInt((i - 1) * Integer.BYTES, offset(i) - length);
+        }
+      }
+      copyChars(0, start, set, 0);
+      copyChars(start + length, chars, set, start);
+      return set;
+    }
+
+    private void copyChars(int from, int to, OffHeapGroupIdSet target, int targetOffset) {
+      try {
+        for (int i = from; i < to; i++) {
+          target.buffer.putChar(
+              target.charPosition(targetOffset + i - from),
+              buffer.getChar(charPosition(i)));
+        }
+      } finally {
+        Reference.reachabilityFence(this);
+        Reference.reachabilityFence(target);
+      }
+    }
+
+    @Override
+    public Iterator<String> after(String afterId) {
+      int first = 0;
+      if (afterId != null) {
+        int index = search(afterId);
+        first = index >= 0 ? index + 1 : -index - 1;
+      }
+      int start = first;
+      return new Iterator<>() {
+
+        private int next = start;
+
+        @Override
+        public boolean hasNext() {
+          return next < size;
+        }
+
+        @Override
+        public String next() {
+          if (next >= size) {
+            throw new NoSuchElementException();
+          }
+          return groupIdAt(next++);
+        }
+      };
+    }
+  }
+
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * An immutable map, that keeps the keys in their natural order, stored as balanced (AVL) binary
+ * tree. A change returns a new map, that shares all nodes with this map except the path from the
+ * root to the changed entry, so it costs {@code O(log n)} instead of a copy of the whole map.
+ * Different versions of a map can be read by different threads without locking.
+ *
+ * <p>Keys must not be {@code null}.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author Christian Bremer
+ */
+final class SortedTreeMap<K extends Comparable<? super K>, V> {
+
+  private static final SortedTreeMap<?, ?> EMPTY = new SortedTreeMap<>(null, 0);
+
+  private final Node<K, V> root;
+
+  private final int size;
+
+  private SortedTreeMap(Node<K, V> root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Gets the empty map.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   * @return the empty map
+   */
+  @SuppressWarnings("unchecked")
+  static <K extends Comparable<? super K>, V> SortedTreeMap<K, V> empty() {
+    return (SortedTreeMap<K, V>) EMPTY;
+  }
+
+  /**
+   * Gets the number of entries.
+   *
+   * @return the size
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Determines whether the map has no entries.
+   *
+   * @return {@code true} if the map is empty, otherwise {@code false}
+   */
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Gets the value of the key.
+   *
+   * @param key the key
+   * @return the value or {@code null}, if there is no such key
+   */
+  V get(K key) {
+    Node<K, V> node = root;
+    while (node != null && key != null) {
+      int cmp = key.compareTo(node.key);
+      if (cmp == 0) {
+        return node.value;
+      }
+      node = cmp < 0 ? node.left : node.right;
+    }
+    return null;
+  }
+
+  /**
+   * Determines whether the map contains the key.
+   *
+   * @param key the key
+   * @return {@code true} if the map contains the key, otherwise {@code false}
+   */
+  boolean containsKey(K key) {
+    Node<K, V> node = root;
+    while (node != null && key != null) {
+      int cmp = key.compareTo(node.key);
+      if (cmp == 0) {
+        return true;
+      }
+      node = cmp < 0 ? node.left : node.right;
+    }
+    return false;
+  }
+
+  /**
+   * Returns a map, that maps the key to the value.
+   *
+   * @param key the key
+   * @param value the value
+   * @return the new map or this map, if the key is already mapped to the same value
+   */
+  SortedTreeMap<K, V> plus(K key, V value) {
+    if (key == null) {
+      throw new IllegalArgumentException("Key must be present.");
+    }
+    boolean[] added = new boolean[1];
+    Node<K, V> newRoot = put(root, key, value, added);
+    return newRoot == root ? this : new SortedTreeMap<>(newRoot, added[0] ? size + 1 : size);
+  }
+
+  /**
+   * Returns a map without the key.
+   *
+   * @param key the key
+   * @return the new map or this map, if there is no such key
+   */
+  SortedTreeMap<K, V> minus(K key) {
+    if (key == null) {
+      return this;
+    }
+    Node<K, V> newRoot = remove(root, key);
+    if (newRoot == root) {
+      return this;
+    }
+    return size == 1 ? empty() : new SortedTreeMap<>(newRoot, size - 1);
+  }
+
+  /**
+   * Iterates over the keys in ascending order.
+   *
+   * @param afterKey the key after which the iteration starts, if {@code null} it starts with the
+   *     first key
+   * @return the iterator
+   */
+  Iterator<K> keys(K afterKey) {
+    return new NodeIterator<>(root, afterKey, node -> node.key);
+  }
+
+  /**
+   * Gets the values in the ascending order of their keys. The collection is a view of this
+   * map, that can't be changed.
+   *
+   * @return the values
+   */
+  Collection<V> values() {
+    return new AbstractCollection<V>() {
+      @Override
+      public Iterator<V> iterator() {
+        return new NodeIterator<>(root, null, node -> node.value);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  private static int height(Node<?, ?> node) {
+    return node != null ? node.height : 0;
+  }
+
+  private static <K extends Comparable<? super K>, V> Node<K, V> put(
+      Node<K, V> node, K key, V value, boolean[] added) {
+    if (node == null) {
+      added[0] = true;
+      return new Node<>(key, value, null, null);
+    }
+    int cmp = key.compareTo(node.key);
+    if (cmp == 0) {
+      return node.value == value ? node : new Node<>(key, value, node.left, node.right);
+    }
+    if (cmp < 0) {
+      Node<K, V> left = put(node.left, key, value, added);
+      return left == node.left ? node : balance(node.key, node.value, left, node.right);
+    }
+    Node<K, V> right = put(node.right, key, value, added);
+    return right == node.right ? node : balance(node.key, node.value, node.left, right);
+  }
+
+  private static <K extends Comparable<? super K>, V> Node<K, V> remove(Node<K, V> node, K key) {
+    if (node == null) {
+      return null;
+    }
+    int cmp = key.compareTo(node.key);
+    if (cmp < 0) {
+      Node<K, V> left = remove(node.left, key);
+      return left == node.left ? node : balance(node.key, node.value, left, node.right);
+    }
+    if (cmp > 0) {
+      Node<K, V> right = remove(node.right, key);
+      return right == node.right ? node : balance(node.key, node.value, node.left, right);
+    }
+    if (node.left == null) {
+      return node.right;
+    }
+    if (node.right == null) {
+      return node.left;
+    }
+    Node<K, V> first = node.right;
+    while (first.left != null) {
+      first = first.left;
+    }
+    return balance(first.key, first.value, node.left, remove(node.right, first.key));
+  }
+
+  private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+    int difference = height(left) - height(right);
+    if (difference > 1) {
+      if (height(left.left) < height(left.right)) {
+        left = rotateLeft(left.key, left.value, left.left, left.right);
+      }
+      return rotateRight(key, value, left, right);
+    }
+    if (difference < -1) {
+      if (height(right.right) < height(right.left)) {
+        right = rotateRight(right.key, right.value, right.left, right.right);
+      }
+      return rotateLeft(key, value, left, right);
+    }
+    return new Node<>(key, value, left, right);
+  }
+
+  private static <K, V> Node<K, V> rotateRight(
+      K key, V value, Node<K, V> left, Node<K, V> right) {
+    return new Node<>(
+        left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+  }
+
+  private static <K, V> Node<K, V> rotateLeft(
+      K key, V value, Node<K, V> left, Node<K, V> right) {
+    return new Node<>(
+        right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+  }
+
+  /**
+   * A node of the tree.
+   */
+  private static final class Node<K, V> {
+
+    private final K key;
+
+    private final V value;
+
+    private final Node<K, V> left;
+
+    private final Node<K, V> right;
+
+    private final int height;
+
+    private Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+      this.key = key;
+      this.value = value;
+      this.left = left;
+      this.right = right;
+      this.height = Math.max(height(left), height(right)) + 1;
+    }
+  }
+
+  /**
+   * Iterates in order over the nodes of a tree, that have a greater key than the given one.
+   */
+  private static final class NodeIterator<K extends Comparable<? super K>, V, T>
+      implements Iterator<T> {
+
+    private final Deque<Node<K, V>> path = new ArrayDeque<>();
+
+    private final Function<Node<K, V>, T> mapper;
+
+    private NodeIterator(Node<K, V> root, K afterKey, Function<Node<K, V>, T> mapper) {
+      this.mapper = mapper;
+      Node<K, V> node = root;
+      while (node != null) {
+        if (afterKey == null || afterKey.compareTo(node.key) < 0) {
+          path.push(node);
+          node = node.left;
+        } else {
+          node = node.right;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !path.isEmpty();
+    }
+
+    @Override
+    public T next() {
+      if (path.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      Node<K, V> node = path.pop();
+      for (Node<K, V> next = node.right; next != null; next = next.left) {
+        path.push(next);
+      }
+      return mapper.apply(node);
+    }
+  }
+}
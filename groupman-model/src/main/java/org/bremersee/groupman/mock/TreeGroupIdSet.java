@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import java.util.Iterator;
+
+/**
+ * A set of group IDs on the heap, that is backed by a persistent tree, so a change copies only
+ * the path to the changed group ID.
+ *
+ * @author Christian Bremer
+ */
+final class TreeGroupIdSet implements GroupIdSet {
+
+  /**
+   * The empty set.
+   */
+  static final TreeGroupIdSet EMPTY = new TreeGroupIdSet(SortedTreeMap.empty());
+
+  private final SortedTreeMap<String, Boolean> ids;
+
+  private TreeGroupIdSet(SortedTreeMap<String, Boolean> ids) {
+    this.ids = ids;
+  }
+
+  @Override
+  public int size() {
+    return ids.size();
+  }
+
+  @Override
+  public boolean contains(String groupId) {
+    return groupId != null && ids.containsKey(groupId);
+  }
+
+  @Override
+  public GroupIdSet plus(String groupId) {
+    return contains(groupId) ? this : new TreeGroupIdSet(ids.plus(groupId, Boolean.TRUE));
+  }
+
+  @Override
+  public GroupIdSet minus(String groupId) {
+    if (!contains(groupId)) {
+      return this;
+    }
+    SortedTreeMap<String, Boolean> newIds = ids.minus(groupId);
+    return newIds.isEmpty() ? EMPTY : new TreeGroupIdSet(newIds);
+  }
+
+  @Override
+  public Iterator<String> after(String afterId) {
+    return ids.keys(afterId);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * The continuation token of a paged group list. The token of the next page is created from the
+ * last group of the previous page, its content is opaque to the client: the server returns the
+ * token of the next page in the header {@value #HEADER_NAME}, and the client passes it back
+ * unchanged.
+ *
+ * @author Christian Bremer
+ */
+public abstract class ContinuationToken {
+
+  /**
+   * The name of the response header with the continuation token of the next page.
+   */
+  public static final String HEADER_NAME = "X-Continuation-Token";
+
+  /**
+   * Gets the continuation token of the page, that follows the given page. A page, that is not
+   * full, is the last one and has no next page.
+   *
+   * @param page the page
+   * @param limit the maximum size of the page, if {@code null} the page is the last one
+   * @return the continuation token or {@code null}, if there is no next page
+   */
+  public static String next(List<Group> page, Integer limit) {
+    if (page == null || page.isEmpty() || limit == null || page.size() < limit) {
+      return null;
+    }
+    return of(page.get(page.size() - 1));
+  }
+
+  /**
+   * Creates the continuation token of the page that follows the given group.
+   *
+   * @param lastGroup the last group of the previous page
+   * @return the continuation token
+   */
+  public static String of(Group lastGroup) {
+    if (lastGroup == null || lastGroup.getId() == null) {
+      throw new IllegalArgumentException("Last group with ID must be present.");
+    }
+    return of(lastGroup.getId());
+  }
+
+  /**
+   * Creates the continuation token of the page that follows the group with the given ID.
+   *
+   * @param lastGroupId the ID of the last group of the previous page
+   * @return the continuation token
+   */
+  public static String of(String lastGroupId) {
+    if (lastGroupId == null) {
+      throw new IllegalArgumentException("Last group ID must be present.");
+    }
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(lastGroupId.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes the continuation token.
+   *
+   * @param token the continuation token
+   * @return the ID of the last group of the previous page or {@code null}, if the token is
+   *     {@code null}
+   */
+  public static String decode(String token) {
+    if (token == null) {
+      return null;
+    }
+    try {
+      return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Illegal continuation token: " + token, e);
+    }
+  }
+
+}
@@ -296,6 +296,15 @@ public class Group implements Serializable {
     this.members = members;
   }
 
+  /**
+   * Determines whether the group has members without creating an empty list.
+   *
+   * @return {@code true} if the group has members, otherwise {@code false}
+   */
+  boolean hasMembers() {
+    return members != null && !members.isEmpty();
+  }
+
   /**
    * Gets owners.
    *
@@ -318,5 +327,14 @@ public class Group implements Serializable {
     this.owners = owners;
   }
 
+  /**
+   * Determines whether the group has owners without creating an empty list.
+   *
+   * @return {@code true} if the group has owners, otherwise {@code false}
+   */
+  boolean hasOwners() {
+    return owners != null && !owners.isEmpty();
+  }
+
 }
 
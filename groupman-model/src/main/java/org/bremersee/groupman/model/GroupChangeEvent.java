@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.AccessMode;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import java.io.Serial;
+import java.io.Serializable;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A change of a group. The sequence numbers of the changes are strictly increasing, so a
+ * consumer can resume the change feed after the last change it has seen.
+ *
+ * @author Christian Bremer
+ */
+@Schema(description = "A change of a group.")
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+public class GroupChangeEvent implements Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  @Schema(
+      description = "The sequence number of the change.",
+      requiredMode = RequiredMode.REQUIRED,
+      accessMode = AccessMode.READ_ONLY)
+  @JsonProperty("sequence")
+  private long sequence;
+
+  @Schema(
+      description = "The type of the change.",
+      requiredMode = RequiredMode.REQUIRED,
+      accessMode = AccessMode.READ_ONLY)
+  @JsonProperty("type")
+  private GroupChangeType type;
+
+  @Schema(
+      description = "The ID of the changed group.",
+      requiredMode = RequiredMode.REQUIRED,
+      accessMode = AccessMode.READ_ONLY)
+  @JsonProperty("groupId")
+  private String groupId;
+
+  @Schema(
+      description = "The version of the group after the change or the last version of a deleted "
+          + "group.",
+      accessMode = AccessMode.READ_ONLY)
+  @JsonProperty("version")
+  private Long version;
+
+  /**
+   * Instantiates a new group change event.
+   *
+   * @param sequence the sequence
+   * @param type the type
+   * @param groupId the group id
+   * @param version the version
+   */
+  @Builder(toBuilder = true)
+  public GroupChangeEvent(long sequence, GroupChangeType type, String groupId, Long version) {
+    this.sequence = sequence;
+    this.type = type;
+    this.groupId = groupId;
+    this.version = version;
+  }
+}
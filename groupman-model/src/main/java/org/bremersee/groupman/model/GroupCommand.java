@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import java.io.Serial;
+import java.io.Serializable;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A command of a batch, that creates, updates or deletes a group.
+ *
+ * @author Christian Bremer
+ */
+@Schema(description = "A command of a batch, that creates, updates or deletes a group.")
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+public class GroupCommand implements Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  @Schema(description = "The type of the command.", requiredMode = RequiredMode.REQUIRED)
+  @JsonProperty("type")
+  private GroupCommandType type;
+
+  @Schema(description = "The ID of the group to update or to delete.")
+  @JsonProperty("groupId")
+  private String groupId;
+
+  @Schema(description = "The expected version of the group to update or to delete. If it is "
+      + "present and the stored group has another version, the command fails.")
+  @JsonProperty("version")
+  private Long version;
+
+  @Schema(description = "The group to create or the new values of the group to update.")
+  @JsonProperty("group")
+  private Group group;
+
+  /**
+   * Instantiates a new group command.
+   *
+   * @param type the type
+   * @param groupId the group id
+   * @param version the expected version
+   * @param group the group
+   */
+  @Builder(toBuilder = true)
+  public GroupCommand(GroupCommandType type, String groupId, Long version, Group group) {
+    this.type = type;
+    this.groupId = groupId;
+    this.version = version;
+    this.group = group;
+  }
+}
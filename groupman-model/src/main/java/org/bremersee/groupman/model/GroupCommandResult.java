@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.AccessMode;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import java.io.Serial;
+import java.io.Serializable;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * The result of a command of a batch. A failed command does not stop the batch, so every
+ * command gets its own result.
+ *
+ * @author Christian Bremer
+ */
+@Schema(description = "The result of a command of a batch.")
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+public class GroupCommandResult implements Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  @Schema(
+      description = "The position of the command in the batch, starting with 0.",
+      requiredMode = RequiredMode.REQUIRED,
+      accessMode = AccessMode.READ_ONLY)
+  @JsonProperty("index")
+  private int index;
+
+  @Schema(
+      description = "The type of the command.",
+      accessMode = AccessMode.READ_ONLY)
+  @JsonProperty("type")
+  private GroupCommandType type;
+
+  @Schema(
+      description = "The ID of the group.",
+      accessMode = AccessMode.READ_ONLY)
+  @JsonProperty("groupId")
+  private String groupId;
+
+  @Schema(
+      description = "The http status code of the command, e. g. 200 (OK), 201 (Created), "
+          + "400 (Bad Request), 404 (Not Found) or 412 (Precondition Failed).",
+      requiredMode = RequiredMode.REQUIRED,
+      accessMode = AccessMode.READ_ONLY)
+  @JsonProperty("status")
+  private int status;
+
+  @Schema(
+      description = "The version of the group after the command.",
+      accessMode = AccessMode.READ_ONLY)
+  @JsonProperty("version")
+  private Long version;
+
+  @Schema(
+      description = "The error message of a failed command.",
+      accessMode = AccessMode.READ_ONLY)
+  @JsonProperty("message")
+  private String message;
+
+  /**
+   * Instantiates a new group command result.
+   *
+   * @param index the index
+   * @param type the type
+   * @param groupId the group id
+   * @param status the status
+   * @param version the version
+   * @param message the message
+   */
+  @Builder(toBuilder = true)
+  public GroupCommandResult(
+      int index,
+      GroupCommandType type,
+      String groupId,
+      int status,
+      Long version,
+      String message) {
+    this.index = index;
+    this.type = type;
+    this.groupId = groupId;
+    this.status = status;
+    this.version = version;
+    this.message = message;
+  }
+
+  /**
+   * Determines whether the command was successful.
+   *
+   * @return {@code true} if the command was successful, otherwise {@code false}
+   */
+  @JsonIgnore
+  public boolean isSuccessful() {
+    return status >= 200 && status < 300;
+  }
+}
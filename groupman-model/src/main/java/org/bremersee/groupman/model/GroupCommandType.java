@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * The type of a group command.
+ *
+ * @author Christian Bremer
+ */
+public enum GroupCommandType {
+
+  /**
+   * Create the group.
+   */
+  CREATE("CREATE"),
+
+  /**
+   * Update the group.
+   */
+  UPDATE("UPDATE"),
+
+  /**
+   * Delete the group.
+   */
+  DELETE("DELETE");
+
+  private final String value;
+
+  GroupCommandType(String value) {
+    this.value = value;
+  }
+
+  @Override
+  @JsonValue
+  public String toString() {
+    return String.valueOf(value);
+  }
+
+  /**
+   * From value group command type.
+   *
+   * @param text the text
+   * @return the group command type
+   */
+  @JsonCreator
+  public static GroupCommandType fromValue(String text) {
+    for (GroupCommandType b : GroupCommandType.values()) {
+      if (String.valueOf(b.value).equals(text)) {
+        return b;
+      }
+    }
+    return null;
+  }
+}
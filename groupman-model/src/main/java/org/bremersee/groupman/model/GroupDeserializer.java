@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+import java.io.Serial;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a group directly from the json parser instead of the reflective bean deserialization.
+ * Unknown fields are skipped; the members and the owners are read as they are given. A value of
+ * an unexpected type, like an object as ID or a version, that is not a number, is rejected.
+ *
+ * @author Christian Bremer
+ */
+public class GroupDeserializer extends StdDeserializer<Group> {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Instantiates a new group deserializer.
+   */
+  public GroupDeserializer() {
+    super(Group.class);
+  }
+
+  @Override
+  public Group deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+    JsonToken token = p.currentToken();
+    if (token == JsonToken.START_OBJECT) {
+      token = p.nextToken();
+    } else if (token != JsonToken.FIELD_NAME) {
+      return (Group) ctxt.handleUnexpectedToken(Group.class, p);
+    }
+    Group group = new Group();
+    for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+      String field = p.currentName();
+      token = p.nextToken();
+      boolean isNull = token == JsonToken.VALUE_NULL;
+      switch (field) {
+        case "id":
+          group.setId(readString(p, ctxt));
+          break;
+        case "version":
+          group.setVersion(readLong(p, ctxt));
+          break;
+        case "createdBy":
+          group.setCreatedBy(readString(p, ctxt));
+          break;
+        case "createdAt":
+          group.setCreatedAt(isNull ? null : ctxt.readValue(p, OffsetDateTime.class));
+          break;
+        case "modifiedAt":
+          group.setModifiedAt(isNull ? null : ctxt.readValue(p, OffsetDateTime.class));
+          break;
+        case "source":
+          group.setSource(isNull ? null : Source.fromValue(readString(p, ctxt)));
+          break;
+        case "name":
+          group.setName(readString(p, ctxt));
+          break;
+        case "description":
+          group.setDescription(readString(p, ctxt));
+          break;
+        case "members":
+          group.setMembers(isNull ? null : readUserNames(p, ctxt));
+          break;
+        case "owners":
+          group.setOwners(isNull ? null : readUserNames(p, ctxt));
+          break;
+        default:
+          p.skipChildren();
+      }
+    }
+    if (token != JsonToken.END_OBJECT) {
+      return (Group) ctxt.handleUnexpectedToken(Group.class, p);
+    }
+    return group;
+  }
+
+  /**
+   * Reads a string value. Numbers and booleans are read as text like by the bean deserialization;
+   * objects, arrays and embedded values are unexpected.
+   *
+   * @param p the parser
+   * @param ctxt the context
+   * @return the string or {@code null}
+   * @throws IOException if the value is unexpected
+   */
+  private static String readString(JsonParser p, DeserializationContext ctxt)
+      throws IOException {
+    switch (p.currentToken()) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_STRING:
+        return p.getText();
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+      case VALUE_TRUE:
+      case VALUE_FALSE:
+        return p.getValueAsString();
+      default:
+        return (String) ctxt.handleUnexpectedToken(String.class, p);
+    }
+  }
+
+  /**
+   * Reads a long value. A string must contain an integer; other values are unexpected.
+   *
+   * @param p the parser
+   * @param ctxt the context
+   * @return the long or {@code null}
+   * @throws IOException if the value is unexpected
+   */
+  private static Long readLong(JsonParser p, DeserializationContext ctxt) throws IOException {
+    switch (p.currentToken()) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_NUMBER_INT:
+        return p.getLongValue();
+      case VALUE_STRING:
+        String text = p.getText().trim();
+        try {
+          return Long.valueOf(text);
+        } catch (NumberFormatException e) {
+          return (Long) ctxt.handleWeirdStringValue(Long.class, text, "not a valid long value");
+        }
+      default:
+        return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<String> readUserNames(JsonParser p, DeserializationContext ctxt)
+      throws IOException {
+    if (!p.isExpectedStartArrayToken()) {
+      return (List<String>) ctxt.handleUnexpectedToken(List.class, p);
+    }
+    List<String> userNames = new ArrayList<>();
+    JsonToken token;
+    while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+      if (token == JsonToken.VALUE_STRING) {
+        userNames.add(p.getText());
+      } else if (token == JsonToken.VALUE_NULL) {
+        userNames.add(null);
+      } else {
+        return (List<String>) ctxt.handleUnexpectedToken(List.class, p);
+      }
+    }
+    return userNames;
+  }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import java.io.Serial;
+
+/**
+ * The jackson module with the streaming serializer and deserializer of the group. With Spring
+ * Boot it can be registered as bean, otherwise with
+ * {@code objectMapper.registerModule(new GroupModule())}.
+ *
+ * @author Christian Bremer
+ */
+public class GroupModule extends SimpleModule {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Instantiates a new group module.
+   */
+  public GroupModule() {
+    super(GroupModule.class.getName(), Version.unknownVersion());
+    addSerializer(Group.class, new GroupSerializer());
+    addDeserializer(Group.class, new GroupDeserializer());
+  }
+
+}
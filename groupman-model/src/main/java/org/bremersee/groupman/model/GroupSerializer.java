@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.io.Serial;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Writes a group directly with the json generator instead of the reflective bean serialization.
+ * The field names are serialized once, and null values and empty lists are skipped without
+ * creating empty lists.
+ *
+ * @author Christian Bremer
+ */
+public class GroupSerializer extends StdSerializer<Group> {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  static final SerializedString ID = new SerializedString("id");
+
+  static final SerializedString VERSION = new SerializedString("version");
+
+  static final SerializedString CREATED_BY = new SerializedString("createdBy");
+
+  static final SerializedString CREATED_AT = new SerializedString("createdAt");
+
+  static final SerializedString MODIFIED_AT = new SerializedString("modifiedAt");
+
+  static final SerializedString SOURCE = new SerializedString("source");
+
+  static final SerializedString NAME = new SerializedString("name");
+
+  static final SerializedString DESCRIPTION = new SerializedString("description");
+
+  static final SerializedString MEMBERS = new SerializedString("members");
+
+  static final SerializedString OWNERS = new SerializedString("owners");
+
+  /**
+   * Instantiates a new group serializer.
+   */
+  public GroupSerializer() {
+    super(Group.class);
+  }
+
+  @Override
+  public void serialize(Group group, JsonGenerator gen, SerializerProvider provider)
+      throws IOException {
+    gen.writeStartObject(group);
+    writeString(gen, ID, group.getId());
+    if (group.getVersion() != null) {
+      gen.writeFieldName(VERSION);
+      gen.writeNumber(group.getVersion());
+    }
+    writeString(gen, CREATED_BY, group.getCreatedBy());
+    writeTime(gen, provider, CREATED_AT, group.getCreatedAt());
+    writeTime(gen, provider, MODIFIED_AT, group.getModifiedAt());
+    if (group.getSource() != null) {
+      gen.writeFieldName(SOURCE);
+      gen.writeString(group.getSource().toString());
+    }
+    writeString(gen, NAME, group.getName());
+    writeString(gen, DESCRIPTION, group.getDescription());
+    if (group.hasMembers()) {
+      writeStrings(gen, MEMBERS, group.getMembers());
+    }
+    if (group.hasOwners()) {
+      writeStrings(gen, OWNERS, group.getOwners());
+    }
+    gen.writeEndObject();
+  }
+
+  private static void writeString(JsonGenerator gen, SerializableString name, String value)
+      throws IOException {
+    if (value != null) {
+      gen.writeFieldName(name);
+      gen.writeString(value);
+    }
+  }
+
+  /**
+   * Writes a time with the serializer of the provider, so that the date format of the object
+   * mapper is used.
+   */
+  private static void writeTime(
+      JsonGenerator gen,
+      SerializerProvider provider,
+      SerializableString name,
+      OffsetDateTime value) throws IOException {
+    if (value != null) {
+      gen.writeFieldName(name);
+      provider.findValueSerializer(OffsetDateTime.class).serialize(value, gen, provider);
+    }
+  }
+
+  private static void writeStrings(JsonGenerator gen, SerializableString name, List<String> values)
+      throws IOException {
+    int size = values.size();
+    gen.writeFieldName(name);
+    gen.writeStartArray(values, size);
+    for (int i = 0; i < size; i++) {
+      gen.writeString(values.get(i));
+    }
+    gen.writeEndArray();
+  }
+
+}
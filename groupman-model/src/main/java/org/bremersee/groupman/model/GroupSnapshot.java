@@ -0,0 +1,289 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * An immutable snapshot of a group. The members and the owners are held in trimmed user name
+ * lists, that can't be modified, and the hash code is computed once, so a snapshot can be shared
+ * between threads without locking and without defensive copies. A group, that is created from a
+ * snapshot, shares these read-only lists.
+ *
+ * <p>The user names are stored in a {@link UserNameTable}. A repository passes its own table, so
+ * all of its snapshots share the user names; a snapshot, that is taken without a table, gets a
+ * table of its own.
+ *
+ * <p>A snapshot is changed by converting it into a builder of a group with {@link #toBuilder()}
+ * and taking a new snapshot of the built group with {@link #of(Group, UserNameTable)}.
+ *
+ * @author Christian Bremer
+ */
+public final class GroupSnapshot implements Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private final String id;
+
+  private final Long version;
+
+  private final String createdBy;
+
+  private final OffsetDateTime createdAt;
+
+  private final OffsetDateTime modifiedAt;
+
+  private final Source source;
+
+  private final String name;
+
+  private final String description;
+
+  private final List<String> members;
+
+  private final List<String> owners;
+
+  private final int hashCode;
+
+  private GroupSnapshot(
+      Group group,
+      UserNameTable users,
+      UnaryOperator<List<String>> userLists) {
+    this.id = group.getId();
+    this.version = group.getVersion();
+    this.createdBy = users.canonical(group.getCreatedBy());
+    this.createdAt = group.getCreatedAt();
+    this.modifiedAt = group.getModifiedAt();
+    this.source = group.getSource();
+    this.name = group.getName();
+    this.description = group.getDescription();
+    this.members = Collections.unmodifiableList(
+        userLists.apply(new UserNameList(users, group.getMembers())));
+    this.owners = Collections.unmodifiableList(
+        userLists.apply(new UserNameList(users, group.getOwners())));
+    this.hashCode = Objects.hash(id, version, createdBy, createdAt, modifiedAt, source, name,
+        description, members, owners);
+  }
+
+  /**
+   * Takes a snapshot of the group with a user name table of its own. Later changes of the group
+   * don't change the snapshot.
+   *
+   * @param group the group
+   * @return the snapshot or {@code null}, if the group is {@code null}
+   */
+  public static GroupSnapshot of(Group group) {
+    return group != null ? of(group, new UserNameTable()) : null;
+  }
+
+  /**
+   * Takes a snapshot of the group, that stores the user names in the given table. Later changes
+   * of the group don't change the snapshot.
+   *
+   * @param group the group
+   * @param users the user name table
+   * @return the snapshot or {@code null}, if the group is {@code null}
+   */
+  public static GroupSnapshot of(Group group, UserNameTable users) {
+    return of(group, users, UnaryOperator.identity());
+  }
+
+  /**
+   * Takes a snapshot of the group and lets the given function store the members and the owners,
+   * for example outside of the heap. The function gets a trimmed user name list of the given
+   * table and must return a list with the same user names, that is not changed afterwards.
+   *
+   * @param group the group
+   * @param users the user name table
+   * @param userLists the function, that stores the user names of the members and the owners
+   * @return the snapshot or {@code null}, if the group is {@code null}
+   */
+  public static GroupSnapshot of(
+      Group group,
+      UserNameTable users,
+      UnaryOperator<List<String>> userLists) {
+    if (users == null) {
+      throw new IllegalArgumentException("User name table must be present.");
+    }
+    return group != null ? new GroupSnapshot(group, users, userLists) : null;
+  }
+
+  /**
+   * Gets id.
+   *
+   * @return the id
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Gets version.
+   *
+   * @return the version
+   */
+  public Long getVersion() {
+    return version;
+  }
+
+  /**
+   * Gets created by.
+   *
+   * @return the created by
+   */
+  public String getCreatedBy() {
+    return createdBy;
+  }
+
+  /**
+   * Gets created at.
+   *
+   * @return the created at
+   */
+  public OffsetDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  /**
+   * Gets modified at.
+   *
+   * @return the modified at
+   */
+  public OffsetDateTime getModifiedAt() {
+    return modifiedAt;
+  }
+
+  /**
+   * Gets source.
+   *
+   * @return the source
+   */
+  public Source getSource() {
+    return source;
+  }
+
+  /**
+   * Gets name.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets description.
+   *
+   * @return the description
+   */
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Gets the members, that can't be modified.
+   *
+   * @return the members
+   */
+  public List<String> getMembers() {
+    return members;
+  }
+
+  /**
+   * Gets the owners, that can't be modified.
+   *
+   * @return the owners
+   */
+  public List<String> getOwners() {
+    return owners;
+  }
+
+  /**
+   * Creates a builder of a group with the values of this snapshot. Nothing is copied: the members
+   * and the owners of the builder are the read-only lists of this snapshot, so they must be
+   * replaced by new lists to change them.
+   *
+   * @return the group builder
+   */
+  public Group.GroupBuilder toBuilder() {
+    return Group.builder()
+        .id(id)
+        .version(version)
+        .createdBy(createdBy)
+        .createdAt(createdAt)
+        .modifiedAt(modifiedAt)
+        .source(source)
+        .name(name)
+        .description(description)
+        .members(members)
+        .owners(owners);
+  }
+
+  /**
+   * Creates a group with the values of this snapshot. The members and the owners of the group are
+   * read-only views of the lists of this snapshot, so returning a stored group doesn't copy its
+   * user names; the lists of the group must be replaced by new lists to change them.
+   *
+   * @return the group
+   */
+  public Group toGroup() {
+    return toBuilder().build();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    GroupSnapshot that = (GroupSnapshot) o;
+    return hashCode == that.hashCode
+        && Objects.equals(id, that.id)
+        && Objects.equals(version, that.version)
+        && Objects.equals(createdBy, that.createdBy)
+        && Objects.equals(createdAt, that.createdAt)
+        && Objects.equals(modifiedAt, that.modifiedAt)
+        && source == that.source
+        && Objects.equals(name, that.name)
+        && Objects.equals(description, that.description)
+        && members.equals(that.members)
+        && owners.equals(that.owners);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    return "GroupSnapshot(id=" + id + ", version=" + version + ", createdBy=" + createdBy
+        + ", createdAt=" + createdAt + ", modifiedAt=" + modifiedAt + ", source=" + source
+        + ", name=" + name + ", description=" + description + ", members=" + members
+        + ", owners=" + owners + ")";
+  }
+
+}
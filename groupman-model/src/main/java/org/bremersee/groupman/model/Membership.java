@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import java.io.Serial;
+import java.io.Serializable;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * The membership of a user in a group, that should be checked.
+ *
+ * @author Christian Bremer
+ */
+@Schema(description = "The membership of a user in a group.")
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+public class Membership implements Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  @Schema(description = "The name of the user.", requiredMode = RequiredMode.REQUIRED)
+  @JsonProperty("userName")
+  private String userName;
+
+  @Schema(description = "The ID of the group.", requiredMode = RequiredMode.REQUIRED)
+  @JsonProperty("groupId")
+  private String groupId;
+
+  /**
+   * Instantiates a new membership.
+   *
+   * @param userName the user name
+   * @param groupId the group id
+   */
+  @Builder(toBuilder = true)
+  public Membership(String userName, String groupId) {
+    this.userName = userName;
+    this.groupId = groupId;
+  }
+}
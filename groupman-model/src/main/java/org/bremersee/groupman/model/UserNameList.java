@@ -0,0 +1,363 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * A list of user names without duplicates. The user names keep the order in which they were
+ * added, so the list is serialized as a json array like any other list.
+ *
+ * <p>The user names are stored as int IDs of a {@link UserNameTable}, so each user name is held
+ * only once, no matter in how many lists of the same table it is. Besides the IDs in list order,
+ * the list keeps the IDs sorted, so {@link #contains(Object)} is a binary search.
+ *
+ * <p>The list is a set of user names in list order, so it deviates from the contract of {@link
+ * List} for duplicates: {@link #add(String)} returns {@code false} and doesn't change the list, if
+ * the user name is already present, and {@link #add(int, String)} and {@link #set(int, String)}
+ * throw an {@link IllegalArgumentException}, if the user name is present at another position.
+ * The list is used by the repository for the stored members and owners; the group itself keeps
+ * the user names as given.
+ *
+ * <p>The hash code is cached until the list is changed, so hashing a group, whose user name
+ * lists haven't changed, doesn't iterate over all user names. Two user name lists of the same
+ * table are compared by their IDs.
+ *
+ * @author Christian Bremer
+ */
+public class UserNameList extends AbstractList<String> implements Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 2L;
+
+  private static final int[] EMPTY = new int[0];
+
+  private transient UserNameTable table;
+
+  private transient int[] ids;
+
+  private transient int[] sorted;
+
+  private transient int size;
+
+  /**
+   * The cached hash code or {@code 0}, if it must be computed.
+   */
+  private transient int hash;
+
+  /**
+   * Instantiates a new empty user name list with its own user name table.
+   */
+  public UserNameList() {
+    this(new UserNameTable());
+  }
+
+  /**
+   * Instantiates a new empty user name list, that stores the user names in the given table.
+   *
+   * @param table the user name table
+   */
+  public UserNameList(UserNameTable table) {
+    if (table == null) {
+      throw new IllegalArgumentException("User name table must be present.");
+    }
+    this.table = table;
+    this.ids = EMPTY;
+    this.sorted = EMPTY;
+  }
+
+  /**
+   * Instantiates a new user name list with its own user name table. Duplicates of the given user
+   * names are dropped.
+   *
+   * @param userNames the user names
+   */
+  public UserNameList(Collection<? extends String> userNames) {
+    this(new UserNameTable(), userNames);
+  }
+
+  /**
+   * Instantiates a new user name list, that stores the user names in the given table. Duplicates
+   * of the given user names are dropped. If the given user names are a user name list of the same
+   * table, only the IDs are copied.
+   *
+   * @param table the user name table
+   * @param userNames the user names
+   */
+  public UserNameList(UserNameTable table, Collection<? extends String> userNames) {
+    this(table);
+    if (userNames instanceof UserNameList
+        && ((UserNameList) userNames).table == table) {
+      UserNameList other = (UserNameList) userNames;
+      this.ids = Arrays.copyOf(other.ids, other.size);
+      this.sorted = Arrays.copyOf(other.sorted, other.size);
+      this.size = other.size;
+      this.hash = other.hash;
+    } else if (userNames != null && !userNames.isEmpty()) {
+      this.ids = new int[userNames.size()];
+      this.sorted = new int[userNames.size()];
+      addAll(userNames);
+    }
+  }
+
+  /**
+   * Gets the user name table, that stores the user names of this list.
+   *
+   * @return the user name table
+   */
+  public UserNameTable getTable() {
+    return table;
+  }
+
+  @Override
+  public String get(int index) {
+    return table.nameOf(ids[Objects.checkIndex(index, size)]);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return sortedPosition(o) >= 0;
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    int position = sortedPosition(o);
+    if (position < 0) {
+      return -1;
+    }
+    int id = sorted[position];
+    for (int i = 0; i < size; i++) {
+      if (ids[i] == id) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public int lastIndexOf(Object o) {
+    return indexOf(o);
+  }
+
+  @Override
+  public boolean add(String userName) {
+    int id = table.intern(userName);
+    int position = Arrays.binarySearch(sorted, 0, size, id);
+    if (position >= 0) {
+      return false;
+    }
+    ensureCapacity(size + 1);
+    insertSorted(-position - 1, id, size);
+    ids[size++] = id;
+    hash = 0;
+    modCount++;
+    return true;
+  }
+
+  @Override
+  public void add(int index, String userName) {
+    Objects.checkIndex(index, size + 1);
+    int id = table.intern(userName);
+    int position = Arrays.binarySearch(sorted, 0, size, id);
+    if (position >= 0) {
+      throw new IllegalArgumentException("User name " + userName + " is already present.");
+    }
+    ensureCapacity(size + 1);
+    insertSorted(-position - 1, id, size);
+    System.arraycopy(ids, index, ids, index + 1, size - index);
+    ids[index] = id;
+    size++;
+    hash = 0;
+    modCount++;
+  }
+
+  @Override
+  public String set(int index, String userName) {
+    int oldId = ids[Objects.checkIndex(index, size)];
+    int id = table.intern(userName);
+    if (oldId == id) {
+      return userName;
+    }
+    if (Arrays.binarySearch(sorted, 0, size, id) >= 0) {
+      throw new IllegalArgumentException("User name " + userName + " is already present.");
+    }
+    removeSorted(Arrays.binarySearch(sorted, 0, size, oldId), size);
+    insertSorted(-Arrays.binarySearch(sorted, 0, size - 1, id) - 1, id, size - 1);
+    ids[index] = id;
+    hash = 0;
+    return table.nameOf(oldId);
+  }
+
+  @Override
+  public String remove(int index) {
+    int id = ids[Objects.checkIndex(index, size)];
+    removeSorted(Arrays.binarySearch(sorted, 0, size, id), size);
+    System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+    size--;
+    hash = 0;
+    modCount++;
+    return table.nameOf(id);
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    int index = indexOf(o);
+    if (index < 0) {
+      return false;
+    }
+    remove(index);
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+    hash = 0;
+    modCount++;
+  }
+
+  @Override
+  public void sort(Comparator<? super String> c) {
+    List<String> values = new ArrayList<>(this);
+    values.sort(c);
+    for (int i = 0; i < size; i++) {
+      ids[i] = table.intern(values.get(i));
+    }
+    hash = 0;
+    modCount++;
+  }
+
+  @Override
+  public void replaceAll(UnaryOperator<String> operator) {
+    List<String> replaced = new ArrayList<>(size);
+    for (String value : this) {
+      replaced.add(operator.apply(value));
+    }
+    clear();
+    addAll(replaced);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (o instanceof UserNameList && ((UserNameList) o).table == table) {
+      UserNameList other = (UserNameList) o;
+      return size == other.size
+          && (hash == 0 || other.hash == 0 || hash == other.hash)
+          && Arrays.equals(ids, 0, size, other.ids, 0, other.size);
+    }
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = hash;
+    if (h == 0) {
+      h = 1;
+      for (int i = 0; i < size; i++) {
+        h = 31 * h + Objects.hashCode(table.nameOf(ids[i]));
+      }
+      hash = h;
+    }
+    return h;
+  }
+
+  /**
+   * Gets the position of the ID of the given object in the sorted IDs.
+   *
+   * @param o the object
+   * @return the position or a negative value, if the object is not in the list
+   */
+  private int sortedPosition(Object o) {
+    if (o != null && !(o instanceof String)) {
+      return -1;
+    }
+    int id = table.idOf((String) o);
+    return id < 0 ? -1 : Arrays.binarySearch(sorted, 0, size, id);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > ids.length) {
+      int newCapacity = Math.max(capacity, Math.max(4, ids.length + (ids.length >> 1)));
+      ids = Arrays.copyOf(ids, newCapacity);
+      sorted = Arrays.copyOf(sorted, newCapacity);
+    }
+  }
+
+  /**
+   * Inserts the ID into the sorted IDs.
+   *
+   * @param position the insertion position
+   * @param id the ID
+   * @param length the number of sorted IDs before the insertion
+   */
+  private void insertSorted(int position, int id, int length) {
+    System.arraycopy(sorted, position, sorted, position + 1, length - position);
+    sorted[position] = id;
+  }
+
+  /**
+   * Removes the ID at the given position from the sorted IDs.
+   *
+   * @param position the position
+   * @param length the number of sorted IDs before the removal
+   */
+  private void removeSorted(int position, int length) {
+    System.arraycopy(sorted, position + 1, sorted, position, length - position - 1);
+  }
+
+  @Serial
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    out.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      out.writeObject(table.nameOf(ids[i]));
+    }
+  }
+
+  @Serial
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    int length = in.readInt();
+    table = new UserNameTable();
+    ids = new int[length];
+    sorted = new int[length];
+    size = 0;
+    for (int i = 0; i < length; i++) {
+      add((String) in.readObject());
+    }
+  }
+}
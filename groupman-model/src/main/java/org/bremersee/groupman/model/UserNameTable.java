@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A symbol table of user names. Every user name gets a dense int ID, and the table keeps one
+ * instance of each user name, so the members and owners of all groups can be stored as int
+ * arrays and share the same strings.
+ *
+ * <p>The ID {@code 0} is reserved for {@code null}. User names are never removed from the table,
+ * so it grows with the number of distinct user names, that have been seen. That's why there is no
+ * shared table: a table belongs to the store, that keeps the user names (like a repository), and
+ * is released with it.
+ *
+ * @author Christian Bremer
+ */
+public final class UserNameTable {
+
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+  private volatile String[] names = new String[64];
+
+  private int size = 1;
+
+  /**
+   * Gets the ID of the user name and adds the user name to the table, if it is not present.
+   *
+   * @param userName the user name
+   * @return the ID of the user name
+   */
+  public int intern(String userName) {
+    if (userName == null) {
+      return 0;
+    }
+    Integer id = ids.get(userName);
+    if (id != null) {
+      return id;
+    }
+    synchronized (this) {
+      id = ids.get(userName);
+      if (id != null) {
+        return id;
+      }
+      String[] current = names;
+      if (size == current.length) {
+        current = Arrays.copyOf(current, current.length * 2);
+      }
+      current[size] = userName;
+      names = current;
+      ids.put(userName, size);
+      return size++;
+    }
+  }
+
+  /**
+   * Gets the ID of the user name without adding it to the table.
+   *
+   * @param userName the user name
+   * @return the ID of the user name or {@code -1}, if the user name is not present
+   */
+  public int idOf(String userName) {
+    if (userName == null) {
+      return 0;
+    }
+    return ids.getOrDefault(userName, -1);
+  }
+
+  /**
+   * Gets the user name with the given ID.
+   *
+   * @param id the ID
+   * @return the user name
+   * @throws IllegalArgumentException if there is no user name with the given ID
+   */
+  public String nameOf(int id) {
+    String[] current = names;
+    if (id < 0 || id >= current.length || (id > 0 && current[id] == null)) {
+      throw new IllegalArgumentException("There is no user name with ID " + id + ".");
+    }
+    return current[id];
+  }
+
+  /**
+   * Gets the instance of the user name, that is stored in the table, and adds the user name, if
+   * it is not present.
+   *
+   * @param userName the user name
+   * @return the stored instance of the user name
+   */
+  public String canonical(String userName) {
+    return nameOf(intern(userName));
+  }
+
+  /**
+   * Gets the number of IDs, that have been assigned, including the ID of {@code null}.
+   *
+   * @return the number of IDs
+   */
+  public int size() {
+    return ids.size() + 1;
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The conditional response test.
+ *
+ * @author Christian Bremer
+ */
+class ConditionalResponseTest {
+
+  /**
+   * A matching 'If-None-Match' header makes the response 'Not Modified' without body.
+   */
+  @Test
+  void notModified() {
+    String entityTag = EntityTags.of(3L);
+    ConditionalResponse<String> response = ConditionalResponse.of(
+        entityTag, "\"2\", \"3\"", () -> {
+          throw new AssertionError("The body must not be created.");
+        });
+    assertTrue(response.isNotModified());
+    assertEquals(entityTag, response.getEntityTag());
+    assertNull(response.getBody());
+  }
+
+  /**
+   * Without a matching header the response has the body.
+   */
+  @Test
+  void ok() {
+    String entityTag = EntityTags.of(3L);
+    ConditionalResponse<String> response = ConditionalResponse.of(entityTag, "\"2\"", () -> "a");
+    assertFalse(response.isNotModified());
+    assertEquals(entityTag, response.getEntityTag());
+    assertEquals("a", response.getBody());
+
+    response = ConditionalResponse.of(null, "*", () -> "b");
+    assertFalse(response.isNotModified());
+    assertNull(response.getEntityTag());
+    assertEquals("b", response.getBody());
+  }
+}
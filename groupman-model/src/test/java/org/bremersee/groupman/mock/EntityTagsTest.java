@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.bremersee.groupman.model.Group;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The entity tags test.
+ *
+ * @author Christian Bremer
+ */
+class EntityTagsTest {
+
+  /**
+   * Test of group.
+   */
+  @Test
+  void testOfGroup() {
+    assertNull(EntityTags.of((Group) null));
+    assertNull(EntityTags.of(new Group()));
+    assertEquals("W/\"3\"", EntityTags.of(Group.builder().version(3L).build()));
+  }
+
+  /**
+   * Test of revisions.
+   */
+  @Test
+  void testOfRevisions() {
+    assertEquals("W/\"12\"", EntityTags.of(12L));
+    assertEquals("W/\"12--1\"", EntityTags.of(12L, -1L));
+  }
+
+  /**
+   * Test matches.
+   */
+  @Test
+  void testMatches() {
+    String entityTag = EntityTags.of(12L);
+    assertTrue(EntityTags.matches("\"12\"", entityTag));
+    assertTrue(EntityTags.matches("W/\"12\"", entityTag));
+    assertTrue(EntityTags.matches("\"11\", \"12\"", entityTag));
+    assertTrue(EntityTags.matches("*", entityTag));
+    assertFalse(EntityTags.matches("\"11\"", entityTag));
+    assertFalse(EntityTags.matches("\"1\", \"2\"", entityTag));
+    assertFalse(EntityTags.matches("12", entityTag));
+    assertFalse(EntityTags.matches(null, entityTag));
+    assertFalse(EntityTags.matches("*", null));
+  }
+
+  /**
+   * Test version.
+   */
+  @Test
+  void testVersion() {
+    assertNull(EntityTags.version(null));
+    assertNull(EntityTags.version("*"));
+    assertEquals(Long.valueOf(3L), EntityTags.version("\"3\""));
+    assertEquals(Long.valueOf(3L), EntityTags.version(EntityTags.of(3L)));
+    assertEquals(Long.valueOf(3L), EntityTags.version("W/\"3\""));
+    assertThrows(IllegalArgumentException.class, () -> EntityTags.version("W/3"));
+    assertThrows(IllegalArgumentException.class, () -> EntityTags.version("\"3\", \"4\""));
+    assertThrows(IllegalArgumentException.class, () -> EntityTags.version("\"3-4\""));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> EntityTags.version("\"99999999999999999999\""));
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The group bitmap test.
+ *
+ * @author Christian Bremer
+ */
+class GroupBitmapTest {
+
+  private static GroupBitmap of(int... ids) {
+    GroupBitmap bitmap = GroupBitmap.EMPTY;
+    for (int id : ids) {
+      bitmap = bitmap.with(id);
+    }
+    return bitmap;
+  }
+
+  private static List<Integer> ids(GroupBitmap bitmap) {
+    List<Integer> ids = new ArrayList<>();
+    bitmap.forEach(ids::add);
+    return ids;
+  }
+
+  /**
+   * With and without.
+   */
+  @Test
+  void withAndWithout() {
+    GroupBitmap bitmap = of(3, 64, 200);
+    assertTrue(bitmap.contains(3));
+    assertTrue(bitmap.contains(64));
+    assertTrue(bitmap.contains(200));
+    assertFalse(bitmap.contains(4));
+    assertFalse(bitmap.contains(-1));
+    assertFalse(bitmap.contains(100000));
+    assertSame(bitmap, bitmap.with(64));
+    assertSame(bitmap, bitmap.without(65));
+    assertEquals(Arrays.asList(3, 64, 200), ids(bitmap));
+    assertEquals(of(3, 64), bitmap.without(200));
+    assertSame(GroupBitmap.EMPTY, of(200).without(200));
+    assertTrue(GroupBitmap.EMPTY.isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> bitmap.with(-1));
+  }
+
+  /**
+   * Or.
+   */
+  @Test
+  void or() {
+    GroupBitmap a = of(1, 2, 130, 70000);
+    GroupBitmap b = of(2, 3, 140000);
+    assertEquals(of(1, 2, 3, 130, 70000, 140000), a.or(b));
+    assertEquals(of(1, 2, 3, 130, 70000, 140000), b.or(a));
+    assertSame(a, a.or(GroupBitmap.EMPTY));
+    assertSame(a, GroupBitmap.EMPTY.or(a));
+  }
+
+  /**
+   * Cardinality.
+   */
+  @Test
+  void cardinality() {
+    GroupBitmap a = of(1, 2, 130, 70000);
+    assertEquals(4, a.cardinality());
+    assertEquals(0, GroupBitmap.EMPTY.cardinality());
+    assertEquals(5, a.or(of(2, 3, 70000)).cardinality());
+  }
+
+  /**
+   * A full chunk is stored as bitmap and becomes an array again, when IDs are removed.
+   */
+  @Test
+  void fullChunk() {
+    GroupBitmap even = GroupBitmap.EMPTY;
+    GroupBitmap odd = GroupBitmap.EMPTY;
+    for (int id = 0; id < 2 * GroupBitmap.ARRAY_LIMIT + 2; id += 2) {
+      even = even.with(id);
+      odd = odd.with(id + 1);
+    }
+    assertEquals(GroupBitmap.ARRAY_LIMIT + 1, even.cardinality());
+    assertTrue(even.contains(2 * GroupBitmap.ARRAY_LIMIT));
+    assertFalse(even.contains(1));
+
+    GroupBitmap array = even.without(0);
+    assertEquals(GroupBitmap.ARRAY_LIMIT, array.cardinality());
+    assertFalse(array.contains(0));
+    assertEquals(array, array.with(0).without(0));
+    assertEquals(even, array.with(0));
+
+    GroupBitmap union = even.or(odd);
+    assertEquals(2 * GroupBitmap.ARRAY_LIMIT + 2, union.cardinality());
+    assertEquals(union, odd.or(even));
+    assertEquals(union, array.or(odd).with(0));
+    List<Integer> ids = ids(union);
+    for (int i = 0; i < ids.size(); i++) {
+      assertEquals(Integer.valueOf(i), ids.get(i));
+    }
+  }
+
+  /**
+   * Equals, hash code and to string.
+   */
+  @Test
+  void equalsHashCodeAndToString() {
+    assertEquals(of(1, 70), of(70, 1));
+    assertEquals(of(1, 70).hashCode(), of(70, 1).hashCode());
+    assertNotEquals(of(1), of(2));
+    assertNotEquals(of(1), new Object());
+    assertEquals("{1, 70}", of(70, 1).toString());
+    assertEquals("{}", GroupBitmap.EMPTY.toString());
+  }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.GroupSnapshot;
+import org.bremersee.groupman.model.Source;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The group journal test.
+ *
+ * @author Christian Bremer
+ */
+class GroupJournalTest {
+
+  @TempDir
+  Path directory;
+
+  private static Group group(String id) {
+    return Group.builder()
+        .id(id)
+        .name("Group " + id)
+        .description("Gr\u00fcn " + id)
+        .source(Source.INTERNAL)
+        .createdBy("kant")
+        .createdAt(OffsetDateTime.of(2020, 1, 2, 3, 4, 5, 6, ZoneOffset.ofHours(2)))
+        .owners(Collections.singletonList("kant"))
+        .members(Arrays.asList("hegel", "fichte"))
+        .build();
+  }
+
+  private List<String> files() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(file -> file.getFileName().toString()).sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Recover the groups after reopening.
+   *
+   * @throws IOException if the journal fails
+   */
+  @Test
+  void recover() throws IOException {
+    List<Group> expected;
+    try (GroupJournal journal = GroupJournal.open(directory)) {
+      InMemoryGroupRepository repository = new InMemoryGroupRepository(journal);
+      repository.createGroup(group("a"));
+      repository.createGroup(group("b"));
+      repository.createGroup(group("c"));
+      repository.updateGroup("a", group("a").toBuilder().name("Renamed").build(), 1L);
+      repository.removeMember("b", "hegel");
+      repository.deleteGroup("c", null);
+      expected = repository.getGroups(null, null);
+    }
+
+    try (GroupJournal journal = GroupJournal.open(directory)) {
+      InMemoryGroupRepository repository = new InMemoryGroupRepository(journal);
+      assertEquals(expected, repository.getGroups(null, null));
+      assertEquals("Renamed", repository.getGroupById("a").getName());
+      assertEquals(2L, repository.getGroupById("a").getVersion().longValue());
+      assertTrue(repository.isMember("fichte", "b"));
+      assertFalse(repository.isMember("hegel", "b"));
+      assertNull(repository.getGroupById("c"));
+      assertTrue(repository.getChanges(null, null, null).isEmpty());
+    }
+  }
+
+  /**
+   * Snapshots compact the log.
+   *
+   * @throws IOException if the journal fails
+   */
+  @Test
+  void snapshot() throws IOException {
+    try (GroupJournal journal = GroupJournal.open(directory, 3)) {
+      InMemoryGroupRepository repository = new InMemoryGroupRepository(journal, Runnable::run);
+      for (int i = 0; i < 7; i++) {
+        repository.createGroup(group("g" + i));
+      }
+      repository.deleteGroup("g0", null);
+    }
+    assertEquals(
+        Arrays.asList(
+            "snapshot-00000000000000000002.bin",
+            "wal-00000000000000000002.log"),
+        files());
+
+    try (GroupJournal journal = GroupJournal.open(directory, 0)) {
+      InMemoryGroupRepository repository = new InMemoryGroupRepository(journal);
+      assertEquals(6, repository.getGroups(null, null).size());
+      assertNull(repository.getGroupById("g0"));
+      repository.checkpoint();
+      assertEquals(
+          Arrays.asList(
+              "snapshot-00000000000000000003.bin",
+              "wal-00000000000000000003.log"),
+          files());
+      assertEquals(0L, Files.size(directory.resolve("wal-00000000000000000003.log")));
+    }
+
+    try (GroupJournal journal = GroupJournal.open(directory)) {
+      assertEquals(6, new InMemoryGroupRepository(journal).getGroups(null, null).size());
+    }
+  }
+
+  /**
+   * A snapshot, that cannot be written, doesn't fail the write, that made it due.
+   *
+   * @throws IOException if the journal fails
+   */
+  @Test
+  void snapshotFailure() throws IOException {
+    for (int i = 0; i < 5; i++) {
+      Files.createDirectories(
+          directory.resolve(String.format("snapshot-%020d.bin.tmp", i)));
+    }
+    List<Runnable> checkpoints = new ArrayList<>();
+    try (GroupJournal journal = GroupJournal.open(directory, 1)) {
+      InMemoryGroupRepository repository = new InMemoryGroupRepository(journal, checkpoints::add);
+      repository.createGroup(group("a"));
+      repository.createGroup(group("b"));
+      assertEquals(1, checkpoints.size());
+      checkpoints.remove(0).run();
+
+      repository.createGroup(group("c"));
+      assertEquals(1, checkpoints.size());
+      checkpoints.remove(0).run();
+      assertEquals(3, repository.getGroups(null, null).size());
+    }
+    try (GroupJournal journal = GroupJournal.open(directory)) {
+      assertEquals(3, new InMemoryGroupRepository(journal).getGroups(null, null).size());
+    }
+  }
+
+  /**
+   * A record, that was not completely written, is cut off.
+   *
+   * @throws IOException if the journal fails
+   */
+  @Test
+  void cutOffIncompleteRecord() throws IOException {
+    try (GroupJournal journal = GroupJournal.open(directory)) {
+      new InMemoryGroupRepository(journal).createGroup(group("a"));
+    }
+    Path segment = directory.resolve("wal-00000000000000000000.log");
+    long size = Files.size(segment);
+    byte[] record = GroupJournal.put(2L, GroupSnapshot.of(group("b")));
+    Files.write(
+        segment,
+        Arrays.copyOf(record, record.length - 3),
+        StandardOpenOption.APPEND);
+
+    try (GroupJournal journal = GroupJournal.open(directory)) {
+      InMemoryGroupRepository repository = new InMemoryGroupRepository(journal);
+      assertEquals(1, repository.getGroups(null, null).size());
+      assertEquals(size, Files.size(segment));
+      repository.createGroup(group("c"));
+    }
+    try (GroupJournal journal = GroupJournal.open(directory)) {
+      assertEquals(2, new InMemoryGroupRepository(journal).getGroups(null, null).size());
+    }
+  }
+
+  /**
+   * Clear is written to the journal.
+   *
+   * @throws IOException if the journal fails
+   */
+  @Test
+  void clear() throws IOException {
+    try (GroupJournal journal = GroupJournal.open(directory)) {
+      InMemoryGroupRepository repository = new InMemoryGroupRepository(journal);
+      repository.createGroup(group("a"));
+      repository.clear();
+      repository.createGroup(group("b"));
+    }
+    try (GroupJournal journal = GroupJournal.open(directory)) {
+      InMemoryGroupRepository repository = new InMemoryGroupRepository(journal);
+      assertEquals(
+          Collections.singletonList("b"),
+          repository.getGroups(null, null).stream().map(Group::getId)
+              .collect(Collectors.toList()));
+    }
+  }
+
+  /**
+   * The sequence numbers continue after a restart, and the revisions and the change tokens from
+   * before the restart are not reused.
+   *
+   * @throws IOException if the journal fails
+   */
+  @Test
+  void sequenceAfterRestart() throws IOException {
+    long sequence;
+    long revision;
+    try (GroupJournal journal = GroupJournal.open(directory, 2)) {
+      InMemoryGroupRepository repository = new InMemoryGroupRepository(journal);
+      repository.createGroup(group("a"));
+      repository.createGroup(group("b"));
+      repository.createGroup(group("c"));
+      repository.deleteGroup("c", null);
+      sequence = repository.getChangeSequence();
+      revision = repository.getRevision("kant");
+      assertEquals(4L, sequence);
+      assertEquals(4L, revision);
+    }
+    try (GroupJournal journal = GroupJournal.open(directory)) {
+      InMemoryGroupRepository repository = new InMemoryGroupRepository(journal);
+      assertTrue(repository.getChangeSequence() > sequence);
+      assertNotEquals(revision, repository.getRevision("kant"));
+      assertNotEquals(0L, repository.getRevision("hegel"));
+      assertTrue(repository.getChanges(null, sequence, null).isEmpty());
+      assertThrows(IllegalStateException.class, () -> repository.getChanges(null, 2L, null));
+      repository.createGroup(group("d"));
+      List<GroupChangeEvent> changes = repository.getChanges(null, sequence, null);
+      assertEquals(1, changes.size());
+      assertTrue(changes.get(0).getSequence() > sequence);
+      assertEquals(changes.get(0).getSequence(), repository.getRevision("kant"));
+      sequence = repository.getChangeSequence();
+    }
+    try (GroupJournal journal = GroupJournal.open(directory)) {
+      assertTrue(new InMemoryGroupRepository(journal).getChangeSequence() > sequence);
+    }
+  }
+
+  /**
+   * Concurrent writers share the forces of the log.
+   *
+   * @throws Exception if the journal fails
+   */
+  @Test
+  void concurrentWriters() throws Exception {
+    try (GroupJournal journal = GroupJournal.open(directory, 50)) {
+      InMemoryGroupRepository repository = new InMemoryGroupRepository(journal);
+      List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        String prefix = "t" + t + "-";
+        threads.add(new Thread(() -> {
+          for (int i = 0; i < 40; i++) {
+            repository.createGroup(group(prefix + i));
+          }
+        }));
+      }
+      threads.forEach(Thread::start);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      assertEquals(160, repository.getGroups(null, null).size());
+    }
+    try (GroupJournal journal = GroupJournal.open(directory)) {
+      assertEquals(160, new InMemoryGroupRepository(journal).getGroups(null, null).size());
+    }
+  }
+}
@@ -16,33 +16,81 @@
 
 package org.bremersee.groupman.mock;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_0_ID;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_0_MEMBER_0;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_0_MEMBER_1;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_0_OWNER;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.GROUP_1_ID;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.addChangeListener;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.addMember;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.addOwner;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.createGroup;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.deleteGroup;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.execute;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.getChangeSequence;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.getChanges;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.getEditableGroups;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.getGroupById;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.getGroupSnapshot;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.getGroups;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.getGroupsByIds;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.getMaxOwnedGroups;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.getMembership;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.getMembershipIds;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.getRevision;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.getStatus;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.getUsableGroupIds;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.getUsableGroups;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.isMember;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.removeChangeListener;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.removeMember;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.removeOwner;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.reset;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.setMaxOwnedGroups;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.streamEditableGroups;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.streamGroups;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.streamMembership;
+import static org.bremersee.groupman.mock.GroupRepositoryMock.streamUsableGroups;
 import static org.bremersee.groupman.mock.GroupRepositoryMock.updateGroup;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.bremersee.groupman.model.ContinuationToken;
 import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.GroupChangeType;
+import org.bremersee.groupman.model.GroupCommand;
+import org.bremersee.groupman.model.GroupCommandResult;
+import org.bremersee.groupman.model.GroupCommandType;
+import org.bremersee.groupman.model.GroupSnapshot;
+import org.bremersee.groupman.model.Membership;
+import org.bremersee.groupman.model.Status;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * The group repository mock test.
@@ -51,6 +99,9 @@ import org.junit.jupiter.api.Test;
  */
 class GroupRepositoryMockTest {
 
+  @TempDir
+  Path directory;
+
   /**
    * Reset db.
    */
@@ -73,6 +124,24 @@ class GroupRepositoryMockTest {
     assertEquals(expected, actual);
   }
 
+  /**
+   * Test reset to a mapped snapshot.
+   *
+   * @throws IOException if the snapshot fails
+   */
+  @Test
+  void testResetToSnapshot() throws IOException {
+    Path file = directory.resolve("groups.bin");
+    List<Group> groups = getGroups();
+    MappedGroupSnapshot.write(file, groups);
+    deleteGroup(GROUP_1_ID);
+    setMaxOwnedGroups(3L);
+    reset(file);
+    assertEquals(groups, getGroups());
+    assertEquals(-1L, getMaxOwnedGroups());
+    assertTrue(isMember(GROUP_0_MEMBER_0, GROUP_0_ID));
+  }
+
   /**
    * Test create group.
    */
@@ -92,6 +161,72 @@ class GroupRepositoryMockTest {
     assertNotNull(getGroups());
   }
 
+  /**
+   * Test get groups page by page.
+   */
+  @Test
+  void testGetGroupsPaged() {
+    for (int i = 0; i < 5; i++) {
+      createGroup(Group.builder().name("group" + i).build());
+    }
+    List<Group> all = getGroups();
+    List<Group> paged = new ArrayList<>();
+    List<Group> page = getGroups(null, 3);
+    while (!page.isEmpty()) {
+      assertTrue(page.size() <= 3);
+      paged.addAll(page);
+      page = getGroups(page.get(page.size() - 1).getId(), 3);
+    }
+    assertEquals(all, paged);
+    assertTrue(getGroups(null, 0).isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> getGroups(null, -1));
+  }
+
+  /**
+   * Test stream groups.
+   */
+  @Test
+  void testStreamGroups() {
+    assertEquals(getGroups(), streamGroups().collect(Collectors.toList()));
+    assertEquals(
+        getEditableGroups(GROUP_0_OWNER),
+        streamEditableGroups(GROUP_0_OWNER).collect(Collectors.toList()));
+    assertEquals(
+        getUsableGroups(GROUP_0_MEMBER_1),
+        streamUsableGroups(GROUP_0_MEMBER_1).collect(Collectors.toList()));
+    assertEquals(
+        getMembership(GROUP_0_MEMBER_1),
+        streamMembership(GROUP_0_MEMBER_1).collect(Collectors.toList()));
+    assertThrows(IllegalArgumentException.class, () -> streamMembership(null));
+  }
+
+  /**
+   * Test that a stream reads the version of the store, that was current when it was created.
+   */
+  @Test
+  void testStreamReadsPinnedVersion() {
+    Iterator<Group> groups = streamGroups().iterator();
+    Iterator<Group> usableGroups = streamUsableGroups(GROUP_0_MEMBER_1).iterator();
+    deleteGroup(GROUP_0_ID);
+    createGroup(Group.builder().id("ffffffff").name("Later")
+        .members(singletonList(GROUP_0_MEMBER_1)).build());
+    addMember(GROUP_1_ID, "anna");
+
+    List<Group> pinned = new ArrayList<>();
+    groups.forEachRemaining(pinned::add);
+    assertEquals(
+        Arrays.asList(GROUP_0_ID, GROUP_1_ID),
+        pinned.stream().map(Group::getId).collect(Collectors.toList()));
+    assertFalse(pinned.get(1).getMembers().contains("anna"));
+    List<String> usableIds = new ArrayList<>();
+    usableGroups.forEachRemaining(group -> usableIds.add(group.getId()));
+    assertEquals(Arrays.asList(GROUP_0_ID, GROUP_1_ID), usableIds);
+
+    assertEquals(
+        Arrays.asList(GROUP_1_ID, "ffffffff"),
+        streamUsableGroups(GROUP_0_MEMBER_1).map(Group::getId).collect(Collectors.toList()));
+  }
+
   /**
    * Test get group by id.
    */
@@ -101,6 +236,38 @@ class GroupRepositoryMockTest {
     assertNotNull(getGroupById(GROUP_0_ID));
   }
 
+  /**
+   * Test get group snapshot.
+   */
+  @Test
+  void testGetGroupSnapshot() {
+    assertNull(getGroupSnapshot(null));
+    assertNull(getGroupSnapshot(UUID.randomUUID().toString()));
+    GroupSnapshot snapshot = getGroupSnapshot(GROUP_0_ID);
+    assertNotNull(snapshot);
+    assertSame(snapshot, getGroupSnapshot(GROUP_0_ID));
+
+    Group group = getGroupById(GROUP_0_ID);
+    assertNotSame(group, getGroupById(GROUP_0_ID));
+    assertEquals(snapshot.toGroup(), group);
+    assertSame(snapshot.getMembers(), group.getMembers());
+    assertThrows(UnsupportedOperationException.class, () -> group.getMembers().add("anna"));
+    group.setMembers(new ArrayList<>(group.getMembers()));
+    group.getMembers().add("anna");
+    group.setName("Changed");
+    assertEquals(snapshot, getGroupSnapshot(GROUP_0_ID));
+    assertFalse(getGroupById(GROUP_0_ID).getMembers().contains("anna"));
+
+    Group created = createGroup(Group.builder().name("Snapshot").build());
+    created.getMembers().add("anna");
+    assertFalse(getGroupSnapshot(created.getId()).getMembers().contains("anna"));
+
+    addMember(GROUP_0_ID, "anna");
+    assertNotSame(snapshot, getGroupSnapshot(GROUP_0_ID));
+    assertFalse(snapshot.getMembers().contains("anna"));
+    assertTrue(getGroupSnapshot(GROUP_0_ID).getMembers().contains("anna"));
+  }
+
   /**
    * Test update group.
    */
@@ -150,6 +317,36 @@ class GroupRepositoryMockTest {
     assertFalse(getUsableGroups(GROUP_0_OWNER).isEmpty());
   }
 
+  /**
+   * Test get usable groups page by page.
+   */
+  @Test
+  void testGetUsableGroupsPaged() {
+    for (int i = 0; i < 7; i++) {
+      createGroup(Group.builder()
+          .name("group" + i)
+          .members(i % 2 == 0 ? singletonList("anna") : emptyList())
+          .owners(i % 3 == 0 ? singletonList("anna") : emptyList())
+          .build());
+    }
+    List<Group> all = getUsableGroups("anna");
+    assertEquals(5, all.size());
+    List<Group> paged = new ArrayList<>();
+    List<Group> page = getUsableGroups("anna", null, 2);
+    while (!page.isEmpty()) {
+      paged.addAll(page);
+      page = getUsableGroups("anna", ContinuationToken.of(page.get(page.size() - 1)), 2);
+    }
+    assertEquals(all, paged);
+    assertEquals(all.subList(1, 3), getUsableGroups("anna", ContinuationToken.of(all.get(0)), 2));
+    assertEquals(
+        getMembership("anna").subList(1, 2),
+        getMembership("anna", ContinuationToken.of(getMembership("anna").get(0)), 1));
+    assertEquals(
+        getEditableGroups("anna").subList(1, 3),
+        getEditableGroups("anna", ContinuationToken.of(getEditableGroups("anna").get(0)), null));
+  }
+
   /**
    * Test get membership.
    */
@@ -168,6 +365,53 @@ class GroupRepositoryMockTest {
     assertFalse(getMembershipIds(GROUP_0_MEMBER_0).isEmpty());
   }
 
+  /**
+   * Test that the membership index follows create, update and delete.
+   */
+  @Test
+  void testMembershipIndex() {
+    Group group = createGroup(Group.builder()
+        .name("indexed")
+        .members(Arrays.asList("anna", "bert"))
+        .build());
+    assertEquals(Collections.singleton(group.getId()), getMembershipIds("anna"));
+
+    updateGroup(group.getId(), group.toBuilder()
+        .members(Arrays.asList("bert", "carl"))
+        .build());
+    assertTrue(getMembershipIds("anna").isEmpty());
+    assertEquals(1, getMembership("carl").size());
+
+    deleteGroup(group.getId());
+    assertTrue(getMembershipIds("bert").isEmpty());
+    assertTrue(getMembership("carl").isEmpty());
+  }
+
+  /**
+   * Test that the editable index follows changes of the creator and the owners.
+   */
+  @Test
+  void testEditableIndex() {
+    Group group = createGroup(Group.builder()
+        .name("owned")
+        .createdBy("anna")
+        .owners(Collections.singletonList("bert"))
+        .build());
+    assertEquals(1, getEditableGroups("anna").size());
+    assertEquals(1, getStatus("bert").getOwnedGroupSize());
+
+    updateGroup(group.getId(), group.toBuilder()
+        .createdBy("carl")
+        .owners(Collections.singletonList("carl"))
+        .build());
+    assertTrue(getEditableGroups("anna").isEmpty());
+    assertTrue(getEditableGroups("bert").isEmpty());
+    assertEquals(1, getStatus("carl").getOwnedGroupSize());
+
+    deleteGroup(group.getId());
+    assertEquals(0, getStatus("carl").getOwnedGroupSize());
+  }
+
   /**
    * Test get status.
    */
@@ -175,5 +419,409 @@ class GroupRepositoryMockTest {
   void testGetStatus() {
     assertThrows(IllegalArgumentException.class, () -> getStatus(null));
     assertNotNull(getStatus(GROUP_0_OWNER));
+    assertEquals(getMembership(GROUP_0_OWNER).size(), getStatus(GROUP_0_OWNER).getMembershipSize());
+    assertEquals(
+        getEditableGroups(GROUP_0_OWNER).size(),
+        getStatus(GROUP_0_OWNER).getOwnedGroupSize());
+    assertEquals(-1L, getStatus(GROUP_0_OWNER).getMaxOwnedGroups());
+    Status empty = getStatus(UUID.randomUUID().toString());
+    assertEquals(0L, empty.getMembershipSize());
+    assertEquals(0L, empty.getOwnedGroupSize());
+  }
+
+  /**
+   * Test max owned groups.
+   */
+  @Test
+  void testMaxOwnedGroups() {
+    setMaxOwnedGroups(10L);
+    assertEquals(10L, getMaxOwnedGroups());
+    assertEquals(10L, getStatus(GROUP_0_OWNER).getMaxOwnedGroups());
+    reset();
+    assertEquals(-1L, getStatus(GROUP_0_OWNER).getMaxOwnedGroups());
+  }
+
+  /**
+   * Test changes.
+   */
+  @Test
+  void testChanges() {
+    List<GroupChangeEvent> changes = getChanges(null, null, null);
+    assertEquals(2, changes.size());
+    assertEquals(GroupChangeType.CREATED, changes.get(0).getType());
+    assertEquals(GROUP_0_ID, changes.get(0).getGroupId());
+    assertEquals(GROUP_1_ID, changes.get(1).getGroupId());
+    assertEquals(getChangeSequence(), changes.get(1).getSequence());
+    assertEquals(changes.get(0).getSequence() + 1L, changes.get(1).getSequence());
+
+    long lastSeen = getChangeSequence();
+    List<GroupChangeEvent> published = new ArrayList<>();
+    Consumer<GroupChangeEvent> listener = published::add;
+    addChangeListener(listener);
+    try {
+      Group group = createGroup(Group.builder()
+          .name("Changes")
+          .createdBy("anna")
+          .members(Collections.singletonList("bert"))
+          .version(1L)
+          .build());
+      Group update = getGroupById(group.getId()).toBuilder()
+          .members(Collections.singletonList("carl"))
+          .version(2L)
+          .build();
+      updateGroup(group.getId(), update);
+      deleteGroup(group.getId());
+    } finally {
+      removeChangeListener(listener);
+    }
+
+    changes = getChanges(null, lastSeen, null);
+    assertEquals(changes, published);
+    assertEquals(
+        Arrays.asList(GroupChangeType.CREATED, GroupChangeType.UPDATED, GroupChangeType.DELETED),
+        changes.stream().map(GroupChangeEvent::getType).collect(Collectors.toList()));
+    assertEquals(Long.valueOf(changes.get(0).getSequence()), changes.get(0).getVersion());
+    assertEquals(Long.valueOf(changes.get(0).getSequence() + 1L), changes.get(2).getVersion());
+
+    assertEquals(2, getChanges("bert", lastSeen, null).size());
+    assertEquals(2, getChanges("carl", lastSeen, null).size());
+    assertEquals(3, getChanges("anna", lastSeen, null).size());
+    assertEquals(1, getChanges("anna", lastSeen, 1).size());
+    assertTrue(getChanges(GROUP_0_OWNER, lastSeen, null).isEmpty());
+    assertTrue(getChanges(null, getChangeSequence(), null).isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> getChanges(null, -1L, null));
+    assertThrows(
+        IllegalStateException.class,
+        () -> getChanges(null, getChangeSequence() + 1L, null));
+
+    reset();
+    assertTrue(getChangeSequence() > lastSeen);
+    assertThrows(IllegalStateException.class, () -> getChanges(null, lastSeen, null));
+  }
+
+  /**
+   * Test revision.
+   */
+  @Test
+  void testRevision() {
+    assertThrows(IllegalArgumentException.class, () -> getRevision(null));
+    String unknown = UUID.randomUUID().toString();
+    long baseline = getRevision(unknown);
+    assertTrue(baseline > 0L);
+    long revision = getRevision(GROUP_0_MEMBER_1);
+    assertTrue(revision > 0L);
+
+    deleteGroup(GROUP_0_ID);
+    assertTrue(getRevision(GROUP_0_MEMBER_1) > revision);
+    assertEquals(getChangeSequence(), getRevision(GROUP_0_OWNER));
+
+    revision = getRevision(GROUP_0_MEMBER_1);
+    createGroup(Group.builder().name("Revision").createdBy("anna").build());
+    assertEquals(revision, getRevision(GROUP_0_MEMBER_1));
+    assertEquals(getChangeSequence(), getRevision("anna"));
+
+    reset();
+    assertTrue(getRevision(unknown) > baseline);
+    assertTrue(getRevision(GROUP_0_MEMBER_1) > revision);
+  }
+
+  /**
+   * Test update group with expected version.
+   */
+  @Test
+  void testUpdateGroupWithExpectedVersion() {
+    Group group = createGroup(Group.builder().name("Versioned").version(7L).build());
+    long version = group.getVersion();
+    assertEquals(getChangeSequence(), version);
+
+    Group update = group.toBuilder().description("First").build();
+    assertEquals(
+        Long.valueOf(version + 1L),
+        updateGroup(group.getId(), update, version).getVersion());
+
+    Group staleUpdate = group.toBuilder().description("Second").build();
+    assertThrows(
+        ConcurrentModificationException.class,
+        () -> updateGroup(group.getId(), staleUpdate, version));
+    assertEquals("First", getGroupById(group.getId()).getDescription());
+    assertEquals(Long.valueOf(version + 1L), getGroupById(group.getId()).getVersion());
+
+    assertEquals(Long.valueOf(version + 2L), updateGroup(group.getId(), staleUpdate).getVersion());
+    assertNull(updateGroup(UUID.randomUUID().toString(), staleUpdate, version));
+  }
+
+  /**
+   * Test that a group, that is deleted and created again, doesn't get an old version.
+   */
+  @Test
+  void testRecreatedGroupGetsNewVersion() {
+    Group group = createGroup(Group.builder().name("Recreated").build());
+    long version = updateGroup(group.getId(), group.toBuilder().build()).getVersion();
+    deleteGroup(group.getId());
+
+    Group recreated = createGroup(Group.builder().id(group.getId()).name("Recreated").build());
+    assertTrue(recreated.getVersion() > version);
+    assertThrows(
+        ConcurrentModificationException.class,
+        () -> deleteGroup(group.getId(), version));
+  }
+
+  /**
+   * Test concurrent updates with the same expected version.
+   *
+   * @throws Exception if the execution fails
+   */
+  @Test
+  void testConcurrentUpdateGroup() throws Exception {
+    Group group = getGroupById(GROUP_0_ID);
+    long version = group.getVersion();
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        Group update = group.toBuilder().description("Update " + i).build();
+        results.add(executor.submit(() -> {
+          try {
+            updateGroup(GROUP_0_ID, update, version);
+            return true;
+          } catch (ConcurrentModificationException e) {
+            return false;
+          }
+        }));
+      }
+      int succeeded = 0;
+      for (Future<Boolean> result : results) {
+        succeeded += result.get() ? 1 : 0;
+      }
+      assertEquals(1, succeeded);
+      assertEquals(Long.valueOf(version + 1L), getGroupById(GROUP_0_ID).getVersion());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Test add and remove member.
+   */
+  @Test
+  void testAddAndRemoveMember() {
+    Group oldGroup = getGroupById(GROUP_0_ID);
+    Group group = addMember(GROUP_0_ID, "anna");
+    assertNotNull(group);
+    assertTrue(group.getMembers().contains("anna"));
+    assertEquals(Long.valueOf(oldGroup.getVersion() + 1L), group.getVersion());
+    assertFalse(oldGroup.getMembers().contains("anna"));
+    assertEquals(singletonList(GROUP_0_ID), getMembershipIds("anna").stream()
+        .collect(Collectors.toList()));
+    assertEquals(1L, getStatus("anna").getMembershipSize());
+
+    assertEquals(group, addMember(GROUP_0_ID, "anna"));
+
+    group = removeMember(GROUP_0_ID, "anna");
+    assertNotNull(group);
+    assertFalse(group.getMembers().contains("anna"));
+    assertTrue(getMembershipIds("anna").isEmpty());
+    assertEquals(0L, getStatus("anna").getMembershipSize());
+    assertEquals(group, removeMember(GROUP_0_ID, "anna"));
+
+    assertNull(addMember(UUID.randomUUID().toString(), "anna"));
+    assertThrows(IllegalArgumentException.class, () -> addMember(GROUP_0_ID, null));
+  }
+
+  /**
+   * Test add and remove owner.
+   */
+  @Test
+  void testAddAndRemoveOwner() {
+    Group group = addOwner(GROUP_0_ID, "anna");
+    assertNotNull(group);
+    assertTrue(group.getOwners().contains("anna"));
+    assertEquals(singletonList(GROUP_0_ID), getEditableGroups("anna").stream()
+        .map(Group::getId)
+        .collect(Collectors.toList()));
+    assertEquals(1L, getStatus("anna").getOwnedGroupSize());
+
+    removeOwner(GROUP_0_ID, "anna");
+    assertTrue(getEditableGroups("anna").isEmpty());
+    assertEquals(0L, getStatus("anna").getOwnedGroupSize());
+
+    // the creator can still edit the group
+    group = removeOwner(GROUP_0_ID, GROUP_0_OWNER);
+    assertFalse(group.getOwners().contains(GROUP_0_OWNER));
+    assertEquals(1L, getEditableGroups(GROUP_0_OWNER).stream()
+        .filter(editable -> GROUP_0_ID.equals(editable.getId()))
+        .count());
+  }
+
+  /**
+   * Test concurrent add member.
+   *
+   * @throws Exception if the execution fails
+   */
+  @Test
+  void testConcurrentAddMember() throws Exception {
+    int threads = 8;
+    int membersPerThread = 50;
+    long version = getGroupById(GROUP_1_ID).getVersion();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        String prefix = "user-" + i + "-";
+        results.add(executor.submit(() -> {
+          for (int j = 0; j < membersPerThread; j++) {
+            addMember(GROUP_1_ID, prefix + j);
+          }
+        }));
+      }
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    Group group = getGroupById(GROUP_1_ID);
+    assertEquals(Long.valueOf(version + threads * membersPerThread), group.getVersion());
+    for (int i = 0; i < threads; i++) {
+      for (int j = 0; j < membersPerThread; j++) {
+        String userName = "user-" + i + "-" + j;
+        assertTrue(group.getMembers().contains(userName));
+        assertTrue(getMembershipIds(userName).contains(GROUP_1_ID));
+      }
+    }
+  }
+
+  /**
+   * Test execute batch.
+   */
+  @Test
+  void testExecuteBatch() {
+    String newId = UUID.randomUUID().toString();
+    long version = getGroupById(GROUP_1_ID).getVersion();
+    List<GroupCommandResult> results = execute(Arrays.asList(
+        GroupCommand.builder()
+            .type(GroupCommandType.CREATE)
+            .group(Group.builder().id(newId).name("New").createdBy("anna")
+                .members(singletonList("anna")).build())
+            .build(),
+        GroupCommand.builder()
+            .type(GroupCommandType.CREATE)
+            .group(Group.builder().id(GROUP_0_ID).name("Duplicate").build())
+            .build(),
+        GroupCommand.builder()
+            .type(GroupCommandType.UPDATE)
+            .groupId(GROUP_1_ID)
+            .version(version)
+            .group(getGroupById(GROUP_1_ID).toBuilder().description("Batch").build())
+            .build(),
+        GroupCommand.builder()
+            .type(GroupCommandType.DELETE)
+            .groupId(GROUP_0_ID)
+            .version(version + 10L)
+            .build(),
+        GroupCommand.builder()
+            .type(GroupCommandType.DELETE)
+            .groupId(UUID.randomUUID().toString())
+            .build(),
+        GroupCommand.builder()
+            .type(GroupCommandType.UPDATE)
+            .build(),
+        null));
+    assertEquals(
+        Arrays.asList(201, 409, 200, 412, 404, 400, 400),
+        results.stream().map(GroupCommandResult::getStatus).collect(Collectors.toList()));
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(i, results.get(i).getIndex());
+    }
+    assertEquals(newId, results.get(0).getGroupId());
+    assertEquals(getGroupById(newId).getVersion(), results.get(0).getVersion());
+    assertTrue(getMembershipIds("anna").contains(newId));
+    assertEquals("Old greek philosophers", getGroupById(GROUP_0_ID).getName());
+    assertEquals(Long.valueOf(version + 1L), results.get(2).getVersion());
+    assertEquals("Batch", getGroupById(GROUP_1_ID).getDescription());
+    assertNotNull(getGroupById(GROUP_0_ID));
+
+    results = execute(singletonList(GroupCommand.builder()
+        .type(GroupCommandType.DELETE)
+        .groupId(GROUP_0_ID)
+        .version(getGroupById(GROUP_0_ID).getVersion())
+        .build()));
+    assertEquals(200, results.get(0).getStatus());
+    assertNull(getGroupById(GROUP_0_ID));
+    assertFalse(getMembershipIds(GROUP_0_MEMBER_0).contains(GROUP_0_ID));
+    assertTrue(execute(null).isEmpty());
+  }
+
+  /**
+   * Test that the changes of a batch are published together.
+   */
+  @Test
+  void testExecuteBatchPublishesOnce() {
+    List<Boolean> visible = new ArrayList<>();
+    Consumer<GroupChangeEvent> listener = event -> visible.add(
+        getGroupById("batch-0") != null && getGroupById("batch-1") != null);
+    addChangeListener(listener);
+    try {
+      List<GroupCommandResult> results = execute(Arrays.asList(
+          GroupCommand.builder()
+              .type(GroupCommandType.CREATE)
+              .group(Group.builder().id("batch-0").name("Batch 0").build())
+              .build(),
+          GroupCommand.builder()
+              .type(GroupCommandType.CREATE)
+              .group(Group.builder().id("batch-1").name("Batch 1").build())
+              .build()));
+      assertTrue(results.stream().allMatch(GroupCommandResult::isSuccessful));
+      assertEquals(Arrays.asList(true, true), visible);
+      List<GroupChangeEvent> changes = getChanges(null, getChangeSequence() - 2L, null);
+      assertEquals(
+          Arrays.asList("batch-0", "batch-1"),
+          changes.stream().map(GroupChangeEvent::getGroupId).collect(Collectors.toList()));
+    } finally {
+      removeChangeListener(listener);
+    }
+  }
+
+  /**
+   * Test is member.
+   */
+  @Test
+  void testIsMember() {
+    assertTrue(isMember(GROUP_0_MEMBER_1, GROUP_0_ID));
+    assertTrue(isMember(GROUP_0_MEMBER_1, GROUP_1_ID));
+    assertFalse(isMember(GROUP_0_MEMBER_0, GROUP_1_ID));
+    assertFalse(isMember(null, GROUP_1_ID));
+    assertFalse(isMember(GROUP_0_MEMBER_0, null));
+
+    List<Membership> memberships = Arrays.asList(
+        new Membership(GROUP_0_MEMBER_0, GROUP_0_ID),
+        new Membership(GROUP_0_MEMBER_0, GROUP_1_ID),
+        new Membership(UUID.randomUUID().toString(), GROUP_0_ID),
+        null,
+        new Membership(GROUP_0_OWNER, GROUP_0_ID));
+    assertEquals(Arrays.asList(true, false, false, false, true), isMember(memberships));
+
+    removeMember(GROUP_0_ID, GROUP_0_MEMBER_0);
+    assertEquals(Arrays.asList(false, false, false, false, true), isMember(memberships));
+    assertTrue(isMember((List<Membership>) null).isEmpty());
+  }
+
+  /**
+   * Test get usable group ids.
+   */
+  @Test
+  void testGetUsableGroupIds() {
+    assertEquals(Set.of(GROUP_0_ID), getUsableGroupIds(GROUP_0_OWNER));
+    assertEquals(Set.of(GROUP_0_ID, GROUP_1_ID), getUsableGroupIds(GROUP_0_MEMBER_1));
+    addOwner(GROUP_1_ID, GROUP_0_OWNER);
+    assertEquals(Set.of(GROUP_0_ID, GROUP_1_ID), getUsableGroupIds(GROUP_0_OWNER));
+    assertEquals(
+        getUsableGroups(GROUP_0_OWNER).stream().map(Group::getId).collect(Collectors.toSet()),
+        getUsableGroupIds(GROUP_0_OWNER));
+    deleteGroup(GROUP_1_ID);
+    assertEquals(Set.of(GROUP_0_ID), getUsableGroupIds(GROUP_0_MEMBER_1));
+    assertTrue(getUsableGroupIds(UUID.randomUUID().toString()).isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> getUsableGroupIds(null));
   }
-}
\ No newline at end of file
+}
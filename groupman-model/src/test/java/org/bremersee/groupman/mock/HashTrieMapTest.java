@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The hash trie map test.
+ *
+ * @author Christian Bremer
+ */
+class HashTrieMapTest {
+
+  /**
+   * Plus and minus.
+   */
+  @Test
+  void plusAndMinus() {
+    HashTrieMap<String, Integer> empty = HashTrieMap.empty();
+    HashTrieMap<String, Integer> map = empty.plus("kant", 1).plus("hegel", 2);
+    assertTrue(empty.isEmpty());
+    assertNull(empty.get("kant"));
+    assertEquals(2, map.size());
+    assertEquals(Integer.valueOf(1), map.get("kant"));
+    assertEquals(Integer.valueOf(3), map.getOrDefault("fichte", 3));
+    assertTrue(map.containsKey("hegel"));
+    assertFalse(map.containsKey(null));
+
+    HashTrieMap<String, Integer> changed = map.plus("kant", 4);
+    assertEquals(Integer.valueOf(4), changed.get("kant"));
+    assertEquals(Integer.valueOf(1), map.get("kant"));
+    assertEquals(2, changed.size());
+    assertSame(changed, changed.plus("kant", changed.get("kant")));
+
+    HashTrieMap<String, Integer> removed = map.minus("kant");
+    assertEquals(1, removed.size());
+    assertNull(removed.get("kant"));
+    assertEquals(Integer.valueOf(1), map.get("kant"));
+    assertSame(removed, removed.minus("fichte"));
+    assertSame(empty, removed.minus("hegel"));
+    assertThrows(IllegalArgumentException.class, () -> map.plus(null, 1));
+  }
+
+  /**
+   * Keys with the same hash code.
+   */
+  @Test
+  void collisions() {
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    HashTrieMap<String, Integer> map = HashTrieMap.<String, Integer>empty()
+        .plus("Aa", 1)
+        .plus("BB", 2)
+        .plus("AaAa", 3)
+        .plus("BBBB", 4)
+        .plus("AaBB", 5);
+    assertEquals(5, map.size());
+    assertEquals(Integer.valueOf(2), map.get("BB"));
+    assertEquals(Integer.valueOf(5), map.get("AaBB"));
+    assertEquals(Integer.valueOf(6), map.plus("BB", 6).get("BB"));
+    HashTrieMap<String, Integer> removed = map.minus("Aa").minus("BBBB");
+    assertEquals(3, removed.size());
+    assertNull(removed.get("Aa"));
+    assertEquals(Integer.valueOf(2), removed.get("BB"));
+    assertEquals(Integer.valueOf(3), removed.get("AaAa"));
+    assertTrue(removed.minus("BB").minus("AaAa").minus("AaBB").isEmpty());
+  }
+
+  /**
+   * The map works like a hash map, and older versions are not changed.
+   */
+  @Test
+  void randomChanges() {
+    Random random = new Random(42L);
+    Map<Integer, Integer> expected = new HashMap<>();
+    HashTrieMap<Integer, Integer> map = HashTrieMap.empty();
+    HashTrieMap<Integer, Integer> old = null;
+    Map<Integer, Integer> expectedOld = null;
+    for (int i = 0; i < 20000; i++) {
+      int key = random.nextInt(5000) - 2500;
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        map = map.minus(key);
+      } else {
+        expected.put(key, i);
+        map = map.plus(key, i);
+      }
+      if (i == 10000) {
+        old = map;
+        expectedOld = new HashMap<>(expected);
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    Map<Integer, Integer> actual = new HashMap<>();
+    map.forEach(actual::put);
+    assertEquals(expected, actual);
+    Map<Integer, Integer> actualOld = new HashMap<>();
+    old.forEach(actualOld::put);
+    assertEquals(expectedOld, actualOld);
+  }
+}
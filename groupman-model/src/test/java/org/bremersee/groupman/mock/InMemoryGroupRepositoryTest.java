@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupChangeEvent;
+import org.bremersee.groupman.model.GroupSnapshot;
+import org.bremersee.groupman.model.Membership;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The in memory group repository test.
+ *
+ * @author Christian Bremer
+ */
+class InMemoryGroupRepositoryTest {
+
+  private static Group group(String id, String owner, String... members) {
+    return Group.builder()
+        .id(id)
+        .name("Group " + id)
+        .createdBy(owner)
+        .owners(singletonList(owner))
+        .members(Arrays.asList(members))
+        .build();
+  }
+
+  /**
+   * Independent stores.
+   */
+  @Test
+  void independentStores() {
+    GroupRepository first = new InMemoryGroupRepository();
+    GroupRepository second = new InMemoryGroupRepository();
+    first.createGroup(group("a", "kant", "hegel"));
+    second.createGroup(group("b", "kant", "fichte"));
+
+    assertNotNull(first.getGroupById("a"));
+    assertNull(first.getGroupById("b"));
+    assertNull(second.getGroupById("a"));
+    assertEquals(singletonList("a"), first.getGroups(null, null).stream()
+        .map(Group::getId).collect(Collectors.toList()));
+    assertTrue(first.isMember("hegel", "a"));
+    assertFalse(second.isMember("hegel", "a"));
+    assertEquals(1L, first.getStatus("kant").getOwnedGroupSize());
+    assertEquals(1L, second.getStatus("kant").getOwnedGroupSize());
+    assertEquals(0L, first.getRevision("fichte"));
+    assertTrue(second.getRevision("fichte") > 0L);
+  }
+
+  /**
+   * Each repository keeps the user names of its groups in its own table.
+   */
+  @Test
+  void ownUserNames() {
+    GroupRepository first = new InMemoryGroupRepository();
+    GroupRepository second = new InMemoryGroupRepository();
+    first.createGroup(group("a", new String("kant"), "hegel"));
+    first.createGroup(group("b", new String("kant")));
+    second.createGroup(group("c", new String("kant")));
+
+    assertSame(
+        first.getGroupSnapshot("a").getCreatedBy(),
+        first.getGroupSnapshot("b").getCreatedBy());
+    assertNotSame(
+        first.getGroupSnapshot("a").getCreatedBy(),
+        second.getGroupSnapshot("c").getCreatedBy());
+  }
+
+  /**
+   * Change listeners and clear.
+   */
+  @Test
+  void changeListenersAndClear() {
+    InMemoryGroupRepository first = new InMemoryGroupRepository();
+    InMemoryGroupRepository second = new InMemoryGroupRepository();
+    List<GroupChangeEvent> events = new ArrayList<>();
+    first.addChangeListener(events::add);
+    first.createGroup(group("a", "kant"));
+    second.createGroup(group("b", "kant"));
+    assertEquals(1, events.size());
+    assertEquals("a", events.get(0).getGroupId());
+    assertEquals(1, first.getChanges(null, null, null).size());
+
+    first.setMaxOwnedGroups(5L);
+    first.clear();
+    assertNull(first.getGroupById("a"));
+    assertTrue(first.getChanges(null, null, null).isEmpty());
+    assertEquals(-1L, first.getMaxOwnedGroups());
+    assertEquals(2L, first.getChangeSequence());
+    assertEquals(2L, first.getRevision("kant"));
+    assertNotNull(second.getGroupById("b"));
+  }
+
+  /**
+   * Default methods of the interface.
+   */
+  @Test
+  void defaultMethods() {
+    GroupRepository repository = new InMemoryGroupRepository();
+    repository.createGroup(group("a", "kant", "hegel"));
+    repository.createGroup(group("b", "kant"));
+
+    assertEquals(2, repository.getGroupsByIds(Arrays.asList("a", "x", "b")).size());
+    assertEquals(2, repository.getEditableGroups("kant", null, null).size());
+    assertEquals(1, repository.getUsableGroups("hegel", null, 5).size());
+    assertEquals(1, repository.getMembership("hegel", null, null).size());
+    assertEquals(
+        Arrays.asList(true, false),
+        repository.isMember(Arrays.asList(
+            new Membership("hegel", "a"),
+            new Membership("hegel", "b"))));
+    GroupSnapshot snapshot = repository.getGroupSnapshot("a");
+    assertEquals(repository.getGroupById("a"), snapshot.toGroup());
+  }
+}
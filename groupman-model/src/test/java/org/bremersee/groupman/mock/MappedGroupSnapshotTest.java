@@ -0,0 +1,294 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.bremersee.groupman.model.ContinuationToken;
+import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.Source;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The mapped group snapshot test.
+ *
+ * @author Christian Bremer
+ */
+class MappedGroupSnapshotTest {
+
+  @TempDir
+  Path directory;
+
+  private static Group group(String id, String createdBy, List<String> owners,
+      List<String> members) {
+    return Group.builder()
+        .id(id)
+        .version(3L)
+        .name("Group " + id)
+        .description(id.equals("b") ? null : "Gr\u00fcn " + id)
+        .source(Source.LDAP)
+        .createdBy(createdBy)
+        .createdAt(OffsetDateTime.of(2020, 1, 2, 3, 4, 5, 6, ZoneOffset.ofHours(2)))
+        .owners(owners)
+        .members(members)
+        .build();
+  }
+
+  private MappedGroupSnapshot snapshot(Group... groups) throws IOException {
+    Path file = directory.resolve("groups.bin");
+    MappedGroupSnapshot.write(file, Arrays.asList(groups));
+    return MappedGroupSnapshot.open(file);
+  }
+
+  /**
+   * Groups are decoded in place.
+   *
+   * @throws IOException if the snapshot fails
+   */
+  @Test
+  void getGroups() throws IOException {
+    Group a = group("a", "kant", List.of("kant"), List.of("hegel", "fichte"));
+    Group b = group("b", null, List.of(), List.of());
+    Group c = group("c", "fichte", List.of("hegel", "fichte"), List.of("kant"));
+    MappedGroupSnapshot snapshot = snapshot(c, a, b);
+
+    assertEquals(3, snapshot.size());
+    assertEquals(a, snapshot.getGroupById("a"));
+    assertEquals(b, snapshot.getGroupById("b"));
+    assertEquals(c, snapshot.getGroupById("c"));
+    assertNull(snapshot.getGroupById("x"));
+    assertNull(snapshot.getGroupById(null));
+    assertEquals(List.of(a, b, c), snapshot.streamGroups(null, null)
+        .collect(Collectors.toList()));
+    assertEquals(List.of(b), snapshot.streamGroups("a", 1)
+        .collect(Collectors.toList()));
+    assertEquals(List.of(c), snapshot.streamGroups("bb", null)
+        .collect(Collectors.toList()));
+    assertTrue(snapshot.streamGroups("c", 10).findAny().isEmpty());
+  }
+
+  /**
+   * The membership and the editable groups are queried in place.
+   *
+   * @throws IOException if the snapshot fails
+   */
+  @Test
+  void memberships() throws IOException {
+    Group a = group("a", "kant", List.of("kant"), List.of("hegel", "fichte"));
+    Group b = group("b", "hegel", List.of(), List.of("fichte"));
+    Group c = group("c", "fichte", List.of("hegel", "fichte"), List.of("kant"));
+    MappedGroupSnapshot snapshot = snapshot(a, b, c);
+
+    assertTrue(snapshot.isMember("hegel", "a"));
+    assertFalse(snapshot.isMember("hegel", "b"));
+    assertFalse(snapshot.isMember("hegel", "x"));
+    assertFalse(snapshot.isMember("nobody", "a"));
+    assertEquals(List.of("a", "b"), List.copyOf(snapshot.getMembershipIds("fichte")));
+    assertEquals(2, snapshot.getMembershipSize("fichte"));
+    assertEquals(0, snapshot.getMembershipSize("nobody"));
+    assertEquals(2, snapshot.getEditableSize("hegel"));
+    assertEquals(1, snapshot.getEditableSize("fichte"));
+    assertEquals(List.of(a, b), snapshot.streamMembership("fichte")
+        .collect(Collectors.toList()));
+    assertEquals(List.of(b, c), snapshot.streamEditableGroups("hegel")
+        .collect(Collectors.toList()));
+    assertEquals(List.of(a, b, c), snapshot.streamUsableGroups("hegel")
+        .collect(Collectors.toList()));
+    assertEquals(List.of(a, c), snapshot.streamUsableGroups("kant")
+        .collect(Collectors.toList()));
+    assertTrue(snapshot.streamUsableGroups("nobody").findAny().isEmpty());
+  }
+
+  /**
+   * The snapshot answers like the repository it was written from.
+   *
+   * @throws IOException if the snapshot fails
+   */
+  @Test
+  void writeRepository() throws IOException {
+    InMemoryGroupRepository repository = new InMemoryGroupRepository();
+    for (int i = 0; i < 50; i++) {
+      repository.createGroup(group(
+          "g" + i, "u" + (i % 7), List.of("u" + (i % 5)), List.of("u" + (i % 3), "u" + (i % 4))));
+    }
+    Path file = directory.resolve("repository.bin");
+    MappedGroupSnapshot.write(file, repository.getGroups(null, null));
+    MappedGroupSnapshot snapshot = MappedGroupSnapshot.open(file);
+
+    assertEquals(repository.getGroups(null, null), snapshot.streamGroups(null, null)
+        .collect(Collectors.toList()));
+    for (int u = 0; u < 8; u++) {
+      String user = "u" + u;
+      assertEquals(repository.getMembershipIds(user), snapshot.getMembershipIds(user));
+      assertEquals(
+          repository.getEditableGroups(user, null, null),
+          snapshot.streamEditableGroups(user).collect(Collectors.toList()));
+      assertEquals(
+          repository.getUsableGroups(user, null, null),
+          snapshot.streamUsableGroups(user).collect(Collectors.toList()));
+      assertEquals(
+          repository.getStatus(user).getMembershipSize(),
+          snapshot.getMembershipSize(user));
+    }
+  }
+
+  /**
+   * The groups and the users are ordered like the strings, so the pages of the snapshot and of
+   * the repository are the same, and user names, that are {@code null}, are kept.
+   *
+   * @throws IOException if the snapshot fails
+   */
+  @Test
+  void orderAndNullUsers() throws IOException {
+    List<String> ids = List.of("A", "a", "\u00e4", "\uff21", "\ud83d\ude00", "z");
+    InMemoryGroupRepository repository = new InMemoryGroupRepository();
+    List<Group> groups = new ArrayList<>();
+    for (String id : ids) {
+      groups.add(repository.createGroup(
+          group(id, id + "x", List.of(id), Arrays.asList(null, id + "x", id))));
+    }
+    MappedGroupSnapshot snapshot = snapshot(groups.toArray(new Group[0]));
+
+    assertEquals(repository.getGroups(null, null), snapshot.streamGroups(null, null)
+        .collect(Collectors.toList()));
+    for (String id : List.of("a", "\u00e4", "\ud83d\ude00", "\ud83c", "\ufffd")) {
+      assertEquals(repository.getGroups(id, 2), snapshot.streamGroups(id, 2)
+          .collect(Collectors.toList()));
+    }
+    assertEquals(Arrays.asList(null, "\u00e4x", "\u00e4"),
+        snapshot.getGroupById("\u00e4").getMembers());
+    assertTrue(snapshot.isMember("\ud83d\ude00x", "\ud83d\ude00"));
+    assertEquals(1, snapshot.getMembershipSize("\uff21"));
+    assertFalse(snapshot.isMember(null, "a"));
+  }
+
+  /**
+   * A repository without journal queries the mounted snapshot in place and keeps only the changed
+   * groups on the heap.
+   *
+   * @throws IOException if the snapshot fails
+   */
+  @Test
+  void mount() throws IOException {
+    Group a = group("a", "kant", List.of("kant"), List.of("hegel", "fichte"));
+    Group b = group("b", "hegel", List.of(), List.of("fichte"));
+    Group c = group("c", "kant", List.of(), List.of("fichte"));
+    MappedGroupSnapshot snapshot = snapshot(c, b, a);
+    InMemoryGroupRepository repository = new InMemoryGroupRepository();
+    repository.createGroup(group("x", "kant", List.of(), List.of()));
+    long sequence = repository.getChangeSequence();
+    repository.load(snapshot);
+
+    assertEquals(List.of(a, b, c), repository.getGroups(null, null));
+    assertEquals(List.of(b), repository.getGroups("a", 1));
+    assertEquals(Set.of("a", "b", "c"), repository.getMembershipIds("fichte"));
+    assertEquals(sequence + 1L, repository.getChangeSequence());
+
+    assertEquals(Long.valueOf(4L), repository.addMember("b", "schelling").getVersion());
+    repository.removeMember("c", "fichte");
+    repository.deleteGroup("a", null);
+    repository.createGroup(group("d", "fichte", List.of(), List.of("fichte")));
+
+    assertEquals(List.of("b", "c", "d"), repository.getGroups(null, null).stream()
+        .map(Group::getId)
+        .collect(Collectors.toList()));
+    assertNull(repository.getGroupById("a"));
+    assertEquals(List.of("fichte", "schelling"), repository.getGroupSnapshot("b").getMembers());
+    assertEquals(Set.of("b", "d"), repository.getMembershipIds("fichte"));
+    assertEquals(List.of("d"), repository
+        .getMembership("fichte", ContinuationToken.of("b"), null).stream()
+        .map(Group::getId)
+        .collect(Collectors.toList()));
+    assertEquals(Set.of("c"), repository.getUsableGroupIds("kant"));
+    assertTrue(repository.isMember("schelling", "b"));
+    assertFalse(repository.isMember("hegel", "a"));
+    assertEquals(2L, repository.getStatus("fichte").getMembershipSize());
+    assertEquals(1L, repository.getStatus("kant").getOwnedGroupSize());
+
+    snapshot.close();
+    assertThrows(IllegalStateException.class, () -> repository.getGroups(null, null));
+    repository.clear();
+    assertEquals(List.of(), repository.getGroups(null, null));
+    assertThrows(IllegalArgumentException.class, () -> repository.load(null));
+  }
+
+  /**
+   * A repository with journal copies the groups of the snapshot, so the snapshot can be closed.
+   *
+   * @throws IOException if the snapshot fails
+   */
+  @Test
+  void loadIntoJournal() throws IOException {
+    Group a = group("a", "kant", List.of("kant"), List.of("hegel", "fichte"));
+    Group b = group("b", "hegel", List.of(), List.of("fichte"));
+    MappedGroupSnapshot snapshot = snapshot(b, a);
+    try (GroupJournal journal = GroupJournal.open(directory.resolve("journal"))) {
+      InMemoryGroupRepository repository = new InMemoryGroupRepository(journal);
+      repository.load(snapshot);
+      snapshot.close();
+
+      assertEquals(List.of(a, b), repository.getGroups(null, null));
+      assertEquals(Set.of("a", "b"), repository.getMembershipIds("fichte"));
+      assertThrows(IllegalStateException.class, () -> snapshot.getGroupById("a"));
+    }
+    try (GroupJournal journal = GroupJournal.open(directory.resolve("journal"))) {
+      assertEquals(List.of(a, b), new InMemoryGroupRepository(journal).getGroups(null, null));
+    }
+  }
+
+  /**
+   * Illegal files and groups are rejected.
+   *
+   * @throws IOException if the test fails
+   */
+  @Test
+  void reject() throws IOException {
+    Path file = directory.resolve("illegal.bin");
+    Files.write(file, new byte[100]);
+    assertThrows(IOException.class, () -> MappedGroupSnapshot.open(file));
+    Group a = group("a", "kant", Collections.emptyList(), Collections.emptyList());
+    assertThrows(IllegalArgumentException.class, () -> snapshot(a, a));
+    assertThrows(IllegalArgumentException.class, () -> snapshot(a).streamGroups(null, -1));
+
+    Path valid = directory.resolve("groups.bin");
+    byte[] bytes = Files.readAllBytes(valid);
+    for (int offset = 8; offset < 40; offset += Integer.BYTES) {
+      byte[] corrupt = bytes.clone();
+      corrupt[offset] = 0x7f;
+      Files.write(file, corrupt);
+      assertThrows(IOException.class, () -> MappedGroupSnapshot.open(file));
+    }
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+    assertThrows(IOException.class, () -> MappedGroupSnapshot.open(file));
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import org.bremersee.groupman.mock.MembershipBitmaps.Relation;
+import org.bremersee.groupman.model.UserNameTable;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The membership bitmaps test.
+ *
+ * @author Christian Bremer
+ */
+class MembershipBitmapsTest {
+
+  /**
+   * Add and remove.
+   */
+  @Test
+  void addAndRemove() {
+    MembershipBitmaps bitmaps = new MembershipBitmaps(new UserNameTable());
+    bitmaps.add(Relation.MEMBER, "kant", "g0");
+    bitmaps.add(Relation.MEMBER, "kant", "g1");
+    bitmaps.add(Relation.EDITOR, "kant", "g2");
+    bitmaps.add(Relation.MEMBER, "hegel", "g1");
+
+    assertTrue(bitmaps.contains(Relation.MEMBER, "kant", "g0"));
+    assertFalse(bitmaps.contains(Relation.EDITOR, "kant", "g0"));
+    assertFalse(bitmaps.contains(Relation.MEMBER, "fichte", "g0"));
+    assertFalse(bitmaps.contains(Relation.MEMBER, "kant", "g9"));
+    assertEquals(2, bitmaps.count(Relation.MEMBER, "kant"));
+    assertEquals(1, bitmaps.count(Relation.EDITOR, "kant"));
+    assertEquals(0, bitmaps.count(Relation.EDITOR, "fichte"));
+    assertEquals(Set.of("g0", "g1"), bitmaps.groupIds(bitmaps.get(Relation.MEMBER, "kant")));
+    assertEquals(
+        Set.of("g0", "g1", "g2"),
+        bitmaps.groupIds(bitmaps.get(Relation.MEMBER, "kant")
+            .or(bitmaps.get(Relation.EDITOR, "kant"))));
+
+    bitmaps.remove(Relation.MEMBER, "kant", "g0");
+    bitmaps.remove(Relation.MEMBER, "fichte", "g0");
+    bitmaps.remove(Relation.MEMBER, "kant", "g9");
+    assertFalse(bitmaps.contains(Relation.MEMBER, "kant", "g0"));
+    assertEquals(1, bitmaps.count(Relation.MEMBER, "kant"));
+
+    bitmaps.clear();
+    assertEquals(0, bitmaps.count(Relation.MEMBER, "kant"));
+    assertTrue(bitmaps.groupIds(bitmaps.get(Relation.EDITOR, "kant")).isEmpty());
+  }
+
+  /**
+   * Copy.
+   */
+  @Test
+  void copy() {
+    MembershipBitmaps bitmaps = new MembershipBitmaps(new UserNameTable());
+    bitmaps.add(Relation.MEMBER, "kant", "g0");
+    MembershipBitmaps copy = bitmaps.copy();
+    copy.add(Relation.MEMBER, "kant", "g1");
+    copy.remove(Relation.MEMBER, "kant", "g0");
+    copy.add(Relation.EDITOR, "hegel", "g0");
+
+    assertEquals(Set.of("g0"), bitmaps.groupIds(bitmaps.get(Relation.MEMBER, "kant")));
+    assertEquals(0, bitmaps.count(Relation.EDITOR, "hegel"));
+    assertFalse(bitmaps.contains(Relation.MEMBER, "kant", "g1"));
+    assertEquals(Set.of("g1"), copy.groupIds(copy.get(Relation.MEMBER, "kant")));
+    assertTrue(copy.contains(Relation.EDITOR, "hegel", "g0"));
+  }
+
+  /**
+   * Many groups.
+   */
+  @Test
+  void manyGroups() {
+    MembershipBitmaps bitmaps = new MembershipBitmaps(new UserNameTable());
+    for (int i = 0; i < 1000; i++) {
+      bitmaps.add(i % 2 == 0 ? Relation.MEMBER : Relation.EDITOR, "kant", "g" + i);
+    }
+    assertEquals(500, bitmaps.count(Relation.MEMBER, "kant"));
+    assertEquals(500, bitmaps.count(Relation.EDITOR, "kant"));
+    assertEquals(1000, bitmaps.get(Relation.MEMBER, "kant")
+        .or(bitmaps.get(Relation.EDITOR, "kant")).cardinality());
+    assertTrue(bitmaps.contains(Relation.EDITOR, "kant", "g999"));
+  }
+
+  /**
+   * The ID of a group without relations is reused, but an older copy still resolves it to the
+   * old group.
+   */
+  @Test
+  void reuseIds() {
+    MembershipBitmaps bitmaps = new MembershipBitmaps(new UserNameTable());
+    bitmaps.add(Relation.MEMBER, "kant", "g0");
+    bitmaps.add(Relation.EDITOR, "kant", "g0");
+    bitmaps.add(Relation.MEMBER, "hegel", "g1");
+    assertEquals(2, bitmaps.groupIdCount());
+
+    MembershipBitmaps copy = bitmaps.copy();
+    copy.remove(Relation.MEMBER, "kant", "g0");
+    assertEquals(2, copy.groupIdCount());
+    copy.remove(Relation.EDITOR, "kant", "g0");
+    assertEquals(1, copy.groupIdCount());
+    copy.add(Relation.MEMBER, "fichte", "g2");
+    assertEquals(2, copy.groupIdCount());
+    assertEquals(bitmaps.get(Relation.MEMBER, "kant"), copy.get(Relation.MEMBER, "fichte"));
+
+    assertEquals(Set.of("g0"), bitmaps.groupIds(bitmaps.get(Relation.MEMBER, "kant")));
+    assertEquals(Set.of("g2"), copy.groupIds(copy.get(Relation.MEMBER, "fichte")));
+    assertFalse(copy.contains(Relation.MEMBER, "kant", "g0"));
+    assertFalse(copy.contains(Relation.MEMBER, "fichte", "g0"));
+    assertTrue(bitmaps.contains(Relation.MEMBER, "kant", "g0"));
+    assertFalse(bitmaps.contains(Relation.MEMBER, "kant", "g2"));
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.bremersee.groupman.model.Group;
+import org.bremersee.groupman.model.GroupSnapshot;
+import org.bremersee.groupman.model.UserNameList;
+import org.bremersee.groupman.model.UserNameTable;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The off-heap group repository test.
+ *
+ * @author Christian Bremer
+ */
+class OffHeapGroupRepositoryTest {
+
+  private static Group group(String id, String... members) {
+    return Group.builder()
+        .id(id)
+        .name("Group " + id)
+        .createdBy("kant")
+        .owners(Collections.singletonList("kant"))
+        .members(Arrays.asList(members))
+        .build();
+  }
+
+  /**
+   * Stored lists are views of direct buffers.
+   */
+  @Test
+  void userLists() {
+    OffHeapUserLists userLists = new OffHeapUserLists(new UserNameTable(), 16);
+    List<String> small = userLists.apply(new UserNameList(Arrays.asList("hegel", "fichte")));
+    List<String> large = userLists.apply(Arrays.asList("a", "b", "c", "d", "e", null));
+    assertEquals(Arrays.asList("hegel", "fichte"), small);
+    assertEquals(Arrays.asList("a", "b", "c", "d", "e", null), large);
+    assertEquals(16 + 48, userLists.getAllocatedBytes());
+    assertEquals(16 + 48, userLists.getUsedBytes());
+    assertTrue(small.contains("fichte"));
+    assertFalse(small.contains("kant"));
+    assertFalse(small.contains(1));
+    assertEquals(5, large.indexOf(null));
+    assertEquals(Arrays.asList("hegel", "fichte").hashCode(), small.hashCode());
+    assertThrows(UnsupportedOperationException.class, () -> small.add("kant"));
+    assertThrows(IndexOutOfBoundsException.class, () -> small.get(2));
+    assertTrue(userLists.apply(Collections.emptyList()).isEmpty());
+  }
+
+  /**
+   * The space of lists, that are not referenced anymore, is reused.
+   *
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  void reuseSpace() throws InterruptedException {
+    OffHeapUserLists userLists = new OffHeapUserLists(new UserNameTable(), 1024);
+    List<String> kept = userLists.apply(Arrays.asList("hegel", "fichte"));
+    for (int i = 0; i < 1000; i++) {
+      userLists.apply(Arrays.asList("kant", "schelling", "user" + i));
+    }
+    long allocated = userLists.getAllocatedBytes();
+    for (int i = 0; i < 100 && userLists.getUsedBytes() > 16; i++) {
+      System.gc();
+      Thread.sleep(50L);
+    }
+    assertEquals(16, userLists.getUsedBytes());
+    for (int i = 0; i < 10; i++) {
+      userLists.apply(Arrays.asList("kant", "schelling", "user" + i));
+    }
+    assertEquals(allocated, userLists.getAllocatedBytes());
+    assertEquals(Arrays.asList("hegel", "fichte"), kept);
+  }
+
+  /**
+   * The group IDs of the users work like a sorted set.
+   */
+  @Test
+  void groupIds() {
+    OffHeapUserLists userLists = new OffHeapUserLists(new UserNameTable(), 256);
+    Random random = new Random(42L);
+    TreeSet<String> expected = new TreeSet<>();
+    GroupIdSet ids = userLists.emptyGroupIds();
+    GroupIdSet old = ids;
+    List<String> expectedOld = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      String groupId = "g" + random.nextInt(300);
+      if (random.nextInt(3) == 0) {
+        expected.remove(groupId);
+        ids = ids.minus(groupId);
+      } else {
+        expected.add(groupId);
+        ids = ids.plus(groupId);
+      }
+      if (i == 1000) {
+        old = ids;
+        expectedOld.addAll(expected);
+      }
+    }
+    assertEquals(expected.size(), ids.size());
+    List<String> actual = new ArrayList<>();
+    ids.after(null).forEachRemaining(actual::add);
+    assertEquals(new ArrayList<>(expected), actual);
+    actual.clear();
+    ids.after("g150").forEachRemaining(actual::add);
+    assertEquals(new ArrayList<>(expected.tailSet("g150", false)), actual);
+    assertTrue(ids.contains(expected.first()));
+    assertFalse(ids.contains("x"));
+    assertFalse(ids.contains(null));
+    assertSame(ids, ids.plus(expected.first()));
+    assertSame(ids, ids.minus("x"));
+    actual.clear();
+    old.after(null).forEachRemaining(actual::add);
+    assertEquals(expectedOld, actual);
+    assertTrue(ids.minus("x").plus("").contains(""));
+    assertThrows(IllegalArgumentException.class, () -> userLists.emptyGroupIds().plus(null));
+  }
+
+  /**
+   * Stored lists are serialized as user name lists.
+   *
+   * @throws Exception if serialization fails
+   */
+  @Test
+  void serialize() throws Exception {
+    OffHeapUserLists userLists = new OffHeapUserLists();
+    GroupSnapshot snapshot = GroupSnapshot.of(group("a", "hegel"), userLists.getTable(), userLists);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(snapshot);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(
+        new ByteArrayInputStream(bytes.toByteArray()))) {
+      assertEquals(snapshot, in.readObject());
+    }
+  }
+
+  /**
+   * The repository works like the in memory repository.
+   */
+  @Test
+  void repository() {
+    OffHeapGroupRepository repository = new OffHeapGroupRepository();
+    repository.createGroup(group("a", "hegel", "fichte"));
+    repository.createGroup(group("b", "hegel"));
+    repository.addMember("b", "schelling");
+    repository.removeMember("a", "hegel");
+    repository.addOwner("a", "fichte");
+
+    Group a = repository.getGroupById("a");
+    assertEquals(Collections.singletonList("fichte"), a.getMembers());
+    assertEquals(Arrays.asList("kant", "fichte"), a.getOwners());
+    assertSame(a.getMembers(), repository.getGroupSnapshot("a").getMembers());
+    assertThrows(UnsupportedOperationException.class, () -> a.getMembers().add("changed"));
+    assertEquals(1, repository.getGroupById("a").getMembers().size());
+    assertTrue(repository.isMember("schelling", "b"));
+    assertFalse(repository.isMember("hegel", "a"));
+    assertEquals(2, repository.getEditableGroups("fichte", null, 10).size()
+        + repository.getMembership("schelling", null, null).size());
+    assertEquals(new HashSet<>(Arrays.asList("a", "b")), repository.getUsableGroupIds("kant"));
+    assertEquals(Collections.singleton("b"), repository.getMembershipIds("hegel"));
+    assertEquals(2L, repository.getStatus("kant").getOwnedGroupSize());
+    assertEquals(1L, repository.getStatus("fichte").getMembershipSize());
+    assertTrue(repository.getUserLists().getAllocatedBytes() > 0L);
+    assertThrows(IllegalArgumentException.class, () -> new OffHeapGroupRepository(null, null));
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The sorted tree map test.
+ *
+ * @author Christian Bremer
+ */
+class SortedTreeMapTest {
+
+  /**
+   * Plus and minus.
+   */
+  @Test
+  void plusAndMinus() {
+    SortedTreeMap<String, Integer> empty = SortedTreeMap.empty();
+    SortedTreeMap<String, Integer> map = empty.plus("kant", 1).plus("hegel", 2);
+    assertTrue(empty.isEmpty());
+    assertNull(empty.get("kant"));
+    assertEquals(2, map.size());
+    assertEquals(Integer.valueOf(1), map.get("kant"));
+    assertTrue(map.containsKey("hegel"));
+    assertFalse(map.containsKey("fichte"));
+
+    SortedTreeMap<String, Integer> changed = map.plus("kant", 4);
+    assertEquals(Integer.valueOf(4), changed.get("kant"));
+    assertEquals(Integer.valueOf(1), map.get("kant"));
+    assertEquals(2, changed.size());
+
+    SortedTreeMap<String, Integer> removed = map.minus("kant");
+    assertEquals(1, removed.size());
+    assertNull(removed.get("kant"));
+    assertEquals(Integer.valueOf(1), map.get("kant"));
+    assertSame(removed, removed.minus("fichte"));
+    assertTrue(removed.minus("hegel").isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> map.plus(null, 1));
+  }
+
+  /**
+   * The keys are iterated in ascending order after the given key.
+   */
+  @Test
+  void keys() {
+    SortedTreeMap<String, Integer> map = SortedTreeMap.<String, Integer>empty()
+        .plus("kant", 1)
+        .plus("hegel", 2)
+        .plus("fichte", 3)
+        .plus("schelling", 4);
+    assertEquals(Arrays.asList("fichte", "hegel", "kant", "schelling"), list(map.keys(null)));
+    assertEquals(Arrays.asList("kant", "schelling"), list(map.keys("hegel")));
+    assertEquals(Arrays.asList("kant", "schelling"), list(map.keys("herder")));
+    assertEquals(List.of(), list(map.keys("schelling")));
+    assertEquals(Arrays.asList(3, 2, 1, 4), new ArrayList<>(map.values()));
+  }
+
+  /**
+   * The map works like a tree map, and older versions are not changed.
+   */
+  @Test
+  void randomChanges() {
+    Random random = new Random(42L);
+    TreeMap<Integer, Integer> expected = new TreeMap<>();
+    SortedTreeMap<Integer, Integer> map = SortedTreeMap.empty();
+    SortedTreeMap<Integer, Integer> old = null;
+    TreeMap<Integer, Integer> expectedOld = null;
+    for (int i = 0; i < 20000; i++) {
+      int key = random.nextInt(5000) - 2500;
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        map = map.minus(key);
+      } else {
+        expected.put(key, i);
+        map = map.plus(key, i);
+      }
+      if (i == 10000) {
+        old = map;
+        expectedOld = new TreeMap<>(expected);
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    assertEquals(new ArrayList<>(expected.keySet()), list(map.keys(null)));
+    assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+    assertEquals(new ArrayList<>(expected.tailMap(17, false).keySet()), list(map.keys(17)));
+    assertEquals(new ArrayList<>(expectedOld.keySet()), list(old.keys(null)));
+    assertEquals(new ArrayList<>(expectedOld.values()), new ArrayList<>(old.values()));
+  }
+
+  private static <T> List<T> list(Iterator<T> iterator) {
+    List<T> list = new ArrayList<>();
+    iterator.forEachRemaining(list::add);
+    return list;
+  }
+}
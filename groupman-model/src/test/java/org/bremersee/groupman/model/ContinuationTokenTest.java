@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The continuation token test.
+ *
+ * @author Christian Bremer
+ */
+class ContinuationTokenTest {
+
+  /**
+   * Encode and decode.
+   */
+  @Test
+  void encodeAndDecode() {
+    String value = UUID.randomUUID().toString();
+    assertEquals(value, ContinuationToken.decode(ContinuationToken.of(value)));
+    assertEquals(
+        ContinuationToken.of(value),
+        ContinuationToken.of(Group.builder().id(value).build()));
+    assertNull(ContinuationToken.decode(null));
+  }
+
+  /**
+   * The token of the next page is created only from a full page.
+   */
+  @Test
+  void next() {
+    List<Group> page = List.of(Group.builder().id("a").build(), Group.builder().id("b").build());
+    assertEquals(ContinuationToken.of("b"), ContinuationToken.next(page, 2));
+    assertNull(ContinuationToken.next(page, 3));
+    assertNull(ContinuationToken.next(page, null));
+    assertNull(ContinuationToken.next(List.of(), 0));
+    assertNull(ContinuationToken.next(null, 1));
+  }
+
+  /**
+   * Encode and decode illegal values.
+   */
+  @Test
+  void illegalValues() {
+    assertThrows(IllegalArgumentException.class, () -> ContinuationToken.of((String) null));
+    assertThrows(IllegalArgumentException.class, () -> ContinuationToken.of(new Group()));
+    assertThrows(IllegalArgumentException.class, () -> ContinuationToken.decode("%%%"));
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The group change event test.
+ *
+ * @author Christian Bremer
+ */
+class GroupChangeEventTest {
+
+  /**
+   * Gets sequence.
+   */
+  @Test
+  void getSequence() {
+    long value = 123456789L;
+    GroupChangeEvent model = new GroupChangeEvent();
+    model.setSequence(value);
+    assertEquals(value, model.getSequence());
+
+    model = GroupChangeEvent.builder().sequence(value).build();
+    assertEquals(value, model.getSequence());
+
+    assertNotEquals(null, model);
+    assertNotEquals(new Object(), model);
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().sequence(value).build());
+
+    assertTrue(model.toString().contains(String.valueOf(value)));
+  }
+
+  /**
+   * Gets type.
+   */
+  @Test
+  void getType() {
+    GroupChangeType value = GroupChangeType.DELETED;
+    GroupChangeEvent model = new GroupChangeEvent();
+    model.setType(value);
+    assertEquals(value, model.getType());
+
+    model = GroupChangeEvent.builder().type(value).build();
+    assertEquals(value, model.getType());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().type(value).build());
+
+    assertTrue(model.toString().contains(value.toString()));
+  }
+
+  /**
+   * Gets group id.
+   */
+  @Test
+  void getGroupId() {
+    String value = UUID.randomUUID().toString();
+    GroupChangeEvent model = new GroupChangeEvent();
+    model.setGroupId(value);
+    assertEquals(value, model.getGroupId());
+
+    model = GroupChangeEvent.builder().groupId(value).build();
+    assertEquals(value, model.getGroupId());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().groupId(value).build());
+
+    assertTrue(model.toString().contains(value));
+  }
+
+  /**
+   * Gets version.
+   */
+  @Test
+  void getVersion() {
+    Long value = 12L;
+    GroupChangeEvent model = new GroupChangeEvent();
+    model.setVersion(value);
+    assertEquals(value, model.getVersion());
+
+    model = GroupChangeEvent.builder().version(value).build();
+    assertEquals(value, model.getVersion());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().version(value).build());
+
+    assertTrue(model.toString().contains(String.valueOf(value)));
+  }
+}
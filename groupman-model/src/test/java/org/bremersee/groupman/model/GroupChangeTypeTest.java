@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The group change type test.
+ *
+ * @author Christian Bremer
+ */
+class GroupChangeTypeTest {
+
+  /**
+   * From value.
+   */
+  @Test
+  void fromValue() {
+    for (GroupChangeType expected : GroupChangeType.values()) {
+      assertEquals(expected, GroupChangeType.fromValue(expected.toString()));
+    }
+    assertNull(GroupChangeType.fromValue(UUID.randomUUID().toString()));
+  }
+}
\ No newline at end of file
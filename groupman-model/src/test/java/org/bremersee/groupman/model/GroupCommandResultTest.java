@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The group command result test.
+ *
+ * @author Christian Bremer
+ */
+class GroupCommandResultTest {
+
+  /**
+   * Gets index.
+   */
+  @Test
+  void getIndex() {
+    int value = 42;
+    GroupCommandResult model = new GroupCommandResult();
+    model.setIndex(value);
+    assertEquals(value, model.getIndex());
+
+    model = GroupCommandResult.builder().index(value).build();
+    assertEquals(value, model.getIndex());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().index(value).build());
+
+    assertTrue(model.toString().contains(String.valueOf(value)));
+  }
+
+  /**
+   * Gets type.
+   */
+  @Test
+  void getType() {
+    GroupCommandType value = GroupCommandType.DELETE;
+    GroupCommandResult model = new GroupCommandResult();
+    model.setType(value);
+    assertEquals(value, model.getType());
+
+    model = GroupCommandResult.builder().type(value).build();
+    assertEquals(value, model.getType());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().type(value).build());
+
+    assertTrue(model.toString().contains(value.toString()));
+  }
+
+  /**
+   * Gets group id.
+   */
+  @Test
+  void getGroupId() {
+    String value = UUID.randomUUID().toString();
+    GroupCommandResult model = new GroupCommandResult();
+    model.setGroupId(value);
+    assertEquals(value, model.getGroupId());
+
+    model = GroupCommandResult.builder().groupId(value).build();
+    assertEquals(value, model.getGroupId());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().groupId(value).build());
+
+    assertTrue(model.toString().contains(value));
+  }
+
+  /**
+   * Gets status.
+   */
+  @Test
+  void getStatus() {
+    int value = 412;
+    GroupCommandResult model = new GroupCommandResult();
+    model.setStatus(value);
+    assertEquals(value, model.getStatus());
+
+    model = GroupCommandResult.builder().status(value).build();
+    assertEquals(value, model.getStatus());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().status(value).build());
+
+    assertTrue(model.toString().contains(String.valueOf(value)));
+  }
+
+  /**
+   * Gets version.
+   */
+  @Test
+  void getVersion() {
+    Long value = 12L;
+    GroupCommandResult model = new GroupCommandResult();
+    model.setVersion(value);
+    assertEquals(value, model.getVersion());
+
+    model = GroupCommandResult.builder().version(value).build();
+    assertEquals(value, model.getVersion());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().version(value).build());
+
+    assertTrue(model.toString().contains(String.valueOf(value)));
+  }
+
+  /**
+   * Gets message.
+   */
+  @Test
+  void getMessage() {
+    String value = UUID.randomUUID().toString();
+    GroupCommandResult model = new GroupCommandResult();
+    model.setMessage(value);
+    assertEquals(value, model.getMessage());
+
+    model = GroupCommandResult.builder().message(value).build();
+    assertEquals(value, model.getMessage());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().message(value).build());
+
+    assertTrue(model.toString().contains(value));
+  }
+
+  /**
+   * Is successful.
+   */
+  @Test
+  void isSuccessful() {
+    assertTrue(GroupCommandResult.builder().status(201).build().isSuccessful());
+    assertFalse(GroupCommandResult.builder().status(404).build().isSuccessful());
+  }
+}
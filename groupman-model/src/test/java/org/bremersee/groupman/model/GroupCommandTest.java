@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The group command test.
+ *
+ * @author Christian Bremer
+ */
+class GroupCommandTest {
+
+  /**
+   * Gets type.
+   */
+  @Test
+  void getType() {
+    GroupCommandType value = GroupCommandType.UPDATE;
+    GroupCommand model = new GroupCommand();
+    model.setType(value);
+    assertEquals(value, model.getType());
+
+    model = GroupCommand.builder().type(value).build();
+    assertEquals(value, model.getType());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().type(value).build());
+
+    assertTrue(model.toString().contains(value.toString()));
+  }
+
+  /**
+   * Gets group id.
+   */
+  @Test
+  void getGroupId() {
+    String value = UUID.randomUUID().toString();
+    GroupCommand model = new GroupCommand();
+    model.setGroupId(value);
+    assertEquals(value, model.getGroupId());
+
+    model = GroupCommand.builder().groupId(value).build();
+    assertEquals(value, model.getGroupId());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().groupId(value).build());
+
+    assertTrue(model.toString().contains(value));
+  }
+
+  /**
+   * Gets version.
+   */
+  @Test
+  void getVersion() {
+    Long value = 12L;
+    GroupCommand model = new GroupCommand();
+    model.setVersion(value);
+    assertEquals(value, model.getVersion());
+
+    model = GroupCommand.builder().version(value).build();
+    assertEquals(value, model.getVersion());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().version(value).build());
+
+    assertTrue(model.toString().contains(String.valueOf(value)));
+  }
+
+  /**
+   * Gets group.
+   */
+  @Test
+  void getGroup() {
+    Group value = Group.builder().name(UUID.randomUUID().toString()).build();
+    GroupCommand model = new GroupCommand();
+    model.setGroup(value);
+    assertEquals(value, model.getGroup());
+
+    model = GroupCommand.builder().group(value).build();
+    assertEquals(value, model.getGroup());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().group(value).build());
+
+    assertTrue(model.toString().contains(value.getName()));
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The group module test.
+ *
+ * @author Christian Bremer
+ */
+class GroupModuleTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .registerModule(new JavaTimeModule())
+      .registerModule(new GroupModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  /**
+   * Null values and empty lists are skipped.
+   *
+   * @throws JsonProcessingException if serialization fails
+   */
+  @Test
+  void skipNullAndEmpty() throws JsonProcessingException {
+    Group group = new Group();
+    group.setId("a");
+    group.setName("Group \"A\"");
+    group.setMembers(Arrays.asList("kant", "hegel"));
+    group.setOwners(List.of());
+    assertEquals(
+        "{\"id\":\"a\",\"name\":\"Group \\\"A\\\"\",\"members\":[\"kant\",\"hegel\"]}",
+        objectMapper.writeValueAsString(group));
+    assertEquals("{}", objectMapper.writeValueAsString(new Group()));
+  }
+
+  /**
+   * Write and read a group.
+   *
+   * @throws JsonProcessingException if serialization fails
+   */
+  @Test
+  void roundTrip() throws JsonProcessingException {
+    Group group = Group.builder()
+        .id("a")
+        .version(7L)
+        .createdBy("kant")
+        .createdAt(OffsetDateTime.of(2020, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC))
+        .modifiedAt(OffsetDateTime.of(2020, 2, 3, 4, 5, 6, 0, ZoneOffset.UTC))
+        .source(Source.LDAP)
+        .name("A")
+        .description("The group A")
+        .members(Arrays.asList("hegel", "fichte"))
+        .owners(Arrays.asList("kant"))
+        .build();
+    String json = objectMapper.writeValueAsString(group);
+    assertEquals(
+        "{\"id\":\"a\",\"version\":7,\"createdBy\":\"kant\","
+            + "\"createdAt\":\"2020-01-02T03:04:05Z\",\"modifiedAt\":\"2020-02-03T04:05:06Z\","
+            + "\"source\":\"LDAP\",\"name\":\"A\",\"description\":\"The group A\","
+            + "\"members\":[\"hegel\",\"fichte\"],\"owners\":[\"kant\"]}",
+        json);
+    assertEquals(group, objectMapper.readValue(json, Group.class));
+
+    List<Group> groups = Arrays.asList(group, Group.builder().id("b").build());
+    assertEquals(groups, objectMapper.readValue(
+        objectMapper.writeValueAsString(groups), new TypeReference<List<Group>>() {
+        }));
+  }
+
+  /**
+   * Unknown fields and null values are accepted.
+   *
+   * @throws JsonProcessingException if deserialization fails
+   */
+  @Test
+  void read() throws JsonProcessingException {
+    Group group = objectMapper.readValue(
+        "{\"unknown\":{\"x\":[1,2]},\"id\":\"a\",\"version\":null,\"members\":[\"kant\",null,"
+            + "\"kant\"],\"owners\":null,\"source\":\"INTERNAL\",\"other\":[]}",
+        Group.class);
+    assertEquals("a", group.getId());
+    assertNull(group.getVersion());
+    assertEquals(Arrays.asList("kant", null, "kant"), group.getMembers());
+    assertEquals(List.of(), group.getOwners());
+    assertEquals(Source.INTERNAL, group.getSource());
+    assertNull(objectMapper.readValue("null", Group.class));
+
+    assertThrows(JsonProcessingException.class,
+        () -> objectMapper.readValue("{\"members\":\"kant\"}", Group.class));
+    assertThrows(JsonProcessingException.class,
+        () -> objectMapper.readValue("[]", Group.class));
+  }
+
+  /**
+   * Values of unexpected types are rejected instead of leaving the parser out of sync.
+   *
+   * @throws JsonProcessingException if deserialization fails
+   */
+  @Test
+  void rejectUnexpectedTokens() throws JsonProcessingException {
+    assertThrows(JsonProcessingException.class,
+        () -> objectMapper.readValue("{\"id\":{\"name\":\"x\"},\"name\":\"a\"}", Group.class));
+    assertThrows(JsonProcessingException.class,
+        () -> objectMapper.readValue("{\"name\":[\"a\"]}", Group.class));
+    assertThrows(JsonProcessingException.class,
+        () -> objectMapper.readValue("{\"version\":\"one\"}", Group.class));
+    assertThrows(JsonProcessingException.class,
+        () -> objectMapper.readValue("{\"version\":{}}", Group.class));
+    assertThrows(JsonProcessingException.class,
+        () -> objectMapper.readValue("{\"version\":true}", Group.class));
+
+    Group group = objectMapper.readValue(
+        "{\"id\":1,\"version\":\" 7 \",\"createdBy\":true,\"name\":\"a\"}", Group.class);
+    assertEquals("1", group.getId());
+    assertEquals(Long.valueOf(7L), group.getVersion());
+    assertEquals("true", group.getCreatedBy());
+    assertEquals("a", group.getName());
+  }
+}
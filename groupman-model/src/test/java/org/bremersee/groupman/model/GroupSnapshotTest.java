@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The group snapshot test.
+ *
+ * @author Christian Bremer
+ */
+class GroupSnapshotTest {
+
+  private static Group group() {
+    return Group.builder()
+        .id(UUID.randomUUID().toString())
+        .version(3L)
+        .createdBy("kant")
+        .createdAt(OffsetDateTime.now())
+        .modifiedAt(OffsetDateTime.now())
+        .source(Source.INTERNAL)
+        .name("Kant and 'friends'")
+        .description("Kant group")
+        .members(new ArrayList<>(Arrays.asList("kant", "hegel", "fichte")))
+        .owners(new ArrayList<>(Collections.singletonList("kant")))
+        .build();
+  }
+
+  /**
+   * Of.
+   */
+  @Test
+  void of() {
+    assertNull(GroupSnapshot.of(null));
+    Group group = group();
+    GroupSnapshot snapshot = GroupSnapshot.of(group);
+    assertEquals(group.getId(), snapshot.getId());
+    assertEquals(group.getVersion(), snapshot.getVersion());
+    assertEquals(group.getCreatedBy(), snapshot.getCreatedBy());
+    assertEquals(group.getCreatedAt(), snapshot.getCreatedAt());
+    assertEquals(group.getModifiedAt(), snapshot.getModifiedAt());
+    assertEquals(group.getSource(), snapshot.getSource());
+    assertEquals(group.getName(), snapshot.getName());
+    assertEquals(group.getDescription(), snapshot.getDescription());
+    assertEquals(group.getMembers(), snapshot.getMembers());
+    assertEquals(group.getOwners(), snapshot.getOwners());
+
+    group.getMembers().add("schelling");
+    group.setName("Changed");
+    assertFalse(snapshot.getMembers().contains("schelling"));
+    assertEquals("Kant and 'friends'", snapshot.getName());
+
+    GroupSnapshot empty = GroupSnapshot.of(new Group());
+    assertTrue(empty.getMembers().isEmpty());
+    assertTrue(empty.getOwners().isEmpty());
+  }
+
+  /**
+   * Is immutable.
+   */
+  @Test
+  void isImmutable() {
+    GroupSnapshot snapshot = GroupSnapshot.of(group());
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.getMembers().add("hume"));
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.getOwners().remove("kant"));
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.getMembers().clear());
+  }
+
+  /**
+   * To builder and to group.
+   */
+  @Test
+  void toBuilderAndToGroup() {
+    Group group = group();
+    GroupSnapshot snapshot = GroupSnapshot.of(group);
+    Group copy = snapshot.toGroup();
+    assertEquals(group, copy);
+    assertSame(snapshot.getMembers(), copy.getMembers());
+    assertThrows(UnsupportedOperationException.class, () -> copy.getMembers().add("schelling"));
+    assertThrows(UnsupportedOperationException.class, () -> copy.getOwners().clear());
+    copy.setMembers(new ArrayList<>(copy.getMembers()));
+    copy.getMembers().add("schelling");
+    assertFalse(snapshot.getMembers().contains("schelling"));
+    assertEquals(Collections.singletonList("kant"), snapshot.getOwners());
+
+    GroupSnapshot changed = GroupSnapshot.of(snapshot.toBuilder().version(4L).build());
+    assertEquals(Long.valueOf(4L), changed.getVersion());
+    assertEquals(Long.valueOf(3L), snapshot.getVersion());
+    assertNotEquals(snapshot, changed);
+  }
+
+  /**
+   * Equals and hash code.
+   */
+  @Test
+  void equalsAndHashCode() {
+    Group group = group();
+    GroupSnapshot snapshot = GroupSnapshot.of(group);
+    GroupSnapshot other = GroupSnapshot.of(group);
+    assertNotSame(snapshot, other);
+    assertEquals(snapshot, other);
+    assertEquals(snapshot.hashCode(), other.hashCode());
+    //noinspection EqualsWithItself
+    assertEquals(snapshot, snapshot);
+    assertNotEquals(null, snapshot);
+    assertNotEquals(new Object(), snapshot);
+    assertNotEquals(snapshot, GroupSnapshot.of(snapshot.toBuilder().name("Other").build()));
+    assertNotEquals(snapshot,
+        GroupSnapshot.of(snapshot.toBuilder().members(Collections.emptyList()).build()));
+    assertTrue(snapshot.toString().contains(group.getId()));
+  }
+
+  /**
+   * Serialize.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  void serialize() throws Exception {
+    GroupSnapshot snapshot = GroupSnapshot.of(group());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(snapshot);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(
+        new ByteArrayInputStream(bytes.toByteArray()))) {
+      GroupSnapshot copy = (GroupSnapshot) in.readObject();
+      assertEquals(snapshot, copy);
+      assertEquals(snapshot.hashCode(), copy.hashCode());
+      assertThrows(UnsupportedOperationException.class, () -> copy.getMembers().add("hume"));
+    }
+  }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The membership test.
+ *
+ * @author Christian Bremer
+ */
+class MembershipTest {
+
+  /**
+   * Gets user name.
+   */
+  @Test
+  void getUserName() {
+    String value = UUID.randomUUID().toString();
+    Membership model = new Membership();
+    model.setUserName(value);
+    assertEquals(value, model.getUserName());
+
+    model = Membership.builder().userName(value).build();
+    assertEquals(value, model.getUserName());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().userName(value).build());
+
+    assertTrue(model.toString().contains(value));
+  }
+
+  /**
+   * Gets group id.
+   */
+  @Test
+  void getGroupId() {
+    String value = UUID.randomUUID().toString();
+    Membership model = new Membership();
+    model.setGroupId(value);
+    assertEquals(value, model.getGroupId());
+
+    model = Membership.builder().groupId(value).build();
+    assertEquals(value, model.getGroupId());
+
+    //noinspection EqualsWithItself
+    assertEquals(model, model);
+    assertEquals(model, model.toBuilder().groupId(value).build());
+
+    assertTrue(model.toString().contains(value));
+  }
+}
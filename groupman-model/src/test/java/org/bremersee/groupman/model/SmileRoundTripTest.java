@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The smile round trip test.
+ *
+ * @author Christian Bremer
+ */
+class SmileRoundTripTest {
+
+  private final ObjectMapper smileMapper = new SmileMapper()
+      .registerModule(new JavaTimeModule())
+      .registerModule(new GroupModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  private final ObjectMapper jsonMapper = new ObjectMapper()
+      .registerModule(new JavaTimeModule())
+      .registerModule(new GroupModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  /**
+   * Write and read groups.
+   *
+   * @throws IOException if serialization fails
+   */
+  @Test
+  void group() throws IOException {
+    Group group = Group.builder()
+        .id("a")
+        .version(7L)
+        .createdBy("kant")
+        .createdAt(OffsetDateTime.of(2020, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC))
+        .modifiedAt(OffsetDateTime.of(2020, 2, 3, 4, 5, 6, 0, ZoneOffset.UTC))
+        .source(Source.LDAP)
+        .name("A")
+        .description("The group A")
+        .members(Arrays.asList("hegel", "fichte"))
+        .owners(Arrays.asList("kant"))
+        .build();
+    assertEquals(group, smileMapper.readValue(smileMapper.writeValueAsBytes(group), Group.class));
+
+    List<Group> groups = Arrays.asList(group, Group.builder().id("b").build());
+    assertEquals(groups, smileMapper.readValue(
+        smileMapper.writeValueAsBytes(groups), new TypeReference<List<Group>>() {
+        }));
+  }
+
+  /**
+   * A group with many members is smaller in smile than in json.
+   *
+   * @throws IOException if serialization fails
+   */
+  @Test
+  void largeMembers() throws IOException {
+    List<String> members = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      members.add("user" + i);
+    }
+    Group group = Group.builder().id("large").name("Large").members(members).build();
+    byte[] smile = smileMapper.writeValueAsBytes(group);
+    assertEquals(group, smileMapper.readValue(smile, Group.class));
+    assertTrue(smile.length < jsonMapper.writeValueAsBytes(group).length);
+  }
+
+  /**
+   * Write and read a status.
+   *
+   * @throws IOException if serialization fails
+   */
+  @Test
+  void status() throws IOException {
+    Status status = new Status(10L, 3L, 4711L);
+    assertEquals(status,
+        smileMapper.readValue(smileMapper.writeValueAsBytes(status), Status.class));
+  }
+
+  /**
+   * Write and read a group id list.
+   *
+   * @throws IOException if serialization fails
+   */
+  @Test
+  void groupIdList() throws IOException {
+    GroupIdList ids = new GroupIdList(Arrays.asList("a", "b", "c"));
+    GroupIdList actual = smileMapper.readValue(
+        smileMapper.writeValueAsBytes(ids), GroupIdList.class);
+    assertEquals(ids, actual);
+    assertEquals(new GroupIdList(),
+        smileMapper.readValue(smileMapper.writeValueAsBytes(new GroupIdList()), GroupIdList.class));
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The user name list test.
+ *
+ * @author Christian Bremer
+ */
+class UserNameListTest {
+
+  /**
+   * Instantiate without duplicates.
+   */
+  @Test
+  void instantiateWithoutDuplicates() {
+    UserNameList list = new UserNameList(Arrays.asList("kant", "hegel", "kant", "fichte"));
+    assertEquals(Arrays.asList("kant", "hegel", "fichte"), list);
+    assertEquals(Arrays.asList("kant", "hegel", "fichte").hashCode(), list.hashCode());
+    assertEquals("[kant, hegel, fichte]", list.toString());
+    assertTrue(new UserNameList(new UserNameTable(), null).isEmpty());
+  }
+
+  /**
+   * Add and contains.
+   */
+  @Test
+  void addAndContains() {
+    UserNameList list = new UserNameList();
+    assertTrue(list.add("kant"));
+    assertFalse(list.add("kant"));
+    list.add(0, "hegel");
+    assertThrows(IllegalArgumentException.class, () -> list.add(1, "kant"));
+    assertEquals(Arrays.asList("hegel", "kant"), list);
+    assertTrue(list.contains("kant"));
+    assertFalse(list.contains("fichte"));
+    assertEquals(1, list.indexOf("kant"));
+    assertEquals(1, list.lastIndexOf("kant"));
+    assertEquals(-1, list.indexOf("fichte"));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.add(3, "fichte"));
+  }
+
+  /**
+   * Set.
+   */
+  @Test
+  void set() {
+    UserNameList list = new UserNameList(Arrays.asList("kant", "hegel"));
+    assertEquals("kant", list.set(0, "kant"));
+    assertEquals("kant", list.set(0, "fichte"));
+    assertFalse(list.contains("kant"));
+    assertTrue(list.contains("fichte"));
+    assertThrows(IllegalArgumentException.class, () -> list.set(0, "hegel"));
+    assertEquals(Arrays.asList("fichte", "hegel"), list);
+  }
+
+  /**
+   * Remove.
+   */
+  @Test
+  void remove() {
+    UserNameList list = new UserNameList(Arrays.asList("kant", "hegel", "fichte", "schelling"));
+    assertTrue(list.remove("hegel"));
+    assertFalse(list.remove("hegel"));
+    assertFalse(list.contains("hegel"));
+    assertEquals("kant", list.remove(0));
+    assertFalse(list.contains("kant"));
+    Iterator<String> iterator = list.iterator();
+    iterator.next();
+    iterator.remove();
+    assertFalse(list.contains("fichte"));
+    assertTrue(list.removeIf("schelling"::equals));
+    assertTrue(list.isEmpty());
+    assertTrue(list.add("kant"));
+    list.clear();
+    assertFalse(list.contains("kant"));
+  }
+
+  /**
+   * Sort and replace all.
+   */
+  @Test
+  void sortAndReplaceAll() {
+    UserNameList list = new UserNameList(Arrays.asList("kant", "hegel", "fichte"));
+    list.sort(Comparator.naturalOrder());
+    assertEquals(Arrays.asList("fichte", "hegel", "kant"), list);
+    list.replaceAll(value -> value.startsWith("h") ? "kant" : value.toUpperCase());
+    assertEquals(Arrays.asList("FICHTE", "kant", "KANT"), list);
+    assertTrue(list.contains("kant"));
+    assertFalse(list.contains("hegel"));
+  }
+
+  /**
+   * Group keeps duplicates, only the snapshot drops them.
+   */
+  @Test
+  void groupKeepsDuplicates() {
+    Group group = Group.builder()
+        .members(Arrays.asList("kant", "hegel", "kant"))
+        .build();
+    assertEquals(Arrays.asList("kant", "hegel", "kant"), group.getMembers());
+    group.setOwners(new ArrayList<>(Arrays.asList("kant", "kant")));
+    assertTrue(group.getOwners().add("kant"));
+    assertEquals(Arrays.asList("kant", "kant", "kant"), group.getOwners());
+    GroupSnapshot snapshot = GroupSnapshot.of(group);
+    assertEquals(Arrays.asList("kant", "hegel"), snapshot.getMembers());
+    assertEquals(List.of("kant"), snapshot.getOwners());
+  }
+
+  /**
+   * Copy and grow.
+   */
+  @Test
+  void copyAndGrow() {
+    UserNameList list = new UserNameList();
+    for (int i = 999; i >= 0; i--) {
+      assertTrue(list.add("user-" + i));
+    }
+    UserNameList copy = new UserNameList(list);
+    assertEquals(list, copy);
+    assertTrue(copy.remove("user-500"));
+    assertTrue(list.contains("user-500"));
+    assertFalse(copy.contains("user-500"));
+    assertEquals(0, copy.indexOf("user-999"));
+    assertEquals(998, copy.indexOf("user-0"));
+    assertEquals("user-501", copy.set(498, "user-500"));
+    assertTrue(copy.contains("user-500"));
+    assertFalse(copy.contains("user-501"));
+  }
+
+  /**
+   * Equals and hash code.
+   */
+  @Test
+  void equalsAndHashCode() {
+    List<String> values = Arrays.asList("kant", "hegel", "fichte");
+    UserNameList list = new UserNameList(values);
+    assertEquals(values.hashCode(), list.hashCode());
+    assertEquals(values, list);
+    assertEquals(list, values);
+    assertEquals(list, new UserNameList(list));
+    assertEquals(list.hashCode(), new UserNameList(list).hashCode());
+    assertNotEquals(list, new UserNameList(Arrays.asList("hegel", "kant", "fichte")));
+    assertEquals(new ArrayList<>().hashCode(), new UserNameList().hashCode());
+    assertEquals(new UserNameList(), new ArrayList<>());
+
+    list.add("schelling");
+    assertEquals(Arrays.asList("kant", "hegel", "fichte", "schelling").hashCode(),
+        list.hashCode());
+    list.set(3, "hume");
+    assertEquals(Arrays.asList("kant", "hegel", "fichte", "hume").hashCode(), list.hashCode());
+    list.remove("hegel");
+    assertEquals(Arrays.asList("kant", "fichte", "hume").hashCode(), list.hashCode());
+    list.add(0, "hegel");
+    assertEquals(Arrays.asList("hegel", "kant", "fichte", "hume").hashCode(), list.hashCode());
+    list.sort(Comparator.naturalOrder());
+    assertEquals(Arrays.asList("fichte", "hegel", "hume", "kant").hashCode(), list.hashCode());
+    list.clear();
+    assertEquals(1, list.hashCode());
+
+    Group group = Group.builder().members(new ArrayList<>(values)).build();
+    int hash = group.hashCode();
+    group.getMembers().add("schelling");
+    assertNotEquals(hash, group.hashCode());
+  }
+
+  /**
+   * Serialize.
+   *
+   * @throws Exception if serialization fails
+   */
+  @Test
+  void serialize() throws Exception {
+    UserNameList list = new UserNameList(Arrays.asList("kant", "hegel", "fichte"));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(list);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(
+        new ByteArrayInputStream(bytes.toByteArray()))) {
+      Object read = in.readObject();
+      assertTrue(read instanceof UserNameList);
+      assertEquals(list, read);
+      assertTrue(((UserNameList) read).contains("hegel"));
+    }
+  }
+}
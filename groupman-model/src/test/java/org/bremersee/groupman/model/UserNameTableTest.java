@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.groupman.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The user name table test.
+ *
+ * @author Christian Bremer
+ */
+class UserNameTableTest {
+
+  /**
+   * Intern.
+   */
+  @Test
+  void intern() {
+    UserNameTable table = new UserNameTable();
+    assertEquals(0, table.intern(null));
+    assertEquals(1, table.intern("kant"));
+    assertEquals(2, table.intern("hegel"));
+    assertEquals(1, table.intern(new String("kant")));
+    assertEquals(3, table.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i + 3, table.intern("user-" + i));
+    }
+    assertEquals("user-999", table.nameOf(1002));
+  }
+
+  /**
+   * Id of.
+   */
+  @Test
+  void idOf() {
+    UserNameTable table = new UserNameTable();
+    assertEquals(0, table.idOf(null));
+    assertEquals(-1, table.idOf("kant"));
+    int id = table.intern("kant");
+    assertEquals(id, table.idOf("kant"));
+    assertEquals(2, table.size());
+  }
+
+  /**
+   * Name of.
+   */
+  @Test
+  void nameOf() {
+    UserNameTable table = new UserNameTable();
+    assertNull(table.nameOf(0));
+    assertEquals("kant", table.nameOf(table.intern("kant")));
+    assertThrows(IllegalArgumentException.class, () -> table.nameOf(-1));
+    assertThrows(IllegalArgumentException.class, () -> table.nameOf(2));
+    assertThrows(IllegalArgumentException.class, () -> table.nameOf(Integer.MAX_VALUE));
+  }
+
+  /**
+   * Canonical.
+   */
+  @Test
+  void canonical() {
+    String value = UUID.randomUUID().toString();
+    String copy = new String(value);
+    assertNotSame(value, copy);
+    UserNameTable table = new UserNameTable();
+    assertSame(table.canonical(value), table.canonical(copy));
+    assertSame(
+        table.canonical(value),
+        GroupSnapshot.of(Group.builder().createdBy(copy).build(), table).getCreatedBy());
+    assertSame(
+        table.canonical(value),
+        GroupSnapshot.of(Group.builder().members(List.of(copy)).build(), table)
+            .getMembers().get(0));
+    assertSame(copy, Group.builder().createdBy(copy).build().getCreatedBy());
+    assertEquals(2, table.size());
+  }
+}